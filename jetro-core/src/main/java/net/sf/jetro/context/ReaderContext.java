@@ -0,0 +1,196 @@
+/*
+ * #%L
+ * Jetro Core
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.context;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This class stores settings related to JSON parsing and makes them accessible.
+ * 
+ * @author Matthias Rothe
+ */
+public class ReaderContext {
+	/**
+	 * The smallest buffer size a reader can work with.
+	 */
+	public static final int MIN_BUFFER_SIZE = 16;
+
+	/**
+	 * The default limit up to which a reader grows its buffer.
+	 */
+	public static final int DEFAULT_MAX_BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * The default number of slots of the pool a reader uses to share string
+	 * instances, most notably property names.
+	 */
+	public static final int DEFAULT_STRING_POOL_SIZE = 1024;
+
+	private boolean lenient;
+	private int bufferSize;
+	private int maxBufferSize = DEFAULT_MAX_BUFFER_SIZE;
+	private int stringPoolSize = DEFAULT_STRING_POOL_SIZE;
+	private final Set<String> knownNames = new LinkedHashSet<>();
+
+	/**
+	 * Returns the lenient setting.
+	 * 
+	 * @return the lenient setting
+	 */
+	public boolean isLenient() {
+		return lenient;
+	}
+
+	/**
+	 * Sets the lenient setting and returns this object.
+	 * 
+	 * @param lenient the lenient setting to set
+	 * @return this object
+	 */
+	public ReaderContext setLenient(boolean lenient) {
+		this.lenient = lenient;
+		return this;
+	}
+
+	/**
+	 * Returns the initial buffer size. 0 means the default buffer size of
+	 * the reader is used.
+	 * 
+	 * @return the initial buffer size
+	 */
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * Sets the initial size of the reader's buffer and returns this object.
+	 * The size is given in characters for character based readers and in
+	 * bytes for byte based readers. 0 selects the reader's default size.
+	 * 
+	 * @param bufferSize the initial buffer size to set
+	 * @return this object
+	 * @throws IllegalArgumentException if bufferSize is neither 0 nor at least
+	 * {@link #MIN_BUFFER_SIZE}
+	 */
+	public ReaderContext setBufferSize(int bufferSize) {
+		if (bufferSize != 0 && bufferSize < MIN_BUFFER_SIZE) {
+			throw new IllegalArgumentException("bufferSize must be 0 or at least " + MIN_BUFFER_SIZE);
+		}
+
+		this.bufferSize = bufferSize;
+		return this;
+	}
+
+	/**
+	 * Returns the size up to which a reader grows its buffer.
+	 * 
+	 * @return the maximum buffer size
+	 */
+	public int getMaxBufferSize() {
+		return maxBufferSize;
+	}
+
+	/**
+	 * Sets the size up to which a reader grows its buffer to keep a string
+	 * value in one piece and returns this object. Longer strings are assembled
+	 * from several buffer fills. A maximum smaller than the initial buffer size
+	 * disables growing.
+	 * 
+	 * @param maxBufferSize the maximum buffer size to set
+	 * @return this object
+	 */
+	public ReaderContext setMaxBufferSize(int maxBufferSize) {
+		this.maxBufferSize = maxBufferSize;
+		return this;
+	}
+
+	/**
+	 * Returns the number of slots of the string pool of each reader.
+	 * 
+	 * @return the string pool size
+	 */
+	public int getStringPoolSize() {
+		return stringPoolSize;
+	}
+
+	/**
+	 * Sets the number of slots of the pool each reader uses to share string
+	 * instances of repeated property names and short values, and returns this
+	 * object. Every reader owns its pool, so there is no contention between
+	 * readers running on different threads.
+	 * 
+	 * @param stringPoolSize the string pool size to set, must be a power of two
+	 * @return this object
+	 * @throws IllegalArgumentException if stringPoolSize is not a power of two
+	 */
+	public ReaderContext setStringPoolSize(int stringPoolSize) {
+		if (stringPoolSize <= 0 || (stringPoolSize & (stringPoolSize - 1)) != 0) {
+			throw new IllegalArgumentException("stringPoolSize must be a power of two");
+		}
+
+		this.stringPoolSize = stringPoolSize;
+		return this;
+	}
+
+	/**
+	 * Returns the property names the string pool of each reader is seeded with.
+	 * 
+	 * @return an unmodifiable view of the known names
+	 */
+	public Set<String> getKnownNames() {
+		return Collections.unmodifiableSet(knownNames);
+	}
+
+	/**
+	 * Adds property names expected in the documents to read and returns this
+	 * object. The string pool of each reader is seeded with these names, so
+	 * reading them never allocates a new string.
+	 * 
+	 * @param names the names to add
+	 * @return this object
+	 */
+	public ReaderContext addKnownNames(String... names) {
+		Objects.requireNonNull(names, "names must not be null");
+		return addKnownNames(Arrays.asList(names));
+	}
+
+	/**
+	 * Adds property names expected in the documents to read and returns this
+	 * object. The string pool of each reader is seeded with these names, so
+	 * reading them never allocates a new string.
+	 * 
+	 * @param names the names to add
+	 * @return this object
+	 */
+	public ReaderContext addKnownNames(Collection<String> names) {
+		Objects.requireNonNull(names, "names must not be null");
+
+		for (String name : names) {
+			knownNames.add(Objects.requireNonNull(name, "names must not contain null"));
+		}
+
+		return this;
+	}
+}
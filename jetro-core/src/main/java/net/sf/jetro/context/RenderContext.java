@@ -40,7 +40,8 @@ public class RenderContext {
 	}
 
 	/**
-	 * Sets the indent and returns this object.
+	 * Sets the indent and returns this object. A non-empty indent enables
+	 * pretty printing, with each level indented by the indent once more.
 	 * 
 	 * @param indent the indent to set
 	 * @return this object
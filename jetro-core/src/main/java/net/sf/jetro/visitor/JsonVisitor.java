@@ -37,4 +37,48 @@ public interface JsonVisitor<R> {
 	void visitEnd();
 
 	R getVisitingResult();
+
+	/**
+	 * Tells whether this visitor ignores all events up to its {@link #visitEnd()}
+	 * call. A {@link VisitingReader} may then skip the content of the JSON object
+	 * or array this visitor was returned for and only call visitEnd().
+	 * 
+	 * @return true if the content may be skipped, false by default
+	 */
+	default boolean ignoresContent() {
+		return false;
+	}
+
+	/**
+	 * Tells whether this visitor accepts string values in chunks, see
+	 * {@link #visitValueChunk(CharSequence, boolean)}. A {@link VisitingReader}
+	 * may then pass string values on piece by piece instead of creating a
+	 * String holding the complete value, so even huge values need only
+	 * constant memory.
+	 * 
+	 * @return true if string values may be visited in chunks, false by default
+	 */
+	default boolean acceptsValueChunks() {
+		return false;
+	}
+
+	/**
+	 * Visits the next chunk of a string value. A value is visited by one or
+	 * more calls, the last one having {@code last} set to true; concatenated,
+	 * the chunks form the value. Chunks may be empty. The chunk is only valid
+	 * during this call, so it must be copied if it needs to be kept.
+	 * <p>
+	 * This method is only called on visitors whose
+	 * {@link #acceptsValueChunks()} returns true, everyone else receives the
+	 * complete value by {@link #visitValue(String)}. Visitors returning true
+	 * must override this method.
+	 * 
+	 * @param chunk the next chunk of the string value
+	 * @param last whether this is the last chunk of the value
+	 * @throws UnsupportedOperationException unless overridden by a visitor
+	 * accepting value chunks
+	 */
+	default void visitValueChunk(CharSequence chunk, boolean last) {
+		throw new UnsupportedOperationException("This visitor doesn't accept value chunks");
+	}
 }
\ No newline at end of file
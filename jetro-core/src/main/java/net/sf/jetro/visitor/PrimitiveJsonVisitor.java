@@ -0,0 +1,54 @@
+/*
+ * #%L
+ * Jetro Core
+ * %%
+ * Copyright (C) 2013 - 2016 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.visitor;
+
+/**
+ * A {@link JsonVisitor} that accepts numbers as primitive values. Producers of
+ * visiting events, like the stream based VisitingReader, check for this
+ * interface and pass numbers they have already decoded as primitives instead
+ * of allocating a {@link Number} for each of them.
+ * <p>
+ * The default implementations bridge to {@link #visitValue(Number)}, so
+ * implementors only need to override the methods for which they can avoid
+ * boxing.
+ * 
+ * @param <R> the return type of {@link #getVisitingResult()}
+ * @author Matthias Rothe
+ */
+public interface PrimitiveJsonVisitor<R> extends JsonVisitor<R> {
+
+	/**
+	 * Visits an integral number value.
+	 * 
+	 * @param value the value to visit
+	 */
+	default void visitValue(long value) {
+		visitValue((Number) Long.valueOf(value));
+	}
+
+	/**
+	 * Visits a floating point number value.
+	 * 
+	 * @param value the value to visit
+	 */
+	default void visitValue(double value) {
+		visitValue((Number) Double.valueOf(value));
+	}
+}
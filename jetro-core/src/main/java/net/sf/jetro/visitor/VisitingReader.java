@@ -19,6 +19,8 @@
  */
 package net.sf.jetro.visitor;
 
+import java.util.function.Consumer;
+
 /**
  * Generic interface for a class reading a representation of JSON and calling
  * the methods of the {@link JsonVisitor} given to the {@link #accept(JsonVisitor)}
@@ -35,4 +37,29 @@ public interface VisitingReader {
 	 * @param visitor The accepted visitor
 	 */
 	void accept(JsonVisitor<?> visitor);
+
+	/**
+	 * Accepts a visitor for each top-level value (record) of the read JSON
+	 * representation, as found in JSON Lines (NDJSON) files. The same visitor
+	 * is used for all records: {@link JsonVisitor#visitEnd()} is called at the
+	 * end of each record and the result of {@link JsonVisitor#getVisitingResult()}
+	 * is passed to the consumer before the next record is read. So visitors
+	 * must be ready to visit the next record once their result is retrieved.
+	 * <p>
+	 * This default implementation treats the whole representation as a single
+	 * record.
+	 * 
+	 * @param <R> the type of the visiting result
+	 * @param visitor The accepted visitor
+	 * @param consumer The consumer of the visiting result of each record
+	 * @throws IllegalArgumentException if consumer is null
+	 */
+	default <R> void acceptEach(JsonVisitor<R> visitor, Consumer<? super R> consumer) {
+		if (consumer == null) {
+			throw new IllegalArgumentException("consumer must not be null");
+		}
+
+		accept(visitor);
+		consumer.accept(visitor.getVisitingResult());
+	}
 }
\ No newline at end of file
@@ -22,15 +22,55 @@ package net.sf.jetro.visitor.chained;
 import net.sf.jetro.visitor.JsonArrayVisitor;
 import net.sf.jetro.visitor.JsonObjectVisitor;
 import net.sf.jetro.visitor.JsonVisitor;
+import net.sf.jetro.visitor.PrimitiveJsonVisitor;
 
 /**
  * A {@link JsonVisitor} supporting chaining of visitors.
+ * <p>
+ * Primitive number values are passed on to the next visitor as they are, unless
+ * the hooks of this visitor need to see them, see {@link #observesNumberValues()}.
+ * In that case they are boxed and handed to {@link #visitValue(Number)}.
+ * <p>
+ * A chained visitor ignores the content of an object or array if the next
+ * visitor does and its own hooks don't need to see it, see
+ * {@link #observesContent()}. This allows readers to skip subtrees dropped
+ * anywhere in the chain.
+ * <p>
+ * Likewise, string values are passed on in chunks if the next visitor accepts
+ * them and the hooks of this visitor don't need to see the complete value, see
+ * {@link #observesStringValues()}.
  * 
  * @param <R> the return type of {@link #getVisitingResult()}
  * @author Matthias Rothe
  */
-public abstract class ChainedJsonVisitor<R> implements JsonVisitor<R> {
+public abstract class ChainedJsonVisitor<R> implements PrimitiveJsonVisitor<R> {
+	private static final HookOverrides NUMBER_HOOKS = new HookOverrides(ChainedJsonVisitor.class)
+			.hook("beforeVisitValue", Number.class)
+			.hook("afterVisitValue", Number.class);
+
+	private static final HookOverrides STRING_HOOKS = new HookOverrides(ChainedJsonVisitor.class)
+			.hook("beforeVisitValue", String.class)
+			.hook("afterVisitValue", String.class);
+
+	private static final HookOverrides CONTENT_HOOKS = new HookOverrides(ChainedJsonVisitor.class)
+			.hook("beforeVisitObject")
+			.hook("afterVisitObject", JsonObjectVisitor.class)
+			.hook("beforeVisitArray")
+			.hook("afterVisitArray", JsonArrayVisitor.class)
+			.hook("beforeVisitProperty", String.class)
+			.hook("afterVisitProperty", String.class)
+			.hook("beforeVisitValue", boolean.class)
+			.hook("afterVisitValue", Boolean.class)
+			.hook("beforeVisitValue", Number.class)
+			.hook("afterVisitValue", Number.class)
+			.hook("beforeVisitValue", String.class)
+			.hook("afterVisitValue", String.class)
+			.hook("beforeVisitValueChunks")
+			.hook("beforeVisitNullValue")
+			.hook("afterVisitNullValue");
+
 	private JsonVisitor<R> nextVisitor;
+	private boolean visitingValueChunks;
 
 	/**
 	 * This constructor is used if the resulting object is supposed to be the end point of a
@@ -126,6 +166,32 @@ public abstract class ChainedJsonVisitor<R> implements JsonVisitor<R> {
 		afterVisitValue(value);
 	}
 
+	@Override
+	public final void visitValue(long value) {
+		JsonVisitor<R> next = getNextVisitor();
+
+		if (observesNumberValues()) {
+			visitValue((Number) Long.valueOf(value));
+		} else if (next instanceof PrimitiveJsonVisitor) {
+			((PrimitiveJsonVisitor<R>) next).visitValue(value);
+		} else if (next != null) {
+			next.visitValue((Number) Long.valueOf(value));
+		}
+	}
+
+	@Override
+	public final void visitValue(double value) {
+		JsonVisitor<R> next = getNextVisitor();
+
+		if (observesNumberValues()) {
+			visitValue((Number) Double.valueOf(value));
+		} else if (next instanceof PrimitiveJsonVisitor) {
+			((PrimitiveJsonVisitor<R>) next).visitValue(value);
+		} else if (next != null) {
+			next.visitValue((Number) Double.valueOf(value));
+		}
+	}
+
 	protected Number beforeVisitValue(Number value) {
 		return value;
 	}
@@ -133,6 +199,19 @@ public abstract class ChainedJsonVisitor<R> implements JsonVisitor<R> {
 	protected void afterVisitValue(Number value) {
 	}
 
+	/**
+	 * Tells whether the hooks of this visitor need to see number values. This
+	 * is the case for any subclass overriding one of the number hooks
+	 * {@link #beforeVisitValue(Number)} or {@link #afterVisitValue(Number)}.
+	 * Otherwise primitive number values are passed on without boxing them.
+	 * Subclasses may override this to state it explicitly.
+	 * 
+	 * @return whether the hooks of this visitor observe number values
+	 */
+	protected boolean observesNumberValues() {
+		return NUMBER_HOOKS.isOverriddenBy(getClass());
+	}
+
 	@Override
 	public final void visitValue(String value) {
 		value = beforeVisitValue(value);
@@ -151,6 +230,47 @@ public abstract class ChainedJsonVisitor<R> implements JsonVisitor<R> {
 	protected void afterVisitValue(String value) {
 	}
 
+	@Override
+	public boolean acceptsValueChunks() {
+		JsonVisitor<R> next = getNextVisitor();
+		return !observesStringValues() && (next == null || next.acceptsValueChunks());
+	}
+
+	@Override
+	public final void visitValueChunk(CharSequence chunk, boolean last) {
+		if (!visitingValueChunks) {
+			visitingValueChunks = true;
+			beforeVisitValueChunks();
+		}
+
+		if (getNextVisitor() != null) {
+			getNextVisitor().visitValueChunk(chunk, last);
+		}
+
+		if (last) {
+			visitingValueChunks = false;
+		}
+	}
+
+	/**
+	 * Called before the first chunk of a string value is passed on, see
+	 * {@link #visitValueChunk(CharSequence, boolean)}.
+	 */
+	protected void beforeVisitValueChunks() {
+	}
+
+	/**
+	 * Tells whether the hooks of this visitor need to see string values as a
+	 * whole. This is the case for any subclass overriding one of the string
+	 * hooks {@link #beforeVisitValue(String)} or {@link #afterVisitValue(String)}.
+	 * Otherwise string values may be passed on in chunks.
+	 * 
+	 * @return whether the hooks of this visitor observe string values
+	 */
+	protected boolean observesStringValues() {
+		return STRING_HOOKS.isOverriddenBy(getClass());
+	}
+
 	@Override
 	public final void visitNullValue() {
 		boolean passOn = beforeVisitNullValue();
@@ -187,6 +307,26 @@ public abstract class ChainedJsonVisitor<R> implements JsonVisitor<R> {
 	protected void afterVisitEnd() {
 	}
 
+	@Override
+	public boolean ignoresContent() {
+		JsonVisitor<R> next = getNextVisitor();
+		return !observesContent() && (next == null || next.ignoresContent());
+	}
+
+	/**
+	 * Tells whether the hooks of this visitor need to see the events nested in
+	 * an object or array even if the next visitor ignores them. This is the case
+	 * for any subclass overriding a hook called for those events, that is any
+	 * hook but the ones of {@link #visitEnd()} and {@link #getVisitingResult()}.
+	 * Subclasses whose hooks only decide what to pass on may return false, so
+	 * dropped subtrees can be skipped.
+	 * 
+	 * @return whether the hooks of this visitor observe the content
+	 */
+	protected boolean observesContent() {
+		return CONTENT_HOOKS.isOverriddenBy(getClass());
+	}
+
 	@Override
 	public final R getVisitingResult() {
 		beforeGetVisitingResult();
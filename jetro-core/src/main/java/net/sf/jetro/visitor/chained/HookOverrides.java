@@ -0,0 +1,106 @@
+/*
+ * #%L
+ * Jetro Core
+ * %%
+ * Copyright (C) 2013 - 2016 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.visitor.chained;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tells for each subclass of a visitor base class whether it overrides one of
+ * a set of hook methods. Only the classes between the subclass and the base
+ * class are taken into account, so the base class and its superclasses may
+ * declare the hooks themselves. The result is computed once per class.
+ * <p>
+ * The hooks must be registered by {@link #hook(String, Class...)} before the
+ * first class is looked up.
+ *
+ * @author Matthias Rothe
+ */
+public final class HookOverrides extends ClassValue<Boolean> {
+	private final Class<?> base;
+	private final List<String> names = new ArrayList<>();
+	private final List<Class<?>[]> parameterTypes = new ArrayList<>();
+
+	/**
+	 * Creates an empty set of hooks declared by the given base class or its
+	 * superclasses.
+	 *
+	 * @param base the class the hooks are looked up below
+	 * @throws IllegalArgumentException if base is null
+	 */
+	public HookOverrides(final Class<?> base) {
+		if (base == null) {
+			throw new IllegalArgumentException("base must not be null");
+		}
+
+		this.base = base;
+	}
+
+	/**
+	 * Adds the hook method with the given name and parameter types.
+	 *
+	 * @param name the name of the hook method
+	 * @param parameterTypes the parameter types of the hook method
+	 * @return this set of hooks
+	 * @throws IllegalArgumentException if name is null
+	 */
+	public HookOverrides hook(final String name, final Class<?>... parameterTypes) {
+		if (name == null) {
+			throw new IllegalArgumentException("name must not be null");
+		}
+
+		names.add(name);
+		this.parameterTypes.add(parameterTypes);
+		return this;
+	}
+
+	/**
+	 * Tells whether the given subclass of the base class overrides any of the
+	 * hooks.
+	 *
+	 * @param type the subclass to check
+	 * @return whether a class below the base class declares one of the hooks
+	 */
+	public boolean isOverriddenBy(final Class<?> type) {
+		return get(type);
+	}
+
+	@Override
+	protected Boolean computeValue(final Class<?> type) {
+		for (Class<?> current = type; current != null && current != base; current = current.getSuperclass()) {
+			for (int i = 0; i < names.size(); i++) {
+				if (declares(current, names.get(i), parameterTypes.get(i))) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean declares(final Class<?> type, final String name, final Class<?>[] parameterTypes) {
+		try {
+			type.getDeclaredMethod(name, parameterTypes);
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+}
@@ -123,6 +123,26 @@ public abstract class UniformChainedJsonVisitor<R> extends ChainedJsonVisitor<R>
 		protected R afterGetVisitingResult(R visitingResult) {
 			return UniformChainedJsonVisitor.this.afterGetVisitingResult(visitingResult);
 		}
+
+		@Override
+		protected boolean observesNumberValues() {
+			return UniformChainedJsonVisitor.this.observesNumberValues();
+		}
+
+		@Override
+		protected boolean observesContent() {
+			return UniformChainedJsonVisitor.this.observesContent();
+		}
+
+		@Override
+		protected void beforeVisitValueChunks() {
+			UniformChainedJsonVisitor.this.beforeVisitValueChunks();
+		}
+
+		@Override
+		protected boolean observesStringValues() {
+			return UniformChainedJsonVisitor.this.observesStringValues();
+		}
 	}
 
 	private class UniformChainedJsonArrayVisitor extends ChainedJsonArrayVisitor<R> {
@@ -224,6 +244,26 @@ public abstract class UniformChainedJsonVisitor<R> extends ChainedJsonVisitor<R>
 		protected R afterGetVisitingResult(R visitingResult) {
 			return UniformChainedJsonVisitor.this.afterGetVisitingResult(visitingResult);
 		}
+
+		@Override
+		protected boolean observesNumberValues() {
+			return UniformChainedJsonVisitor.this.observesNumberValues();
+		}
+
+		@Override
+		protected boolean observesContent() {
+			return UniformChainedJsonVisitor.this.observesContent();
+		}
+
+		@Override
+		protected void beforeVisitValueChunks() {
+			UniformChainedJsonVisitor.this.beforeVisitValueChunks();
+		}
+
+		@Override
+		protected boolean observesStringValues() {
+			return UniformChainedJsonVisitor.this.observesStringValues();
+		}
 	}
 
 	public UniformChainedJsonVisitor() {
@@ -19,49 +19,107 @@
  */
 package net.sf.jetro.visitor.pathaware;
 
-import net.sf.jetro.path.ArrayIndexPathElement;
+import java.util.Arrays;
+
 import net.sf.jetro.path.JsonPath;
-import net.sf.jetro.path.PropertyNamePathElement;
-import net.sf.jetro.util.Stack;
+import net.sf.jetro.path.JsonPathCursor;
+import net.sf.jetro.path.JsonPathMatcher;
 import net.sf.jetro.visitor.JsonVisitor;
+import net.sf.jetro.visitor.chained.HookOverrides;
 import net.sf.jetro.visitor.chained.UniformChainedJsonVisitor;
 
 public abstract class PathAwareJsonVisitor<R> extends UniformChainedJsonVisitor<R> {
-	private abstract class ParseState {
-		private boolean justEntered;
-		
-		protected void setJustEntered(final boolean justEntered) {
-			this.justEntered = justEntered;
-		}
+	private static final HookOverrides STRING_HOOKS = new HookOverrides(PathAwareJsonVisitor.class)
+			.hook("doBeforeVisitValue", String.class)
+			.hook("afterVisitValue", String.class);
+
+	/*
+	 * The state of each open object or array, kept in an int per level: the
+	 * index of the next element of an array, or one of these for an object.
+	 * An array has just been entered as long as its next index is 0.
+	 */
+	private static final int OBJECT_JUST_ENTERED = -1;
+	private static final int OBJECT = -2;
+
+	private JsonPathCursor currentPath = new JsonPathCursor();
+	private int[] states = new int[16];
+	private int depth;
+
+	public PathAwareJsonVisitor() {
 	}
 
-	private class ObjectState extends ParseState {
+	public PathAwareJsonVisitor(final JsonVisitor<R> nextVisitor) {
+		super(nextVisitor);
 	}
 
-	private class ArrayState extends ParseState {
-		private int index;
+	/**
+	 * Returns the current path. The path is created on demand and kept until
+	 * the visit moves on, so prefer {@link #currentPathMatches(JsonPath)} or
+	 * {@link #currentPathCursor()} where no JsonPath instance is needed.
+	 * 
+	 * @return the current path
+	 */
+	protected JsonPath currentPath() {
+		return currentPath.toJsonPath();
 	}
 
-	private JsonPath currentPath = new JsonPath();
-	private Stack<ParseState> stateStack = new Stack<ParseState>();
+	/**
+	 * Tells whether the current path matches the given pattern without
+	 * creating a JsonPath for it.
+	 * 
+	 * @param jsonPathPattern the pattern to match
+	 * @return <code>true</code> if and only if the current path matches the
+	 * given pattern
+	 */
+	protected boolean currentPathMatches(final JsonPath jsonPathPattern) {
+		return currentPath.matches(jsonPathPattern);
+	}
 
-	public PathAwareJsonVisitor() {
+	/**
+	 * Tells whether the current path matches the pattern with the given index
+	 * of the matcher set by {@link #usePathMatcher(JsonPathMatcher)}, in
+	 * constant time.
+	 * 
+	 * @param pattern the index of the pattern
+	 * @return <code>true</code> if and only if the current path matches the
+	 * pattern
+	 * @throws IllegalStateException if no matcher is set
+	 */
+	protected boolean currentPathMatches(final int pattern) {
+		return currentPath.matches(pattern);
 	}
 
-	public PathAwareJsonVisitor(final JsonVisitor<R> nextVisitor) {
-		super(nextVisitor);
+	/**
+	 * Tracks the current path with a cursor advancing the given matcher, so
+	 * the matcher's patterns are matched by the matcher's automaton, also
+	 * when passed to {@link #currentPathMatches(JsonPath)}. Must be called
+	 * before visiting, at the root path.
+	 * 
+	 * @param matcher the matcher to advance
+	 * @throws IllegalStateException if not at the root path
+	 */
+	protected void usePathMatcher(final JsonPathMatcher matcher) {
+		if (!currentPath.isRootPath()) {
+			throw new IllegalStateException("The matcher can only be set at the root path.");
+		}
+
+		currentPath = new JsonPathCursor(matcher);
 	}
 
-	protected JsonPath currentPath() {
+	/**
+	 * Returns the cursor tracking the current path. It must not be changed
+	 * by subclasses.
+	 * 
+	 * @return the cursor of the current path
+	 */
+	protected JsonPathCursor currentPathCursor() {
 		return currentPath;
 	}
 
 	@Override
 	protected final boolean beforeVisitObject() {
 		handleVisitValue();
-		ObjectState state = new ObjectState();
-		state.setJustEntered(true);
-		stateStack.push(state);
+		pushState(OBJECT_JUST_ENTERED);
 		return doBeforeVisitObject();
 	}
 
@@ -72,9 +130,7 @@ public abstract class PathAwareJsonVisitor<R> extends UniformChainedJsonVisitor<
 	@Override
 	protected final boolean beforeVisitArray() {
 		handleVisitValue();
-		ArrayState state = new ArrayState();
-		state.setJustEntered(true);
-		stateStack.push(state);
+		pushState(0);
 		return doBeforeVisitArray();
 	}
 
@@ -84,18 +140,14 @@ public abstract class PathAwareJsonVisitor<R> extends UniformChainedJsonVisitor<
 
 	@Override
 	protected final String beforeVisitProperty(final String name) {
-		if (!stateStack.isEmpty()) {
-			ParseState state = stateStack.peek();
-
-			if (state instanceof PathAwareJsonVisitor.ObjectState) {
-				PropertyNamePathElement pathElement = new PropertyNamePathElement(name);
-
-				if (state.justEntered) {
-					state.justEntered = false;
-					currentPath = currentPath.append(pathElement);
-				} else {
-					currentPath = currentPath.replaceLastElementWith(pathElement);
-				}
+		if (depth > 0) {
+			int state = states[depth - 1];
+
+			if (state == OBJECT_JUST_ENTERED) {
+				states[depth - 1] = OBJECT;
+				currentPath.appendPropertyName(name);
+			} else if (state == OBJECT) {
+				currentPath.replaceLastWithPropertyName(name);
 			}
 		}
 
@@ -136,6 +188,23 @@ public abstract class PathAwareJsonVisitor<R> extends UniformChainedJsonVisitor<
 		return value;
 	}
 
+	@Override
+	protected final void beforeVisitValueChunks() {
+		handleVisitValue();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Tracking the path doesn't need the value, so only the string hooks of
+	 * subclasses, {@link #doBeforeVisitValue(String)} and
+	 * {@link #afterVisitValue(String)}, are taken into account.
+	 */
+	@Override
+	protected boolean observesStringValues() {
+		return STRING_HOOKS.isOverriddenBy(getClass());
+	}
+
 	@Override
 	protected final boolean beforeVisitNullValue() {
 		handleVisitValue();
@@ -146,19 +215,25 @@ public abstract class PathAwareJsonVisitor<R> extends UniformChainedJsonVisitor<
 		return true;
 	}
 
+	private void pushState(final int state) {
+		if (depth == states.length) {
+			states = Arrays.copyOf(states, 2 * depth);
+		}
+
+		states[depth++] = state;
+	}
+
 	private void handleVisitValue() {
-		if (!stateStack.isEmpty()) {
-			ParseState state = stateStack.peek();
+		if (depth > 0) {
+			int index = states[depth - 1];
 
-			if (state instanceof PathAwareJsonVisitor.ArrayState) {
-				@SuppressWarnings("unchecked")
-				ArrayIndexPathElement pathElement = new ArrayIndexPathElement(((ArrayState) state).index++);
+			if (index >= 0) {
+				states[depth - 1] = index + 1;
 
-				if (state.justEntered) {
-					state.justEntered = false;
-					currentPath = currentPath.append(pathElement);
+				if (index == 0) {
+					currentPath.appendArrayIndex(index);
 				} else {
-					currentPath = currentPath.replaceLastElementWith(pathElement);
+					currentPath.replaceLastWithArrayIndex(index);
 				}
 			}
 		}
@@ -195,11 +270,11 @@ public abstract class PathAwareJsonVisitor<R> extends UniformChainedJsonVisitor<
 	}
 
 	private void handleVisitEnd() {
-		if (!stateStack.isEmpty()) {
-			ParseState state = stateStack.pop();
+		if (depth > 0) {
+			int state = states[--depth];
 
-			if (!state.justEntered) {
-				currentPath = currentPath.removeLastElement();
+			if (state != OBJECT_JUST_ENTERED && state != 0) {
+				currentPath.removeLastElement();
 			}
 		}
 	}
@@ -80,4 +80,38 @@ public class PathAwareJsonVisitorTest {
 
 		assertEquals(actuals, expecteds);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void shouldMatchCurrentPathLikeSnapshots() {
+		final JsonPath[] patterns = { JsonPath.compile("$.key[*]"), JsonPath.compile("$.key[4]:"),
+				JsonPath.compile("$.key[5].key"), JsonPath.compile("$.*") };
+		final List<Boolean> expecteds = new ArrayList<Boolean>();
+		final List<Boolean> actuals = new ArrayList<Boolean>();
+
+		new DummyVisitingReader().accept(new PathAwareJsonVisitor<Void>() {
+			@Override
+			protected void afterVisitValue(Number value) {
+				record();
+			}
+
+			@Override
+			protected void afterVisitValue(String value) {
+				record();
+			}
+
+			@Override
+			protected void afterVisitNullValue() {
+				record();
+			}
+
+			private void record() {
+				for (JsonPath pattern : patterns) {
+					expecteds.add(currentPath().matches(pattern));
+					actuals.add(currentPathMatches(pattern));
+				}
+			}
+		});
+
+		assertEquals(actuals, expecteds);
+	}
+}
@@ -21,16 +21,20 @@ package net.sf.jetro.object;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
 
+import net.sf.jetro.context.RenderContext;
 import net.sf.jetro.object.deserializer.DeserializationContext;
 import net.sf.jetro.object.reflect.TypeToken;
 import net.sf.jetro.object.serializer.SerializationContext;
 import net.sf.jetro.object.visitor.ObjectBuildingVisitor;
 import net.sf.jetro.object.visitor.ObjectVisitingReader;
 import net.sf.jetro.stream.JsonReader;
+import net.sf.jetro.stream.Utf8JsonReader;
 import net.sf.jetro.stream.visitor.JsonReturningVisitor;
+import net.sf.jetro.stream.visitor.ParallelArrayVisitingReader;
 import net.sf.jetro.stream.visitor.StreamVisitingReader;
 import net.sf.jetro.visitor.JsonVisitor;
 import net.sf.jetro.visitor.VisitingReader;
@@ -101,7 +105,7 @@ public class ObjectMapper {
 	}
 
 	public String toJson(final Object object, final SerializationContext context) {
-		JsonReturningVisitor receiver = new JsonReturningVisitor();
+		JsonReturningVisitor receiver = new JsonReturningVisitor(new RenderContext(), context.getEncodedNames());
 		ObjectVisitingReader reader = new ObjectVisitingReader(object, context);
 		reader.accept(receiver);
 		return receiver.getVisitingResult();
@@ -138,8 +142,7 @@ public class ObjectMapper {
 	}
 	
 	public <T> T fromJson(final InputStream in, final TypeToken<T> targetTypeToken) {
-		try (StreamVisitingReader reader = new StreamVisitingReader(new JsonReader(
-				new InputStreamReader(in, "UTF-8")))) {
+		try (StreamVisitingReader reader = new StreamVisitingReader(new Utf8JsonReader(in))) {
 			return fromJson(reader, targetTypeToken, getDeserializationContext());
 		} catch (IOException e) {
 			throw new IllegalStateException(e);
@@ -153,14 +156,50 @@ public class ObjectMapper {
 	
 	public <T> T fromJson(final InputStream in, final TypeToken<T> targetTypeToken,
 			final DeserializationContext context) {
-		try (StreamVisitingReader reader = new StreamVisitingReader(new JsonReader(
-				new InputStreamReader(in, "UTF-8")))) {
+		try (StreamVisitingReader reader = new StreamVisitingReader(new Utf8JsonReader(in))) {
 			return fromJson(reader, targetTypeToken, context);
 		} catch (IOException e) {
 			throw new IllegalStateException(e);
 		}
 	}
 	
+	public <T> List<T> fromJsonArrayInParallel(final InputStream in, final TypeToken<? extends List<T>> listTypeToken) {
+		return fromJsonArrayInParallel(new ParallelArrayVisitingReader(in), listTypeToken, getDeserializationContext());
+	}
+
+	public <T> List<T> fromJsonArrayInParallel(final InputStream in, final TypeToken<? extends List<T>> listTypeToken,
+			final DeserializationContext context) {
+		return fromJsonArrayInParallel(new ParallelArrayVisitingReader(in), listTypeToken, context);
+	}
+
+	/**
+	 * Deserializes a single, huge top-level JSON array read by the given
+	 * {@link ParallelArrayVisitingReader}, which is closed afterwards. Chunks
+	 * of its elements are deserialized in parallel as lists of the given type
+	 * and concatenated in order. The DeserializationContext is shared by all
+	 * threads, so it must not be changed meanwhile.
+	 *
+	 * @param <T> the type of the elements
+	 * @param reader the reader to read the array with
+	 * @param listTypeToken the type of the list to deserialize each chunk to
+	 * @param context the deserialization context
+	 * @return the list of all elements
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public <T> List<T> fromJsonArrayInParallel(final ParallelArrayVisitingReader reader,
+			final TypeToken<? extends List<T>> listTypeToken, final DeserializationContext context) {
+		List<T> elements = new ArrayList<>();
+
+		try (ParallelArrayVisitingReader visitingReader = reader) {
+			visitingReader.accept(firstIndex -> new ObjectBuildingVisitor<List<T>>((TypeToken) listTypeToken, context),
+					elements::addAll);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+
+		return elements;
+	}
+
 	private <T> T fromJson(final VisitingReader reader, final TypeToken<T> targetTypeToken,
 			final DeserializationContext context) {
 		@SuppressWarnings({ "rawtypes", "unchecked" })
@@ -27,6 +27,8 @@ import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author matthias.rothe
@@ -34,6 +36,7 @@ import java.lang.reflect.Method;
  */
 public class BeanSerializer implements TypeSerializer<Object> {
 	private SerializationContext context;
+	private final Set<Class<?>> registeredTypes = ConcurrentHashMap.newKeySet();
 
 	public BeanSerializer(SerializationContext context) {
 		this.context = context;
@@ -72,6 +75,10 @@ public class BeanSerializer implements TypeSerializer<Object> {
 			BeanInfo info = Introspector.getBeanInfo(toSerialize.getClass());
 			PropertyDescriptor[] properties = info.getPropertyDescriptors();
 
+			if (registeredTypes.add(toSerialize.getClass())) {
+				registerNames(properties);
+			}
+
 			for (PropertyDescriptor property : properties) {
 				Method getter = property.getReadMethod();
 
@@ -90,6 +97,14 @@ public class BeanSerializer implements TypeSerializer<Object> {
 		}
 	}
 
+	private void registerNames(PropertyDescriptor[] properties) {
+		for (PropertyDescriptor property : properties) {
+			if (isRealGetter(property.getReadMethod())) {
+				context.getEncodedNames().register(property.getName());
+			}
+		}
+	}
+
 	private boolean isRealGetter(Method getter) {
 		return getter != null && !getter.getName().equals("getClass");
 	}
@@ -28,6 +28,7 @@ import java.util.function.Function;
 
 import net.sf.jetro.context.RenderContext;
 import net.sf.jetro.object.reflect.TypeToken;
+import net.sf.jetro.stream.EncodedNames;
 
 /**
  * @author matthias.rothe
@@ -42,6 +43,7 @@ public class SerializationContext extends RenderContext {
 	private Map<TypeToken<?>, Function<Object, String>> stringSerializers = new HashMap<>(); 
 
 	private boolean throwNoSerializerException;
+	private final EncodedNames encodedNames = new EncodedNames();
 
 	public SerializationContext() {
 		// Add primitive serializers
@@ -83,6 +85,18 @@ public class SerializationContext extends RenderContext {
 		return this;
 	}
 
+	/**
+	 * Returns the registry of the property names encoded in advance for this
+	 * context. The {@link BeanSerializer} registers the property names of each
+	 * bean class it serializes, so rendering the JSON with this registry
+	 * copies the encoded names instead of escaping them for each bean.
+	 *
+	 * @return the registry of encoded names
+	 */
+	public EncodedNames getEncodedNames() {
+		return encodedNames;
+	}
+
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public TypeSerializer<Object> getTypeSerializer(Object toSerialize) {
 		if (toSerialize == null) {
@@ -19,14 +19,13 @@
  */
 package net.sf.jetro.patch;
 
-import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.Objects;
 
 import net.sf.jetro.object.serializer.SerializationContext;
 import net.sf.jetro.object.visitor.ObjectVisitingReader;
+import net.sf.jetro.stream.CompressedStreams;
 import net.sf.jetro.tree.JsonElement;
 import net.sf.jetro.tree.JsonType;
 import net.sf.jetro.tree.builder.JsonTreeBuilder;
@@ -59,13 +58,9 @@ public class JsonPatch {
 	public static JsonPatchOperationsCollector patch(final InputStream source) {
 		Objects.requireNonNull(source, "Argument 'source' must not be null");
 		
-		try (InputStreamReader reader = new InputStreamReader(source, "UTF-8")) {
-			JsonElement jsonElement = BUILDER.build(reader);
-			return handleJsonElement(jsonElement);
-		} catch (IOException e) {
-			//should never happen
-			throw new RuntimeException(e);
-		}
+		// GZIP or zlib compressed sources are decompressed on the fly
+		JsonElement jsonElement = BUILDER.build(CompressedStreams.decompressing(source));
+		return handleJsonElement(jsonElement);
 	}
 
 	public static JsonPatchOperationsCollector patch(final Reader source) {
@@ -21,7 +21,6 @@ package net.sf.jetro.patch;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -31,7 +30,9 @@ import java.util.Objects;
 import net.sf.jetro.object.deserializer.DeserializationContext;
 import net.sf.jetro.object.reflect.TypeToken;
 import net.sf.jetro.object.visitor.ObjectBuildingVisitor;
+import net.sf.jetro.stream.CompressedStreams;
 import net.sf.jetro.stream.JsonWriter;
+import net.sf.jetro.stream.Utf8JsonWriter;
 import net.sf.jetro.stream.visitor.JsonWritingVisitor;
 import net.sf.jetro.tree.JsonArray;
 import net.sf.jetro.tree.JsonCollection;
@@ -89,14 +90,28 @@ public class JsonPatchApplier {
 	public void andWriteResultTo(final OutputStream out) throws JsonPatchException {
 		Objects.requireNonNull(out, "Argument 'out' must not be null");
 		
-		try (OutputStreamWriter writer = new OutputStreamWriter(out, "UTF-8")) {
-			andWriteResultTo(writer);
+		JsonType target = createTarget();
+		
+		try (Utf8JsonWriter writer = new Utf8JsonWriter(out)) {
+			new JsonElementVisitingReader(target).accept(new JsonWritingVisitor(writer));
 		} catch (IOException e) {
 			//should never happen
 			throw new RuntimeException(e);
 		}
 	}
 	
+	public void andWriteGzipResultTo(final OutputStream out) throws JsonPatchException {
+		Objects.requireNonNull(out, "Argument 'out' must not be null");
+		
+		JsonType target = createTarget();
+		
+		try (Utf8JsonWriter writer = new Utf8JsonWriter(CompressedStreams.gzip(out))) {
+			new JsonElementVisitingReader(target).accept(new JsonWritingVisitor(writer));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
 	public void andWriteResultTo(final Writer out) throws JsonPatchException {
 		Objects.requireNonNull(out, "Argument 'out' must not be null");
 		
@@ -32,6 +32,7 @@ import net.sf.jetro.object.serializer.addons.ToStringSerializer;
 import net.sf.jetro.object.visitor.ObjectVisitingReader;
 import net.sf.jetro.patch.data.PatchOperationData;
 import net.sf.jetro.patch.pointer.JsonPointer;
+import net.sf.jetro.stream.CompressedStreams;
 import net.sf.jetro.tree.JsonCollection;
 import net.sf.jetro.tree.JsonElement;
 import net.sf.jetro.tree.JsonType;
@@ -65,7 +66,7 @@ public class JsonPatchOperationsCollector {
 		
 		try {
 			JsonElement jsonElement = BUILDER.build(
-					new InputStreamReader(patchOperations, "UTF-8"));
+					new InputStreamReader(CompressedStreams.decompressing(patchOperations), "UTF-8"));
 			return handleJsonElement(jsonElement);
 		} catch (UnsupportedEncodingException e) {
 			//should never happen
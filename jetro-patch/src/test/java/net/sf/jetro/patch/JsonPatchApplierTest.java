@@ -21,10 +21,13 @@ package net.sf.jetro.patch;
 
 import static org.testng.Assert.assertEquals;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringWriter;
 import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
 
 import org.testng.annotations.Test;
 
@@ -81,6 +84,25 @@ public class JsonPatchApplierTest {
 		assertEquals(actual, expected);
 	}
 	
+	@Test
+	public void shouldAndWriteGzipResultToOutputStream() throws JsonPatchException, IOException {
+		String expected = "{\"a\":[1]}";
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		getJsonPatchApplier().andWriteGzipResultTo(out);
+
+		ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			byte[] buffer = new byte[256];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				decompressed.write(buffer, 0, read);
+			}
+		}
+
+		assertEquals(decompressed.toString("UTF-8"), expected);
+	}
+	
 	@Test
 	public void shouldAndWriteResultToWriter() throws JsonPatchException {
 		String expected = "{\"a\":[1]}";
@@ -46,8 +46,6 @@ public final class JsonPath implements Cloneable, Serializable {
 	static final String OPTIONAL = "?";
 	static final String END_OF_ARRAY = "-";
 
-	private static JsonPathCompiler compiler;
-
 	private JsonPathElement[] pathElements;
 	private boolean containsOptionals;
 	private int size;
@@ -256,6 +254,10 @@ public final class JsonPath implements Cloneable, Serializable {
 		return size;
 	}
 
+	JsonPathElement getElementAt(final int depth) {
+		return pathElements[depth];
+	}
+
 	/**
 	 * Tells whether or not this JsonPath is a parent of the given JsonPath.
 	 * 
@@ -571,7 +573,9 @@ public final class JsonPath implements Cloneable, Serializable {
 	 * $.bar[*]:          addresses all the elements of the array assigned to the property named bar and all their children recursively
 	 * </pre>
 	 * <p>
-	 * This method is Thread-safe.
+	 * This method is thread safe and lock free. The paths compiled are cached, see
+	 * {@link #getCache()}, so compiling the same string again returns the same
+	 * immutable instance.
 	 * 
 	 * @param jsonPath the String to compile
 	 * @return the compiled JsonPath
@@ -579,12 +583,26 @@ public final class JsonPath implements Cloneable, Serializable {
 	 * @throws IllegalArgumentException if the given jsonPath is null or empty
 	 */
 	public static JsonPath compile(final String jsonPath) {
-		synchronized (JsonPath.class) {
-			if (compiler == null) {
-				compiler = new JsonPathCompiler();
-			}
-		}
+		return CacheHolder.CACHE.compile(jsonPath);
+	}
 
-		return compiler.compile(jsonPath);
+	/**
+	 * Returns the cache of the paths compiled by {@link #compile(String)}, holding
+	 * up to {@link JsonPathCache#DEFAULT_MAXIMUM_SIZE} paths. Its statistics tell
+	 * how often the paths are found there.
+	 * 
+	 * @return the cache of compiled paths
+	 */
+	public static JsonPathCache getCache() {
+		return CacheHolder.CACHE;
+	}
+
+	/**
+	 * Holds the cache, created on the first use of {@link #compile(String)}
+	 * without locking by the class initialization.
+	 */
+	private static final class CacheHolder {
+		private static final JsonPathCache CACHE =
+				new JsonPathCache(JsonPathCache.DEFAULT_MAXIMUM_SIZE);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,238 @@
+/*
+ * #%L
+ * Jetro JsonPath
+ * %%
+ * Copyright (C) 2013 - 2016 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of compiled {@link JsonPath}s, keyed by the strings they
+ * were compiled from. {@link JsonPath#compile(String)} uses a cache of
+ * {@link #DEFAULT_MAXIMUM_SIZE} paths, see {@link JsonPath#getCache()}.
+ * <p>
+ * Caches are thread safe without locking: paths are looked up in a
+ * concurrent map, and a path missing is compiled by the calling thread, so
+ * two threads missing the same path at once both compile it. Once more than
+ * the maximum number of paths are cached, the least recently used ones are
+ * evicted by the thread finding that out, down to seven eighths of the
+ * maximum, while other threads go on using the cache. The recency of the
+ * paths is tracked by a clock advancing with each path added, so a hit only
+ * writes to the entry it finds, and only if it wasn't used since the last
+ * path was added.
+ * <p>
+ * Paths failing to compile aren't cached.
+ * 
+ * @author Matthias Rothe
+ */
+public final class JsonPathCache {
+	/**
+	 * The maximum number of paths cached by {@link JsonPath#compile(String)}.
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+	private static final JsonPathCompiler COMPILER = new JsonPathCompiler();
+
+	private final int maximumSize;
+	private final ConcurrentMap<String, Entry> paths = new ConcurrentHashMap<>();
+	private final AtomicLong clock = new AtomicLong();
+	private final AtomicBoolean evicting = new AtomicBoolean();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Creates a cache of at most the given number of paths.
+	 * 
+	 * @param maximumSize the maximum number of paths to cache
+	 * @throws IllegalArgumentException if maximumSize is less than 1
+	 */
+	public JsonPathCache(final int maximumSize) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("maximumSize must be at least 1");
+		}
+
+		this.maximumSize = maximumSize;
+	}
+
+	/**
+	 * Returns the path compiled from the given string, compiling and caching
+	 * it if it isn't cached. See {@link JsonPath#compile(String)} for the
+	 * syntax.
+	 * 
+	 * @param jsonPath the String to compile
+	 * @return the compiled JsonPath
+	 * @throws JsonPathCompilerException if the given jsonPath cannot be compiled
+	 * @throws IllegalArgumentException if the given jsonPath is null or empty
+	 */
+	public JsonPath compile(final String jsonPath) {
+		if (jsonPath == null) {
+			return COMPILER.compile(jsonPath);
+		}
+
+		Entry entry = paths.get(jsonPath);
+
+		if (entry != null) {
+			hits.increment();
+			long now = clock.get();
+
+			if (entry.lastUsed != now) {
+				entry.lastUsed = now;
+			}
+
+			return entry.path;
+		}
+
+		misses.increment();
+		entry = new Entry(COMPILER.compile(jsonPath), clock.incrementAndGet());
+		Entry cached = paths.putIfAbsent(jsonPath, entry);
+
+		if (cached != null) {
+			return cached.path;
+		}
+
+		evict();
+
+		return entry.path;
+	}
+
+	/**
+	 * Evicts the least recently used paths, unless another thread does. The
+	 * size is checked again after evicting, as paths added meanwhile by other
+	 * threads didn't make them evict.
+	 */
+	private void evict() {
+		while (paths.size() > maximumSize && evicting.compareAndSet(false, true)) {
+			try {
+				evictLeastRecentlyUsed();
+			} finally {
+				evicting.set(false);
+			}
+		}
+	}
+
+	private void evictLeastRecentlyUsed() {
+		List<Map.Entry<String, Entry>> entries = new ArrayList<>(paths.entrySet());
+		int excess = entries.size() - (maximumSize - maximumSize / 8);
+
+		if (excess <= 0) {
+			return;
+		}
+
+		long[] lastUsed = new long[entries.size()];
+
+		for (int i = 0; i < lastUsed.length; i++) {
+			lastUsed[i] = entries.get(i).getValue().lastUsed;
+		}
+
+		Arrays.sort(lastUsed);
+		long threshold = lastUsed[excess - 1];
+
+		for (Map.Entry<String, Entry> entry : entries) {
+			// entries used meanwhile are newer than the threshold and stay
+			if (excess > 0 && entry.getValue().lastUsed <= threshold
+					&& paths.remove(entry.getKey(), entry.getValue())) {
+				excess--;
+				evictions.increment();
+			}
+		}
+	}
+
+	/**
+	 * Returns the maximum number of paths cached.
+	 * 
+	 * @return the maximum size
+	 */
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * Returns the number of paths cached. It may exceed the maximum size
+	 * while paths are evicted.
+	 * 
+	 * @return the number of paths cached
+	 */
+	public int size() {
+		return paths.size();
+	}
+
+	/**
+	 * Returns the number of paths found in the cache so far.
+	 * 
+	 * @return the number of hits
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of paths compiled because they weren't found in the
+	 * cache so far.
+	 * 
+	 * @return the number of misses
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the number of paths evicted from the cache so far.
+	 * 
+	 * @return the number of evictions
+	 */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Removes all paths from the cache. The statistics are kept.
+	 */
+	public void clear() {
+		paths.clear();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "JsonPathCache [size=" + size() + ", maximumSize=" + maximumSize + ", hits="
+				+ getHitCount() + ", misses=" + getMissCount() + ", evictions="
+				+ getEvictionCount() + "]";
+	}
+
+	private static final class Entry {
+		private final JsonPath path;
+		private volatile long lastUsed;
+
+		private Entry(final JsonPath path, final long lastUsed) {
+			this.path = path;
+			this.lastUsed = lastUsed;
+		}
+	}
+}
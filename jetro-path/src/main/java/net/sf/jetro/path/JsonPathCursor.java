@@ -0,0 +1,474 @@
+/*
+ * #%L
+ * Jetro JsonPath
+ * %%
+ * Copyright (C) 2013 - 2016 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.path;
+
+import java.util.Arrays;
+
+/**
+ * A mutable, concrete path tracking the position within a JSON document while
+ * it is being visited.
+ * <p>
+ * Unlike {@link JsonPath}, which clones itself for each change, a cursor is
+ * updated in place: the property name or array index of each depth is kept
+ * in an array slot of its own, which is overwritten as the visit moves on. So
+ * tracking the position doesn't create any garbage, and {@link #matches(JsonPath)}
+ * matches patterns against the position without creating any either. An
+ * immutable JsonPath is only created when asked for by {@link #toJsonPath()}
+ * and then kept until the cursor moves again.
+ * <p>
+ * A cursor created with a {@link JsonPathMatcher} advances the matcher's
+ * automaton along with each element, so {@link #matches(int)} tells whether
+ * any of the matcher's patterns matches in constant time.
+ * <p>
+ * Cursors aren't thread safe.
+ * 
+ * @author Matthias Rothe
+ */
+public final class JsonPathCursor {
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** The property name of each depth, or null if the depth has an array index. */
+	private String[] names = new String[INITIAL_CAPACITY];
+	private int[] indexes = new int[INITIAL_CAPACITY];
+
+	/** The path elements created for the snapshots, null where not created yet. */
+	private JsonPathElement[] elements = new JsonPathElement[INITIAL_CAPACITY];
+	private int depth;
+
+	private JsonPath snapshot;
+
+	private final JsonPathMatcher matcher;
+
+	/** The state of the matcher at each depth, the start state at depth 0. */
+	private JsonPathMatcher.State[] states;
+
+	/**
+	 * Creates a cursor at the root path.
+	 */
+	public JsonPathCursor() {
+		this.matcher = null;
+	}
+
+	/**
+	 * Creates a cursor at the root path, advancing the given matcher.
+	 * 
+	 * @param matcher the matcher to advance
+	 * @throws IllegalArgumentException if the matcher is null
+	 */
+	public JsonPathCursor(final JsonPathMatcher matcher) {
+		if (matcher == null) {
+			throw new IllegalArgumentException("matcher must not be null");
+		}
+
+		this.matcher = matcher;
+		this.states = new JsonPathMatcher.State[INITIAL_CAPACITY + 1];
+		this.states[0] = matcher.getStart();
+	}
+
+	/**
+	 * Appends a property name element.
+	 * 
+	 * @param name the property name
+	 * @throws IllegalArgumentException if the name is null
+	 */
+	public void appendPropertyName(final String name) {
+		ensureCapacity();
+		depth++;
+		replaceLastWithPropertyName(name);
+	}
+
+	/**
+	 * Appends an array index element.
+	 * 
+	 * @param index the array index
+	 * @throws ArrayIndexOutOfBoundsException if the index is negative
+	 */
+	public void appendArrayIndex(final int index) {
+		ensureCapacity();
+		depth++;
+		replaceLastWithArrayIndex(index);
+	}
+
+	/**
+	 * Replaces the last element by a property name element.
+	 * 
+	 * @param name the property name
+	 * @throws IllegalArgumentException if the name is null
+	 * @throws IllegalStateException if this cursor is at the root
+	 */
+	public void replaceLastWithPropertyName(final String name) {
+		if (name == null) {
+			throw new IllegalArgumentException("name must not be null");
+		}
+
+		int last = lastDepth();
+		names[last] = name;
+		elements[last] = null;
+		snapshot = null;
+
+		if (matcher != null) {
+			states[last + 1] = states[last].onPropertyName(name);
+		}
+	}
+
+	/**
+	 * Replaces the last element by an array index element.
+	 * 
+	 * @param index the array index
+	 * @throws ArrayIndexOutOfBoundsException if the index is negative
+	 * @throws IllegalStateException if this cursor is at the root
+	 */
+	public void replaceLastWithArrayIndex(final int index) {
+		if (index < 0) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+
+		int last = lastDepth();
+		names[last] = null;
+		indexes[last] = index;
+		elements[last] = null;
+		snapshot = null;
+
+		if (matcher != null) {
+			states[last + 1] = states[last].onArrayIndex(index);
+		}
+	}
+
+	/**
+	 * Removes the last element.
+	 * 
+	 * @throws IllegalStateException if this cursor is at the root
+	 */
+	public void removeLastElement() {
+		int last = lastDepth();
+		names[last] = null;
+		elements[last] = null;
+		depth = last;
+		snapshot = null;
+	}
+
+	private int lastDepth() {
+		if (depth == 0) {
+			throw new IllegalStateException("The cursor is at the root path.");
+		}
+
+		return depth - 1;
+	}
+
+	private void ensureCapacity() {
+		if (depth == names.length) {
+			int capacity = 2 * depth;
+			names = Arrays.copyOf(names, capacity);
+			indexes = Arrays.copyOf(indexes, capacity);
+			elements = Arrays.copyOf(elements, capacity);
+
+			if (matcher != null) {
+				states = Arrays.copyOf(states, capacity + 1);
+			}
+		}
+	}
+
+	/**
+	 * Returns the depth, 0 at the root.
+	 * 
+	 * @return the depth
+	 * @see JsonPath#getDepth()
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Returns whether this cursor is at the root.
+	 * 
+	 * @return <code>true</code> if and only if the depth is 0
+	 */
+	public boolean isRootPath() {
+		return depth == 0;
+	}
+
+	/**
+	 * Tells whether there is a property name element at the given 0-based
+	 * depth.
+	 * 
+	 * @param depth the depth at which to check for property name
+	 * @return <code>true</code> if and only if there is a property name at the
+	 * given depth
+	 * @throws ArrayIndexOutOfBoundsException if the depth is either negative or
+	 * greater than or equal to the depth of this cursor
+	 */
+	public boolean hasPropertyNameAt(final int depth) {
+		return names[checkDepth(depth)] != null;
+	}
+
+	/**
+	 * Returns the property name at the given 0-based depth.
+	 * 
+	 * @param depth the depth at which to return the property name
+	 * @return the property name at the given depth
+	 * @throws ArrayIndexOutOfBoundsException if the depth is either negative or
+	 * greater than or equal to the depth of this cursor
+	 * @throws IllegalStateException if there is no property name at the given
+	 * depth
+	 */
+	public String getPropertyNameAt(final int depth) {
+		if (!hasPropertyNameAt(depth)) {
+			throw new IllegalStateException("The path element at depth " + depth +
+					" in path " + this + " is not a property name");
+		}
+
+		return names[depth];
+	}
+
+	/**
+	 * Tells whether there is an array index element at the given 0-based
+	 * depth.
+	 * 
+	 * @param depth the depth at which to check for array index
+	 * @return <code>true</code> if and only if there is an array index at the
+	 * given depth
+	 * @throws ArrayIndexOutOfBoundsException if the depth is either negative or
+	 * greater than or equal to the depth of this cursor
+	 */
+	public boolean hasArrayIndexAt(final int depth) {
+		return names[checkDepth(depth)] == null;
+	}
+
+	/**
+	 * Returns the array index at the given 0-based depth.
+	 * 
+	 * @param depth the depth at which to return the array index
+	 * @return the array index at the given depth
+	 * @throws ArrayIndexOutOfBoundsException if the depth is either negative or
+	 * greater than or equal to the depth of this cursor
+	 * @throws IllegalStateException if there is no array index at the given
+	 * depth
+	 */
+	public int getArrayIndexAt(final int depth) {
+		if (!hasArrayIndexAt(depth)) {
+			throw new IllegalStateException("The path element at depth " + depth +
+					" in path " + this + " is not an array index");
+		}
+
+		return indexes[depth];
+	}
+
+	/**
+	 * Tells whether the current depth fits a pattern of the given number of
+	 * applicable elements, the last of which may match all further elements.
+	 */
+	private boolean matchesDepth(final int applicableSize, final JsonPathElement last) {
+		if (last instanceof MatchesAllFurtherPathElement) {
+			return depth >= applicableSize - 1;
+		}
+
+		return depth == applicableSize;
+	}
+
+	private int checkDepth(final int depth) {
+		if (depth < 0 || depth >= this.depth) {
+			throw new ArrayIndexOutOfBoundsException(depth);
+		}
+
+		return depth;
+	}
+
+	/**
+	 * Tells whether the current path matches the given pattern, with the same
+	 * result as <code>toJsonPath().matches(jsonPathPattern)</code>.
+	 * 
+	 * @param jsonPathPattern the pattern to match
+	 * @return <code>true</code> if and only if the current path matches the
+	 * given pattern, <code>false</code> otherwise.
+	 * @see JsonPath#matches(JsonPath)
+	 */
+	public boolean matches(final JsonPath jsonPathPattern) {
+		if (matcher != null) {
+			int pattern = matcher.indexOf(jsonPathPattern);
+
+			if (pattern >= 0) {
+				return states[depth].matches(pattern);
+			}
+		}
+
+		return matchesElements(jsonPathPattern);
+	}
+
+	private boolean matchesElements(final JsonPath jsonPathPattern) {
+		int patternSize = jsonPathPattern.getDepth();
+
+		if (patternSize == 0) {
+			return depth == 0;
+		}
+
+		// the optional elements not applicable at their depth are skipped, see JsonPath#matches
+		int applicableSize = 0;
+		JsonPathElement last = null;
+
+		for (int i = 0; i < patternSize; i++) {
+			JsonPathElement element = jsonPathPattern.getElementAt(i);
+
+			if (!isSkippableOptional(element, i)) {
+				applicableSize++;
+				last = element;
+			}
+		}
+
+		if (!matchesDepth(applicableSize, last)) {
+			return false;
+		}
+
+		for (int i = 0, j = 0; i < patternSize; i++) {
+			JsonPathElement element = jsonPathPattern.getElementAt(i);
+
+			if (isSkippableOptional(element, i)) {
+				continue;
+			} else if (element instanceof MatchesAllFurtherPathElement) {
+				return true;
+			} else if (!matches(element, j++)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Tells whether the current path matches the pattern with the given index
+	 * of the matcher this cursor was created with.
+	 * 
+	 * @param pattern the index of the pattern
+	 * @return <code>true</code> if and only if the current path matches the
+	 * pattern
+	 * @throws IllegalStateException if this cursor has no matcher
+	 * @throws ArrayIndexOutOfBoundsException if there is no such pattern
+	 */
+	public boolean matches(final int pattern) {
+		if (pattern < 0 || pattern >= getMatcher().size()) {
+			throw new ArrayIndexOutOfBoundsException(pattern);
+		}
+
+		return states[depth].matches(pattern);
+	}
+
+	/**
+	 * Returns the state of the matcher at the current path. It tells which of
+	 * the matcher's patterns match.
+	 * 
+	 * @return the state of the matcher
+	 * @throws IllegalStateException if this cursor has no matcher
+	 */
+	public JsonPathMatcher.State getMatcherState() {
+		getMatcher();
+		return states[depth];
+	}
+
+	/**
+	 * Returns the matcher this cursor was created with.
+	 * 
+	 * @return the matcher
+	 * @throws IllegalStateException if this cursor has no matcher
+	 */
+	public JsonPathMatcher getMatcher() {
+		if (matcher == null) {
+			throw new IllegalStateException("The cursor has no matcher.");
+		}
+
+		return matcher;
+	}
+
+	/**
+	 * Tells whether this cursor was created with a matcher.
+	 * 
+	 * @return <code>true</code> if and only if this cursor has a matcher
+	 */
+	public boolean hasMatcher() {
+		return matcher != null;
+	}
+
+	private boolean isSkippableOptional(final JsonPathElement element, final int depth) {
+		return element.isOptional() && (depth >= this.depth || !isOfKind(element, depth));
+	}
+
+	private boolean isOfKind(final JsonPathElement element, final int depth) {
+		if (element instanceof PropertyNamePathElement) {
+			return names[depth] != null;
+		} else if (element instanceof ArrayIndexPathElement) {
+			return names[depth] == null;
+		} else {
+			return false;
+		}
+	}
+
+	private boolean matches(final JsonPathElement element, final int depth) {
+		if (!isOfKind(element, depth)) {
+			return false;
+		} else if (element.isWildcard()) {
+			return true;
+		} else if (element instanceof PropertyNamePathElement) {
+			return names[depth].equals(((PropertyNamePathElement) element).getName());
+		} else {
+			ArrayIndexPathElement index = (ArrayIndexPathElement) element;
+			return !index.isEndOfArray() && indexes[depth] == index.getIndex();
+		}
+	}
+
+	/**
+	 * Returns the current path as an immutable {@link JsonPath}. The same
+	 * instance is returned until this cursor moves.
+	 * 
+	 * @return the current path
+	 * @throws IllegalArgumentException if a property name in the path is empty,
+	 * which JsonPaths can't express
+	 */
+	public JsonPath toJsonPath() {
+		if (snapshot == null) {
+			for (int i = 0; i < depth; i++) {
+				if (elements[i] == null) {
+					elements[i] = names[i] != null ? new PropertyNamePathElement(names[i])
+							: new ArrayIndexPathElement(indexes[i]);
+				}
+			}
+
+			snapshot = new JsonPath(Arrays.copyOf(elements, depth), false);
+		}
+
+		return snapshot;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("$");
+
+		for (int i = 0; i < depth; i++) {
+			if (names[i] != null) {
+				builder.append('.').append(names[i]);
+			} else {
+				builder.append('[').append(indexes[i]).append(']');
+			}
+		}
+
+		return builder.toString();
+	}
+}
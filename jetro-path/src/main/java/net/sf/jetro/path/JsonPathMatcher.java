@@ -0,0 +1,533 @@
+/*
+ * #%L
+ * Jetro JsonPath
+ * %%
+ * Copyright (C) 2013 - 2016 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.path;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Matches concrete paths against a set of JsonPath patterns at once.
+ * <p>
+ * The patterns are compiled into a deterministic automaton whose states are
+ * advanced element by element while a document is visited, usually by a
+ * {@link JsonPathCursor} created with {@link JsonPathCursor#JsonPathCursor(JsonPathMatcher)}.
+ * Each state knows which patterns match the path leading to it, so telling
+ * whether a pattern matches, or which patterns match, takes constant time
+ * per visited element however many patterns there are. Property names and
+ * array indexes not occurring in any pattern share a single transition.
+ * <p>
+ * Patterns containing optionals are matched the same way
+ * {@link JsonPath#matches(JsonPath)} does, which skips an optional if the
+ * path has no element of the optional's kind at the optional's own depth.
+ * Each such pattern is compiled as the alternatives of skipping or keeping
+ * each of its optionals, so a pattern with <i>n</i> optionals adds up to
+ * 2<sup><i>n</i></sup> alternatives to the automaton.
+ * <p>
+ * Patterns are identified by their index in the collection given to
+ * {@link #compile(Collection)}. Matchers are immutable and thread safe, the
+ * whole automaton is built when compiling.
+ * 
+ * @author Matthias Rothe
+ */
+public final class JsonPathMatcher {
+	private final JsonPath[] patterns;
+	private final Map<JsonPath, Integer> indexes = new HashMap<>();
+	private final State start;
+	private final int stateCount;
+
+	private JsonPathMatcher(final List<JsonPath> patterns) {
+		this.patterns = patterns.toArray(new JsonPath[patterns.size()]);
+
+		for (int i = 0; i < this.patterns.length; i++) {
+			if (this.patterns[i] == null) {
+				throw new IllegalArgumentException("patterns must not contain null");
+			}
+
+			indexes.putIfAbsent(this.patterns[i], i);
+		}
+
+		Builder builder = new Builder();
+		this.start = builder.build();
+		this.stateCount = builder.states.size();
+	}
+
+	/**
+	 * Compiles the given patterns into a matcher.
+	 * 
+	 * @param patterns the patterns to match
+	 * @return the matcher
+	 * @throws IllegalArgumentException if the patterns are or contain null
+	 */
+	public static JsonPathMatcher compile(final JsonPath... patterns) {
+		if (patterns == null) {
+			throw new IllegalArgumentException("patterns must not be null");
+		}
+
+		return compile(Arrays.asList(patterns));
+	}
+
+	/**
+	 * Compiles the given patterns into a matcher. Each pattern is identified
+	 * by its index in the iteration order of the collection.
+	 * 
+	 * @param patterns the patterns to match
+	 * @return the matcher
+	 * @throws IllegalArgumentException if the patterns are or contain null
+	 */
+	public static JsonPathMatcher compile(final Collection<JsonPath> patterns) {
+		if (patterns == null) {
+			throw new IllegalArgumentException("patterns must not be null");
+		}
+
+		return new JsonPathMatcher(new ArrayList<>(patterns));
+	}
+
+	/**
+	 * Returns the number of patterns.
+	 * 
+	 * @return the number of patterns
+	 */
+	public int size() {
+		return patterns.length;
+	}
+
+	/**
+	 * Returns the pattern with the given index.
+	 * 
+	 * @param pattern the index of the pattern
+	 * @return the pattern
+	 * @throws ArrayIndexOutOfBoundsException if there is no such pattern
+	 */
+	public JsonPath getPattern(final int pattern) {
+		return patterns[pattern];
+	}
+
+	/**
+	 * Returns the index of the given pattern or of the first one equal to it.
+	 * 
+	 * @param pattern the pattern to look up
+	 * @return the index of the pattern or -1 if it isn't matched by this matcher
+	 */
+	public int indexOf(final JsonPath pattern) {
+		Integer index = indexes.get(pattern);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Returns the state at the root path.
+	 * 
+	 * @return the start state
+	 */
+	public State getStart() {
+		return start;
+	}
+
+	/**
+	 * Returns the number of states of the automaton.
+	 * 
+	 * @return the number of states
+	 */
+	public int getStateCount() {
+		return stateCount;
+	}
+
+	/**
+	 * A state of the automaton, reached by the elements of a concrete path.
+	 */
+	public static final class State {
+		private static final int[] NO_KEYS = {};
+		private static final State[] NO_STATES = {};
+
+		private final int[] matches;
+		private final long[] matchBits;
+
+		private Map<String, State> nameTransitions = Collections.emptyMap();
+		private State otherName;
+		private int[] indexKeys = NO_KEYS;
+		private State[] indexTransitions = NO_STATES;
+		private State otherIndex;
+
+		private State(final int[] matches, final int patternCount) {
+			this.matches = matches;
+			this.matchBits = new long[(patternCount + 63) >>> 6];
+
+			for (int match : matches) {
+				matchBits[match >>> 6] |= 1L << match;
+			}
+		}
+
+		/**
+		 * Returns the state reached by a property name element.
+		 * 
+		 * @param name the property name
+		 * @return the next state
+		 */
+		public State onPropertyName(final String name) {
+			State next = nameTransitions.get(name);
+			return next == null ? otherName : next;
+		}
+
+		/**
+		 * Returns the state reached by an array index element.
+		 * 
+		 * @param index the array index
+		 * @return the next state
+		 */
+		public State onArrayIndex(final int index) {
+			int i = Arrays.binarySearch(indexKeys, index);
+			return i < 0 ? otherIndex : indexTransitions[i];
+		}
+
+		/**
+		 * Tells whether the pattern with the given index matches the path
+		 * leading to this state.
+		 * 
+		 * @param pattern the index of the pattern
+		 * @return <code>true</code> if and only if the pattern matches
+		 */
+		public boolean matches(final int pattern) {
+			int word = pattern >>> 6;
+			return word < matchBits.length && (matchBits[word] & (1L << pattern)) != 0;
+		}
+
+		/**
+		 * Returns the number of patterns matching the path leading to this
+		 * state.
+		 * 
+		 * @return the number of matching patterns
+		 */
+		public int getMatchCount() {
+			return matches.length;
+		}
+
+		/**
+		 * Returns the index of a matching pattern.
+		 * 
+		 * @param i the number of the matching pattern, in ascending order of
+		 * their indexes
+		 * @return the index of the pattern
+		 */
+		public int getMatch(final int i) {
+			return matches[i];
+		}
+	}
+
+	/**
+	 * One way of matching a pattern: the elements applicable when some of
+	 * its optionals are skipped and the others are kept. A skipped optional
+	 * requires the path to have no element of its kind at its depth, a kept
+	 * one requires an element of its kind there.
+	 */
+	private static final class Alternative {
+		private final int pattern;
+		private final JsonPath original;
+		private final JsonPathElement[] elements;
+		private final boolean[] skipped;
+		private final int minDepth;
+
+		private Alternative(final int pattern, final JsonPath original, final boolean[] skipped) {
+			this.pattern = pattern;
+			this.original = original;
+			this.skipped = skipped;
+			List<JsonPathElement> applicable = new ArrayList<>();
+			int minDepth = 0;
+
+			for (int i = 0; i < skipped.length; i++) {
+				if (!skipped[i]) {
+					applicable.add(original.getElementAt(i));
+				}
+
+				if (original.hasOptionalAt(i) && !skipped[i]) {
+					minDepth = i + 1;
+				}
+			}
+
+			this.elements = applicable.toArray(new JsonPathElement[applicable.size()]);
+			this.minDepth = minDepth;
+		}
+
+		/**
+		 * Returns the element to match at the given depth, or null if the
+		 * elements are matched completely.
+		 */
+		private JsonPathElement elementAt(final int depth) {
+			int last = elements.length - 1;
+
+			if (last >= 0 && depth >= last && elements[last] instanceof MatchesAllFurtherPathElement) {
+				return elements[last];
+			}
+
+			return depth < elements.length ? elements[depth] : null;
+		}
+
+		/**
+		 * Tells whether an element of the given kind at the given depth meets
+		 * the optional at that depth, if any.
+		 */
+		private boolean allows(final int depth, final Class<?> kind) {
+			if (depth >= skipped.length || !original.hasOptionalAt(depth)) {
+				return true;
+			}
+
+			return skipped[depth] != (original.getElementAt(depth).getClass() == kind);
+		}
+
+		/**
+		 * Tells whether a path of the given depth, all of whose elements met
+		 * this alternative, is matched by it.
+		 */
+		private boolean isMatchedAt(final int depth) {
+			JsonPathElement element = elementAt(depth);
+			return depth >= minDepth && (element == null || element instanceof MatchesAllFurtherPathElement);
+		}
+	}
+
+	/**
+	 * Builds the automaton by the subset construction. The items of a state
+	 * are the alternatives of the patterns with the depth of the path
+	 * reaching the state, encoded as <code>alternative * stride + depth</code>.
+	 * The depth is capped at the depth of the pattern, as deeper elements can
+	 * only be matched by a matches-all-further element and meet no optional.
+	 */
+	private class Builder {
+		private final List<Alternative> alternatives = new ArrayList<>();
+		private final int stride;
+		private final Map<List<Integer>, State> states = new HashMap<>();
+		private final Map<State, int[]> items = new HashMap<>();
+		private final Deque<State> pending = new ArrayDeque<>();
+
+		private Builder() {
+			int maxDepth = 0;
+
+			for (int i = 0; i < patterns.length; i++) {
+				addAlternatives(i, patterns[i]);
+				maxDepth = Math.max(maxDepth, patterns[i].getDepth());
+			}
+
+			stride = maxDepth + 1;
+		}
+
+		/**
+		 * Adds an alternative for each combination of skipping and keeping
+		 * the optionals of the given pattern. Optionals which can't be kept,
+		 * as no path element is of their kind, are always skipped.
+		 */
+		private void addAlternatives(final int pattern, final JsonPath original) {
+			List<Integer> optionals = new ArrayList<>();
+
+			for (int i = 0; i < original.getDepth(); i++) {
+				if (original.hasOptionalAt(i)) {
+					optionals.add(i);
+				}
+			}
+
+			for (long combination = 0; combination < 1L << optionals.size(); combination++) {
+				boolean[] skipped = new boolean[original.getDepth()];
+				boolean possible = true;
+
+				for (int j = 0; j < optionals.size(); j++) {
+					int depth = optionals.get(j);
+					skipped[depth] = (combination & 1L << j) == 0;
+					possible &= skipped[depth] || isKind(original.getElementAt(depth));
+				}
+
+				if (possible) {
+					alternatives.add(new Alternative(pattern, original, skipped));
+				}
+			}
+		}
+
+		private boolean isKind(final JsonPathElement element) {
+			return element instanceof PropertyNamePathElement || element instanceof ArrayIndexPathElement;
+		}
+
+		private State build() {
+			Set<Integer> startItems = new TreeSet<>();
+
+			for (int i = 0; i < alternatives.size(); i++) {
+				startItems.add(i * stride);
+			}
+
+			State start = state(startItems);
+
+			while (!pending.isEmpty()) {
+				expand(pending.poll());
+			}
+
+			return start;
+		}
+
+		/**
+		 * Adds the transitions leaving the given state, adding the states
+		 * reached to the pending ones if they are new.
+		 */
+		private void expand(final State state) {
+			int[] stateItems = items.get(state);
+			Set<String> names = new LinkedHashSet<>();
+			Set<Integer> indexes = new TreeSet<>();
+
+			for (int item : stateItems) {
+				collectKey(next(item), names, indexes);
+			}
+
+			state.otherName = stepName(stateItems, null);
+			state.otherIndex = stepIndex(stateItems, null);
+
+			if (!names.isEmpty()) {
+				Map<String, State> transitions = new HashMap<>();
+
+				for (String name : names) {
+					transitions.put(name, stepName(stateItems, name));
+				}
+
+				state.nameTransitions = transitions;
+			}
+
+			if (!indexes.isEmpty()) {
+				state.indexKeys = indexes.stream().mapToInt(Integer::intValue).toArray();
+				state.indexTransitions = new State[state.indexKeys.length];
+
+				for (int i = 0; i < state.indexKeys.length; i++) {
+					state.indexTransitions[i] = stepIndex(stateItems, state.indexKeys[i]);
+				}
+			}
+		}
+
+		/**
+		 * Adds the property name or array index the given element matches to
+		 * the names or indexes, unless it is a wildcard or matches no
+		 * single key.
+		 */
+		private void collectKey(final JsonPathElement element, final Set<String> names,
+				final Set<Integer> indexes) {
+			if (element instanceof PropertyNamePathElement && !element.isWildcard()) {
+				names.add(((PropertyNamePathElement) element).getName());
+			} else if (element instanceof ArrayIndexPathElement && !element.isWildcard()
+					&& !((ArrayIndexPathElement) element).isEndOfArray()) {
+				indexes.add(((ArrayIndexPathElement) element).getIndex());
+			}
+		}
+
+		private Alternative alternative(final int item) {
+			return alternatives.get(item / stride);
+		}
+
+		/**
+		 * Returns the element of the item's alternative to match next, or
+		 * null if the alternative is matched completely.
+		 */
+		private JsonPathElement next(final int item) {
+			return alternative(item).elementAt(item % stride);
+		}
+
+		/**
+		 * Returns the item reached from the given one by an element meeting
+		 * the element to match next, see {@link Builder} for the depth.
+		 */
+		private int advance(final int item) {
+			int depth = item % stride;
+			return depth < alternative(item).original.getDepth() ? item + 1 : item;
+		}
+
+		/**
+		 * Returns the state reached from the given items by a property name,
+		 * null standing for all names not occurring in the patterns.
+		 */
+		private State stepName(final int[] from, final String name) {
+			Set<Integer> to = new TreeSet<>();
+
+			for (int item : from) {
+				JsonPathElement element = next(item);
+
+				if (!alternative(item).allows(item % stride, PropertyNamePathElement.class)) {
+					continue;
+				} else if (element instanceof MatchesAllFurtherPathElement) {
+					to.add(advance(item));
+				} else if (element instanceof PropertyNamePathElement && (element.isWildcard()
+						|| ((PropertyNamePathElement) element).getName().equals(name))) {
+					to.add(advance(item));
+				}
+			}
+
+			return state(to);
+		}
+
+		/**
+		 * Returns the state reached from the given items by an array index,
+		 * null standing for all indexes not occurring in the patterns.
+		 */
+		private State stepIndex(final int[] from, final Integer index) {
+			Set<Integer> to = new TreeSet<>();
+
+			for (int item : from) {
+				JsonPathElement element = next(item);
+
+				if (!alternative(item).allows(item % stride, ArrayIndexPathElement.class)) {
+					continue;
+				} else if (element instanceof MatchesAllFurtherPathElement) {
+					to.add(advance(item));
+				} else if (element instanceof ArrayIndexPathElement) {
+					ArrayIndexPathElement indexElement = (ArrayIndexPathElement) element;
+
+					if (indexElement.isWildcard() || index != null && !indexElement.isEndOfArray()
+							&& indexElement.getIndex() == index) {
+						to.add(advance(item));
+					}
+				}
+			}
+
+			return state(to);
+		}
+
+		private State state(final Set<Integer> stateItems) {
+			List<Integer> key = new ArrayList<>(stateItems);
+			State state = states.get(key);
+
+			if (state == null) {
+				Set<Integer> matches = new TreeSet<>();
+
+				for (int item : stateItems) {
+					Alternative alternative = alternative(item);
+
+					if (alternative.isMatchedAt(item % stride)) {
+						matches.add(alternative.pattern);
+					}
+				}
+
+				state = new State(matches.stream().mapToInt(Integer::intValue).toArray(), patterns.length);
+				states.put(key, state);
+				items.put(state, key.stream().mapToInt(Integer::intValue).toArray());
+				pending.add(state);
+			}
+
+			return state;
+		}
+	}
+}
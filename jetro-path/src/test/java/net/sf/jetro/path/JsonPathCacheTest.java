@@ -0,0 +1,146 @@
+/*
+ * #%L
+ * Jetro JsonPath
+ * %%
+ * Copyright (C) 2013 - 2016 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.path;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.Test;
+
+public class JsonPathCacheTest {
+
+	@Test
+	public void shouldReturnCachedPath() {
+		JsonPathCache cache = new JsonPathCache(4);
+		JsonPath path = cache.compile("$.foo[1].bar");
+
+		assertEquals(path, new JsonPathCompiler().compile("$.foo[1].bar"));
+		assertSame(cache.compile("$.foo[1].bar"), path);
+		assertEquals(cache.size(), 1);
+		assertEquals(cache.getHitCount(), 1L);
+		assertEquals(cache.getMissCount(), 1L);
+	}
+
+	@Test
+	public void shouldCacheCompiledPathsOfJsonPath() {
+		JsonPath path = JsonPath.compile("$.cached[*].path");
+		long hits = JsonPath.getCache().getHitCount();
+
+		assertSame(JsonPath.compile("$.cached[*].path"), path);
+		assertTrue(JsonPath.getCache().getHitCount() > hits);
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedPaths() {
+		JsonPathCache cache = new JsonPathCache(8);
+		JsonPath first = cache.compile("$[0]");
+
+		for (int i = 1; i < 8; i++) {
+			cache.compile("$[" + i + "]");
+		}
+
+		JsonPath second = cache.compile("$[1]");
+		assertSame(cache.compile("$[0]"), first);
+		cache.compile("$[8]");
+
+		// evicted down to seven eighths, the least recently used ones first
+		assertEquals(cache.size(), 7);
+		assertEquals(cache.getEvictionCount(), 2L);
+		assertSame(cache.compile("$[0]"), first);
+		assertSame(cache.compile("$[1]"), second);
+		assertEquals(cache.getMissCount(), 9L);
+
+		JsonPath reloaded = cache.compile("$[2]");
+		assertNotSame(reloaded, null);
+		assertEquals(cache.getMissCount(), 10L);
+	}
+
+	@Test
+	public void shouldNotCacheInvalidPaths() {
+		JsonPathCache cache = new JsonPathCache(4);
+
+		for (int i = 0; i < 2; i++) {
+			try {
+				cache.compile("$.foo[");
+			} catch (JsonPathCompilerException e) {
+				// expected
+			}
+		}
+
+		assertEquals(cache.size(), 0);
+		assertEquals(cache.getMissCount(), 2L);
+	}
+
+	@Test
+	public void shouldStayBoundedOnManyThreads() throws Exception {
+		JsonPathCache cache = new JsonPathCache(64);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+
+			for (int thread = 0; thread < 8; thread++) {
+				int offset = thread;
+				results.add(executor.submit((Callable<Boolean>) () -> {
+					for (int i = 0; i < 2000; i++) {
+						int index = (i * 7 + offset) % 100;
+
+						if (cache.compile("$.foo[" + index + "]").getArrayIndexAt(1) != index) {
+							return false;
+						}
+					}
+
+					return true;
+				}));
+			}
+
+			for (Future<Boolean> result : results) {
+				assertTrue(result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		// other threads may add paths while one evicts, each of them one at most
+		assertTrue(cache.size() <= 64 + 8);
+		assertEquals(cache.getHitCount() + cache.getMissCount(), 16000L);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class,
+			expectedExceptionsMessageRegExp = "jsonPath must not be null or empty")
+	public void shouldThrowExceptionOnNullPath() {
+		new JsonPathCache(4).compile(null);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class,
+			expectedExceptionsMessageRegExp = "maximumSize must be at least 1")
+	public void shouldThrowExceptionOnZeroMaximumSize() {
+		new JsonPathCache(0);
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * #%L
+ * Jetro JsonPath
+ * %%
+ * Copyright (C) 2013 - 2016 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.path;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+public class JsonPathCursorTest {
+	private static final String[] PATTERNS = { "$", "$.foo", "$.*", "$[*]", "$[0]", "$[1]", "$[-]",
+			"$:", "$.foo:", "$.foo[*]", "$.foo[1]", "$.foo[1]?", "$.foo[*]:", "$.foo.bar", "$.foo.*",
+			"$.foo?.bar", "$.foo?[1]", "$[*]?.foo", "$.foo[1].bar?", "$.foo[1]?.bar?", "$.*[*].*",
+			"$.foo[1].bar[2]", "$.foo[1].bar[2]:", "$[0].foo" };
+
+	@Test
+	public void shouldTrackPathInPlace() {
+		JsonPathCursor cursor = new JsonPathCursor();
+		assertTrue(cursor.isRootPath());
+		assertEquals(cursor.toJsonPath(), new JsonPath());
+
+		cursor.appendPropertyName("foo");
+		cursor.appendArrayIndex(0);
+		cursor.replaceLastWithArrayIndex(1);
+		cursor.appendPropertyName("bar");
+
+		assertEquals(cursor.getDepth(), 3);
+		assertEquals(cursor.toString(), "$.foo[1].bar");
+		assertEquals(cursor.toJsonPath(), JsonPath.compile("$.foo[1].bar"));
+		assertEquals(cursor.getPropertyNameAt(0), "foo");
+		assertTrue(cursor.hasArrayIndexAt(1));
+		assertEquals(cursor.getArrayIndexAt(1), 1);
+
+		cursor.removeLastElement();
+		cursor.replaceLastWithPropertyName("baz");
+
+		assertEquals(cursor.toJsonPath(), JsonPath.compile("$.foo.baz"));
+		assertFalse(cursor.hasArrayIndexAt(1));
+	}
+
+	@Test
+	public void shouldKeepSnapshotsUntilMoved() {
+		JsonPathCursor cursor = new JsonPathCursor();
+		cursor.appendPropertyName("foo");
+
+		JsonPath snapshot = cursor.toJsonPath();
+		assertSame(cursor.toJsonPath(), snapshot);
+
+		cursor.replaceLastWithPropertyName("bar");
+		assertEquals(snapshot.toString(), "$.foo");
+		assertEquals(cursor.toJsonPath().toString(), "$.bar");
+	}
+
+	@Test
+	public void shouldGrowBeyondInitialCapacity() {
+		JsonPathCursor cursor = new JsonPathCursor();
+		StringBuilder expected = new StringBuilder("$");
+
+		for (int i = 0; i < 100; i++) {
+			cursor.appendArrayIndex(i);
+			expected.append('[').append(i).append(']');
+		}
+
+		assertEquals(cursor.getDepth(), 100);
+		assertEquals(cursor.toJsonPath().toString(), expected.toString());
+	}
+
+	@Test
+	public void shouldMatchLikeJsonPath() {
+		String[] paths = { "$", "$.foo", "$.bar", "$[0]", "$[1]", "$.foo[1]", "$.foo[2]", "$.foo.bar",
+				"$.foo[1].bar", "$.foo[1].bar[2]", "$.foo[1].bar[2].baz", "$[0].foo", "$.bar[0].foo" };
+
+		for (String path : paths) {
+			JsonPath concrete = JsonPath.compile(path);
+			JsonPathCursor cursor = cursorAt(concrete);
+
+			for (String pattern : PATTERNS) {
+				JsonPath compiled = JsonPath.compile(pattern);
+				assertEquals(cursor.matches(compiled), matchesOrFalse(concrete, compiled),
+						path + " matching " + pattern);
+			}
+		}
+	}
+
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void shouldNotRemoveFromRoot() {
+		new JsonPathCursor().removeLastElement();
+	}
+
+	private static JsonPathCursor cursorAt(final JsonPath path) {
+		JsonPathCursor cursor = new JsonPathCursor();
+
+		for (int i = 0; i < path.getDepth(); i++) {
+			if (path.hasPropertyNameAt(i)) {
+				cursor.appendPropertyName(path.getPropertyNameAt(i));
+			} else {
+				cursor.appendArrayIndex(path.getArrayIndexAt(i));
+			}
+		}
+
+		return cursor;
+	}
+
+	private static boolean matchesOrFalse(final JsonPath path, final JsonPath pattern) {
+		try {
+			return path.matches(pattern);
+		} catch (ArrayIndexOutOfBoundsException e) {
+			// JsonPath fails if no element of the pattern applies at all
+			return false;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * #%L
+ * Jetro JsonPath
+ * %%
+ * Copyright (C) 2013 - 2016 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.path;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+public class JsonPathMatcherTest {
+	private static final String[] PATTERNS = { "$", "$.foo", "$.*", "$[*]", "$[0]", "$[1]", "$[-]", "$:",
+			"$.foo:", "$.foo[*]", "$.foo[1]", "$.foo[1]?", "$.foo[*]:", "$.foo.bar", "$.foo.*", "$.foo?.bar",
+			"$.foo?[1]", "$[*]?.foo", "$.foo[1].bar?", "$.*[*].*", "$.foo[1].bar[2]", "$.foo[1].bar[2]:",
+			"$[0].foo", "$.bar", "$.bar[0]:", "$.*.*:", "$.foo?.bar?[0]", "$[*]?.*?[*]?.baz", "$.foo?:", "$[1]?.bar:",
+			"$.*?.foo[*]?.bar" };
+
+	private static final String[] NAMES = { "foo", "bar", "baz" };
+
+	@Test
+	public void shouldMatchLikeJsonPath() {
+		JsonPathMatcher matcher = JsonPathMatcher.compile(patterns());
+		JsonPathCursor cursor = new JsonPathCursor(matcher);
+		JsonPathCursor plain = new JsonPathCursor();
+		Random random = new Random(42);
+
+		for (int step = 0; step < 20_000; step++) {
+			int action = random.nextInt(4);
+
+			if (action == 0 && cursor.getDepth() < 6 || cursor.isRootPath()) {
+				if (random.nextBoolean()) {
+					String name = NAMES[random.nextInt(NAMES.length)];
+					cursor.appendPropertyName(name);
+					plain.appendPropertyName(name);
+				} else {
+					int index = random.nextInt(4);
+					cursor.appendArrayIndex(index);
+					plain.appendArrayIndex(index);
+				}
+			} else if (action == 1) {
+				cursor.removeLastElement();
+				plain.removeLastElement();
+			} else if (action == 2) {
+				String name = NAMES[random.nextInt(NAMES.length)];
+				cursor.replaceLastWithPropertyName(name);
+				plain.replaceLastWithPropertyName(name);
+			} else {
+				int index = random.nextInt(4);
+				cursor.replaceLastWithArrayIndex(index);
+				plain.replaceLastWithArrayIndex(index);
+			}
+
+			List<Integer> expectedMatches = new ArrayList<>();
+
+			for (int pattern = 0; pattern < matcher.size(); pattern++) {
+				boolean expected = plain.matches(matcher.getPattern(pattern));
+
+				assertEquals(cursor.matches(pattern), expected, cursor + " matching " + matcher.getPattern(pattern));
+				assertEquals(cursor.matches(matcher.getPattern(pattern)), expected);
+
+				if (expected) {
+					expectedMatches.add(pattern);
+				}
+			}
+
+			JsonPathMatcher.State state = cursor.getMatcherState();
+			List<Integer> actualMatches = new ArrayList<>();
+
+			for (int i = 0; i < state.getMatchCount(); i++) {
+				actualMatches.add(state.getMatch(i));
+			}
+
+			assertEquals(actualMatches, expectedMatches, cursor.toString());
+		}
+	}
+
+	@Test
+	public void shouldCompileOptionals() {
+		JsonPathMatcher matcher = JsonPathMatcher.compile(JsonPath.compile("$.foo"),
+				JsonPath.compile("$.foo?[1]"));
+		JsonPathMatcher.State start = matcher.getStart();
+
+		assertTrue(start.onArrayIndex(1).matches(1));
+		assertFalse(start.onArrayIndex(1).matches(0));
+		assertTrue(start.onPropertyName("foo").onArrayIndex(1).matches(1));
+		assertFalse(start.onPropertyName("bar").onArrayIndex(1).matches(1));
+		assertFalse(start.onArrayIndex(1).onArrayIndex(1).matches(1));
+	}
+
+	@Test
+	public void shouldShareTransitionsOfUnknownElements() {
+		JsonPathMatcher matcher = JsonPathMatcher.compile(JsonPath.compile("$.foo"), JsonPath.compile("$[3]"));
+		JsonPathMatcher.State start = matcher.getStart();
+
+		assertTrue(start.onPropertyName("foo").matches(0));
+		assertTrue(start.onArrayIndex(3).matches(1));
+		assertEquals(start.onPropertyName("bar"), start.onPropertyName("baz"));
+		assertEquals(start.onArrayIndex(0), start.onPropertyName("bar"));
+		assertEquals(matcher.indexOf(JsonPath.compile("$[3]")), 1);
+		assertEquals(matcher.indexOf(JsonPath.compile("$[4]")), -1);
+	}
+
+	@Test
+	public void shouldMatchAllFurtherElements() {
+		JsonPathMatcher matcher = JsonPathMatcher.compile(JsonPath.compile("$.foo:"));
+		JsonPathMatcher.State state = matcher.getStart();
+
+		assertFalse(state.matches(0));
+		state = state.onPropertyName("foo");
+		assertTrue(state.matches(0));
+
+		for (int i = 0; i < 10; i++) {
+			state = i % 2 == 0 ? state.onArrayIndex(i) : state.onPropertyName("x" + i);
+			assertTrue(state.matches(0));
+		}
+	}
+
+	private static List<JsonPath> patterns() {
+		List<JsonPath> patterns = new ArrayList<>();
+
+		for (String pattern : PATTERNS) {
+			patterns.add(JsonPath.compile(pattern));
+		}
+
+		return patterns;
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+/**
+ * A reusable {@link CharSequence} view of a range of a char array. The view
+ * doesn't copy the characters, so it is only valid as long as the array range
+ * isn't overwritten. {@link #toString()} and {@link #subSequence(int, int)}
+ * return independent copies.
+ *
+ * @author Matthias Rothe
+ */
+final class CharArraySequence implements CharSequence {
+	private char[] array;
+	private int offset;
+	private int length;
+
+	CharArraySequence set(final char[] array, final int offset, final int length) {
+		this.array = array;
+		this.offset = offset;
+		this.length = length;
+		return this;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(final int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+		}
+
+		return array[offset + index];
+	}
+
+	@Override
+	public CharSequence subSequence(final int start, final int end) {
+		if (start < 0 || end > length || start > end) {
+			throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + length);
+		}
+
+		return String.valueOf(array, offset + start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		return String.valueOf(array, offset, length);
+	}
+}
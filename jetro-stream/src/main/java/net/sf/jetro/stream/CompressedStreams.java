@@ -0,0 +1,212 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads and writes GZIP and Deflate (zlib) compressed JSON documents.
+ * <p>
+ * {@link #decompressing(InputStream)} recognizes compressed input by its first
+ * two bytes, which can't start a JSON document, and inflates it on a thread of
+ * its own, so inflating overlaps with parsing. The inflaters and deflaters use
+ * buffers of {@link #BUFFER_SIZE} bytes instead of the default 512 bytes,
+ * which would pass the compressed data on in tiny portions.
+ *
+ * @author Matthias Rothe
+ */
+public final class CompressedStreams {
+	/**
+	 * The size in bytes of the buffers of the inflaters and deflaters.
+	 */
+	public static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final int GZIP_MAGIC_1 = 0x1f;
+	private static final int GZIP_MAGIC_2 = 0x8b;
+	private static final int DEFLATE_METHOD = 8;
+
+	private CompressedStreams() {
+	}
+
+	/**
+	 * Returns a stream reading the decompressed content of {@code in} if it is
+	 * GZIP or zlib compressed, or a stream reading {@code in} as it is
+	 * otherwise. Compressed content is inflated on a thread of its own,
+	 * reading ahead by a few blocks of 64 KB. Nothing is read from {@code in}
+	 * before the returned stream is read from. Closing the returned stream
+	 * closes {@code in}.
+	 *
+	 * @param in the stream to read from
+	 * @return the stream reading the decompressed content
+	 * @throws NullPointerException if in is null
+	 */
+	public static InputStream decompressing(InputStream in) {
+		if (in == null) {
+			throw new NullPointerException("in == null");
+		}
+
+		return new DecompressingInputStream(in);
+	}
+
+	private static InputStream detect(final InputStream in) throws IOException {
+		PushbackInputStream source = new PushbackInputStream(in, 2);
+		int first = source.read();
+		int second = first < 0 ? -1 : source.read();
+
+		if (second >= 0) {
+			source.unread(second);
+		}
+		if (first >= 0) {
+			source.unread(first);
+		}
+
+		if (first == GZIP_MAGIC_1 && second == GZIP_MAGIC_2) {
+			return new ReadAheadInputStream(new GZIPInputStream(source, BUFFER_SIZE));
+		} else if (isZlibHeader(first, second)) {
+			return new ReadAheadInputStream(new InflaterInputStream(source, new Inflater(),
+					BUFFER_SIZE) {
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						inf.end();
+					}
+				}
+			});
+		}
+
+		return source;
+	}
+
+	/**
+	 * Tells whether the given bytes form a zlib header: the compression method
+	 * deflate with a window of at most 32 KB and a valid check value. Such a
+	 * header starts with an {@code 'x'} or a control character, neither of
+	 * which can start a JSON document.
+	 */
+	private static boolean isZlibHeader(final int first, final int second) {
+		return first >= 0 && second >= 0 && (first & 0x0f) == DEFLATE_METHOD && (first >> 4) <= 7
+				&& ((first << 8) | second) % 31 == 0;
+	}
+
+	/**
+	 * Returns a stream writing the GZIP compressed bytes written to it to
+	 * {@code out}. Closing the returned stream completes the compressed data
+	 * and closes {@code out}.
+	 *
+	 * @param out the stream to write the compressed bytes to
+	 * @return the compressing stream
+	 * @throws IOException if the GZIP header can't be written
+	 * @throws NullPointerException if out is null
+	 */
+	public static OutputStream gzip(OutputStream out) throws IOException {
+		if (out == null) {
+			throw new NullPointerException("out == null");
+		}
+
+		return new GZIPOutputStream(out, BUFFER_SIZE);
+	}
+
+	/**
+	 * Returns a stream writing the zlib compressed bytes written to it to
+	 * {@code out}. Closing the returned stream completes the compressed data
+	 * and closes {@code out}.
+	 *
+	 * @param out the stream to write the compressed bytes to
+	 * @return the compressing stream
+	 * @throws NullPointerException if out is null
+	 */
+	public static OutputStream deflate(OutputStream out) {
+		if (out == null) {
+			throw new NullPointerException("out == null");
+		}
+
+		return new DeflaterOutputStream(out, new Deflater(), BUFFER_SIZE) {
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				} finally {
+					def.end();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Detects the compression on the first access, so merely creating the
+	 * stream neither reads from the source nor starts a thread.
+	 */
+	private static final class DecompressingInputStream extends InputStream {
+		private final InputStream source;
+		private InputStream delegate;
+
+		private DecompressingInputStream(final InputStream source) {
+			this.source = source;
+		}
+
+		private InputStream delegate() throws IOException {
+			if (delegate == null) {
+				delegate = detect(source);
+			}
+
+			return delegate;
+		}
+
+		@Override
+		public int read() throws IOException {
+			return delegate().read();
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			return delegate().read(b, off, len);
+		}
+
+		@Override
+		public long skip(final long n) throws IOException {
+			return delegate().skip(n);
+		}
+
+		@Override
+		public int available() throws IOException {
+			return delegate == null ? 0 : delegate.available();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (delegate == null) {
+				source.close();
+			} else {
+				delegate.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,674 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts between doubles and their JSON text without intermediate strings.
+ * <p>
+ * Parsing uses Clinger's fast path for small exponents and the Eisel-Lemire
+ * algorithm otherwise (Daniel Lemire, "Number Parsing at a Gigabyte per
+ * Second", 2021). The rare inputs it can't decide are handed to
+ * {@link Double#parseDouble(String)}, so results are always correctly
+ * rounded.
+ * <p>
+ * Formatting uses the Schubfach algorithm (Raffaello Giulietti, "The Schubfach
+ * way to render doubles", 2020) and produces the shortest decimal that reads
+ * back as the same double, in the layout of {@link Double#toString(double)}.
+ * <p>
+ * The tables both algorithms need are derived once when this class is
+ * initialized.
+ *
+ * @author Matthias Rothe
+ */
+public final class DoubleCodec {
+	/**
+	 * The maximum number of characters {@link #format(double, char[], int)}
+	 * writes, e.g. for -2.2250738585072014E-308.
+	 */
+	public static final int MAX_FORMATTED_LENGTH = 24;
+
+	// parsing
+
+	private static final int MAX_DIGITS = 19;
+	private static final int MIN_POWER = -342;
+	private static final int MAX_POWER = 308;
+	private static final long[] POWERS_OF_FIVE = powersOfFive();
+
+	private static final double[] EXACT_POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	// formatting
+
+	private static final int P = 53;
+	private static final int Q_MIN = -1074;
+	private static final int K_MIN = -324;
+	private static final int K_MAX = 292;
+	private static final int H = 17;
+	private static final long C_MIN = 1L << P - 1;
+	private static final long C_TINY = 3;
+	private static final long T_MASK = C_MIN - 1;
+	private static final int BQ_MASK = 0x7FF;
+	private static final long MASK_63 = Long.MAX_VALUE;
+	private static final long[] G = powersOfTen();
+
+	private static final long[] POWERS_OF_TEN = {
+		1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L,
+		1000000000L, 10000000000L, 100000000000L, 1000000000000L, 10000000000000L,
+		100000000000000L, 1000000000000000L, 10000000000000000L, 100000000000000000L,
+		1000000000000000000L
+	};
+
+	private DoubleCodec() {
+	}
+
+	/**
+	 * Parses a double from the {@code length} characters of {@code chars}
+	 * starting at {@code offset}, accepting anything
+	 * {@link Double#parseDouble(String)} accepts.
+	 *
+	 * @param chars the characters to parse
+	 * @param offset the index of the first character
+	 * @param length the number of characters
+	 * @return the parsed value
+	 * @throws NumberFormatException if the characters aren't a number
+	 */
+	public static double parseDouble(final char[] chars, final int offset, final int length) {
+		int end = offset + length;
+		int i = offset < end && chars[offset] == '-' ? offset + 1 : offset;
+		Decimal decimal = new Decimal(i > offset);
+
+		int start = i;
+		i = mantissaDigits(chars, i, end, decimal, false);
+		boolean valid = i > start;
+
+		if (i < end && chars[i] == '.') {
+			start = ++i;
+			i = mantissaDigits(chars, i, end, decimal, true);
+			valid &= i > start;
+		}
+
+		if (valid && i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+			i = exponentDigits(chars, i + 1, end, decimal);
+		}
+
+		double result = valid && i == end ? decimal.toDouble() : Double.NaN;
+		return result == result ? result : Double.parseDouble(String.valueOf(chars, offset, length));
+	}
+
+	/**
+	 * Parses a double from the {@code length} ASCII bytes of {@code bytes}
+	 * starting at {@code offset}, accepting anything
+	 * {@link Double#parseDouble(String)} accepts.
+	 *
+	 * @param bytes the bytes to parse
+	 * @param offset the index of the first byte
+	 * @param length the number of bytes
+	 * @return the parsed value
+	 * @throws NumberFormatException if the bytes aren't a number
+	 */
+	public static double parseDouble(final byte[] bytes, final int offset, final int length) {
+		int end = offset + length;
+		int i = offset < end && bytes[offset] == '-' ? offset + 1 : offset;
+		Decimal decimal = new Decimal(i > offset);
+
+		int start = i;
+		i = mantissaDigits(bytes, i, end, decimal, false);
+		boolean valid = i > start;
+
+		if (i < end && bytes[i] == '.') {
+			start = ++i;
+			i = mantissaDigits(bytes, i, end, decimal, true);
+			valid &= i > start;
+		}
+
+		if (valid && i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+			i = exponentDigits(bytes, i + 1, end, decimal);
+		}
+
+		double result = valid && i == end ? decimal.toDouble() : Double.NaN;
+		return result == result ? result : Double.parseDouble(
+				StandardCharsets.ISO_8859_1.decode(ByteBuffer.wrap(bytes, offset, length)).toString());
+	}
+
+	/**
+	 * Adds the digits of the integer or fraction part starting at index i to
+	 * the decimal and returns the index after them.
+	 */
+	private static int mantissaDigits(final char[] chars, int i, final int end, final Decimal decimal,
+			final boolean fraction) {
+		for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+			decimal.add(chars[i] - '0', fraction);
+		}
+		return i;
+	}
+
+	private static int mantissaDigits(final byte[] bytes, int i, final int end, final Decimal decimal,
+			final boolean fraction) {
+		for (; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+			decimal.add(bytes[i] - '0', fraction);
+		}
+		return i;
+	}
+
+	/**
+	 * Adds the exponent following the 'e' at index i - 1 to the decimal and
+	 * returns the index after it or -1 if it has no digits.
+	 */
+	private static int exponentDigits(final char[] chars, int i, final int end, final Decimal decimal) {
+		boolean negative = i < end && chars[i] == '-';
+		if (i < end && (negative || chars[i] == '+')) {
+			i++;
+		}
+
+		int start = i;
+		int explicit = 0;
+		for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+			if (explicit < 100_000) {
+				explicit = 10 * explicit + chars[i] - '0';
+			}
+		}
+		decimal.exponent += negative ? -explicit : explicit;
+		return i > start ? i : -1;
+	}
+
+	private static int exponentDigits(final byte[] bytes, int i, final int end, final Decimal decimal) {
+		boolean negative = i < end && bytes[i] == '-';
+		if (i < end && (negative || bytes[i] == '+')) {
+			i++;
+		}
+
+		int start = i;
+		int explicit = 0;
+		for (; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+			if (explicit < 100_000) {
+				explicit = 10 * explicit + bytes[i] - '0';
+			}
+		}
+		decimal.exponent += negative ? -explicit : explicit;
+		return i > start ? i : -1;
+	}
+
+	/**
+	 * Parses a double from {@code text}, accepting anything
+	 * {@link Double#parseDouble(String)} accepts.
+	 *
+	 * @param text the text to parse
+	 * @return the parsed value
+	 * @throws NumberFormatException if the text isn't a number
+	 */
+	public static double parseDouble(final CharSequence text) {
+		int length = text.length();
+		if (length > 64) {
+			return Double.parseDouble(text.toString());
+		}
+
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = text.charAt(i);
+		}
+		return parseDouble(chars, 0, length);
+	}
+
+	/**
+	 * Returns the double closest to (digits + x) 10^exponent with 0 <= x < 1
+	 * or NaN if it can't be determined quickly. x is known to be 0 unless
+	 * truncated is set.
+	 */
+	private static double toDouble(final boolean negative, final long digits, final int exponent,
+			final boolean truncated) {
+		if (digits == 0) {
+			return negative ? -0.0 : 0.0;
+		}
+
+		double result = eiselLemire(negative, digits, exponent);
+		if (truncated && result == result && result != eiselLemire(negative, digits + 1, exponent)) {
+			return Double.NaN;
+		}
+		return result;
+	}
+
+	private static double eiselLemire(final boolean negative, final long digits, final int power) {
+		double exact = clinger(negative, digits, power);
+		if (exact == exact || power < MIN_POWER || power > MAX_POWER) {
+			return exact;
+		}
+
+		long exponent = ((217706L * power) >> 16) + 1024 + 63;
+		int lz = Long.numberOfLeadingZeros(digits);
+		long shifted = digits << lz;
+
+		int index = (power - MIN_POWER) << 1;
+		long factor = POWERS_OF_FIVE[index];
+		long lower = shifted * factor;
+		long upper = unsignedMultiplyHigh(shifted, factor);
+
+		if ((upper & 0x1FF) == 0x1FF && Long.compareUnsigned(lower + shifted, lower) < 0) {
+			long factorLow = POWERS_OF_FIVE[index + 1];
+			long productLow = shifted * factorLow;
+			long productMiddle = lower + unsignedMultiplyHigh(shifted, factorLow);
+			if (Long.compareUnsigned(productMiddle, lower) < 0) {
+				upper++;
+			}
+			if (productMiddle + 1 == 0 && (upper & 0x1FF) == 0x1FF
+					&& Long.compareUnsigned(productLow + shifted, productLow) < 0) {
+				return Double.NaN;
+			}
+			lower = productMiddle;
+		}
+
+		return round(negative, upper, lower, exponent, lz);
+	}
+
+	/**
+	 * Clinger's fast path: both operands and the single rounding are exact
+	 * for small powers. Returns NaN if the power is too large.
+	 */
+	private static double clinger(final boolean negative, final long digits, final int power) {
+		if (power < -22 || power > 22 || Long.compareUnsigned(digits, 1L << P) > 0) {
+			return Double.NaN;
+		}
+
+		double value = digits;
+		value = power < 0 ? value / EXACT_POWERS_OF_TEN[-power] : value * EXACT_POWERS_OF_TEN[power];
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Rounds the 128 bit product of the Eisel-Lemire algorithm to a double or
+	 * returns NaN if it is a tie or out of the range of normal doubles.
+	 */
+	private static double round(final boolean negative, final long upper, final long lower,
+			final long exponent, int lz) {
+		long upperBit = upper >>> 63;
+		long mantissa = upper >>> (upperBit + 9);
+		lz += (int) (1 ^ upperBit);
+
+		if (lower == 0 && (upper & 0x1FF) == 0 && (mantissa & 3) == 1) {
+			// exactly halfway between two doubles
+			return Double.NaN;
+		}
+
+		mantissa += mantissa & 1;
+		mantissa >>>= 1;
+		if (mantissa >= (1L << P)) {
+			mantissa = 1L << P - 1;
+			lz--;
+		}
+		mantissa &= ~(1L << P - 1);
+
+		long realExponent = exponent - lz;
+		if (realExponent < 1 || realExponent > 2046) {
+			// subnormal or overflow
+			return Double.NaN;
+		}
+
+		return Double.longBitsToDouble(mantissa | realExponent << P - 1 | (negative ? 1L << 63 : 0));
+	}
+
+	/**
+	 * The truncated 128 bit mantissas of 5^q for MIN_POWER <= q <= MAX_POWER,
+	 * high and low half next to each other.
+	 */
+	private static long[] powersOfFive() {
+		long[] table = new long[(MAX_POWER - MIN_POWER + 1) << 1];
+		BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+		BigInteger five = BigInteger.valueOf(5);
+
+		for (int q = MIN_POWER; q <= MAX_POWER; q++) {
+			BigInteger c;
+			if (q < 0) {
+				BigInteger power = five.pow(-q);
+				int z = power.subtract(BigInteger.ONE).bitLength();
+				int b = q >= -27 ? z + 127 : 2 * z + 128;
+				c = BigInteger.ONE.shiftLeft(b).divide(power).add(BigInteger.ONE);
+				if (c.compareTo(two128) >= 0) {
+					c = c.shiftRight(c.bitLength() - 128);
+				}
+			} else {
+				c = five.pow(q);
+				c = c.bitLength() <= 128 ? c.shiftLeft(128 - c.bitLength()) : c.shiftRight(c.bitLength() - 128);
+			}
+
+			int index = (q - MIN_POWER) << 1;
+			table[index] = c.shiftRight(64).longValue();
+			table[index + 1] = c.longValue();
+		}
+
+		return table;
+	}
+
+	/**
+	 * Formats {@code value} into {@code chars} starting at {@code offset}.
+	 * The shortest decimal that reads back as {@code value} is written in the
+	 * layout of {@link Double#toString(double)}. At most
+	 * {@link #MAX_FORMATTED_LENGTH} characters are written.
+	 *
+	 * @param value the value to format
+	 * @param chars the array to write to
+	 * @param offset the index to write the first character to
+	 * @return the index after the last character written
+	 */
+	public static int format(final double value, final char[] chars, int offset) {
+		long bits = Double.doubleToRawLongBits(value);
+		long t = bits & T_MASK;
+		int bq = (int) (bits >>> P - 1) & BQ_MASK;
+
+		if (bq == BQ_MASK) {
+			return append(t != 0 ? "NaN" : bits > 0 ? "Infinity" : "-Infinity", chars, offset);
+		}
+
+		if (bits < 0) {
+			chars[offset++] = '-';
+		}
+
+		if (bq != 0) {
+			// normal value, here mq = -q
+			int mq = -Q_MIN + 1 - bq;
+			long c = C_MIN | t;
+
+			if (0 < mq & mq < P) {
+				long f = c >> mq;
+				if (f << mq == c) {
+					return toChars(f, 0, chars, offset);
+				}
+			}
+			return toDecimal(-mq, c, 0, chars, offset);
+		}
+
+		if (t != 0) {
+			// subnormal value
+			return t < C_TINY ? toDecimal(Q_MIN, 10 * t, -1, chars, offset) : toDecimal(Q_MIN, t, 0, chars, offset);
+		}
+
+		return append("0.0", chars, offset);
+	}
+
+	/**
+	 * Returns the same as {@link #format(double, char[], int)} as a String.
+	 *
+	 * @param value the value to format
+	 * @return the formatted value
+	 */
+	public static String toString(final double value) {
+		char[] chars = new char[MAX_FORMATTED_LENGTH];
+		return String.valueOf(chars, 0, format(value, chars, 0));
+	}
+
+	private static int toDecimal(final int q, final long c, final int dk, final char[] chars, final int offset) {
+		int out = (int) c & 0x1;
+		long cb = c << 2;
+		long cbr = cb + 2;
+		long cbl;
+		int k;
+
+		if (c != C_MIN | q == Q_MIN) {
+			cbl = cb - 2;
+			k = flog10pow2(q);
+		} else {
+			cbl = cb - 1;
+			k = flog10threeQuartersPow2(q);
+		}
+		int h = q + flog2pow10(-k) + 2;
+
+		int index = (k - K_MIN) << 1;
+		long g1 = G[index];
+		long g0 = G[index + 1];
+
+		long vb = rop(g1, g0, cb << h);
+		long vbl = rop(g1, g0, cbl << h);
+		long vbr = rop(g1, g0, cbr << h);
+
+		long s = vb >> 2;
+		if (s >= 100) {
+			// s' = floor(s / 10) and t' = s' + 1 with one digit less
+			long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+			long tp10 = sp10 + 10;
+			boolean upin = vbl + out <= sp10 << 2;
+			boolean wpin = (tp10 << 2) + out <= vbr;
+			if (upin != wpin) {
+				return toChars(upin ? sp10 : tp10, k, chars, offset);
+			}
+		}
+
+		long t = s + 1;
+		boolean uin = vbl + out <= s << 2;
+		boolean win = (t << 2) + out <= vbr;
+		if (uin != win) {
+			return toChars(uin ? s : t, k + dk, chars, offset);
+		}
+
+		long cmp = vb - (s + t << 1);
+		return toChars(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, chars, offset);
+	}
+
+	/**
+	 * Computes the rounded to odd product of g and cp scaled by 2^-127.
+	 */
+	private static long rop(final long g1, final long g0, final long cp) {
+		long x1 = multiplyHigh(g0, cp);
+		long y0 = g1 * cp;
+		long y1 = multiplyHigh(g1, cp);
+		long z = (y0 >>> 1) + x1;
+		long vbp = y1 + (z >>> 63);
+		return vbp | (z & MASK_63) + MASK_63 >>> 63;
+	}
+
+	/**
+	 * Writes f 10^e in the layout of Double.toString().
+	 */
+	private static int toChars(long f, int e, final char[] chars, int offset) {
+		while (f % 10 == 0) {
+			f /= 10;
+			e++;
+		}
+
+		int length = 1;
+		while (length < POWERS_OF_TEN.length && f >= POWERS_OF_TEN[length]) {
+			length++;
+		}
+
+		// the exponent of the leading digit
+		int exponent = e + length - 1;
+
+		if (0 <= exponent && exponent < 7) {
+			return appendPlain(f, length, exponent, chars, offset);
+		}
+
+		if (-3 <= exponent && exponent < 0) {
+			chars[offset++] = '0';
+			chars[offset++] = '.';
+			for (int i = -1; i > exponent; i--) {
+				chars[offset++] = '0';
+			}
+			return appendDigits(f, length, chars, offset);
+		}
+
+		return appendScientific(f, length, exponent, chars, offset);
+	}
+
+	/**
+	 * Writes the digits of f with the decimal point after the digit for 10^0.
+	 */
+	private static int appendPlain(final long f, final int length, final int exponent, final char[] chars,
+			int offset) {
+		if (length <= exponent + 1) {
+			offset = appendDigits(f, length, chars, offset);
+			for (int i = length; i <= exponent; i++) {
+				chars[offset++] = '0';
+			}
+			chars[offset++] = '.';
+			chars[offset++] = '0';
+			return offset;
+		}
+
+		appendDigits(f, length, chars, offset + 1);
+		System.arraycopy(chars, offset + 1, chars, offset, exponent + 1);
+		chars[offset + exponent + 1] = '.';
+		return offset + length + 1;
+	}
+
+	/**
+	 * Writes the digits of f with the decimal point after the first one,
+	 * followed by the exponent.
+	 */
+	private static int appendScientific(final long f, final int length, int exponent, final char[] chars,
+			int offset) {
+		appendDigits(f, length, chars, offset + 1);
+		chars[offset] = chars[offset + 1];
+		chars[offset + 1] = '.';
+		offset += length + 1;
+		if (length == 1) {
+			chars[offset++] = '0';
+		}
+
+		chars[offset++] = 'E';
+		if (exponent < 0) {
+			chars[offset++] = '-';
+			exponent = -exponent;
+		}
+		if (exponent >= 100) {
+			chars[offset++] = (char) ('0' + exponent / 100);
+			exponent %= 100;
+			chars[offset++] = (char) ('0' + exponent / 10);
+		} else if (exponent >= 10) {
+			chars[offset++] = (char) ('0' + exponent / 10);
+		}
+		chars[offset++] = (char) ('0' + exponent % 10);
+		return offset;
+	}
+
+	private static int appendDigits(long f, final int length, final char[] chars, final int offset) {
+		for (int i = offset + length - 1; i >= offset; i--) {
+			chars[i] = (char) ('0' + f % 10);
+			f /= 10;
+		}
+		return offset + length;
+	}
+
+	private static int append(final String text, final char[] chars, final int offset) {
+		text.getChars(0, text.length(), chars, offset);
+		return offset + text.length();
+	}
+
+	/**
+	 * The 126 bit values g = floor(10^-k 2^-r) + 1 with 2^125 <= 10^-k 2^-r &lt; 2^126
+	 * for K_MIN <= k <= K_MAX, split into their high and low 63 bits.
+	 */
+	private static long[] powersOfTen() {
+		long[] table = new long[(K_MAX - K_MIN + 1) << 1];
+		BigInteger ten = BigInteger.TEN;
+
+		for (int k = K_MIN; k <= K_MAX; k++) {
+			int e = -k;
+			BigInteger g;
+			if (e >= 0) {
+				BigInteger power = ten.pow(e);
+				int r = power.bitLength() - 126;
+				g = r >= 0 ? power.shiftRight(r) : power.shiftLeft(-r);
+			} else {
+				BigInteger power = ten.pow(-e);
+				g = BigInteger.ONE.shiftLeft(power.bitLength() + 125).divide(power);
+			}
+			g = g.add(BigInteger.ONE);
+
+			int index = (k - K_MIN) << 1;
+			table[index] = g.shiftRight(63).longValue();
+			table[index + 1] = g.longValue() & MASK_63;
+		}
+
+		return table;
+	}
+
+	private static int flog10pow2(final int e) {
+		return (int) (e * 661_971_961_083L >> 41);
+	}
+
+	private static int flog10threeQuartersPow2(final int e) {
+		return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+	}
+
+	private static int flog2pow10(final int e) {
+		return (int) (e * 913_124_641_741L >> 38);
+	}
+
+	private static long multiplyHigh(final long x, final long y) {
+		long x1 = x >> 32;
+		long x2 = x & 0xFFFFFFFFL;
+		long y1 = y >> 32;
+		long y2 = y & 0xFFFFFFFFL;
+		long z2 = x2 * y2;
+		long t = x1 * y2 + (z2 >>> 32);
+		long z1 = t & 0xFFFFFFFFL;
+		long z0 = t >> 32;
+		z1 += x2 * y1;
+		return x1 * y1 + z0 + (z1 >> 32);
+	}
+
+	private static long unsignedMultiplyHigh(final long x, final long y) {
+		return multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+	}
+
+	/**
+	 * The decimal significand and exponent read by the parse methods.
+	 */
+	private static final class Decimal {
+		private final boolean negative;
+		private long digits;
+		private int count;
+		private int exponent;
+		private boolean truncated;
+
+		private Decimal(final boolean negative) {
+			this.negative = negative;
+		}
+
+		/**
+		 * Adds a digit of the integer or fraction part. Digits beyond
+		 * MAX_DIGITS are only accounted for in the exponent and by the
+		 * truncated flag.
+		 */
+		private void add(final int digit, final boolean fraction) {
+			if (count < MAX_DIGITS) {
+				if (digits != 0 || digit != 0) {
+					digits = 10 * digits + digit;
+					count++;
+				}
+				if (fraction) {
+					exponent--;
+				}
+			} else {
+				if (!fraction) {
+					exponent++;
+				}
+				truncated |= digit != 0;
+			}
+		}
+
+		private double toDouble() {
+			return DoubleCodec.toDouble(negative, digits, exponent, truncated);
+		}
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A property name escaped and encoded in advance, ready to be copied to the
+ * output of a {@link JsonGenerator} as it is.
+ * <p>
+ * Both the plain and the HTML safe escaping of the name are kept, as chars
+ * for generators writing chars and as UTF-8 encoded bytes for a
+ * {@link Utf8JsonWriter}, each including the enclosing quotes. Instances of
+ * this class are immutable and may be shared by several generators and
+ * threads. See {@link EncodedNames} for a registry of such names, which
+ * lets a generator use them whenever the names are written.
+ *
+ * @author Matthias Rothe
+ */
+public final class EncodedName {
+	private final String name;
+	private final char[] chars;
+	private final char[] htmlSafeChars;
+	private final byte[] bytes;
+	private final byte[] htmlSafeBytes;
+
+	private EncodedName(String name) {
+		this.name = name;
+		String quoted = quote(name, false);
+		String htmlSafeQuoted = quote(name, true);
+		chars = quoted.toCharArray();
+		bytes = quoted.getBytes(StandardCharsets.UTF_8);
+		if (quoted.equals(htmlSafeQuoted)) {
+			htmlSafeChars = chars;
+			htmlSafeBytes = bytes;
+		} else {
+			htmlSafeChars = htmlSafeQuoted.toCharArray();
+			htmlSafeBytes = htmlSafeQuoted.getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	private static String quote(String name, boolean htmlSafe) {
+		StringBuilder quoted = new StringBuilder(name.length() + 2);
+		JsonGenerator generator = new JsonGenerator(quoted);
+		generator.setHtmlSafe(htmlSafe);
+		quoted.append('"');
+		try {
+			generator.escape(name);
+		} catch (IOException e) {
+			// a StringBuilder doesn't throw
+			throw new AssertionError(e);
+		}
+		return quoted.append('"').toString();
+	}
+
+	/**
+	 * Escapes and encodes the given property name.
+	 *
+	 * @param name the property name
+	 * @return the encoded name
+	 * @throws NullPointerException if name is null
+	 */
+	public static EncodedName of(String name) {
+		if (name == null) {
+			throw new NullPointerException("name == null");
+		}
+		return new EncodedName(name);
+	}
+
+	/**
+	 * Returns the property name as given.
+	 *
+	 * @return the property name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the escaped name within quotes. The array must not be modified.
+	 */
+	char[] chars(boolean htmlSafe) {
+		return htmlSafe ? htmlSafeChars : chars;
+	}
+
+	/**
+	 * Returns the UTF-8 encoded, escaped name within quotes. The array must
+	 * not be modified.
+	 */
+	byte[] bytes(boolean htmlSafe) {
+		return htmlSafe ? htmlSafeBytes : bytes;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof EncodedName && name.equals(((EncodedName) obj).name);
+	}
+
+	@Override
+	public int hashCode() {
+		return name.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A registry of property names escaped and encoded in advance.
+ * <p>
+ * Register the names which are written over and over again, e.g. the
+ * property names of beans or the keys added by a transformation, and set the
+ * registry on the {@link JsonGenerator generators} by
+ * {@link JsonGenerator#setEncodedNames(EncodedNames)}. The generators then
+ * copy the {@link EncodedName encoded form} of each registered name instead of
+ * escaping it again for every object written. Names which aren't registered
+ * are written as usual.
+ * <p>
+ * Registries are thread safe and meant to be shared by all generators writing
+ * the same kind of documents. Names are never removed, so only names known in
+ * advance should be registered, not arbitrary names found in the input.
+ *
+ * @author Matthias Rothe
+ */
+public final class EncodedNames {
+	private final ConcurrentMap<String, EncodedName> names = new ConcurrentHashMap<>();
+
+	/**
+	 * Registers the given property name unless it is registered already.
+	 *
+	 * @param name the property name to register
+	 * @return the encoded name
+	 * @throws NullPointerException if name is null
+	 */
+	public EncodedName register(String name) {
+		if (name == null) {
+			throw new NullPointerException("name == null");
+		}
+		EncodedName encoded = names.get(name);
+		if (encoded == null) {
+			encoded = EncodedName.of(name);
+			EncodedName registered = names.putIfAbsent(name, encoded);
+			if (registered != null) {
+				encoded = registered;
+			}
+		}
+		return encoded;
+	}
+
+	/**
+	 * Registers all given property names which aren't registered already.
+	 *
+	 * @param names the property names to register
+	 * @return this registry
+	 * @throws NullPointerException if names is null or contains null
+	 */
+	public EncodedNames registerAll(Iterable<String> names) {
+		if (names == null) {
+			throw new NullPointerException("names == null");
+		}
+		for (String name : names) {
+			register(name);
+		}
+		return this;
+	}
+
+	/**
+	 * Returns the encoded form of the given property name if it is
+	 * registered.
+	 *
+	 * @param name the property name
+	 * @return the encoded name or null if the name isn't registered
+	 */
+	public EncodedName get(String name) {
+		return names.get(name);
+	}
+
+	/**
+	 * Returns the number of registered names.
+	 *
+	 * @return the number of names
+	 */
+	public int size() {
+		return names.size();
+	}
+}
@@ -0,0 +1,1123 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import net.sf.jetro.context.ReaderContext;
+import net.sf.jetro.exception.MalformedJsonException;
+
+/**
+ * Reads a UTF-8 encoded JSON document held in a byte array in two stages.
+ * First the {@link StructuralIndex} of the whole document is built, then the
+ * tokens are read by walking from one indexed position to the next, instead
+ * of inspecting the document byte by byte. Only whitespace, numbers and
+ * literals between the indexed positions and the content of strings actually
+ * decoded are looked at again.
+ * <p>
+ * Arrays and objects are skipped by jumping to their closing bracket or brace
+ * recorded in the index. Apart from the balance of their brackets and braces,
+ * skipped values are therefore not validated.
+ * <p>
+ * This reader is always strict, see {@link JsonReader#setLenient(boolean)}.
+ * Like all readers, instances of this class are not thread safe, but several
+ * readers may share the same index.
+ *
+ * @author Matthias Rothe
+ */
+public class IndexedJsonReader implements JsonTokenReader {
+	private static final long MIN_INCOMPLETE_INTEGER = Long.MIN_VALUE / 10;
+	private static final int BOM_LENGTH = 3;
+
+	private static final int PEEKED_NONE = 0;
+	private static final int PEEKED_BEGIN_OBJECT = 1;
+	private static final int PEEKED_END_OBJECT = 2;
+	private static final int PEEKED_BEGIN_ARRAY = 3;
+	private static final int PEEKED_END_ARRAY = 4;
+	private static final int PEEKED_TRUE = 5;
+	private static final int PEEKED_FALSE = 6;
+	private static final int PEEKED_NULL = 7;
+	private static final int PEEKED_DOUBLE_QUOTED = 9;
+	private static final int PEEKED_DOUBLE_QUOTED_NAME = 13;
+	private static final int PEEKED_LONG = 15;
+	private static final int PEEKED_NUMBER = 16;
+	private static final int PEEKED_EOF = 17;
+
+	/** The tokens by the values of {@link #peeked}. */
+	private static final JsonToken[] TOKENS = new JsonToken[PEEKED_EOF + 1];
+
+	static {
+		TOKENS[PEEKED_BEGIN_OBJECT] = JsonToken.BEGIN_OBJECT;
+		TOKENS[PEEKED_END_OBJECT] = JsonToken.END_OBJECT;
+		TOKENS[PEEKED_BEGIN_ARRAY] = JsonToken.BEGIN_ARRAY;
+		TOKENS[PEEKED_END_ARRAY] = JsonToken.END_ARRAY;
+		TOKENS[PEEKED_DOUBLE_QUOTED_NAME] = JsonToken.NAME;
+		TOKENS[PEEKED_TRUE] = JsonToken.BOOLEAN;
+		TOKENS[PEEKED_FALSE] = JsonToken.BOOLEAN;
+		TOKENS[PEEKED_NULL] = JsonToken.NULL;
+		TOKENS[PEEKED_DOUBLE_QUOTED] = JsonToken.STRING;
+		TOKENS[PEEKED_LONG] = JsonToken.NUMBER;
+		TOKENS[PEEKED_NUMBER] = JsonToken.NUMBER;
+		TOKENS[PEEKED_EOF] = JsonToken.END_DOCUMENT;
+	}
+
+	/* State of the number parser */
+	private static final int NUMBER_CHAR_NONE = 0;
+	private static final int NUMBER_CHAR_SIGN = 1;
+	private static final int NUMBER_CHAR_DIGIT = 2;
+	private static final int NUMBER_CHAR_DECIMAL = 3;
+	private static final int NUMBER_CHAR_FRACTION_DIGIT = 4;
+	private static final int NUMBER_CHAR_EXP_E = 5;
+	private static final int NUMBER_CHAR_EXP_SIGN = 6;
+	private static final int NUMBER_CHAR_EXP_DIGIT = 7;
+	private static final int NUMBER_CHAR_INVALID = 8;
+
+	private final StructuralIndex index;
+	private final byte[] buffer;
+	private final int[] positions;
+	/** The matches of the entries, see {@link StructuralIndex#matches()}. */
+	private final int[] matches;
+	private final int entries;
+	private final int start;
+	private final int limit;
+
+	private boolean multipleDocuments = false;
+
+	/** The position of the next byte not yet consumed. */
+	private int pos;
+	/** The next entry of the index not yet consumed. */
+	private int next;
+
+	private int peeked = PEEKED_NONE;
+	private long peekedLong;
+	private int peekedStart;
+	private int peekedEnd;
+
+	private char[] chars = new char[64];
+	/** The length of {@link #chars} after decoding a multi-byte character. */
+	private int decodedLength;
+	/** The character decoded from the last escape sequence. */
+	private char escaped;
+	private final StringPool stringPool;
+
+	private int[] stack = new int[32];
+	private int stackSize = 0;
+	{
+		stack[stackSize++] = JsonScope.EMPTY_DOCUMENT;
+	}
+
+	/**
+	 * Creates a new instance that reads the UTF-8 encoded JSON document
+	 * contained in {@code input}. The array is read in place and must not be
+	 * modified while this reader is in use.
+	 *
+	 * @param input the array containing the UTF-8 encoded JSON document
+	 */
+	public IndexedJsonReader(byte[] input) {
+		this(StructuralIndex.of(input));
+	}
+
+	/**
+	 * Creates a new instance that reads the UTF-8 encoded JSON document
+	 * contained in {@code length} bytes of {@code input} starting at
+	 * {@code offset}. The array is read in place and must not be modified
+	 * while this reader is in use.
+	 *
+	 * @param input the array containing the UTF-8 encoded JSON document
+	 * @param offset the start of the document
+	 * @param length the length of the document
+	 */
+	public IndexedJsonReader(byte[] input, int offset, int length) {
+		this(StructuralIndex.of(input, offset, length));
+	}
+
+	/**
+	 * Creates a new instance that reads the UTF-8 encoded JSON document
+	 * contained in {@code length} bytes of {@code input} starting at
+	 * {@code offset} configured by the given {@link ReaderContext}. The
+	 * context must not ask for lenient parsing.
+	 *
+	 * @param input the array containing the UTF-8 encoded JSON document
+	 * @param offset the start of the document
+	 * @param length the length of the document
+	 * @param context the context to configure this reader with
+	 */
+	public IndexedJsonReader(byte[] input, int offset, int length, ReaderContext context) {
+		this(StructuralIndex.of(input, offset, length), context);
+	}
+
+	/**
+	 * Creates a new instance that reads the document of the given, already
+	 * built index.
+	 *
+	 * @param index the index of the document to read
+	 */
+	public IndexedJsonReader(StructuralIndex index) {
+		this(index, new StringPool());
+	}
+
+	/**
+	 * Creates a new instance that reads the document of the given, already
+	 * built index configured by the given {@link ReaderContext}. The context
+	 * must not ask for lenient parsing.
+	 *
+	 * @param index the index of the document to read
+	 * @param context the context to configure this reader with
+	 */
+	public IndexedJsonReader(StructuralIndex index, ReaderContext context) {
+		this(index, stringPool(context));
+		setLenient(context.isLenient());
+	}
+
+	private IndexedJsonReader(StructuralIndex index, StringPool stringPool) {
+		if (index == null) {
+			throw new NullPointerException("index == null");
+		}
+		this.index = index;
+		this.buffer = index.getInput();
+		this.positions = index.positions();
+		this.matches = index.matches();
+		this.entries = index.size();
+		this.start = index.getOffset();
+		this.limit = start + index.getLength();
+		this.pos = start;
+		this.stringPool = stringPool;
+
+		if (index.getLength() >= BOM_LENGTH && buffer[pos] == (byte) 0xEF && buffer[pos + 1] == (byte) 0xBB
+				&& buffer[pos + 2] == (byte) 0xBF) {
+			pos += BOM_LENGTH;
+		}
+	}
+
+	private static StringPool stringPool(ReaderContext context) {
+		if (context == null) {
+			throw new NullPointerException("context == null");
+		}
+		return new StringPool(context.getStringPoolSize(), context.getKnownNames());
+	}
+
+	/**
+	 * Returns the index this reader walks.
+	 *
+	 * @return the index of the document
+	 */
+	public StructuralIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * Lenient parsing is not supported, as its syntax would defeat the index.
+	 *
+	 * @param lenient must be false
+	 * @throws UnsupportedOperationException if {@code lenient} is true
+	 */
+	public final void setLenient(boolean lenient) {
+		if (lenient) {
+			throw new UnsupportedOperationException("lenient parsing is not supported");
+		}
+	}
+
+	/**
+	 * Returns false, as this reader is always strict.
+	 *
+	 * @return false
+	 */
+	public final boolean isLenient() {
+		return false;
+	}
+
+	/**
+	 * Configure this parser to read a sequence of top-level values, see
+	 * {@link Utf8JsonReader#setMultipleDocuments(boolean)}.
+	 *
+	 * @param multipleDocuments whether to read a sequence of top-level values
+	 */
+	public final void setMultipleDocuments(boolean multipleDocuments) {
+		this.multipleDocuments = multipleDocuments;
+	}
+
+	/**
+	 * Returns true if this parser reads a sequence of top-level values.
+	 *
+	 * @return whether a sequence of top-level values is read
+	 */
+	public final boolean isMultipleDocuments() {
+		return multipleDocuments;
+	}
+
+	public void beginArray() throws IOException {
+		if (peekOrPeeked() == PEEKED_BEGIN_ARRAY) {
+			push(JsonScope.EMPTY_ARRAY);
+			consumeEntry();
+		} else {
+			throw new IllegalStateException("Expected BEGIN_ARRAY but was " + peek() + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+	}
+
+	public void endArray() throws IOException {
+		if (peekOrPeeked() == PEEKED_END_ARRAY) {
+			stackSize--;
+			consumeEntry();
+		} else {
+			throw new IllegalStateException("Expected END_ARRAY but was " + peek() + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+	}
+
+	public void beginObject() throws IOException {
+		if (peekOrPeeked() == PEEKED_BEGIN_OBJECT) {
+			push(JsonScope.EMPTY_OBJECT);
+			consumeEntry();
+		} else {
+			throw new IllegalStateException("Expected BEGIN_OBJECT but was " + peek() + " at line "
+					+ getLineNumber() + " column " + getColumnNumber());
+		}
+	}
+
+	public void endObject() throws IOException {
+		if (peekOrPeeked() == PEEKED_END_OBJECT) {
+			stackSize--;
+			consumeEntry();
+		} else {
+			throw new IllegalStateException("Expected END_OBJECT but was " + peek() + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+	}
+
+	public boolean hasNext() throws IOException {
+		int p = peekOrPeeked();
+		return p != PEEKED_END_OBJECT && p != PEEKED_END_ARRAY;
+	}
+
+	public JsonToken peek() throws IOException {
+		JsonToken token = TOKENS[peekOrPeeked()];
+
+		if (token == null) {
+			throw new AssertionError();
+		}
+		return token;
+	}
+
+	private int peekOrPeeked() throws IOException {
+		int p = peeked;
+		if (p == PEEKED_NONE) {
+			p = doPeek();
+		}
+		return p;
+	}
+
+	private int doPeek() throws IOException {
+		int peekStack = stack[stackSize - 1];
+		int result = peekStructure(peekStack);
+
+		if (result == PEEKED_NONE) {
+			result = peekValue(peekStack);
+		}
+
+		peeked = result;
+		return result;
+	}
+
+	/**
+	 * Consumes the commas and colons before the next value and peeks the end
+	 * of an array or object, a name or the end of the input.
+	 *
+	 * @return the token peeked or {@link #PEEKED_NONE} if a value follows
+	 */
+	private int peekStructure(int peekStack) throws IOException {
+		switch (peekStack) {
+		case JsonScope.EMPTY_ARRAY:
+			stack[stackSize - 1] = JsonScope.NONEMPTY_ARRAY;
+			return PEEKED_NONE;
+		case JsonScope.NONEMPTY_ARRAY:
+			return peekArrayElement();
+		case JsonScope.EMPTY_OBJECT:
+		case JsonScope.NONEMPTY_OBJECT:
+			return peekName(peekStack);
+		case JsonScope.DANGLING_NAME:
+			stack[stackSize - 1] = JsonScope.NONEMPTY_OBJECT;
+			// Look for a colon before the value.
+			if (nextNonWhitespace() != ':') {
+				throw syntaxError("Expected ':'");
+			}
+			consumeEntry();
+			return PEEKED_NONE;
+		case JsonScope.EMPTY_DOCUMENT:
+			stack[stackSize - 1] = JsonScope.NONEMPTY_DOCUMENT;
+			return PEEKED_NONE;
+		case JsonScope.NONEMPTY_DOCUMENT:
+			return peekDocument();
+		case JsonScope.CLOSED:
+			throw new IllegalStateException("JsonReader is closed");
+		default:
+			return PEEKED_NONE;
+		}
+	}
+
+	private int peekArrayElement() throws IOException {
+		// Look for a comma before the next element.
+		switch (nextNonWhitespace()) {
+		case ']':
+			return PEEKED_END_ARRAY;
+		case ',':
+			consumeEntry();
+			return PEEKED_NONE;
+		default:
+			throw syntaxError("Unterminated array");
+		}
+	}
+
+	private int peekName(int peekStack) throws IOException {
+		stack[stackSize - 1] = JsonScope.DANGLING_NAME;
+
+		if (peekStack == JsonScope.NONEMPTY_OBJECT) {
+			// Look for a comma before the next element.
+			switch (nextNonWhitespace()) {
+			case '}':
+				return PEEKED_END_OBJECT;
+			case ',':
+				consumeEntry();
+				break;
+			default:
+				throw syntaxError("Unterminated object");
+			}
+		}
+
+		int c = nextNonWhitespace();
+		if (c == '"') {
+			return PEEKED_DOUBLE_QUOTED_NAME;
+		} else if (c == '}' && peekStack != JsonScope.NONEMPTY_OBJECT) {
+			return PEEKED_END_OBJECT;
+		}
+		throw syntaxError("Expected name");
+	}
+
+	private int peekDocument() throws IOException {
+		if (nextNonWhitespace() == -1) {
+			return PEEKED_EOF;
+		} else if (!multipleDocuments) {
+			checkLenient();
+		}
+		return PEEKED_NONE;
+	}
+
+	/**
+	 * Peeks the value at the current position: an array, object or string
+	 * starting at the next entry or a number or literal before it.
+	 */
+	private int peekValue(int peekStack) throws IOException {
+		int c = nextNonWhitespace();
+		if (c == -1) {
+			throw syntaxError("End of input");
+		}
+
+		if (isEntry(pos)) {
+			return peekEntry(c, peekStack);
+		}
+
+		if (stackSize == 1 && !multipleDocuments) {
+			checkLenient(); // Top-level value isn't an array or an object.
+		}
+
+		// a number or a literal extends to the next indexed position
+		int end = next < entries ? positions[next] : limit;
+		if (stackSize == 1) {
+			end = nextWhitespace(end); // the next of a sequence of top-level values may follow
+		}
+		while (isWhitespace(buffer[end - 1])) {
+			end--;
+		}
+		peekedStart = pos;
+		peekedEnd = end;
+
+		int result = peekKeyword();
+		if (result == PEEKED_NONE) {
+			result = peekNumber();
+		}
+		if (result == PEEKED_NONE) {
+			checkLenient();
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the position of the first whitespace after the current one or the
+	 * given limit if there is none before it.
+	 */
+	private int nextWhitespace(int end) {
+		for (int p = pos + 1; p < end; p++) {
+			if (isWhitespace(buffer[p])) {
+				return p;
+			}
+		}
+		return end;
+	}
+
+	private int peekEntry(int c, int peekStack) throws IOException {
+		switch (c) {
+		case '"':
+			if (stackSize == 1 && !multipleDocuments) {
+				checkLenient();
+			}
+			return PEEKED_DOUBLE_QUOTED;
+		case '[':
+			return PEEKED_BEGIN_ARRAY;
+		case '{':
+			return PEEKED_BEGIN_OBJECT;
+		case ']':
+			if (peekStack == JsonScope.EMPTY_ARRAY) {
+				return PEEKED_END_ARRAY;
+			}
+			// fall-through to handle ",]"
+		default:
+			throw syntaxError("Unexpected value");
+		}
+	}
+
+	private int peekKeyword() {
+		int c = buffer[peekedStart];
+		if (c == 't' || c == 'T') {
+			return matches("true", "TRUE") ? PEEKED_TRUE : PEEKED_NONE;
+		} else if (c == 'f' || c == 'F') {
+			return matches("false", "FALSE") ? PEEKED_FALSE : PEEKED_NONE;
+		} else if (c == 'n' || c == 'N') {
+			return matches("null", "NULL") ? PEEKED_NULL : PEEKED_NONE;
+		}
+		return PEEKED_NONE;
+	}
+
+	private boolean matches(String keyword, String keywordUpper) {
+		int length = keyword.length();
+		if (peekedEnd - peekedStart != length) {
+			return false;
+		}
+		for (int i = 1; i < length; i++) {
+			int c = buffer[peekedStart + i];
+			if (c != keyword.charAt(i) && c != keywordUpper.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int peekNumber() {
+		int first = buffer[peekedStart] == '-' ? peekedStart + 1 : peekedStart;
+		if (first + 1 < peekedEnd && buffer[first] == '0' && isDigit(buffer[first + 1])) {
+			return PEEKED_NONE; // Leading '0' prefix is not allowed (since it could be octal).
+		}
+
+		int last = NUMBER_CHAR_NONE;
+		for (int p = peekedStart; p < peekedEnd && last != NUMBER_CHAR_INVALID; p++) {
+			last = nextNumberChar(last, buffer[p]);
+		}
+
+		if (last == NUMBER_CHAR_DIGIT) {
+			return peekInteger();
+		}
+		return last == NUMBER_CHAR_FRACTION_DIGIT || last == NUMBER_CHAR_EXP_DIGIT ? PEEKED_NUMBER : PEEKED_NONE;
+	}
+
+	/**
+	 * Returns the state of the number parser after the given character.
+	 */
+	private static int nextNumberChar(int last, int c) {
+		switch (c) {
+		case '-':
+			return last == NUMBER_CHAR_NONE ? NUMBER_CHAR_SIGN : afterExponent(last);
+		case '+':
+			return afterExponent(last);
+		case 'e':
+		case 'E':
+			return last == NUMBER_CHAR_DIGIT || last == NUMBER_CHAR_FRACTION_DIGIT ? NUMBER_CHAR_EXP_E
+					: NUMBER_CHAR_INVALID;
+		case '.':
+			return last == NUMBER_CHAR_DIGIT ? NUMBER_CHAR_DECIMAL : NUMBER_CHAR_INVALID;
+		default:
+			return isDigit(c) ? afterDigit(last) : NUMBER_CHAR_INVALID;
+		}
+	}
+
+	private static int afterExponent(int last) {
+		return last == NUMBER_CHAR_EXP_E ? NUMBER_CHAR_EXP_SIGN : NUMBER_CHAR_INVALID;
+	}
+
+	private static int afterDigit(int last) {
+		switch (last) {
+		case NUMBER_CHAR_NONE:
+		case NUMBER_CHAR_SIGN:
+			return NUMBER_CHAR_DIGIT;
+		case NUMBER_CHAR_DECIMAL:
+			return NUMBER_CHAR_FRACTION_DIGIT;
+		case NUMBER_CHAR_EXP_E:
+		case NUMBER_CHAR_EXP_SIGN:
+			return NUMBER_CHAR_EXP_DIGIT;
+		default:
+			return last;
+		}
+	}
+
+	private static boolean isDigit(int c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Decodes the integral number peeked into {@link #peekedLong} if it fits
+	 * into a long.
+	 */
+	private int peekInteger() {
+		boolean negative = buffer[peekedStart] == '-';
+		long value = 0; // Negative to accommodate Long.MIN_VALUE more easily.
+
+		for (int p = negative ? peekedStart + 1 : peekedStart; p < peekedEnd; p++) {
+			int digit = buffer[p] - '0';
+			if (value < MIN_INCOMPLETE_INTEGER || (value == MIN_INCOMPLETE_INTEGER && digit > 8)) {
+				return PEEKED_NUMBER;
+			}
+			value = value * 10 - digit;
+		}
+
+		if (negative ? value == 0 : value == Long.MIN_VALUE) {
+			return PEEKED_NUMBER;
+		}
+		peekedLong = negative ? value : -value;
+		return PEEKED_LONG;
+	}
+
+	public String nextName() throws IOException {
+		if (peekOrPeeked() != PEEKED_DOUBLE_QUOTED_NAME) {
+			throw new IllegalStateException("Expected a name but was " + peek() + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+		String result = nextQuotedValue();
+		peeked = PEEKED_NONE;
+		return result;
+	}
+
+	/**
+	 * Returns the {@link JsonToken#STRING string} value of the next token,
+	 * consuming it. If the next token is a number, this method will return its
+	 * string form.
+	 *
+	 * @return the string value of the next token
+	 * @throws IOException if the next token is malformed
+	 * @throws IllegalStateException if the next token is not a string or if
+	 *     this reader is closed.
+	 */
+	public String nextString() throws IOException {
+		int p = peekOrPeeked();
+		String result;
+		if (p == PEEKED_DOUBLE_QUOTED) {
+			result = nextQuotedValue();
+		} else if (p == PEEKED_LONG) {
+			result = Long.toString(peekedLong);
+			pos = peekedEnd;
+		} else if (p == PEEKED_NUMBER) {
+			result = peekedText();
+			pos = peekedEnd;
+		} else {
+			throw new IllegalStateException("Expected a string but was " + peek() + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+		peeked = PEEKED_NONE;
+		return result;
+	}
+
+	public boolean nextBoolean() throws IOException {
+		int p = peekOrPeeked();
+		if (p == PEEKED_TRUE || p == PEEKED_FALSE) {
+			pos = peekedEnd;
+			peeked = PEEKED_NONE;
+			return p == PEEKED_TRUE;
+		}
+		throw new IllegalStateException("Expected a boolean but was " + peek() + " at line " + getLineNumber()
+				+ " column " + getColumnNumber());
+	}
+
+	public void nextNull() throws IOException {
+		if (peekOrPeeked() == PEEKED_NULL) {
+			pos = peekedEnd;
+			peeked = PEEKED_NONE;
+		} else {
+			throw new IllegalStateException("Expected null but was " + peek() + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+	}
+
+	/**
+	 * Returns the {@link JsonToken#NUMBER double} value of the next token,
+	 * consuming it. If the next token is a string, this method will attempt to
+	 * parse it as a double using {@link Double#parseDouble(String)}.
+	 *
+	 * @return the double value of the next token
+	 * @throws IOException if the next token is malformed or not finite
+	 * @throws IllegalStateException if the next token is not a literal value.
+	 * @throws NumberFormatException if the next literal value cannot be parsed
+	 *     as a double, or is non-finite.
+	 */
+	public double nextDouble() throws IOException {
+		int p = peekOrPeeked();
+		double result;
+		if (p == PEEKED_LONG) {
+			result = (double) peekedLong;
+			pos = peekedEnd;
+		} else if (p == PEEKED_NUMBER) {
+			result = DoubleCodec.parseDouble(buffer, peekedStart, peekedEnd - peekedStart);
+			if (Double.isInfinite(result)) {
+				throw new MalformedJsonException("JSON forbids NaN and infinities: " + result + " at line "
+						+ getLineNumber() + " column " + getColumnNumber());
+			}
+			pos = peekedEnd;
+		} else if (p == PEEKED_DOUBLE_QUOTED) {
+			int entry = next;
+			result = Double.parseDouble(decodeString(entry)); // don't catch this NumberFormatException.
+			if (Double.isNaN(result) || Double.isInfinite(result)) {
+				throw new MalformedJsonException("JSON forbids NaN and infinities: " + result + " at line "
+						+ getLineNumber() + " column " + getColumnNumber());
+			}
+			consumeString(entry);
+		} else {
+			throw new IllegalStateException("Expected a double but was " + peek() + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+		peeked = PEEKED_NONE;
+		return result;
+	}
+
+	/**
+	 * Returns true if the next token is a number that has neither a fraction
+	 * nor an exponent and fits into a {@code long}. Such a number has already
+	 * been decoded while peeking, so {@link #nextLong()} returns it without
+	 * creating a string.
+	 *
+	 * @return whether the next token is a number fitting into a long
+	 * @throws IOException if the next token is malformed
+	 */
+	public boolean isNextLong() throws IOException {
+		return peekOrPeeked() == PEEKED_LONG;
+	}
+
+	/**
+	 * Returns the {@link JsonToken#NUMBER long} value of the next token,
+	 * consuming it. If the next token is a string, this method will attempt to
+	 * parse it as a long. If the next token's numeric value cannot be exactly
+	 * represented by a Java {@code long}, this method throws.
+	 *
+	 * @return the long value of the next token
+	 * @throws IOException if the next token is malformed
+	 * @throws IllegalStateException if the next token is not a literal value.
+	 * @throws NumberFormatException if the next literal value cannot be parsed
+	 *     as a number, or exactly represented as a long.
+	 */
+	public long nextLong() throws IOException {
+		int p = peekOrPeeked();
+		if (p == PEEKED_LONG) {
+			pos = peekedEnd;
+			peeked = PEEKED_NONE;
+			return peekedLong;
+		}
+
+		String value = nextIntegralValue(p, "a long");
+		try {
+			long result = Long.parseLong(value);
+			peeked = PEEKED_NONE;
+			return result;
+		} catch (NumberFormatException ignored) {
+			// Fall back to parse as a double below.
+		}
+
+		double asDouble = Double.parseDouble(value); // don't catch this NumberFormatException.
+		long result = (long) asDouble;
+		if (result != asDouble) { // Make sure no precision was lost casting to 'long'.
+			throw new NumberFormatException("Expected a long but was " + value + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+		peeked = PEEKED_NONE;
+		return result;
+	}
+
+	public int nextInt() throws IOException {
+		int p = peekOrPeeked();
+		int result;
+		if (p == PEEKED_LONG) {
+			result = (int) peekedLong;
+			if (peekedLong != result) { // Make sure no precision was lost casting to 'int'.
+				throw new NumberFormatException("Expected an int but was " + peekedLong + " at line " + getLineNumber()
+						+ " column " + getColumnNumber());
+			}
+			pos = peekedEnd;
+			peeked = PEEKED_NONE;
+			return result;
+		}
+
+		String value = nextIntegralValue(p, "an int");
+		try {
+			result = Integer.parseInt(value);
+			peeked = PEEKED_NONE;
+			return result;
+		} catch (NumberFormatException ignored) {
+			// Fall back to parse as a double below.
+		}
+
+		double asDouble = Double.parseDouble(value); // don't catch this NumberFormatException.
+		result = (int) asDouble;
+		if (result != asDouble) { // Make sure no precision was lost casting to 'int'.
+			throw new NumberFormatException("Expected an int but was " + value + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+		peeked = PEEKED_NONE;
+		return result;
+	}
+
+	/**
+	 * Consumes a number that is no long or a string, returning its text.
+	 */
+	private String nextIntegralValue(int p, String expected) throws IOException {
+		if (p == PEEKED_NUMBER) {
+			pos = peekedEnd;
+			return peekedText();
+		} else if (p == PEEKED_DOUBLE_QUOTED) {
+			return nextQuotedValue();
+		}
+		throw new IllegalStateException("Expected " + expected + " but was " + peek() + " at line "
+				+ getLineNumber() + " column " + getColumnNumber());
+	}
+
+	/**
+	 * Returns the text of the number peeked, which consists of ASCII bytes.
+	 */
+	private String peekedText() {
+		int length = peekedEnd - peekedStart;
+		char[] text = ensureCharCapacity(length);
+
+		for (int i = 0; i < length; i++) {
+			text[i] = (char) buffer[peekedStart + i];
+		}
+		return String.valueOf(text, 0, length);
+	}
+
+	/**
+	 * Closes this JSON reader. There is nothing to release, as the document is
+	 * held by the caller's array.
+	 *
+	 * @throws IOException never
+	 */
+	public void close() throws IOException {
+		peeked = PEEKED_NONE;
+		stack[0] = JsonScope.CLOSED;
+		stackSize = 1;
+	}
+
+	/**
+	 * Skips the next value. Arrays and objects are skipped by jumping to the
+	 * entry of their closing bracket or brace, names and strings are never
+	 * decoded.
+	 *
+	 * @throws IOException if an array or object isn't terminated
+	 */
+	public void skipValue() throws IOException {
+		int p = peekOrPeeked();
+		if (p == PEEKED_BEGIN_ARRAY || p == PEEKED_BEGIN_OBJECT) {
+			int close = matches[next];
+			if (close == 0) {
+				throw syntaxError(p == PEEKED_BEGIN_ARRAY ? "Unterminated array" : "Unterminated object");
+			}
+			next = close;
+			consumeEntry();
+		} else if (p == PEEKED_END_ARRAY || p == PEEKED_END_OBJECT) {
+			stackSize--;
+			consumeEntry();
+		} else if (p == PEEKED_DOUBLE_QUOTED || p == PEEKED_DOUBLE_QUOTED_NAME) {
+			consumeString(next);
+		} else if (p != PEEKED_EOF) {
+			pos = peekedEnd;
+		}
+		peeked = PEEKED_NONE;
+	}
+
+	public int getLineNumber() {
+		int lineNumber = 1;
+		for (int p = start; p < pos; p++) {
+			if (buffer[p] == '\n') {
+				lineNumber++;
+			}
+		}
+		return lineNumber;
+	}
+
+	public int getColumnNumber() {
+		int p = pos;
+		while (p > start && buffer[p - 1] != '\n') {
+			p--;
+		}
+		return pos - p + 1;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " at line " + getLineNumber() + " column " + getColumnNumber();
+	}
+
+	/**
+	 * Skips whitespace and returns the next byte, or -1 at the end of the
+	 * input. Unlike {@link Utf8JsonReader}, the byte is not consumed.
+	 */
+	private int nextNonWhitespace() {
+		int p = pos;
+		while (p < limit && isWhitespace(buffer[p])) {
+			p++;
+		}
+		pos = p;
+		return p < limit ? buffer[p] : -1;
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\n' || b == '\t' || b == '\r';
+	}
+
+	private boolean isEntry(int p) {
+		return next < entries && positions[next] == p;
+	}
+
+	/**
+	 * Consumes the structural byte of the next entry, at which the reader is
+	 * positioned.
+	 */
+	private void consumeEntry() {
+		pos = positions[next++] + 1;
+		peeked = PEEKED_NONE;
+	}
+
+	private String nextQuotedValue() throws IOException {
+		int entry = next;
+		String result = decodeString(entry);
+		consumeString(entry);
+		return result;
+	}
+
+	private void consumeString(int entry) throws IOException {
+		if (entry + 1 == entries) {
+			throw syntaxError("Unterminated string");
+		}
+		next = entry + 1;
+		consumeEntry();
+	}
+
+	/**
+	 * Decodes the string starting with the quote of the given entry. Strings
+	 * made of ASCII bytes only that don't contain escape sequences are taken
+	 * directly from the array without any decoding.
+	 */
+	private String decodeString(int entry) throws IOException {
+		if (entry + 1 == entries) {
+			throw syntaxError("Unterminated string");
+		}
+
+		int from = positions[entry] + 1;
+		int to = positions[entry + 1];
+		int hashCode = 0;
+		for (int p = from; p < to; p++) {
+			int c = buffer[p];
+			if (c < 0 || c == '\\') {
+				return decodeString(from, to);
+			}
+			hashCode = (hashCode * 31) + c;
+		}
+		return stringPool.get(buffer, from, to - from, hashCode);
+	}
+
+	private String decodeString(int from, int to) throws IOException {
+		int length = 0;
+		int p = from;
+		while (p < to) {
+			int c = buffer[p];
+			if (c < 0) {
+				p = decodeMultiByteCharacter(p, to, length);
+				length = this.decodedLength;
+			} else if (c == '\\' && p + 1 < to && buffer[p + 1] >= 0) {
+				p = readEscapeCharacter(p + 1, to);
+				ensureCharCapacity(length + 1)[length++] = escaped;
+			} else {
+				// an escaped multi-byte character stands for itself and is decoded as usual
+				if (c != '\\') {
+					ensureCharCapacity(length + 1)[length++] = (char) c;
+				}
+				p++;
+			}
+		}
+		return stringPool.get(chars, 0, length);
+	}
+
+	/**
+	 * Decodes the multi-byte UTF-8 sequence starting at {@code p} into
+	 * {@link #chars} at index {@code length}.
+	 *
+	 * @return the position after the sequence
+	 */
+	private int decodeMultiByteCharacter(int p, int to, int length) throws IOException {
+		int lead = buffer[p] & 0xFF;
+		int byteCount = utf8Length(lead);
+		if (byteCount == 0 || p + byteCount > to) {
+			throw syntaxError("Malformed UTF-8 input");
+		}
+
+		// the payload of the lead byte follows its byte count and a zero bit
+		int codePoint = lead & (0xFF >> (byteCount + 1));
+		for (int i = 1; i < byteCount; i++) {
+			int c = buffer[p + i];
+			if ((c & 0xC0) != 0x80) {
+				throw syntaxError("Malformed UTF-8 input");
+			}
+			codePoint = (codePoint << 6) | (c & 0x3F);
+		}
+
+		if (isMalformed(byteCount, codePoint)) {
+			throw syntaxError("Malformed UTF-8 input");
+		}
+
+		char[] chars = ensureCharCapacity(length + 2);
+		if (byteCount == 4) {
+			chars[length++] = Character.highSurrogate(codePoint);
+			chars[length++] = Character.lowSurrogate(codePoint);
+		} else {
+			chars[length++] = (char) codePoint;
+		}
+		decodedLength = length;
+		return p + byteCount;
+	}
+
+	/**
+	 * Returns the length of the UTF-8 sequence with the given lead byte or 0
+	 * if it isn't a lead byte.
+	 */
+	private static int utf8Length(int lead) {
+		if ((lead & 0xE0) == 0xC0) {
+			return 2;
+		} else if ((lead & 0xF0) == 0xE0) {
+			return 3;
+		} else if ((lead & 0xF8) == 0xF0) {
+			return 4;
+		}
+		return 0;
+	}
+
+	/**
+	 * Tells whether the code point is encoded with more bytes than needed or
+	 * isn't a valid character.
+	 */
+	private static boolean isMalformed(int byteCount, int codePoint) {
+		return (byteCount == 2 && codePoint < 0x80)
+				|| (byteCount == 3 && (codePoint < 0x800 || Character.isSurrogate((char) codePoint)))
+				|| (byteCount == 4 && (codePoint < 0x10000 || codePoint > Character.MAX_CODE_POINT));
+	}
+
+	/**
+	 * Unescapes the character identified by the byte or bytes starting at
+	 * {@code p}, which immediately follow a backslash, into {@link #escaped}.
+	 *
+	 * @return the position after the escape sequence
+	 * @throws NumberFormatException if any unicode escape sequences are
+	 *     malformed.
+	 */
+	private int readEscapeCharacter(int p, int to) throws IOException {
+		char c = (char) buffer[p];
+		switch (c) {
+		case 'u':
+			return readUnicodeEscape(p + 1, to);
+		case 't':
+			escaped = '\t';
+			break;
+		case 'b':
+			escaped = '\b';
+			break;
+		case 'n':
+			escaped = '\n';
+			break;
+		case 'r':
+			escaped = '\r';
+			break;
+		case 'f':
+			escaped = '\f';
+			break;
+		default:
+			escaped = c;
+		}
+		return p + 1;
+	}
+
+	/**
+	 * Unescapes the four hex digits starting at {@code p} into
+	 * {@link #escaped}.
+	 *
+	 * @return the position after the hex digits
+	 * @throws NumberFormatException if the hex digits are malformed
+	 */
+	private int readUnicodeEscape(int p, int to) throws IOException {
+		if (p + 4 > to) {
+			throw syntaxError("Unterminated escape sequence");
+		}
+
+		char result = 0;
+		for (int i = p; i < p + 4; i++) {
+			int h = buffer[i];
+			result <<= 4;
+			if (h >= '0' && h <= '9') {
+				result += (h - '0');
+			} else if (h >= 'a' && h <= 'f') {
+				result += (h - 'a' + 10);
+			} else if (h >= 'A' && h <= 'F') {
+				result += (h - 'A' + 10);
+			} else {
+				throw new NumberFormatException("\\u" + StandardCharsets.UTF_8.decode(ByteBuffer.wrap(buffer, p, 4)));
+			}
+		}
+		escaped = result;
+		return p + 4;
+	}
+
+	private char[] ensureCharCapacity(int capacity) {
+		if (capacity > chars.length) {
+			chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+		}
+		return chars;
+	}
+
+	private void push(int newTop) {
+		if (stackSize == stack.length) {
+			stack = Arrays.copyOf(stack, stackSize * 2);
+		}
+		stack[stackSize++] = newTop;
+	}
+
+	private void checkLenient() throws IOException {
+		throw syntaxError("Use JsonReader.setLenient(true) to accept malformed JSON");
+	}
+
+	/**
+	 * Throws a new IO exception with the given message and the position of
+	 * this reader.
+	 */
+	private IOException syntaxError(String message) throws IOException {
+		throw new MalformedJsonException(message + " at line " + getLineNumber() + " column " + getColumnNumber());
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+/**
+ * Formats integers into char arrays without intermediate strings.
+ * <p>
+ * The digits are written from the right, two at a time, taken from a table
+ * of the 100 digit pairs, so only half as many divisions are needed as
+ * digits are written. Divisions are done on ints as soon as the remaining
+ * value fits in one.
+ *
+ * @author Matthias Rothe
+ */
+final class IntegerFormat {
+	/**
+	 * The maximum number of characters {@link #format(long, char[], int)}
+	 * writes, e.g. for -9223372036854775808.
+	 */
+	static final int MAX_FORMATTED_LENGTH = 20;
+
+	private static final char[] TENS = new char[100];
+	private static final char[] ONES = new char[100];
+	static {
+		for (int i = 0; i < 100; i++) {
+			TENS[i] = (char) ('0' + i / 10);
+			ONES[i] = (char) ('0' + i % 10);
+		}
+	}
+
+	private static final char[] MIN_VALUE = Long.toString(Long.MIN_VALUE).toCharArray();
+
+	private IntegerFormat() {
+	}
+
+	/**
+	 * Formats {@code value} into {@code chars} starting at {@code offset}, in
+	 * the layout of {@link Long#toString(long)}. At most
+	 * {@link #MAX_FORMATTED_LENGTH} characters are written.
+	 *
+	 * @param value the value to format
+	 * @param chars the array to write to
+	 * @param offset the index to write the first character to
+	 * @return the index after the last character written
+	 */
+	static int format(long value, final char[] chars, int offset) {
+		if (value == Long.MIN_VALUE) {
+			System.arraycopy(MIN_VALUE, 0, chars, offset, MIN_VALUE.length);
+			return offset + MIN_VALUE.length;
+		}
+
+		if (value < 0) {
+			chars[offset++] = '-';
+			value = -value;
+		}
+
+		int end = offset + length(value);
+		int pos = end;
+
+		while (value > Integer.MAX_VALUE) {
+			long quotient = value / 100;
+			int pair = (int) (value - quotient * 100);
+			value = quotient;
+			chars[--pos] = ONES[pair];
+			chars[--pos] = TENS[pair];
+		}
+
+		int rest = (int) value;
+
+		while (rest >= 100) {
+			int quotient = rest / 100;
+			int pair = rest - quotient * 100;
+			rest = quotient;
+			chars[--pos] = ONES[pair];
+			chars[--pos] = TENS[pair];
+		}
+
+		if (rest >= 10) {
+			chars[--pos] = ONES[rest];
+			chars[--pos] = TENS[rest];
+		} else {
+			chars[--pos] = (char) ('0' + rest);
+		}
+
+		return end;
+	}
+
+	/**
+	 * Returns the number of digits of a non-negative value.
+	 */
+	private static int length(final long value) {
+		long power = 10;
+
+		for (int length = 1; length < 19; length++) {
+			if (value < power) {
+				return length;
+			}
+			power *= 10;
+		}
+
+		return 19;
+	}
+}
@@ -28,6 +28,7 @@ import java.io.Closeable;
 import java.io.Flushable;
 import java.io.IOException;
 import java.io.Writer;
+import java.math.BigInteger;
 
 /**
  * Writes a JSON (<a href="http://www.ietf.org/rfc/rfc4627.txt">RFC 4627</a>)
@@ -161,6 +162,9 @@ public class JsonGenerator implements Closeable, Flushable {
 		HTML_SAFE_REPLACEMENT_CHARS['\''] = "\\u0027";
 	}
 
+	/** The number of indentation levels prepared when setting the indent. */
+	private static final int INITIAL_INDENTATION_LEVELS = 16;
+
 	/** The output data, containing at most one top-level array or object. */
 	private final Appendable out;
 
@@ -176,6 +180,16 @@ public class JsonGenerator implements Closeable, Flushable {
 	 */
 	private String indent;
 
+	/**
+	 * A line break followed by the indentation for a number of levels, of
+	 * which newline() writes as much as the current level needs, or null for
+	 * no pretty printing.
+	 */
+	private char[] indentation;
+
+	/** Whether the indentation consists of ASCII characters only. */
+	private boolean asciiIndentation;
+
 	/**
 	 * The name/value separator; either ":" or ": ".
 	 */
@@ -187,8 +201,26 @@ public class JsonGenerator implements Closeable, Flushable {
 
 	private String deferredName;
 
+	/** The encoded form of the deferred name, or null to escape it when written. */
+	private EncodedName deferredEncodedName;
+
+	private EncodedNames encodedNames;
+
 	private boolean serializeNulls = true;
 
+	/**
+	 * Whether a string value is being written in chunks, see
+	 * {@link #valueChunk(CharSequence, boolean)}.
+	 */
+	private boolean inValueChunks;
+
+	/**
+	 * Scratch space to format numbers into.
+	 */
+	private final char[] numberChars = new char[Math.max(DoubleCodec.MAX_FORMATTED_LENGTH,
+			IntegerFormat.MAX_FORMATTED_LENGTH)];
+	private CharArraySequence numberView;
+
 	/**
 	 * Creates a new instance that writes a JSON-encoded stream to {@code out}.
 	 * For best performance, ensure {@link Writer} is buffered; wrapping in
@@ -212,23 +244,45 @@ public class JsonGenerator implements Closeable, Flushable {
 	public void setIndent(String indent) {
 		if (indent == null || indent.length() == 0) {
 			this.indent = null;
+			this.indentation = null;
 			this.separator = ":";
 		} else {
 			this.indent = indent;
+			this.indentation = indentation(indent, INITIAL_INDENTATION_LEVELS);
+			this.asciiIndentation = isAscii(indent);
 			this.separator = ": ";
 		}
 	}
 
+	private static char[] indentation(String indent, int levels) {
+		int length = indent.length();
+		char[] indentation = new char[1 + levels * length];
+		indentation[0] = '\n';
+		for (int level = 0; level < levels; level++) {
+			indent.getChars(0, length, indentation, 1 + level * length);
+		}
+		return indentation;
+	}
+
+	private static boolean isAscii(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) >= 0x80) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Configure this writer to relax its syntax rules. By default, this writer
 	 * only emits well-formed JSON as specified by <a
-	 * href="http://www.ietf.org/rfc/rfc4627.txt">RFC 4627</a>. Setting the writer
-	 * to lenient permits the following:
+	 * href="http://www.ietf.org/rfc/rfc7159.txt">RFC 7159</a>, which allows
+	 * top-level values of any type. Setting the writer to lenient permits the
+	 * following:
 	 * <ul>
-	 *   <li>Top-level values of any type. With strict writing, the top-level
-	 *       value must be an object or an array.
 	 *   <li>Numbers may be {@link Double#isNaN() NaNs} or {@link
 	 *       Double#isInfinite() infinities}.
+	 *   <li>More than one top-level value.
 	 * </ul>
 	 */
 	public void setLenient(boolean lenient) {
@@ -277,6 +331,28 @@ public class JsonGenerator implements Closeable, Flushable {
 		return serializeNulls;
 	}
 
+	/**
+	 * Sets the registry of property names encoded in advance. Names written
+	 * by {@link #name(String)} are looked up in the registry and copied in
+	 * their encoded form if they are registered. Defaults to null, meaning
+	 * all names are escaped when they are written.
+	 *
+	 * @param encodedNames the registry of encoded names. May be null.
+	 */
+	public void setEncodedNames(EncodedNames encodedNames) {
+		this.encodedNames = encodedNames;
+	}
+
+	/**
+	 * Returns the registry of property names encoded in advance, or null if
+	 * there is none.
+	 *
+	 * @return the registry of encoded property names or null
+	 */
+	public EncodedNames getEncodedNames() {
+		return encodedNames;
+	}
+
 	/**
 	 * Begins encoding a new array. Each call to this method must be paired with
 	 * a call to {@link #endArray}.
@@ -322,7 +398,7 @@ public class JsonGenerator implements Closeable, Flushable {
 	 * bracket.
 	 */
 	private JsonGenerator open(int empty, String openBracket) throws IOException {
-		beforeValue(true);
+		beforeValue();
 		push(empty);
 		out.append(openBracket);
 		return this;
@@ -365,6 +441,9 @@ public class JsonGenerator implements Closeable, Flushable {
 		if (stackSize == 0) {
 			throw new IllegalStateException("JsonWriter is closed.");
 		}
+		if (inValueChunks) {
+			throw new IllegalStateException("Unterminated string value.");
+		}
 		return stack[stackSize - 1];
 	}
 
@@ -393,13 +472,36 @@ public class JsonGenerator implements Closeable, Flushable {
 			throw new IllegalStateException("JsonWriter is closed.");
 		}
 		deferredName = name;
+		if (encodedNames != null) {
+			deferredEncodedName = encodedNames.get(name);
+		}
+		return this;
+	}
+
+	/**
+	 * Encodes the property name, copying its encoded form.
+	 *
+	 * @param name the name of the forthcoming value. May not be null.
+	 * @return this writer.
+	 */
+	public JsonGenerator name(EncodedName name) throws IOException {
+		if (name == null) {
+			throw new NullPointerException("name == null");
+		}
+		name(name.getName());
+		deferredEncodedName = name;
 		return this;
 	}
 
 	private void writeDeferredName() throws IOException {
 		if (deferredName != null) {
 			beforeName();
-			string(deferredName);
+			if (deferredEncodedName != null) {
+				writeName(deferredEncodedName);
+				deferredEncodedName = null;
+			} else {
+				string(deferredName);
+			}
 			deferredName = null;
 		}
 	}
@@ -415,11 +517,39 @@ public class JsonGenerator implements Closeable, Flushable {
 			return nullValue();
 		}
 		writeDeferredName();
-		beforeValue(false);
+		beforeValue();
 		string(value);
 		return this;
 	}
 
+	/**
+	 * Encodes the next chunk of a string value. The first chunk opens the
+	 * string, the last one closes it; no other value may be written in
+	 * between. Concatenated, the chunks form the value, so huge values can be
+	 * written without holding them in memory.
+	 *
+	 * @param chunk the next chunk of the string value. May be empty.
+	 * @param last whether this is the last chunk of the value
+	 * @return this writer.
+	 */
+	public JsonGenerator valueChunk(CharSequence chunk, boolean last) throws IOException {
+		if (chunk == null) {
+			throw new NullPointerException("chunk == null");
+		}
+		if (!inValueChunks) {
+			writeDeferredName();
+			beforeValue();
+			out.append("\"");
+			inValueChunks = true;
+		}
+		escape(chunk);
+		if (last) {
+			out.append("\"");
+			inValueChunks = false;
+		}
+		return this;
+	}
+
 	/**
 	 * Encodes {@code null}.
 	 *
@@ -431,10 +561,11 @@ public class JsonGenerator implements Closeable, Flushable {
 				writeDeferredName();
 			} else {
 				deferredName = null;
+				deferredEncodedName = null;
 				return this; // skip the name and the value
 			}
 		}
-		beforeValue(false);
+		beforeValue();
 		out.append("null");
 		return this;
 	}
@@ -446,7 +577,7 @@ public class JsonGenerator implements Closeable, Flushable {
 	 */
 	public JsonGenerator value(boolean value) throws IOException {
 		writeDeferredName();
-		beforeValue(false);
+		beforeValue();
 		out.append(value ? "true" : "false");
 		return this;
 	}
@@ -463,8 +594,8 @@ public class JsonGenerator implements Closeable, Flushable {
 			throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
 		}
 		writeDeferredName();
-		beforeValue(false);
-		out.append(Double.toString(value));
+		beforeValue();
+		write(numberChars, DoubleCodec.format(value, numberChars, 0));
 		return this;
 	}
 
@@ -475,8 +606,8 @@ public class JsonGenerator implements Closeable, Flushable {
 	 */
 	public JsonGenerator value(long value) throws IOException {
 		writeDeferredName();
-		beforeValue(false);
-		out.append(Long.toString(value));
+		beforeValue();
+		write(numberChars, IntegerFormat.format(value, numberChars, 0));
 		return this;
 	}
 
@@ -492,16 +623,67 @@ public class JsonGenerator implements Closeable, Flushable {
 			return nullValue();
 		}
 
+		if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+			return value(value.longValue());
+		}
+
+		if (value instanceof Double && !((Double) value).isNaN() && !((Double) value).isInfinite()) {
+			return value(value.doubleValue());
+		}
+
+		if (value instanceof BigInteger && ((BigInteger) value).bitLength() < Long.SIZE) {
+			return value(value.longValue());
+		}
+
 		writeDeferredName();
+		// a BigDecimal caches its string, and a lazily parsed number keeps the text it was read from
 		String string = value.toString();
-		if (!lenient && (string.equals("-Infinity") || string.equals("Infinity") || string.equals("NaN"))) {
+		if (!lenient && isNonFinite(string)) {
 			throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
 		}
-		beforeValue(false);
+		beforeValue();
 		out.append(string);
 		return this;
 	}
 
+	private static boolean isNonFinite(String number) {
+		if (number.isEmpty()) {
+			return false;
+		}
+		char first = number.charAt(0);
+		return (first == '-' || first == 'I' || first == 'N')
+				&& (number.equals("-Infinity") || number.equals("Infinity") || number.equals("NaN"));
+	}
+
+	/**
+	 * Writes the first {@code length} characters of {@code chars}, which are
+	 * all ASCII characters.
+	 */
+	void write(char[] chars, int length) throws IOException {
+		append(chars, length);
+	}
+
+	/**
+	 * Writes the encoded form of a property name, including the quotes.
+	 */
+	void writeName(EncodedName name) throws IOException {
+		char[] chars = name.chars(htmlSafe);
+		append(chars, chars.length);
+	}
+
+	private void append(char[] chars, int length) throws IOException {
+		if (out instanceof Writer) {
+			((Writer) out).write(chars, 0, length);
+		} else if (out instanceof StringBuilder) {
+			((StringBuilder) out).append(chars, 0, length);
+		} else {
+			if (numberView == null) {
+				numberView = new CharArraySequence();
+			}
+			out.append(numberView.set(chars, 0, length));
+		}
+	}
+
 	/**
 	 * Ensures all buffered data is written to the underlying {@link Writer}
 	 * and flushes that writer.
@@ -519,7 +701,7 @@ public class JsonGenerator implements Closeable, Flushable {
 	 */
 	public void close() throws IOException {
 		int size = stackSize;
-		if (size > 1 || size == 1 && stack[size - 1] != NONEMPTY_DOCUMENT) {
+		if (size > 1 || size == 1 && stack[size - 1] != NONEMPTY_DOCUMENT || inValueChunks) {
 			throw new IOException("Incomplete document");
 		}
 
@@ -530,9 +712,39 @@ public class JsonGenerator implements Closeable, Flushable {
 		push(EMPTY_DOCUMENT);
 	}
 
+	/**
+	 * Completes the current document and starts another one, separated from
+	 * the current one by {@code separator}, e.g. a line break to write JSON
+	 * Lines or a comma to write the children of a virtual root.
+	 *
+	 * @param separator the text to write between the documents
+	 * @return this writer.
+	 * @throws IllegalStateException if the current document is incomplete.
+	 */
+	public JsonGenerator nextDocument(String separator) throws IOException {
+		if (separator == null) {
+			throw new NullPointerException("separator == null");
+		}
+		if (peek() != NONEMPTY_DOCUMENT || stackSize != 1) {
+			throw new IllegalStateException("Incomplete document");
+		}
+		replaceTop(EMPTY_DOCUMENT);
+		out.append(separator);
+		return this;
+	}
+
 	private void string(String value) throws IOException {
-		String[] replacements = htmlSafe ? HTML_SAFE_REPLACEMENT_CHARS : REPLACEMENT_CHARS;
 		out.append("\"");
+		escape(value);
+		out.append("\"");
+	}
+
+	/**
+	 * Writes {@code value} with the characters escaped which must or should
+	 * be escaped within strings, without the enclosing quotes.
+	 */
+	void escape(CharSequence value) throws IOException {
+		String[] replacements = htmlSafe ? HTML_SAFE_REPLACEMENT_CHARS : REPLACEMENT_CHARS;
 		int last = 0;
 		int length = value.length();
 		for (int i = 0; i < length; i++) {
@@ -559,17 +771,24 @@ public class JsonGenerator implements Closeable, Flushable {
 		if (last < length) {
 			out.append(value, last, length);
 		}
-		out.append("\"");
 	}
 
 	private void newline() throws IOException {
-		if (indent == null) {
+		if (indentation == null) {
 			return;
 		}
 
-		out.append("\n");
-		for (int i = 1, size = stackSize; i < size; i++) {
-			out.append(indent);
+		int levels = stackSize - 1;
+		int length = 1 + levels * indent.length();
+		if (length > indentation.length) {
+			indentation = indentation(indent, Math.max(levels, 2 * (indentation.length - 1) / indent.length()));
+		}
+
+		// a single bulk write of the line break and the indentation of the current level
+		if (asciiIndentation) {
+			write(indentation, length);
+		} else {
+			append(indentation, length);
 		}
 	}
 
@@ -592,12 +811,9 @@ public class JsonGenerator implements Closeable, Flushable {
 	 * Inserts any necessary separators and whitespace before a literal value,
 	 * inline array, or inline object. Also adjusts the stack to expect either a
 	 * closing bracket or another element.
-	 *
-	 * @param root true if the value is a new array or object, the two values
-	 *     permitted as top-level elements.
 	 */
 	@SuppressWarnings("fallthrough")
-	private void beforeValue(boolean root) throws IOException {
+	private void beforeValue() throws IOException {
 		switch (peek()) {
 		case NONEMPTY_DOCUMENT:
 			if (!lenient) {
@@ -605,9 +821,6 @@ public class JsonGenerator implements Closeable, Flushable {
 			}
 			// fall-through
 		case EMPTY_DOCUMENT: // first in document
-			if (!lenient && !root) {
-				throw new IllegalStateException("JSON must start with an array or an object.");
-			}
 			replaceTop(NONEMPTY_DOCUMENT);
 			break;
 
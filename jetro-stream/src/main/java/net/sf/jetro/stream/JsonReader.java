@@ -20,11 +20,12 @@
 //CHECKSTYLE:OFF
 package net.sf.jetro.stream;
 
-import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Arrays;
 
+import net.sf.jetro.context.ReaderContext;
 import net.sf.jetro.exception.MalformedJsonException;
 
 /**
@@ -191,10 +192,11 @@ import net.sf.jetro.exception.MalformedJsonException;
  * @author Jesse Wilson
  * @since 1.6
  */
-public class JsonReader implements Closeable {
+public class JsonReader implements JsonTokenReader {
 	/** The only non-execute prefix this parser permits */
 	private static final char[] NON_EXECUTE_PREFIX = ")]}'\n".toCharArray();
 	private static final long MIN_INCOMPLETE_INTEGER = Long.MIN_VALUE / 10;
+	private static final int DEFAULT_BUFFER_SIZE = 1024;
 
 	private static final int PEEKED_NONE = 0;
 	private static final int PEEKED_BEGIN_OBJECT = 1;
@@ -232,14 +234,19 @@ public class JsonReader implements Closeable {
 
 	/** True to accept non-spec compliant JSON */
 	private boolean lenient = false;
+	private boolean multipleDocuments = false;
 
 	/**
 	 * Use a manual buffer to easily read and unread upcoming characters, and
 	 * also so we can create strings without an intermediate StringBuilder.
 	 * We decode literals directly out of this buffer, so it must be at least as
 	 * long as the longest token that can be reported as a number.
+	 * <p>
+	 * The buffer grows up to maxBufferSize to keep a quoted string without
+	 * escape sequences in one piece.
 	 */
-	private final char[] buffer = new char[1024];
+	private char[] buffer;
+	private final int maxBufferSize;
 	private int pos = 0;
 	private int limit = 0;
 
@@ -268,9 +275,15 @@ public class JsonReader implements Closeable {
 	private String peekedString;
 
 	/**
-	 * A pool of short strings intended to prevent object allocation.
+	 * The view passed to the consumers of {@link #nextString(StringChunkConsumer)}.
 	 */
-	private static final StringPool stringPool = new StringPool();
+	private final CharArraySequence stringView = new CharArraySequence();
+
+	/**
+	 * A pool of short strings intended to prevent object allocation. Each
+	 * reader owns its pool, so it needs no synchronization.
+	 */
+	private final StringPool stringPool;
 
 	/*
 	 * The nesting stack. Using a manual array rather than an ArrayList saves 20%.
@@ -285,10 +298,45 @@ public class JsonReader implements Closeable {
 	 * Creates a new instance that reads a JSON-encoded stream from {@code in}.
 	 */
 	public JsonReader(Reader in) {
+		this(in, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a new instance that reads a JSON-encoded stream from {@code in}
+	 * using an initial buffer of {@code bufferSize} characters.
+	 */
+	public JsonReader(Reader in, int bufferSize) {
+		this(in, bufferSize, ReaderContext.DEFAULT_MAX_BUFFER_SIZE, new StringPool());
+	}
+
+	/**
+	 * Creates a new instance that reads a JSON-encoded stream from {@code in}
+	 * configured by the given {@link ReaderContext}.
+	 */
+	public JsonReader(Reader in, ReaderContext context) {
+		this(in, bufferSize(context), context.getMaxBufferSize(),
+				new StringPool(context.getStringPoolSize(), context.getKnownNames()));
+		setLenient(context.isLenient());
+	}
+
+	private JsonReader(Reader in, int bufferSize, int maxBufferSize, StringPool stringPool) {
 		if (in == null) {
 			throw new NullPointerException("in == null");
 		}
+		if (bufferSize < ReaderContext.MIN_BUFFER_SIZE) {
+			throw new IllegalArgumentException("bufferSize must be at least " + ReaderContext.MIN_BUFFER_SIZE);
+		}
 		this.in = in;
+		this.buffer = new char[bufferSize];
+		this.maxBufferSize = Math.max(bufferSize, maxBufferSize);
+		this.stringPool = stringPool;
+	}
+
+	private static int bufferSize(ReaderContext context) {
+		if (context == null) {
+			throw new NullPointerException("context == null");
+		}
+		return context.getBufferSize() == 0 ? DEFAULT_BUFFER_SIZE : context.getBufferSize();
 	}
 
 	/**
@@ -331,6 +379,25 @@ public class JsonReader implements Closeable {
 		return lenient;
 	}
 
+	/**
+	 * Configure this parser to read a sequence of top-level values, as found in
+	 * JSON Lines (NDJSON) files or concatenated JSON documents. Each value may
+	 * be an object, an array or a string, number, boolean or null, as RFC 7159
+	 * allows. Unlike {@link #setLenient(boolean) lenient} parsing this doesn't
+	 * relax any other rule. The values may be separated by any whitespace,
+	 * including none at all where the end of a value is unambiguous.
+	 */
+	public final void setMultipleDocuments(boolean multipleDocuments) {
+		this.multipleDocuments = multipleDocuments;
+	}
+
+	/**
+	 * Returns true if this parser reads a sequence of top-level values.
+	 */
+	public final boolean isMultipleDocuments() {
+		return multipleDocuments;
+	}
+
 	/**
 	 * Consumes the next token from the JSON stream and asserts that it is the
 	 * beginning of a new array.
@@ -537,7 +604,9 @@ public class JsonReader implements Closeable {
 			if (c == -1) {
 				return peeked = PEEKED_EOF;
 			} else {
-				checkLenient();
+				if (!multipleDocuments) {
+					checkLenient();
+				}
 				pos--;
 			}
 		} else if (peekStack == JsonScope.CLOSED) {
@@ -565,7 +634,7 @@ public class JsonReader implements Closeable {
 			checkLenient();
 			return peeked = PEEKED_SINGLE_QUOTED;
 		case '"':
-			if (stackSize == 1) {
+			if (stackSize == 1 && !multipleDocuments) {
 				checkLenient();
 			}
 			return peeked = PEEKED_DOUBLE_QUOTED;
@@ -577,7 +646,7 @@ public class JsonReader implements Closeable {
 			pos--; // Don't consume the first character in a literal value.
 		}
 
-		if (stackSize == 1) {
+		if (stackSize == 1 && !multipleDocuments) {
 			checkLenient(); // Top-level value isn't an array or an object.
 		}
 
@@ -731,7 +800,7 @@ public class JsonReader implements Closeable {
 		}
 
 		// We've read a complete number. Decide if it's a PEEKED_LONG or a PEEKED_NUMBER.
-		if (last == NUMBER_CHAR_DIGIT && fitsInLong && (value != Long.MIN_VALUE || negative)) {
+		if (last == NUMBER_CHAR_DIGIT && fitsInLong && (value != Long.MIN_VALUE || negative) && (value != 0 || !negative)) {
 			peekedLong = negative ? value : -value;
 			pos += i;
 			return peeked = PEEKED_LONG;
@@ -831,6 +900,31 @@ public class JsonReader implements Closeable {
 		return result;
 	}
 
+	/**
+	 * Like {@link #nextString()}, but passes quoted values to the consumer
+	 * in chunks of at most the buffer size. Chunks without escape sequences
+	 * are views of this reader's buffer, so the buffer never grows and no
+	 * String is created for the value.
+	 *
+	 * @throws IllegalStateException if the next token is not a string or if
+	 *     this reader is closed.
+	 */
+	public void nextString(StringChunkConsumer consumer) throws IOException {
+		if (consumer == null) {
+			throw new NullPointerException("consumer == null");
+		}
+		int p = peeked;
+		if (p == PEEKED_NONE) {
+			p = doPeek();
+		}
+		if (p == PEEKED_SINGLE_QUOTED || p == PEEKED_DOUBLE_QUOTED) {
+			nextQuotedValueChunks(p == PEEKED_SINGLE_QUOTED ? '\'' : '"', consumer);
+			peeked = PEEKED_NONE;
+		} else {
+			consumer.accept(nextString(), true);
+		}
+	}
+
 	/**
 	 * Returns the {@link com.google.gson.stream.JsonToken#BOOLEAN boolean} value of the next token,
 	 * consuming it.
@@ -895,6 +989,13 @@ public class JsonReader implements Closeable {
 		}
 
 		if (p == PEEKED_NUMBER) {
+			// parse in place, the string is only needed to report a non-finite value
+			double result = DoubleCodec.parseDouble(buffer, pos, peekedNumberLength);
+			if (lenient || !Double.isInfinite(result)) {
+				pos += peekedNumberLength;
+				peeked = PEEKED_NONE;
+				return result;
+			}
 			peekedString = new String(buffer, pos, peekedNumberLength);
 			pos += peekedNumberLength;
 		} else if (p == PEEKED_SINGLE_QUOTED || p == PEEKED_DOUBLE_QUOTED) {
@@ -917,6 +1018,20 @@ public class JsonReader implements Closeable {
 		return result;
 	}
 
+	/**
+	 * Returns true if the next token is a number that has neither a fraction
+	 * nor an exponent and fits into a {@code long}. Such a number has already
+	 * been decoded while peeking, so {@link #nextLong()} returns it without
+	 * creating a string.
+	 */
+	public boolean isNextLong() throws IOException {
+		int p = peeked;
+		if (p == PEEKED_NONE) {
+			p = doPeek();
+		}
+		return p == PEEKED_LONG;
+	}
+
 	/**
 	 * Returns the {@link com.google.gson.stream.JsonToken#NUMBER long} value of the next token,
 	 * consuming it. If the next token is a string, this method will attempt to
@@ -982,11 +1097,13 @@ public class JsonReader implements Closeable {
 		char[] buffer = this.buffer;
 		StringBuilder builder = null;
 		int hashCode = 0;
+		/* the number of characters of the value already scanned and kept in the buffer. */
+		int scanned = 0;
 		while (true) {
-			int p = pos;
-			int l = limit;
 			/* the index of the first character not yet appended to the builder. */
-			int start = p;
+			int start = pos;
+			int p = start + scanned;
+			int l = limit;
 			while (p < l) {
 				int c = buffer[p++];
 
@@ -1019,17 +1136,98 @@ public class JsonReader implements Closeable {
 				}
 			}
 
+			if (builder == null && (p - start < buffer.length || buffer.length < maxBufferSize)) {
+				// keep the value in one piece, so it doesn't need to be copied to a StringBuilder
+				scanned = p - start;
+				pos = start;
+				if (scanned == buffer.length) {
+					buffer = growBuffer();
+				}
+				if (!fillBuffer(scanned + 1)) {
+					throw syntaxError("Unterminated string");
+				}
+				continue;
+			}
+
 			if (builder == null) {
 				builder = new StringBuilder();
 			}
 			builder.append(buffer, start, p - start);
 			pos = p;
+			scanned = 0;
+			if (!fillBuffer(1)) {
+				throw syntaxError("Unterminated string");
+			}
+		}
+	}
+
+	/**
+	 * Reads a quoted value like {@link #nextQuotedValue(char)}, passing it to
+	 * the consumer whenever the end of the buffer is reached.
+	 */
+	private void nextQuotedValueChunks(char quote, StringChunkConsumer consumer) throws IOException {
+		char[] buffer = this.buffer;
+		/* the unescaped characters preceding the current buffer segment. */
+		StringBuilder builder = null;
+		while (true) {
+			int start = pos;
+			int p = start;
+			int l = limit;
+			while (p < l) {
+				int c = buffer[p++];
+
+				if (c == quote) {
+					pos = p;
+					consumer.accept(chunk(buffer, start, p - start - 1, builder), true);
+					return;
+
+				} else if (c == '\\') {
+					pos = p;
+					if (builder == null) {
+						builder = new StringBuilder();
+					}
+					builder.append(buffer, start, p - start - 1);
+					builder.append(readEscapeCharacter());
+					p = pos;
+					l = limit;
+					start = p;
+
+				} else if (c == '\n') {
+					lineNumber++;
+					lineStart = p;
+				}
+			}
+
+			CharSequence chunk = chunk(buffer, start, p - start, builder);
+			if (chunk.length() > 0) {
+				consumer.accept(chunk, false);
+			}
+			if (builder != null) {
+				builder.setLength(0);
+			}
+			pos = p;
 			if (!fillBuffer(1)) {
 				throw syntaxError("Unterminated string");
 			}
 		}
 	}
 
+	private CharSequence chunk(char[] buffer, int start, int length, StringBuilder builder) {
+		if (builder == null || builder.length() == 0) {
+			return stringView.set(buffer, start, length);
+		}
+		return builder.append(buffer, start, length);
+	}
+
+	/**
+	 * Doubles the size of the buffer, limited by maxBufferSize. Callers holding
+	 * the buffer in a local variable must replace it with the returned one.
+	 */
+	private char[] growBuffer() {
+		buffer = Arrays.copyOf(buffer, (int) Math.min((long) buffer.length * 2, maxBufferSize));
+		return buffer;
+	}
+
 	/**
 	 * Returns an unquoted value as a string.
 	 */
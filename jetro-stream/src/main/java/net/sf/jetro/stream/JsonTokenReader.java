@@ -0,0 +1,117 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The pull API shared by all readers that tokenize a JSON document, regardless of
+ * whether they read characters (see {@link JsonReader}) or bytes
+ * (see {@link Utf8JsonReader}).
+ * <p>
+ * The semantics of each method are those documented on {@link JsonReader}.
+ *
+ * @author Matthias Rothe
+ */
+public interface JsonTokenReader extends Closeable {
+
+	/**
+	 * Receives the chunks of a string value, see
+	 * {@link JsonTokenReader#nextString(StringChunkConsumer)}.
+	 */
+	@FunctionalInterface
+	interface StringChunkConsumer {
+		/**
+		 * Accepts the next chunk of a string value. The chunk is only valid
+		 * during this call.
+		 *
+		 * @param chunk the next chunk of the value
+		 * @param last whether this is the last chunk of the value
+		 */
+		void accept(CharSequence chunk, boolean last);
+	}
+
+	void setLenient(boolean lenient);
+
+	boolean isLenient();
+
+	void setMultipleDocuments(boolean multipleDocuments);
+
+	boolean isMultipleDocuments();
+
+	void beginArray() throws IOException;
+
+	void endArray() throws IOException;
+
+	void beginObject() throws IOException;
+
+	void endObject() throws IOException;
+
+	boolean hasNext() throws IOException;
+
+	JsonToken peek() throws IOException;
+
+	String nextName() throws IOException;
+
+	String nextString() throws IOException;
+
+	/**
+	 * Like {@link #nextString()}, but passes the value to the consumer in
+	 * chunks of a bounded size instead of returning it as a whole, so huge
+	 * values can be processed in constant memory. The consumer is called at
+	 * least once; the last call has {@code last} set to true. Implementations
+	 * that don't stream strings pass the complete value as a single chunk.
+	 *
+	 * @param consumer the consumer of the chunks of the value
+	 * @throws IOException if reading from the underlying source fails
+	 */
+	default void nextString(StringChunkConsumer consumer) throws IOException {
+		consumer.accept(nextString(), true);
+	}
+
+	/**
+	 * Tells whether the next token is a number that {@link #nextLong()} can
+	 * return without creating an intermediate string. Implementations that
+	 * can't tell return false.
+	 *
+	 * @return true if the next token is an already decoded integral number
+	 * @throws IOException if reading from the underlying source fails
+	 */
+	default boolean isNextLong() throws IOException {
+		return false;
+	}
+
+	boolean nextBoolean() throws IOException;
+
+	void nextNull() throws IOException;
+
+	double nextDouble() throws IOException;
+
+	long nextLong() throws IOException;
+
+	int nextInt() throws IOException;
+
+	void skipValue() throws IOException;
+
+	int getLineNumber();
+
+	int getColumnNumber();
+}
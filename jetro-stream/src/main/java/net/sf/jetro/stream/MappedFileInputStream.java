@@ -0,0 +1,127 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * An {@link InputStream} serving the contents of a {@link FileChannel} from
+ * read-only memory mappings. The file is mapped in chunks of at most
+ * {@code chunkSize} bytes, so files larger than 2 GB (the limit of a single
+ * {@link MappedByteBuffer}) are supported by mapping one chunk after the other.
+ * <p>
+ * Reading from this stream neither issues read system calls nor allocates
+ * any buffers on the heap. The bytes are copied directly from the mapped pages
+ * into the caller's array.
+ *
+ * @author Matthias Rothe
+ */
+final class MappedFileInputStream extends InputStream {
+	static final long DEFAULT_CHUNK_SIZE = 1L << 28;
+
+	private final FileChannel channel;
+	private final long chunkSize;
+	private final long size;
+
+	private long position;
+	private MappedByteBuffer chunk;
+
+	MappedFileInputStream(final FileChannel channel) throws IOException {
+		this(channel, DEFAULT_CHUNK_SIZE);
+	}
+
+	MappedFileInputStream(final FileChannel channel, final long chunkSize) throws IOException {
+		if (channel == null) {
+			throw new IllegalArgumentException("channel must not be null");
+		}
+
+		if (chunkSize <= 0 || chunkSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("chunkSize must be between 1 and " + Integer.MAX_VALUE);
+		}
+
+		this.channel = channel;
+		this.chunkSize = chunkSize;
+		this.size = channel.size();
+		this.position = channel.position();
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!ensureChunk()) {
+			return -1;
+		}
+
+		return chunk.get() & 0xFF;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+
+		if (!ensureChunk()) {
+			return -1;
+		}
+
+		int count = Math.min(len, chunk.remaining());
+		chunk.get(b, off, count);
+		return count;
+	}
+
+	@Override
+	public int available() throws IOException {
+		long remaining = (chunk == null ? 0 : chunk.remaining()) + size - position;
+		return (int) Math.min(remaining, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Maps the next chunk of the file if the current one is exhausted.
+	 *
+	 * @return false if the end of the file has been reached
+	 */
+	private boolean ensureChunk() throws IOException {
+		if (chunk != null && chunk.hasRemaining()) {
+			return true;
+		}
+
+		if (position >= size) {
+			return false;
+		}
+
+		long length = Math.min(chunkSize, size - position);
+		chunk = channel.map(MapMode.READ_ONLY, position, length);
+		position += length;
+		return true;
+	}
+
+	/**
+	 * Releases the current mapping and closes the underlying channel.
+	 */
+	@Override
+	public void close() throws IOException {
+		chunk = null;
+		channel.close();
+	}
+}
@@ -0,0 +1,935 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import net.sf.jetro.context.ReaderContext;
+import net.sf.jetro.exception.MalformedJsonException;
+
+/**
+ * A tokenizer for UTF-8 encoded JSON that never blocks. Instead of pulling data
+ * from a stream, it is fed chunks of bytes as they arrive, e.g. from a non
+ * blocking socket channel, and returns tokens as far as the data fed so far
+ * allows. Tokens spanning several chunks are assembled across calls, so chunks
+ * may be split at any byte, even inside a multi-byte character.
+ * <p>
+ * Usage follows this pattern:
+ * <pre>
+ * reader.feed(chunk);
+ * JsonToken token;
+ * while ((token = reader.nextToken()) != null) {
+ *     // handle token, using getString(), getLong() etc. to get its value
+ * }
+ * // feed the next chunk or call endOfInput() and drain the remaining tokens
+ * </pre>
+ * The bytes fed are read in place until {@link #nextToken()} returns null, so
+ * they must not be modified before. Afterwards the reader holds no reference
+ * to them any more.
+ * <p>
+ * This reader always parses strictly, the lenient setting of a
+ * {@link ReaderContext} is ignored. It reads exactly one top level value.
+ * Once an exception has been thrown, the state of the reader is undefined.
+ *
+ * @author Matthias Rothe
+ */
+public class NonBlockingJsonReader {
+	private static final int DEFAULT_BUFFER_SIZE = 1024;
+
+	// scopes, telling what may come next
+	private static final int DOCUMENT_EMPTY = 0;
+	private static final int DOCUMENT_DONE = 1;
+	private static final int ARRAY_FIRST = 2;
+	private static final int ARRAY_VALUE = 3;
+	private static final int ARRAY_NEXT = 4;
+	private static final int OBJECT_FIRST = 5;
+	private static final int OBJECT_NAME = 6;
+	private static final int OBJECT_COLON = 7;
+	private static final int OBJECT_VALUE = 8;
+	private static final int OBJECT_NEXT = 9;
+
+	// states of the token currently read
+	private static final int BETWEEN_TOKENS = 0;
+	private static final int IN_STRING = 1;
+	private static final int IN_ESCAPE = 2;
+	private static final int IN_UNICODE_ESCAPE = 3;
+	private static final int IN_MULTI_BYTE_CHARACTER = 4;
+	private static final int IN_NUMBER = 5;
+	private static final int IN_LITERAL = 6;
+	private static final int DONE = 7;
+
+	// parts of a number, following the JSON grammar
+	private static final int NUMBER_SIGN = 0;
+	private static final int NUMBER_ZERO = 1;
+	private static final int NUMBER_DIGITS = 2;
+	private static final int NUMBER_DOT = 3;
+	private static final int NUMBER_FRACTION = 4;
+	private static final int NUMBER_EXPONENT = 5;
+	private static final int NUMBER_EXPONENT_SIGN = 6;
+	private static final int NUMBER_EXPONENT_DIGITS = 7;
+
+	private static final long MIN_INCOMPLETE_INTEGER = Long.MIN_VALUE / 10;
+
+	private static final byte[] TRUE = { 't', 'r', 'u', 'e' };
+	private static final byte[] FALSE = { 'f', 'a', 'l', 's', 'e' };
+	private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
+
+	private final StringPool stringPool;
+
+	private byte[] input;
+	private int pos;
+	private int limit;
+	/** The offset of input[0] in the whole document. */
+	private long base;
+	private boolean endOfInput;
+	private byte[] copyBuffer;
+
+	private int[] scopes = new int[32];
+	private int stackSize = 1;
+
+	private int state = BETWEEN_TOKENS;
+	private JsonToken token;
+	private int skipDepth;
+
+	/** The characters of the current string or number. */
+	private char[] chars;
+	private int length;
+	private boolean name;
+	private String string;
+
+	/** The code point of a partial escape sequence or multi-byte character. */
+	private int codePoint;
+	private int remaining;
+
+	private int numberState;
+	private long value;
+	private boolean negative;
+	private boolean fitsInLong;
+
+	private byte[] literal;
+	private int literalIndex;
+
+	private int lineNumber = 0;
+	private long lineStart = 0;
+
+	/**
+	 * Creates a new instance with default settings.
+	 */
+	public NonBlockingJsonReader() {
+		this(new ReaderContext());
+	}
+
+	/**
+	 * Creates a new instance configured by the given context. The buffer size
+	 * sets the initial size of the buffer assembling strings and numbers, the
+	 * string pool settings are applied to property names.
+	 *
+	 * @param context the context to configure this reader with
+	 * @throws NullPointerException if context is null
+	 */
+	public NonBlockingJsonReader(ReaderContext context) {
+		if (context == null) {
+			throw new NullPointerException("context == null");
+		}
+
+		chars = new char[context.getBufferSize() == 0 ? DEFAULT_BUFFER_SIZE : context.getBufferSize()];
+		stringPool = new StringPool(context.getStringPoolSize(), context.getKnownNames());
+		scopes[0] = DOCUMENT_EMPTY;
+	}
+
+	/**
+	 * Feeds the remaining bytes of the given buffer to this reader. The buffer
+	 * is consumed completely, its position is set to its limit. The bytes of
+	 * buffers backed by an array are read in place.
+	 *
+	 * @param buffer the next chunk of the document
+	 * @throws NullPointerException if buffer is null
+	 * @throws IllegalStateException if the previous chunk hasn't been
+	 * consumed yet or the end of input has already been signalled
+	 */
+	public void feed(ByteBuffer buffer) {
+		if (buffer == null) {
+			throw new NullPointerException("buffer == null");
+		}
+
+		int count = buffer.remaining();
+		if (buffer.hasArray()) {
+			feed(buffer.array(), buffer.arrayOffset() + buffer.position(), count);
+			buffer.position(buffer.limit());
+		} else {
+			if (copyBuffer == null || copyBuffer.length < count) {
+				copyBuffer = new byte[Math.max(count, DEFAULT_BUFFER_SIZE)];
+			}
+			buffer.get(copyBuffer, 0, count);
+			feed(copyBuffer, 0, count);
+		}
+	}
+
+	/**
+	 * Feeds {@code length} bytes of the given array, starting at
+	 * {@code offset}, to this reader.
+	 *
+	 * @param input the array holding the next chunk of the document
+	 * @param offset the start of the chunk
+	 * @param length the length of the chunk
+	 * @throws NullPointerException if input is null
+	 * @throws IndexOutOfBoundsException if offset and length don't denote a
+	 * range of input
+	 * @throws IllegalStateException if the previous chunk hasn't been
+	 * consumed yet or the end of input has already been signalled
+	 */
+	public void feed(byte[] input, int offset, int length) {
+		if (input == null) {
+			throw new NullPointerException("input == null");
+		}
+		if (offset < 0 || length < 0 || offset + length > input.length) {
+			throw new IndexOutOfBoundsException("offset " + offset + ", length " + length
+					+ ", input length " + input.length);
+		}
+		if (endOfInput) {
+			throw new IllegalStateException("The end of input has already been signalled");
+		}
+		if (!needsInput()) {
+			throw new IllegalStateException("The previous input hasn't been consumed yet");
+		}
+
+		long consumed = base + limit;
+		this.input = input;
+		this.pos = offset;
+		this.limit = offset + length;
+		this.base = consumed - offset;
+	}
+
+	/**
+	 * Signals that the document is complete and no more input will be fed.
+	 */
+	public void endOfInput() {
+		endOfInput = true;
+	}
+
+	/**
+	 * Tells whether all input fed so far has been consumed, so this reader
+	 * can accept the next chunk.
+	 *
+	 * @return true if the next chunk may be fed
+	 */
+	public boolean needsInput() {
+		return pos == limit && !endOfInput;
+	}
+
+	/**
+	 * Returns the next token of the document, or null if the input fed so far
+	 * has been consumed without completing another token. Once the end of
+	 * input has been signalled and the value is complete,
+	 * {@link JsonToken#END_DOCUMENT} is returned.
+	 *
+	 * @return the next token or null if more input is needed
+	 * @throws MalformedJsonException if the input isn't valid JSON
+	 */
+	public JsonToken nextToken() {
+		if (state == DONE) {
+			return JsonToken.END_DOCUMENT;
+		}
+
+		JsonToken next;
+		while ((next = advance()) != null) {
+			if (skipDepth == 0) {
+				token = next;
+				string = null;
+				return next;
+			}
+
+			if (next == JsonToken.BEGIN_ARRAY || next == JsonToken.BEGIN_OBJECT) {
+				skipDepth++;
+			} else if (next == JsonToken.END_ARRAY || next == JsonToken.END_OBJECT) {
+				skipDepth--;
+			}
+		}
+
+		if (pos == limit) {
+			// don't hold on to the caller's bytes
+			input = null;
+			base += limit;
+			pos = 0;
+			limit = 0;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Skips the contents of the array or object just begun. Its tokens, up to
+	 * and including the closing one, are consumed without being returned. They
+	 * are still checked to be valid JSON, but no strings are created for them.
+	 *
+	 * @throws IllegalStateException if the last token returned isn't
+	 * {@link JsonToken#BEGIN_ARRAY} or {@link JsonToken#BEGIN_OBJECT}
+	 */
+	public void skipValue() {
+		if (skipDepth != 0 || (token != JsonToken.BEGIN_ARRAY && token != JsonToken.BEGIN_OBJECT)) {
+			throw new IllegalStateException("skipValue() must directly follow BEGIN_ARRAY or BEGIN_OBJECT");
+		}
+
+		skipDepth = 1;
+		token = null;
+	}
+
+	/**
+	 * Returns the value of the {@link JsonToken#NAME} or {@link JsonToken#STRING}
+	 * token just returned. Names are taken from the string pool.
+	 *
+	 * @return the string value of the current token
+	 * @throws IllegalStateException if the current token is neither a name
+	 * nor a string
+	 */
+	public String getString() {
+		if (token != JsonToken.NAME && token != JsonToken.STRING) {
+			throw new IllegalStateException("Expected a name or string but was " + token);
+		}
+
+		if (string == null) {
+			string = name ? stringPool.get(chars, 0, length) : String.valueOf(chars, 0, length);
+		}
+		return string;
+	}
+
+	/**
+	 * Returns the text of the {@link JsonToken#NUMBER} just returned, exactly
+	 * as found in the document.
+	 *
+	 * @return the text of the current number
+	 * @throws IllegalStateException if the current token isn't a number
+	 */
+	public String getNumber() {
+		checkNumber();
+		return String.valueOf(chars, 0, length);
+	}
+
+	/**
+	 * Tells whether the {@link JsonToken#NUMBER} just returned is an integral
+	 * number which can be returned by {@link #getLong()} without loss.
+	 *
+	 * @return true if the current number is a long
+	 * @throws IllegalStateException if the current token isn't a number
+	 */
+	public boolean isLong() {
+		checkNumber();
+		return (numberState == NUMBER_ZERO || numberState == NUMBER_DIGITS) && fitsInLong
+				&& (negative ? value != 0 : value != Long.MIN_VALUE);
+	}
+
+	/**
+	 * Returns the {@link JsonToken#NUMBER} just returned as a long.
+	 *
+	 * @return the current number
+	 * @throws NumberFormatException if the number isn't a long, see {@link #isLong()}
+	 */
+	public long getLong() {
+		if (!isLong()) {
+			throw new NumberFormatException("Expected a long but was " + getNumber());
+		}
+		return negative ? value : -value;
+	}
+
+	private void checkNumber() {
+		if (token != JsonToken.NUMBER) {
+			throw new IllegalStateException("Expected a number but was " + token);
+		}
+	}
+
+	/**
+	 * Returns the value of the {@link JsonToken#BOOLEAN} just returned.
+	 *
+	 * @return the current boolean
+	 * @throws IllegalStateException if the current token isn't a boolean
+	 */
+	public boolean getBoolean() {
+		if (token != JsonToken.BOOLEAN) {
+			throw new IllegalStateException("Expected a boolean but was " + token);
+		}
+		return literal == TRUE;
+	}
+
+	public int getLineNumber() {
+		return lineNumber + 1;
+	}
+
+	public int getColumnNumber() {
+		return (int) (base + pos - lineStart + 1);
+	}
+
+	private JsonToken advance() {
+		while (pos < limit) {
+			JsonToken next = continueToken();
+			if (next != null) {
+				return next;
+			}
+		}
+
+		return endOfInput ? endOfInputToken() : null;
+	}
+
+	/**
+	 * Continues reading the current token from the input left.
+	 *
+	 * @return the token if it is complete, null otherwise
+	 */
+	private JsonToken continueToken() {
+		switch (state) {
+		case BETWEEN_TOKENS:
+			return readStructure();
+		case IN_STRING:
+			return readString();
+		case IN_ESCAPE:
+			readEscape();
+			return null;
+		case IN_UNICODE_ESCAPE:
+			readUnicodeEscape();
+			return null;
+		case IN_MULTI_BYTE_CHARACTER:
+			readMultiByteCharacter();
+			return null;
+		case IN_NUMBER:
+			return readNumber();
+		case IN_LITERAL:
+			return readLiteral();
+		default:
+			throw new AssertionError();
+		}
+	}
+
+	private JsonToken endOfInputToken() {
+		switch (state) {
+		case BETWEEN_TOKENS:
+			if (stackSize == 1 && scopes[0] == DOCUMENT_DONE) {
+				state = DONE;
+				return JsonToken.END_DOCUMENT;
+			}
+			throw syntaxError("End of input");
+		case IN_NUMBER:
+			// a top level number is terminated by the end of input
+			return endNumber();
+		case IN_LITERAL:
+			throw syntaxError("End of input");
+		default:
+			throw syntaxError("Unterminated string");
+		}
+	}
+
+	private JsonToken readStructure() {
+		if (!skipWhitespace()) {
+			return null;
+		}
+
+		byte c = input[pos++];
+		int top = stackSize - 1;
+
+		switch (scopes[top]) {
+		case ARRAY_FIRST:
+		case ARRAY_VALUE:
+		case ARRAY_NEXT:
+			return readInArray(top, c);
+		case OBJECT_FIRST:
+		case OBJECT_NAME:
+		case OBJECT_COLON:
+		case OBJECT_VALUE:
+		case OBJECT_NEXT:
+			return readInObject(top, c);
+		case DOCUMENT_EMPTY:
+			scopes[top] = DOCUMENT_DONE;
+			return beginValue(c);
+		default:
+			throw syntaxError("Expected end of input");
+		}
+	}
+
+	/**
+	 * Skips whitespace, counting the lines passed.
+	 *
+	 * @return true if a byte other than whitespace is left in the input
+	 */
+	private boolean skipWhitespace() {
+		byte[] in = input;
+		int p = pos;
+		int l = limit;
+
+		while (p < l) {
+			byte c = in[p];
+			if (c == ' ' || c == '\t' || c == '\r') {
+				p++;
+			} else if (c == '\n') {
+				p++;
+				lineNumber++;
+				lineStart = base + p;
+			} else {
+				break;
+			}
+		}
+
+		pos = p;
+		return p < l;
+	}
+
+	private JsonToken readInArray(int top, byte c) {
+		switch (scopes[top]) {
+		case ARRAY_FIRST:
+			if (c == ']') {
+				stackSize--;
+				return JsonToken.END_ARRAY;
+			}
+			scopes[top] = ARRAY_NEXT;
+			return beginValue(c);
+		case ARRAY_VALUE:
+			scopes[top] = ARRAY_NEXT;
+			return beginValue(c);
+		default:
+			if (c == ',') {
+				scopes[top] = ARRAY_VALUE;
+				return null;
+			} else if (c == ']') {
+				stackSize--;
+				return JsonToken.END_ARRAY;
+			}
+			throw syntaxError("Unterminated array");
+		}
+	}
+
+	private JsonToken readInObject(int top, byte c) {
+		switch (scopes[top]) {
+		case OBJECT_FIRST:
+			if (c == '}') {
+				stackSize--;
+				return JsonToken.END_OBJECT;
+			}
+			// fall-through
+		case OBJECT_NAME:
+			if (c != '"') {
+				throw syntaxError("Expected name");
+			}
+			scopes[top] = OBJECT_COLON;
+			beginString(true);
+			return null;
+		case OBJECT_COLON:
+			if (c != ':') {
+				throw syntaxError("Expected ':'");
+			}
+			scopes[top] = OBJECT_VALUE;
+			return null;
+		case OBJECT_VALUE:
+			scopes[top] = OBJECT_NEXT;
+			return beginValue(c);
+		default:
+			if (c == ',') {
+				scopes[top] = OBJECT_NAME;
+				return null;
+			} else if (c == '}') {
+				stackSize--;
+				return JsonToken.END_OBJECT;
+			}
+			throw syntaxError("Unterminated object");
+		}
+	}
+
+	private JsonToken beginValue(byte c) {
+		switch (c) {
+		case '{':
+			push(OBJECT_FIRST);
+			return JsonToken.BEGIN_OBJECT;
+		case '[':
+			push(ARRAY_FIRST);
+			return JsonToken.BEGIN_ARRAY;
+		case '"':
+			beginString(false);
+			return null;
+		case 't':
+			beginLiteral(TRUE);
+			return null;
+		case 'f':
+			beginLiteral(FALSE);
+			return null;
+		case 'n':
+			beginLiteral(NULL);
+			return null;
+		case '-':
+			beginNumber(NUMBER_SIGN, c);
+			negative = true;
+			return null;
+		case '0':
+			beginNumber(NUMBER_ZERO, c);
+			return null;
+		default:
+			if (c >= '1' && c <= '9') {
+				beginNumber(NUMBER_DIGITS, c);
+				value = -(c - '0');
+				return null;
+			}
+			throw syntaxError("Expected value");
+		}
+	}
+
+	private void push(int scope) {
+		if (stackSize == scopes.length) {
+			scopes = Arrays.copyOf(scopes, stackSize * 2);
+		}
+		scopes[stackSize++] = scope;
+	}
+
+	private void beginString(boolean isName) {
+		state = IN_STRING;
+		name = isName;
+		length = 0;
+	}
+
+	/**
+	 * Reads string content up to the closing quote, an escape sequence or a
+	 * multi-byte character.
+	 *
+	 * @return the name or string if it is complete, null otherwise
+	 */
+	private JsonToken readString() {
+		byte[] in = input;
+		int p = pos;
+		int l = limit;
+		boolean keep = skipDepth == 0;
+		char[] buffer = chars;
+		int len = length;
+
+		try {
+			while (p < l) {
+				byte c = in[p];
+				if (c == '"') {
+					p++;
+					state = BETWEEN_TOKENS;
+					return name ? JsonToken.NAME : JsonToken.STRING;
+				} else if (c == '\\') {
+					p++;
+					state = IN_ESCAPE;
+					return null;
+				} else if (c < 0) {
+					state = IN_MULTI_BYTE_CHARACTER;
+					remaining = 0;
+					return null;
+				}
+
+				if (keep) {
+					if (len == buffer.length) {
+						buffer = growChars();
+					}
+					buffer[len++] = (char) c;
+				}
+				p++;
+			}
+			return null;
+		} finally {
+			pos = p;
+			length = len;
+		}
+	}
+
+	private void readEscape() {
+		byte escaped = input[pos++];
+		switch (escaped) {
+		case 'u':
+			state = IN_UNICODE_ESCAPE;
+			codePoint = 0;
+			remaining = 4;
+			return;
+		case 't':
+			append('\t');
+			break;
+		case 'b':
+			append('\b');
+			break;
+		case 'n':
+			append('\n');
+			break;
+		case 'r':
+			append('\r');
+			break;
+		case 'f':
+			append('\f');
+			break;
+		case '\n':
+			lineNumber++;
+			lineStart = base + pos;
+			append('\n');
+			break;
+		default:
+			if (escaped < 0) {
+				throw syntaxError("Malformed escape sequence");
+			}
+			append((char) escaped);
+		}
+		state = IN_STRING;
+	}
+
+	private void readUnicodeEscape() {
+		while (pos < limit) {
+			byte c = input[pos];
+			int digit;
+			if (c >= '0' && c <= '9') {
+				digit = c - '0';
+			} else if (c >= 'a' && c <= 'f') {
+				digit = c - 'a' + 10;
+			} else if (c >= 'A' && c <= 'F') {
+				digit = c - 'A' + 10;
+			} else {
+				throw syntaxError("Malformed unicode escape sequence");
+			}
+
+			pos++;
+			codePoint = (codePoint << 4) | digit;
+			if (--remaining == 0) {
+				append((char) codePoint);
+				state = IN_STRING;
+				return;
+			}
+		}
+	}
+
+	private void readMultiByteCharacter() {
+		if (remaining == 0) {
+			beginMultiByteCharacter(input[pos++] & 0xFF);
+		}
+
+		while (remaining > 0 && pos < limit) {
+			int c = input[pos];
+			if ((c & 0xC0) != 0x80) {
+				throw syntaxError("Malformed UTF-8 input");
+			}
+			pos++;
+			codePoint = (codePoint & 0xFF000000) | ((codePoint & 0x00FFFFFF) << 6) | (c & 0x3F);
+			remaining--;
+		}
+
+		if (remaining == 0) {
+			endMultiByteCharacter();
+		}
+	}
+
+	private void beginMultiByteCharacter(int lead) {
+		if ((lead & 0xE0) == 0xC0) {
+			remaining = 1;
+			codePoint = lead & 0x1F;
+		} else if ((lead & 0xF0) == 0xE0) {
+			remaining = 2;
+			codePoint = lead & 0x0F;
+		} else if ((lead & 0xF8) == 0xF0) {
+			remaining = 3;
+			codePoint = lead & 0x07;
+		} else {
+			throw syntaxError("Malformed UTF-8 input");
+		}
+		// the byte count is kept in the upper bits until the character is complete
+		codePoint |= (remaining + 1) << 24;
+	}
+
+	private void endMultiByteCharacter() {
+		int byteCount = codePoint >>> 24;
+		int character = codePoint & 0x00FFFFFF;
+
+		if ((byteCount == 2 && character < 0x80)
+				|| (byteCount == 3 && (character < 0x800 || Character.isSurrogate((char) character)))
+				|| (byteCount == 4 && (character < 0x10000 || character > Character.MAX_CODE_POINT))) {
+			throw syntaxError("Malformed UTF-8 input");
+		}
+
+		if (byteCount == 4) {
+			append(Character.highSurrogate(character));
+			append(Character.lowSurrogate(character));
+		} else {
+			append((char) character);
+		}
+		state = IN_STRING;
+	}
+
+	private void beginNumber(int numberState, byte first) {
+		state = IN_NUMBER;
+		this.numberState = numberState;
+		value = 0;
+		negative = false;
+		fitsInLong = true;
+		length = 0;
+		append((char) first);
+	}
+
+	/**
+	 * Reads the characters of a number. A number only ends with the first
+	 * character not belonging to it, which is left for the next token.
+	 *
+	 * @return the number if it is complete, null otherwise
+	 */
+	private JsonToken readNumber() {
+		byte[] in = input;
+		int l = limit;
+
+		while (pos < l) {
+			byte c = in[pos];
+
+			if (!continuesNumber(c)) {
+				return endNumber();
+			}
+
+			append((char) c);
+			pos++;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Advances the part of the number read by the given character.
+	 *
+	 * @return false if the character doesn't belong to the number
+	 */
+	private boolean continuesNumber(byte c) {
+		boolean digit = c >= '0' && c <= '9';
+
+		switch (numberState) {
+		case NUMBER_SIGN:
+			return afterSign(c, digit);
+		case NUMBER_ZERO:
+		case NUMBER_DIGITS:
+			return afterInteger(c, digit);
+		case NUMBER_DOT:
+			numberState = expectDigit(digit, NUMBER_FRACTION);
+			return true;
+		case NUMBER_FRACTION:
+			return afterFraction(c, digit);
+		case NUMBER_EXPONENT:
+			return afterExponent(c, digit);
+		case NUMBER_EXPONENT_SIGN:
+			numberState = expectDigit(digit, NUMBER_EXPONENT_DIGITS);
+			return true;
+		default:
+			return digit;
+		}
+	}
+
+	private boolean afterSign(byte c, boolean digit) {
+		if (c == '0') {
+			numberState = NUMBER_ZERO;
+		} else if (digit) {
+			numberState = NUMBER_DIGITS;
+			value = -(c - '0');
+		} else {
+			throw syntaxError("Malformed number");
+		}
+		return true;
+	}
+
+	private boolean afterInteger(byte c, boolean digit) {
+		if (digit && numberState == NUMBER_DIGITS) {
+			long newValue = value * 10 - (c - '0');
+			fitsInLong &= value > MIN_INCOMPLETE_INTEGER
+					|| (value == MIN_INCOMPLETE_INTEGER && newValue < value);
+			value = newValue;
+		} else if (c == '.') {
+			numberState = NUMBER_DOT;
+		} else if (c == 'e' || c == 'E') {
+			numberState = NUMBER_EXPONENT;
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	private boolean afterFraction(byte c, boolean digit) {
+		if (c == 'e' || c == 'E') {
+			numberState = NUMBER_EXPONENT;
+			return true;
+		}
+		return digit;
+	}
+
+	private boolean afterExponent(byte c, boolean digit) {
+		if (c == '+' || c == '-') {
+			numberState = NUMBER_EXPONENT_SIGN;
+		} else if (digit) {
+			numberState = NUMBER_EXPONENT_DIGITS;
+		} else {
+			throw syntaxError("Malformed number");
+		}
+		return true;
+	}
+
+	private int expectDigit(boolean digit, int nextState) {
+		if (!digit) {
+			throw syntaxError("Malformed number");
+		}
+		return nextState;
+	}
+
+	private JsonToken endNumber() {
+		if (numberState == NUMBER_SIGN || numberState == NUMBER_DOT
+				|| numberState == NUMBER_EXPONENT || numberState == NUMBER_EXPONENT_SIGN) {
+			throw syntaxError("Malformed number");
+		}
+
+		state = BETWEEN_TOKENS;
+		return JsonToken.NUMBER;
+	}
+
+	private void beginLiteral(byte[] expected) {
+		state = IN_LITERAL;
+		literal = expected;
+		literalIndex = 1;
+	}
+
+	/**
+	 * Reads the remaining characters of true, false or null.
+	 *
+	 * @return the literal if it is complete, null otherwise
+	 */
+	private JsonToken readLiteral() {
+		while (pos < limit) {
+			if (input[pos] != literal[literalIndex]) {
+				throw syntaxError("Expected value");
+			}
+
+			pos++;
+			if (++literalIndex == literal.length) {
+				state = BETWEEN_TOKENS;
+				return literal == NULL ? JsonToken.NULL : JsonToken.BOOLEAN;
+			}
+		}
+
+		return null;
+	}
+
+	private void append(char c) {
+		if (skipDepth == 0) {
+			if (length == chars.length) {
+				growChars();
+			}
+			chars[length++] = c;
+		}
+	}
+
+	private char[] growChars() {
+		chars = Arrays.copyOf(chars, chars.length * 2);
+		return chars;
+	}
+
+	private MalformedJsonException syntaxError(String message) {
+		throw new MalformedJsonException(message + " at line " + getLineNumber() + " column " + getColumnNumber());
+	}
+}
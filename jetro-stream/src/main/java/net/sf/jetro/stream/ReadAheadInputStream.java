@@ -0,0 +1,268 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An InputStream reading its source ahead on a thread of its own, so e.g.
+ * decompressing the source overlaps with parsing what was read before.
+ * <p>
+ * The bytes are passed on in a fixed ring of blocks: the reading thread fills
+ * the free blocks one after the other and hands them over, the reading of
+ * this stream returns each block to the ring once it is consumed. So no more
+ * than the blocks of the ring are read ahead and no memory is allocated while
+ * reading. Exceptions of the source are thrown by the read following the
+ * bytes read before them.
+ * <p>
+ * The reading thread ends at the end of the source, when this stream is
+ * closed or, should it be abandoned without being closed, e.g. after a
+ * parsing error, once it is garbage collected.
+ *
+ * @author Matthias Rothe
+ */
+final class ReadAheadInputStream extends InputStream {
+	static final int BLOCK_SIZE = 64 * 1024;
+	static final int BLOCKS = 4;
+
+	private final BlockingQueue<Block> free = new ArrayBlockingQueue<>(BLOCKS);
+	private final BlockingQueue<Block> filled = new ArrayBlockingQueue<>(BLOCKS);
+	private final Producer producer;
+	private final Thread thread;
+
+	private Block current;
+	private int position;
+	private boolean ended;
+
+	ReadAheadInputStream(final InputStream source) {
+		for (int i = 0; i < BLOCKS; i++) {
+			free.add(new Block(new byte[BLOCK_SIZE]));
+		}
+
+		producer = new Producer(source, free, filled, this);
+		thread = new Thread(producer, "jetro-read-ahead");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public int read() throws IOException {
+		Block block = current();
+		return block == null ? -1 : block.bytes[position++] & 0xff;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+		if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		if (len == 0) {
+			return 0;
+		}
+
+		Block block = current();
+
+		if (block == null) {
+			return -1;
+		}
+
+		int count = Math.min(len, block.length - position);
+		System.arraycopy(block.bytes, position, b, off, count);
+		position += count;
+		return count;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return current == null ? 0 : current.length - position;
+	}
+
+	/**
+	 * Returns the block to read from, taking the next one once the current
+	 * one is consumed, or null at the end of the source.
+	 */
+	private Block current() throws IOException {
+		if (producer.closed) {
+			throw new IOException("Stream closed");
+		}
+
+		if (current != null && position < current.length) {
+			return current;
+		}
+
+		if (ended) {
+			return null;
+		}
+
+		if (current != null) {
+			free.add(current);
+			current = null;
+		}
+
+		Block next;
+
+		try {
+			next = filled.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the source");
+		}
+
+		if (next.failure != null) {
+			ended = true;
+			throw new IOException(next.failure.getMessage(), next.failure);
+		}
+
+		if (next.length < 0) {
+			ended = true;
+			return null;
+		}
+
+		current = next;
+		position = 0;
+		return next;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (producer.closed) {
+			return;
+		}
+
+		producer.closed = true;
+		thread.interrupt();
+		producer.source.close();
+	}
+
+	/**
+	 * Fills the free blocks. Holds the stream it reads ahead for weakly only,
+	 * so it notices if that stream is abandoned.
+	 */
+	private static final class Producer implements Runnable {
+		private static final long CHECK_INTERVAL_MILLIS = 1000;
+
+		private final InputStream source;
+		private final BlockingQueue<Block> free;
+		private final BlockingQueue<Block> filled;
+		private final WeakReference<ReadAheadInputStream> owner;
+		private volatile boolean closed;
+
+		private Producer(final InputStream source, final BlockingQueue<Block> free,
+				final BlockingQueue<Block> filled, final ReadAheadInputStream owner) {
+			this.source = source;
+			this.free = free;
+			this.filled = filled;
+			this.owner = new WeakReference<>(owner);
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					Block block = take();
+					block.length = fill(block.bytes);
+					put(block);
+
+					if (block.length < 0) {
+						return;
+					}
+				}
+			} catch (InterruptedException e) {
+				// closed or abandoned
+			} catch (IOException | RuntimeException e) {
+				Block failure = new Block(null);
+				failure.failure = e;
+
+				try {
+					put(failure);
+				} catch (InterruptedException ignored) {
+					// closed or abandoned
+				}
+			}
+
+			if (!closed) {
+				try {
+					source.close();
+				} catch (IOException ignored) {
+					// nobody is reading anymore
+				}
+			}
+		}
+
+		/**
+		 * Fills the given block as far as the source allows, returning the
+		 * number of bytes read or -1 at the end of the source.
+		 */
+		private int fill(final byte[] bytes) throws IOException {
+			int length = 0;
+
+			while (length < bytes.length) {
+				int read = source.read(bytes, length, bytes.length - length);
+
+				if (read < 0) {
+					return length == 0 ? -1 : length;
+				}
+
+				length += read;
+			}
+
+			return length;
+		}
+
+		private Block take() throws InterruptedException {
+			Block block;
+
+			while ((block = free.poll(CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+				checkOwner();
+			}
+
+			return block;
+		}
+
+		private void put(final Block block) throws InterruptedException {
+			while (!filled.offer(block, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+				checkOwner();
+			}
+		}
+
+		private void checkOwner() throws InterruptedException {
+			if (closed || owner.get() == null) {
+				throw new InterruptedException();
+			}
+		}
+	}
+
+	private static final class Block {
+		private final byte[] bytes;
+		private int length;
+		private Exception failure;
+
+		private Block(final byte[] bytes) {
+			this.bytes = bytes;
+		}
+	}
+}
@@ -16,13 +16,23 @@
 //CHECKSTYLE:OFF
 package net.sf.jetro.stream;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+
 /**
  * A pool of string instances. Unlike the {@link String#intern() VM's interned
  * strings}, this pool provides no guarantee of reference equality. It is
  * intended only to save allocations.
  * 
  * <p>
- * This class is safe for concurrent use.
+ * The pool may be seeded with known strings, typically the property names of
+ * the documents to read. Seeded strings are pinned: they are never replaced
+ * by other strings hashing to the same slot, and they are pooled regardless
+ * of their length.
+ * 
+ * <p>
+ * This class is not safe for concurrent use. Each reader owns its own pool.
  */
 final class StringPool {
 	/**
@@ -31,33 +41,122 @@ final class StringPool {
 	 * than we save on garbage collection.
 	 */
 	private static final int MAX_LENGTH = 20;
-	private final String[] pool = new String[1024];
+	static final int DEFAULT_SIZE = 1024;
+
+	private final String[] pool;
+	private final boolean[] pinned;
+	private final int maxLength;
+
+	StringPool() {
+		this(DEFAULT_SIZE, Collections.<String> emptySet());
+	}
 
 	/**
-	 * Returns a string equal to {@code new String(array, start, length)}.
+	 * @param size the number of slots, must be a power of two
+	 * @param seeds strings to pin in the pool
 	 */
-	public String get(char[] array, int start, int length, int hashCode) {
-		if (length > StringPool.MAX_LENGTH) {
-			return new String(array, start, length);
+	StringPool(int size, Collection<String> seeds) {
+		if (size <= 0 || (size & (size - 1)) != 0) {
+			throw new IllegalArgumentException("size must be a power of two");
 		}
 
+		pool = new String[size];
+		pinned = new boolean[size];
+
+		int longest = MAX_LENGTH;
+		for (String seed : seeds) {
+			int index = indexFor(seed.hashCode());
+			if (!pinned[index]) {
+				pool[index] = seed;
+				pinned[index] = true;
+				longest = Math.max(longest, seed.length());
+			}
+		}
+		maxLength = longest;
+	}
+
+	private int indexFor(int hashCode) {
 		// Pick a bucket using Doug Lea's supplemental secondaryHash function
 		// (from HashMap)
 		hashCode ^= (hashCode >>> 20) ^ (hashCode >>> 12);
 		hashCode ^= (hashCode >>> 7) ^ (hashCode >>> 4);
-		int index = hashCode & (pool.length - 1);
+		return hashCode & (pool.length - 1);
+	}
+
+	private void put(int index, String value) {
+		if (!pinned[index]) {
+			pool[index] = value;
+		}
+	}
+
+	/**
+	 * Returns a string equal to {@code new String(array, start, length)},
+	 * computing the hash code only if the string may be pooled.
+	 */
+	public String get(char[] array, int start, int length) {
+		if (length > maxLength) {
+			return new String(array, start, length);
+		}
+
+		int hashCode = 0;
+		for (int i = start, end = start + length; i < end; i++) {
+			hashCode = (hashCode * 31) + array[i];
+		}
+		return get(array, start, length, hashCode);
+	}
+
+	/**
+	 * Returns a string equal to {@code new String(array, start, length)}.
+	 */
+	public String get(char[] array, int start, int length, int hashCode) {
+		if (length > maxLength) {
+			return new String(array, start, length);
+		}
+
+		int index = indexFor(hashCode);
 
 		String pooled = pool[index];
 		if (pooled == null || pooled.length() != length) {
 			String result = new String(array, start, length);
-			pool[index] = result;
+			put(index, result);
 			return result;
 		}
 
 		for (int i = 0; i < length; i++) {
 			if (pooled.charAt(i) != array[start + i]) {
 				String result = new String(array, start, length);
-				pool[index] = result;
+				put(index, result);
+				return result;
+			}
+		}
+
+		return pooled;
+	}
+
+	/**
+	 * Returns a string equal to the {@code length} ASCII bytes at
+	 * {@code array[start]}. The caller guarantees that none of these bytes is
+	 * negative, so the hash code computed over the bytes is the hash code of
+	 * the resulting string.
+	 */
+	public String get(byte[] array, int start, int length, int hashCode) {
+		if (length > maxLength) {
+			return new String(array, start, length, StandardCharsets.ISO_8859_1);
+		}
+
+		int index = indexFor(hashCode);
+
+		String pooled = pool[index];
+		if (pooled == null || pooled.length() != length) {
+			String result = new String(array, start, length, StandardCharsets.ISO_8859_1);
+			put(index, result);
+			return result;
+		}
+
+		for (int i = 0; i < length; i++) {
+			if (pooled.charAt(i) != array[start + i]) {
+				String result = new String(array, start, length, StandardCharsets.ISO_8859_1);
+				put(index, result);
 				return result;
 			}
 		}
@@ -0,0 +1,434 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * The structural index of a UTF-8 encoded JSON document: the positions of all
+ * brackets, braces, colons and commas outside of strings and of the quotes
+ * delimiting the strings, in the order of the document.
+ * <p>
+ * The index is built in a single pass over the document that inspects eight
+ * bytes at a time: the bytes of interest in each word are found with a few
+ * arithmetic and bitwise operations (SWAR, "SIMD within a register"), so
+ * stretches of ordinary characters, e.g. the content of strings, are passed
+ * over without looking at each byte. Which bytes are within strings is
+ * computed per word as well; only words containing a backslash are processed
+ * byte by byte to respect the escape sequences.
+ * <p>
+ * For each opening bracket or brace the index also records the entry of its
+ * closing counterpart, so a complete array or object can be skipped without
+ * looking at its content.
+ * <p>
+ * The index does not validate the document, except for the balance of
+ * brackets and braces. Numbers, literals and whitespace are not indexed; they
+ * are found between the indexed positions. See {@link IndexedJsonReader} for
+ * a reader tokenizing the document by means of its index. Instances of this
+ * class are immutable and may be shared by several readers and threads.
+ *
+ * @author Matthias Rothe
+ */
+public final class StructuralIndex {
+	/** The entry has no matching closing bracket or brace. */
+	public static final int NO_MATCH = -1;
+
+	private static final long ONES = 0x0101010101010101L;
+	private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+	private static final long QUOTES = ONES * '"';
+	private static final long BACKSLASHES = ONES * '\\';
+	private static final long COLONS = ONES * ':';
+	private static final long COMMAS = ONES * ',';
+	// brackets and braces only differ in bit 5: [ = 0x5B, { = 0x7B, ] = 0x5D, } = 0x7D
+	private static final long FOLD_CASE = ~(ONES * 0x20);
+	private static final long OPENING = ONES * '[';
+	private static final long CLOSING = ONES * ']';
+
+	private final byte[] input;
+	private final int offset;
+	private final int length;
+	private final int[] positions;
+	private final int[] matches;
+	private final int size;
+	private final boolean unterminatedString;
+
+	private StructuralIndex(final byte[] input, final int offset, final int length, final int[] positions,
+			final int[] matches, final int size, final boolean unterminatedString) {
+		this.input = input;
+		this.offset = offset;
+		this.length = length;
+		this.positions = positions;
+		this.matches = matches;
+		this.size = size;
+		this.unterminatedString = unterminatedString;
+	}
+
+	/**
+	 * Builds the index of the JSON document contained in {@code input}. The
+	 * array is read in place and must not be modified while the index is in
+	 * use.
+	 *
+	 * @param input the UTF-8 encoded JSON document
+	 * @return the index of the document
+	 */
+	public static StructuralIndex of(final byte[] input) {
+		return of(input, 0, input == null ? 0 : input.length);
+	}
+
+	/**
+	 * Builds the index of the JSON document contained in {@code length} bytes
+	 * of {@code input} starting at {@code offset}. The array is read in place
+	 * and must not be modified while the index is in use.
+	 *
+	 * @param input the array containing the UTF-8 encoded JSON document
+	 * @param offset the start of the document
+	 * @param length the length of the document
+	 * @return the index of the document
+	 * @throws NullPointerException if input is null
+	 * @throws IndexOutOfBoundsException if offset and length don't denote a
+	 * range of input
+	 */
+	public static StructuralIndex of(final byte[] input, final int offset, final int length) {
+		if (input == null) {
+			throw new NullPointerException("input == null");
+		}
+		if (offset < 0 || length < 0 || offset + length > input.length) {
+			throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length
+					+ ", input.length: " + input.length);
+		}
+
+		return new Builder(input, offset, length).build();
+	}
+
+	/**
+	 * Returns the array containing the indexed document.
+	 *
+	 * @return the array containing the document
+	 */
+	public byte[] getInput() {
+		return input;
+	}
+
+	/**
+	 * Returns the position of the first byte of the document in the array.
+	 *
+	 * @return the start of the document
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Returns the length of the document in bytes.
+	 *
+	 * @return the length of the document
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Returns the number of entries of this index.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the position in the array of the structural byte of the given
+	 * entry.
+	 *
+	 * @param entry the number of the entry
+	 * @return the position of the structural byte
+	 */
+	public int position(final int entry) {
+		checkEntry(entry);
+		return positions[entry];
+	}
+
+	/**
+	 * Returns the structural byte of the given entry, one of
+	 * <code>[]{}:,"</code>.
+	 *
+	 * @param entry the number of the entry
+	 * @return the structural byte
+	 */
+	public byte structural(final int entry) {
+		return input[position(entry)];
+	}
+
+	/**
+	 * Returns the entry of the bracket or brace closing the one of the given
+	 * entry. Returns {@link #NO_MATCH} if the closing counterpart is missing
+	 * or of the wrong kind, or if the given entry is no opening bracket or
+	 * brace. As strings contain no entries, the closing quote of a string
+	 * always is the entry following its opening quote.
+	 *
+	 * @param entry the number of the entry
+	 * @return the entry closing the given one
+	 */
+	public int match(final int entry) {
+		checkEntry(entry);
+		// a match always follows its entry, so 0 means there is none
+		return matches[entry] == 0 ? NO_MATCH : matches[entry];
+	}
+
+	/**
+	 * Tells whether the document ends within a string.
+	 *
+	 * @return true if the last string is not terminated
+	 */
+	public boolean hasUnterminatedString() {
+		return unterminatedString;
+	}
+
+	int[] positions() {
+		return positions;
+	}
+
+	/**
+	 * Returns the matches of the entries, 0 standing for no match.
+	 */
+	int[] matches() {
+		return matches;
+	}
+
+	private void checkEntry(final int entry) {
+		if (entry < 0 || entry >= size) {
+			throw new IndexOutOfBoundsException("entry: " + entry + ", size: " + size);
+		}
+	}
+
+	/**
+	 * Finds the structural bytes word by word.
+	 */
+	private static final class Builder {
+		private final byte[] input;
+		private final int offset;
+		private final int length;
+
+		private int[] positions;
+		private int[] matches;
+		private int size;
+
+		private int[] open = new int[32];
+		private int depth;
+
+		private boolean inString;
+		/** The position up to which bytes are escaped and therefore ignored. */
+		private int escapedUntil;
+
+		private Builder(final byte[] input, final int offset, final int length) {
+			this.input = input;
+			this.offset = offset;
+			this.length = length;
+
+			// a rough guess for typical documents, the arrays grow as needed
+			int capacity = Math.max(16, length / 6);
+			positions = new int[capacity];
+			matches = new int[capacity];
+		}
+
+		private StructuralIndex build() {
+			ByteBuffer words = ByteBuffer.wrap(input).order(ByteOrder.LITTLE_ENDIAN);
+			int end = offset + length;
+			int p = offset;
+
+			for (; p + Long.BYTES <= end; p += Long.BYTES) {
+				long word = words.getLong(p);
+				long backslashes = zeroBytes(word ^ BACKSLASHES);
+
+				if (backslashes == 0 && escapedUntil <= p) {
+					processWord(p, word);
+				} else {
+					// escape sequences are rare, so they are handled byte by byte
+					long found = interesting(word) | backslashes;
+
+					while (found != 0) {
+						int index = p + (Long.numberOfTrailingZeros(found) >>> 3);
+						found &= found - 1;
+						process(index);
+					}
+				}
+			}
+
+			for (; p < end; p++) {
+				if (isInteresting(input[p])) {
+					process(p);
+				}
+			}
+
+			return new StructuralIndex(input, offset, length, positions, matches, size, inString);
+		}
+
+		/**
+		 * Processes a word without backslashes. Which of its bytes are within
+		 * strings is computed for all bytes at once: each byte is within a
+		 * string if an odd number of quotes precede it, including the quotes
+		 * of earlier words and the byte itself, so the prefix XOR of the quote
+		 * bits yields the mask of these bytes. The positions found are stored
+		 * without looking at them one by one, only the rarer brackets and
+		 * braces are matched afterwards.
+		 */
+		private void processWord(final int p, final long word) {
+			long quotes = zeroBytes(word ^ QUOTES);
+			long parity = quotes >>> 7;
+			parity ^= parity << 8;
+			parity ^= parity << 16;
+			parity ^= parity << 32;
+
+			if (inString) {
+				parity ^= ONES;
+			}
+
+			long outside = ~((parity & ONES) << 7);
+			inString = outside > 0;
+
+			long folded = word & FOLD_CASE;
+			long opening = zeroBytes(folded ^ OPENING) & outside;
+			long closing = zeroBytes(folded ^ CLOSING) & outside;
+			long found = quotes | opening | closing
+					| ((zeroBytes(word ^ COLONS) | zeroBytes(word ^ COMMAS)) & outside);
+
+			if (found == 0) {
+				return;
+			}
+
+			ensureCapacity(size + Long.BYTES);
+			int first = size;
+			int[] positions = this.positions;
+			int size = this.size;
+
+			for (long bits = found; bits != 0; bits &= bits - 1) {
+				positions[size++] = p + (Long.numberOfTrailingZeros(bits) >>> 3);
+			}
+
+			this.size = size;
+
+			for (long brackets = opening | closing; brackets != 0; brackets &= brackets - 1) {
+				long bit = brackets & -brackets;
+				int entry = first + Long.bitCount(found & (bit - 1));
+
+				if ((opening & bit) != 0) {
+					openBracket(entry);
+				} else {
+					closeBracket(entry);
+				}
+			}
+		}
+
+		/**
+		 * Returns a word having the highest bit set in each byte of the given
+		 * word that is a quote, a backslash or a structural byte.
+		 */
+		private static long interesting(final long word) {
+			long folded = word & FOLD_CASE;
+
+			return zeroBytes(word ^ QUOTES) | zeroBytes(word ^ BACKSLASHES)
+					| zeroBytes(folded ^ OPENING) | zeroBytes(folded ^ CLOSING)
+					| zeroBytes(word ^ COLONS) | zeroBytes(word ^ COMMAS);
+		}
+
+		/**
+		 * Returns a word having the highest bit set in exactly those bytes of
+		 * the given word that are zero.
+		 */
+		private static long zeroBytes(final long word) {
+			return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+		}
+
+		private static boolean isInteresting(final byte b) {
+			switch (b) {
+			case '"':
+			case '\\':
+			case '[':
+			case ']':
+			case '{':
+			case '}':
+			case ':':
+			case ',':
+				return true;
+			default:
+				return false;
+			}
+		}
+
+		private void process(final int index) {
+			if (index < escapedUntil) {
+				return;
+			}
+
+			byte b = input[index];
+
+			if (inString) {
+				if (b == '\\') {
+					escapedUntil = index + 2;
+				} else if (b == '"') {
+					inString = false;
+					add(index);
+				}
+			} else if (b == '"') {
+				inString = true;
+				add(index);
+			} else if (b == '[' || b == '{') {
+				add(index);
+				openBracket(size - 1);
+			} else if (b == ']' || b == '}') {
+				add(index);
+				closeBracket(size - 1);
+			} else if (b != '\\') {
+				add(index);
+			}
+		}
+
+		private void openBracket(final int entry) {
+			if (depth == open.length) {
+				open = Arrays.copyOf(open, depth * 2);
+			}
+			open[depth++] = entry;
+		}
+
+		private void closeBracket(final int entry) {
+			if (depth > 0) {
+				int opening = open[--depth];
+				// [ and ] as well as { and } differ by 2, a mismatch is left unmatched
+				if (input[positions[opening]] + 2 == input[positions[entry]]) {
+					matches[opening] = entry;
+				}
+			}
+		}
+
+		private void add(final int position) {
+			ensureCapacity(size + 1);
+			positions[size++] = position;
+		}
+
+		private void ensureCapacity(final int capacity) {
+			if (capacity > positions.length) {
+				positions = Arrays.copyOf(positions, Math.max(capacity, positions.length * 2));
+				matches = Arrays.copyOf(matches, positions.length);
+			}
+		}
+	}
+}
@@ -0,0 +1,1770 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import net.sf.jetro.context.ReaderContext;
+import net.sf.jetro.exception.MalformedJsonException;
+
+/**
+ * A {@link JsonTokenReader} reading UTF-8 encoded JSON directly from bytes.
+ * <p>
+ * This reader follows the same state machine as {@link JsonReader} and accepts
+ * the same (lenient) syntax. In contrast to wrapping an {@link InputStream} in an
+ * {@link java.io.InputStreamReader}, it never decodes structural characters,
+ * whitespace, numbers or literals. Only the contents of names and string values
+ * are decoded, and only once {@link #nextName()} or {@link #nextString()} asks for
+ * them. Names and values that are skipped with {@link #skipValue()} are never
+ * decoded at all.
+ * <p>
+ * Column numbers reported by this reader count bytes rather than characters.
+ * <p>
+ * Each {@code Utf8JsonReader} may be used to read a single JSON stream. Instances
+ * of this class are not thread safe.
+ *
+ * @author Matthias Rothe
+ * @see JsonReader
+ */
+public class Utf8JsonReader implements JsonTokenReader {
+	/** The number of characters passed on per chunk of a string value. */
+	private static final int CHUNK_SIZE = 8192;
+
+	/** The only non-execute prefix this parser permits. */
+	private static final byte[] NON_EXECUTE_PREFIX = ")]}'\n".getBytes(StandardCharsets.US_ASCII);
+	private static final long MIN_INCOMPLETE_INTEGER = Long.MIN_VALUE / 10;
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+	private static final int BOM_LENGTH = 3;
+
+	private static final int PEEKED_NONE = 0;
+	private static final int PEEKED_BEGIN_OBJECT = 1;
+	private static final int PEEKED_END_OBJECT = 2;
+	private static final int PEEKED_BEGIN_ARRAY = 3;
+	private static final int PEEKED_END_ARRAY = 4;
+	private static final int PEEKED_TRUE = 5;
+	private static final int PEEKED_FALSE = 6;
+	private static final int PEEKED_NULL = 7;
+	private static final int PEEKED_SINGLE_QUOTED = 8;
+	private static final int PEEKED_DOUBLE_QUOTED = 9;
+	private static final int PEEKED_UNQUOTED = 10;
+	/** When this is returned, the string value is stored in peekedString. */
+	private static final int PEEKED_BUFFERED = 11;
+	private static final int PEEKED_SINGLE_QUOTED_NAME = 12;
+	private static final int PEEKED_DOUBLE_QUOTED_NAME = 13;
+	private static final int PEEKED_UNQUOTED_NAME = 14;
+	/** When this is returned, the integer value is stored in peekedLong. */
+	private static final int PEEKED_LONG = 15;
+	private static final int PEEKED_NUMBER = 16;
+	private static final int PEEKED_EOF = 17;
+
+	/** The tokens by the values of {@link #peeked}. */
+	private static final JsonToken[] TOKENS = new JsonToken[PEEKED_EOF + 1];
+
+	static {
+		TOKENS[PEEKED_BEGIN_OBJECT] = JsonToken.BEGIN_OBJECT;
+		TOKENS[PEEKED_END_OBJECT] = JsonToken.END_OBJECT;
+		TOKENS[PEEKED_BEGIN_ARRAY] = JsonToken.BEGIN_ARRAY;
+		TOKENS[PEEKED_END_ARRAY] = JsonToken.END_ARRAY;
+		TOKENS[PEEKED_SINGLE_QUOTED_NAME] = JsonToken.NAME;
+		TOKENS[PEEKED_DOUBLE_QUOTED_NAME] = JsonToken.NAME;
+		TOKENS[PEEKED_UNQUOTED_NAME] = JsonToken.NAME;
+		TOKENS[PEEKED_TRUE] = JsonToken.BOOLEAN;
+		TOKENS[PEEKED_FALSE] = JsonToken.BOOLEAN;
+		TOKENS[PEEKED_NULL] = JsonToken.NULL;
+		TOKENS[PEEKED_SINGLE_QUOTED] = JsonToken.STRING;
+		TOKENS[PEEKED_DOUBLE_QUOTED] = JsonToken.STRING;
+		TOKENS[PEEKED_UNQUOTED] = JsonToken.STRING;
+		TOKENS[PEEKED_BUFFERED] = JsonToken.STRING;
+		TOKENS[PEEKED_LONG] = JsonToken.NUMBER;
+		TOKENS[PEEKED_NUMBER] = JsonToken.NUMBER;
+		TOKENS[PEEKED_EOF] = JsonToken.END_DOCUMENT;
+	}
+
+	/** The input JSON, or null if the whole document was handed over as a byte array. */
+	private final InputStream in;
+
+	/** True to accept non-spec compliant JSON. */
+	private boolean lenient = false;
+	private boolean multipleDocuments = false;
+
+	/**
+	 * The bytes currently available to the parser. When reading from a byte
+	 * array, this is the caller's array and it is never modified.
+	 */
+	private final byte[] buffer;
+	private int pos = 0;
+	private int limit = 0;
+
+	private int lineNumber = 0;
+	private int lineStart = 0;
+
+	private int peeked = PEEKED_NONE;
+
+	/**
+	 * A peeked value that was composed entirely of digits with an optional
+	 * leading dash. Positive values may not have a leading 0.
+	 */
+	private long peekedLong;
+
+	/**
+	 * The number of bytes in a peeked number literal. Increment 'pos' by
+	 * this after reading a number.
+	 */
+	private int peekedNumberLength;
+
+	/**
+	 * A peeked string that should be parsed on the next double, long or string.
+	 * This is populated before a numeric value is parsed and used if that parsing
+	 * fails.
+	 */
+	private String peekedString;
+
+	/**
+	 * Scratch space to decode strings into which contain escape sequences or
+	 * non-ASCII characters.
+	 */
+	private char[] chars = new char[64];
+
+	/**
+	 * The view of {@link #chars} passed on by {@link #nextString(StringChunkConsumer)}.
+	 */
+	private CharArraySequence charsView;
+
+	/**
+	 * A pool of short strings intended to prevent object allocation. Each
+	 * reader owns its pool, so it needs no synchronization.
+	 */
+	private final StringPool stringPool;
+
+	/*
+	 * The nesting stack. Using a manual array rather than an ArrayList saves 20%.
+	 */
+	private int[] stack = new int[32];
+	private int stackSize = 0;
+	{
+		stack[stackSize++] = JsonScope.EMPTY_DOCUMENT;
+	}
+
+	/**
+	 * Creates a new instance that reads a UTF-8 encoded JSON stream from {@code in}.
+	 *
+	 * @param in the stream to read from
+	 */
+	public Utf8JsonReader(InputStream in) {
+		this(in, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a new instance that reads a UTF-8 encoded JSON stream from {@code in}
+	 * using a buffer of {@code bufferSize} bytes.
+	 *
+	 * @param in the stream to read from
+	 * @param bufferSize the size of the buffer in bytes
+	 */
+	public Utf8JsonReader(InputStream in, int bufferSize) {
+		this(in, bufferSize, new StringPool());
+	}
+
+	private Utf8JsonReader(InputStream in, int bufferSize, StringPool stringPool) {
+		if (in == null) {
+			throw new NullPointerException("in == null");
+		}
+		if (bufferSize < ReaderContext.MIN_BUFFER_SIZE) {
+			throw new IllegalArgumentException("bufferSize must be at least " + ReaderContext.MIN_BUFFER_SIZE);
+		}
+		this.in = in;
+		this.buffer = new byte[bufferSize];
+		this.stringPool = stringPool;
+	}
+
+	/**
+	 * Creates a new instance that reads a UTF-8 encoded JSON stream from {@code in}
+	 * configured by the given {@link ReaderContext}. As strings are decoded
+	 * into a separate, growing character buffer anyway, the byte buffer keeps
+	 * its initial size.
+	 *
+	 * @param in the stream to read from
+	 * @param context the context to configure this reader with
+	 */
+	public Utf8JsonReader(InputStream in, ReaderContext context) {
+		this(in, bufferSize(context), stringPool(context));
+		setLenient(context.isLenient());
+	}
+
+	private static int bufferSize(ReaderContext context) {
+		return checkContext(context).getBufferSize() == 0 ? DEFAULT_BUFFER_SIZE : context.getBufferSize();
+	}
+
+	private static ReaderContext checkContext(ReaderContext context) {
+		if (context == null) {
+			throw new NullPointerException("context == null");
+		}
+		return context;
+	}
+
+	private static StringPool stringPool(ReaderContext context) {
+		return new StringPool(context.getStringPoolSize(), context.getKnownNames());
+	}
+
+	/**
+	 * Creates a new instance that reads a UTF-8 encoded JSON document from
+	 * the memory mapped contents of {@code channel}, starting at its current
+	 * position. Large files are mapped chunk by chunk. Closing this reader
+	 * closes the channel.
+	 *
+	 * @param channel the file channel to read from
+	 * @throws IOException if the channel's position or size can't be read
+	 */
+	public Utf8JsonReader(FileChannel channel) throws IOException {
+		this(new MappedFileInputStream(channel));
+	}
+
+	/**
+	 * Creates a new instance that reads a UTF-8 encoded JSON document from
+	 * the memory mapped contents of {@code channel} configured by the given
+	 * {@link ReaderContext}.
+	 *
+	 * @param channel the file channel to read from
+	 * @param context the context to configure this reader with
+	 * @throws IOException if the channel's position or size can't be read
+	 */
+	public Utf8JsonReader(FileChannel channel, ReaderContext context) throws IOException {
+		this(new MappedFileInputStream(channel), context);
+	}
+
+	/**
+	 * Creates a new instance that reads the UTF-8 encoded JSON document
+	 * contained in {@code input}. The array is read in place and must not be
+	 * modified while this reader is in use.
+	 *
+	 * @param input the array containing the UTF-8 encoded JSON document
+	 */
+	public Utf8JsonReader(byte[] input) {
+		this(input, 0, input == null ? 0 : input.length);
+	}
+
+	/**
+	 * Creates a new instance that reads the UTF-8 encoded JSON document
+	 * contained in {@code length} bytes of {@code input} starting at
+	 * {@code offset}. The array is read in place and must not be modified
+	 * while this reader is in use.
+	 *
+	 * @param input the array containing the UTF-8 encoded JSON document
+	 * @param offset the start of the document
+	 * @param length the length of the document
+	 */
+	public Utf8JsonReader(byte[] input, int offset, int length) {
+		this(input, offset, length, new StringPool());
+	}
+
+	/**
+	 * Creates a new instance that reads the UTF-8 encoded JSON document
+	 * contained in {@code length} bytes of {@code input} starting at
+	 * {@code offset} configured by the given {@link ReaderContext}. The buffer
+	 * size settings don't apply, as the array is read in place.
+	 *
+	 * @param input the array containing the UTF-8 encoded JSON document
+	 * @param offset the start of the document
+	 * @param length the length of the document
+	 * @param context the context to configure this reader with
+	 */
+	public Utf8JsonReader(byte[] input, int offset, int length, ReaderContext context) {
+		this(input, offset, length, stringPool(checkContext(context)));
+		setLenient(context.isLenient());
+	}
+
+	private Utf8JsonReader(byte[] input, int offset, int length, StringPool stringPool) {
+		if (input == null) {
+			throw new NullPointerException("input == null");
+		}
+		if (offset < 0 || length < 0 || offset + length > input.length) {
+			throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length
+					+ ", input.length: " + input.length);
+		}
+		this.in = null;
+		this.buffer = input;
+		this.pos = offset;
+		this.limit = offset + length;
+		this.lineStart = offset;
+		this.stringPool = stringPool;
+
+		if (length >= BOM_LENGTH && isByteOrderMark(offset)) {
+			pos += BOM_LENGTH;
+			lineStart += BOM_LENGTH;
+		}
+	}
+
+	/**
+	 * Configure this parser to be liberal in what it accepts. See
+	 * {@link JsonReader#setLenient(boolean)} for the syntax errors ignored in
+	 * lenient mode.
+	 *
+	 * @param lenient whether to accept non-spec compliant JSON
+	 */
+	public final void setLenient(boolean lenient) {
+		this.lenient = lenient;
+	}
+
+	/**
+	 * Returns true if this parser is liberal in what it accepts.
+	 *
+	 * @return whether non-spec compliant JSON is accepted
+	 */
+	public final boolean isLenient() {
+		return lenient;
+	}
+
+	/**
+	 * Configure this parser to read a sequence of top-level values, as found in
+	 * JSON Lines (NDJSON) files or concatenated JSON documents. Each value may
+	 * be an object, an array or a string, number, boolean or null, as RFC 7159
+	 * allows. Unlike {@link #setLenient(boolean) lenient} parsing this doesn't
+	 * relax any other rule. The values may be separated by any whitespace,
+	 * including none at all where the end of a value is unambiguous.
+	 *
+	 * @param multipleDocuments whether to read a sequence of top-level values
+	 */
+	public final void setMultipleDocuments(boolean multipleDocuments) {
+		this.multipleDocuments = multipleDocuments;
+	}
+
+	/**
+	 * Returns true if this parser reads a sequence of top-level values.
+	 *
+	 * @return whether a sequence of top-level values is read
+	 */
+	public final boolean isMultipleDocuments() {
+		return multipleDocuments;
+	}
+
+	/**
+	 * Consumes the next token from the JSON stream and asserts that it is the
+	 * beginning of a new array.
+	 *
+	 * @throws IOException if the next token is malformed
+	 */
+	public void beginArray() throws IOException {
+		int p = peekOrPeeked();
+		if (p == PEEKED_BEGIN_ARRAY) {
+			push(JsonScope.EMPTY_ARRAY);
+			peeked = PEEKED_NONE;
+		} else {
+			throw new IllegalStateException("Expected BEGIN_ARRAY but was " + peek() + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+	}
+
+	/**
+	 * Consumes the next token from the JSON stream and asserts that it is the
+	 * end of the current array.
+	 *
+	 * @throws IOException if the next token is malformed
+	 */
+	public void endArray() throws IOException {
+		int p = peekOrPeeked();
+		if (p == PEEKED_END_ARRAY) {
+			stackSize--;
+			peeked = PEEKED_NONE;
+		} else {
+			throw new IllegalStateException("Expected END_ARRAY but was " + peek() + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+	}
+
+	/**
+	 * Consumes the next token from the JSON stream and asserts that it is the
+	 * beginning of a new object.
+	 *
+	 * @throws IOException if the next token is malformed
+	 */
+	public void beginObject() throws IOException {
+		int p = peekOrPeeked();
+		if (p == PEEKED_BEGIN_OBJECT) {
+			push(JsonScope.EMPTY_OBJECT);
+			peeked = PEEKED_NONE;
+		} else {
+			throw new IllegalStateException("Expected BEGIN_OBJECT but was " + peek() + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+	}
+
+	/**
+	 * Consumes the next token from the JSON stream and asserts that it is the
+	 * end of the current object.
+	 *
+	 * @throws IOException if the next token is malformed
+	 */
+	public void endObject() throws IOException {
+		int p = peekOrPeeked();
+		if (p == PEEKED_END_OBJECT) {
+			stackSize--;
+			peeked = PEEKED_NONE;
+		} else {
+			throw new IllegalStateException("Expected END_OBJECT but was " + peek() + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+	}
+
+	/**
+	 * Returns true if the current array or object has another element.
+	 *
+	 * @return whether another element follows
+	 * @throws IOException if the next token is malformed
+	 */
+	public boolean hasNext() throws IOException {
+		int p = peekOrPeeked();
+		return p != PEEKED_END_OBJECT && p != PEEKED_END_ARRAY;
+	}
+
+	/**
+	 * Returns the type of the next token without consuming it.
+	 *
+	 * @return the type of the next token
+	 * @throws IOException if the next token is malformed
+	 */
+	public JsonToken peek() throws IOException {
+		JsonToken token = TOKENS[peekOrPeeked()];
+
+		if (token == null) {
+			throw new AssertionError();
+		}
+		return token;
+	}
+
+	private int peekOrPeeked() throws IOException {
+		int p = peeked;
+		if (p == PEEKED_NONE) {
+			p = doPeek();
+		}
+		return p;
+	}
+
+	private int doPeek() throws IOException {
+		int peekStack = stack[stackSize - 1];
+		int result = peekStructure(peekStack);
+
+		if (result == PEEKED_NONE) {
+			result = peekValue(peekStack);
+		}
+
+		peeked = result;
+		return result;
+	}
+
+	/**
+	 * Consumes the separators before the next value and peeks the end of an
+	 * array or object, a name or the end of the input.
+	 *
+	 * @return the token peeked or {@link #PEEKED_NONE} if a value follows
+	 */
+	private int peekStructure(int peekStack) throws IOException {
+		switch (peekStack) {
+		case JsonScope.EMPTY_ARRAY:
+			stack[stackSize - 1] = JsonScope.NONEMPTY_ARRAY;
+			return PEEKED_NONE;
+		case JsonScope.NONEMPTY_ARRAY:
+			return peekArrayElement();
+		case JsonScope.EMPTY_OBJECT:
+		case JsonScope.NONEMPTY_OBJECT:
+			return peekName(peekStack);
+		case JsonScope.DANGLING_NAME:
+			stack[stackSize - 1] = JsonScope.NONEMPTY_OBJECT;
+			consumeNameSeparator();
+			return PEEKED_NONE;
+		case JsonScope.EMPTY_DOCUMENT:
+			if (lenient) {
+				consumeNonExecutePrefix();
+			}
+			stack[stackSize - 1] = JsonScope.NONEMPTY_DOCUMENT;
+			return PEEKED_NONE;
+		case JsonScope.NONEMPTY_DOCUMENT:
+			return peekDocument();
+		case JsonScope.CLOSED:
+			throw new IllegalStateException("JsonReader is closed");
+		default:
+			return PEEKED_NONE;
+		}
+	}
+
+	private int peekArrayElement() throws IOException {
+		// Look for a comma before the next element.
+		int c = nextNonWhitespace(true);
+		switch (c) {
+		case ']':
+			return PEEKED_END_ARRAY;
+		case ';':
+			checkLenient(); // fall-through
+		case ',':
+			return PEEKED_NONE;
+		default:
+			throw syntaxError("Unterminated array");
+		}
+	}
+
+	private int peekName(int peekStack) throws IOException {
+		stack[stackSize - 1] = JsonScope.DANGLING_NAME;
+		// Look for a comma before the next element.
+		if (peekStack == JsonScope.NONEMPTY_OBJECT && peekObjectEnd()) {
+			return PEEKED_END_OBJECT;
+		}
+
+		int c = nextNonWhitespace(true);
+		switch (c) {
+		case '"':
+			return PEEKED_DOUBLE_QUOTED_NAME;
+		case '\'':
+			checkLenient();
+			return PEEKED_SINGLE_QUOTED_NAME;
+		case '}':
+			if (peekStack != JsonScope.NONEMPTY_OBJECT) {
+				return PEEKED_END_OBJECT;
+			} else {
+				throw syntaxError("Expected name");
+			}
+		default:
+			checkLenient();
+			pos--; // Don't consume the first byte in an unquoted string.
+			if (isLiteral(c)) {
+				return PEEKED_UNQUOTED_NAME;
+			} else {
+				throw syntaxError("Expected name");
+			}
+		}
+	}
+
+	/**
+	 * Consumes the end of the current object or the comma before its next
+	 * property.
+	 *
+	 * @return true if the object ends
+	 */
+	private boolean peekObjectEnd() throws IOException {
+		int c = nextNonWhitespace(true);
+		switch (c) {
+		case '}':
+			return true;
+		case ';':
+			checkLenient(); // fall-through
+		case ',':
+			return false;
+		default:
+			throw syntaxError("Unterminated object");
+		}
+	}
+
+	private void consumeNameSeparator() throws IOException {
+		// Look for a colon before the value.
+		int c = nextNonWhitespace(true);
+		switch (c) {
+		case ':':
+			break;
+		case '=':
+			checkLenient();
+			if ((pos < limit || fillBuffer(1)) && buffer[pos] == '>') {
+				pos++;
+			}
+			break;
+		default:
+			throw syntaxError("Expected ':'");
+		}
+	}
+
+	private int peekDocument() throws IOException {
+		int c = nextNonWhitespace(false);
+		if (c == -1) {
+			return PEEKED_EOF;
+		} else {
+			if (!multipleDocuments) {
+				checkLenient();
+			}
+			pos--;
+		}
+		return PEEKED_NONE;
+	}
+
+	private int peekValue(int peekStack) throws IOException {
+		int c = nextNonWhitespace(true);
+		switch (c) {
+		case ']':
+			if (peekStack == JsonScope.EMPTY_ARRAY) {
+				return PEEKED_END_ARRAY;
+			}
+			// fall-through to handle ",]"
+		case ';':
+		case ',':
+			return peekOmittedValue(peekStack);
+		case '\'':
+			checkLenient();
+			return PEEKED_SINGLE_QUOTED;
+		case '"':
+			if (stackSize == 1 && !multipleDocuments) {
+				checkLenient();
+			}
+			return PEEKED_DOUBLE_QUOTED;
+		case '[':
+			return PEEKED_BEGIN_ARRAY;
+		case '{':
+			return PEEKED_BEGIN_OBJECT;
+		default:
+			pos--; // Don't consume the first byte in a literal value.
+			return peekLiteral();
+		}
+	}
+
+	/**
+	 * In lenient mode, a 0-length literal in an array means 'null'.
+	 */
+	private int peekOmittedValue(int peekStack) throws IOException {
+		if (peekStack == JsonScope.EMPTY_ARRAY || peekStack == JsonScope.NONEMPTY_ARRAY) {
+			checkLenient();
+			pos--;
+			return PEEKED_NULL;
+		} else {
+			throw syntaxError("Unexpected value");
+		}
+	}
+
+	private int peekLiteral() throws IOException {
+		if (stackSize == 1 && !multipleDocuments) {
+			checkLenient(); // Top-level value isn't an array or an object.
+		}
+
+		int result = peekKeyword();
+		if (result != PEEKED_NONE) {
+			return result;
+		}
+
+		result = peekNumber();
+		if (result != PEEKED_NONE) {
+			return result;
+		}
+
+		if (!isLiteral(buffer[pos])) {
+			throw syntaxError("Expected value");
+		}
+
+		checkLenient();
+		return PEEKED_UNQUOTED;
+	}
+
+	private int peekKeyword() throws IOException {
+		// Figure out which keyword we're matching against by its first byte.
+		int c = buffer[pos];
+		if (c == 't' || c == 'T') {
+			return peekKeyword("true", "TRUE", PEEKED_TRUE);
+		} else if (c == 'f' || c == 'F') {
+			return peekKeyword("false", "FALSE", PEEKED_FALSE);
+		} else if (c == 'n' || c == 'N') {
+			return peekKeyword("null", "NULL", PEEKED_NULL);
+		}
+		return PEEKED_NONE;
+	}
+
+	private int peekKeyword(String keyword, String keywordUpper, int peeking) throws IOException {
+		// Confirm that bytes [1..length) match the keyword.
+		int length = keyword.length();
+		for (int i = 1; i < length; i++) {
+			if (pos + i >= limit && !fillBuffer(i + 1)) {
+				return PEEKED_NONE;
+			}
+			int c = buffer[pos + i];
+			if (c != keyword.charAt(i) && c != keywordUpper.charAt(i)) {
+				return PEEKED_NONE;
+			}
+		}
+
+		if ((pos + length < limit || fillBuffer(length + 1)) && isLiteral(buffer[pos + length])) {
+			return PEEKED_NONE; // Don't match trues, falsey or nullsoft!
+		}
+
+		// We've found the keyword followed either by EOF or by a non-literal byte.
+		pos += length;
+		return peeking;
+	}
+
+	private int peekNumber() throws IOException {
+		// Like nextNonWhitespace, this uses locals 'p' and 'l' to save inner-loop field access.
+		byte[] buffer = this.buffer;
+		int p = pos;
+		int l = limit;
+		int last = Utf8Syntax.NUMBER_CHAR_NONE;
+		int i = 0;
+
+		for (; true; i++) {
+			if (p + i == l) {
+				if (i == buffer.length) {
+					// Though this looks like a well-formed number, it's too long to continue reading. Give up
+					// and let the application handle this as an unquoted literal.
+					return PEEKED_NONE;
+				}
+				if (!fillBuffer(i + 1)) {
+					break;
+				}
+				p = pos;
+				l = limit;
+			}
+
+			int c = buffer[p + i];
+			int next = Utf8Syntax.nextNumberChar(last, c);
+			if (next == Utf8Syntax.NUMBER_CHAR_INVALID) {
+				if (isLiteral(c)) {
+					return PEEKED_NONE;
+				}
+				break;
+			}
+			last = next;
+		}
+
+		// We've read a complete number. Decide if it's a PEEKED_LONG or a PEEKED_NUMBER.
+		if (Utf8Syntax.hasLeadingZero(buffer, pos, pos + i)) {
+			return PEEKED_NONE;
+		} else if (last == Utf8Syntax.NUMBER_CHAR_DIGIT) {
+			return peekInteger(i);
+		} else if (Utf8Syntax.isDecimalEnd(last)) {
+			peekedNumberLength = i;
+			return PEEKED_NUMBER;
+		}
+		return PEEKED_NONE;
+	}
+
+	/**
+	 * Decodes the integral number of the given length at {@code pos} into
+	 * {@link #peekedLong} and consumes it if it fits into a long.
+	 */
+	private int peekInteger(int length) {
+		boolean negative = buffer[pos] == '-';
+		long value = 0; // Negative to accommodate Long.MIN_VALUE more easily.
+
+		for (int p = negative ? pos + 1 : pos; p < pos + length; p++) {
+			int digit = buffer[p] - '0';
+			if (value < MIN_INCOMPLETE_INTEGER || (value == MIN_INCOMPLETE_INTEGER && digit > 8)) {
+				peekedNumberLength = length;
+				return PEEKED_NUMBER;
+			}
+			value = value * 10 - digit;
+		}
+
+		if (negative ? value == 0 : value == Long.MIN_VALUE) {
+			peekedNumberLength = length;
+			return PEEKED_NUMBER;
+		}
+		peekedLong = negative ? value : -value;
+		pos += length;
+		return PEEKED_LONG;
+	}
+
+	/**
+	 * Bytes of multi-byte UTF-8 sequences are negative and therefore always
+	 * part of a literal.
+	 */
+	private boolean isLiteral(int c) throws IOException {
+		if (isDelimiter(c)) {
+			return false;
+		} else if (isLenientDelimiter(c)) {
+			checkLenient();
+			return false;
+		}
+		return true;
+	}
+
+	private static boolean isDelimiter(int c) {
+		switch (c) {
+		case '{':
+		case '}':
+		case '[':
+		case ']':
+		case ':':
+		case ',':
+		case ' ':
+		case '\t':
+		case '\f':
+		case '\r':
+		case '\n':
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	private static boolean isLenientDelimiter(int c) {
+		return c == '/' || c == '\\' || c == ';' || c == '#' || c == '=';
+	}
+
+	/**
+	 * Returns the next token, a {@link JsonToken#NAME property name}, and
+	 * consumes it.
+	 *
+	 * @return the property name
+	 * @throws java.io.IOException if the next token in the stream is not a property
+	 *     name.
+	 */
+	public String nextName() throws IOException {
+		int p = peekOrPeeked();
+		String result;
+		if (p == PEEKED_UNQUOTED_NAME) {
+			result = nextUnquotedValue();
+		} else if (p == PEEKED_SINGLE_QUOTED_NAME) {
+			result = nextQuotedValue('\'');
+		} else if (p == PEEKED_DOUBLE_QUOTED_NAME) {
+			result = nextQuotedValue('"');
+		} else {
+			throw new IllegalStateException("Expected a name but was " + peek() + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+		peeked = PEEKED_NONE;
+		return result;
+	}
+
+	/**
+	 * Returns the {@link JsonToken#STRING string} value of the next token,
+	 * consuming it. If the next token is a number, this method will return its
+	 * string form.
+	 *
+	 * @return the string value of the next token
+	 * @throws IOException if the next token is malformed
+	 * @throws IllegalStateException if the next token is not a string or if
+	 *     this reader is closed.
+	 */
+	public String nextString() throws IOException {
+		int p = peekOrPeeked();
+		String result;
+		if (p == PEEKED_UNQUOTED) {
+			result = nextUnquotedValue();
+		} else if (p == PEEKED_SINGLE_QUOTED) {
+			result = nextQuotedValue('\'');
+		} else if (p == PEEKED_DOUBLE_QUOTED) {
+			result = nextQuotedValue('"');
+		} else if (p == PEEKED_BUFFERED) {
+			result = peekedString;
+			peekedString = null;
+		} else if (p == PEEKED_LONG) {
+			result = Long.toString(peekedLong);
+		} else if (p == PEEKED_NUMBER) {
+			result = peekedNumberText();
+			pos += peekedNumberLength;
+		} else {
+			throw new IllegalStateException("Expected a string but was " + peek() + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+		peeked = PEEKED_NONE;
+		return result;
+	}
+
+	/**
+	 * Like {@link #nextString()}, but passes quoted values to the consumer
+	 * in chunks of a bounded number of characters, so no String is created
+	 * for the value.
+	 *
+	 * @param consumer the consumer to pass the chunks to
+	 * @throws IOException if the next token is malformed
+	 * @throws NullPointerException if consumer is null
+	 * @throws IllegalStateException if the next token is not a string or if
+	 *     this reader is closed.
+	 */
+	public void nextString(StringChunkConsumer consumer) throws IOException {
+		if (consumer == null) {
+			throw new NullPointerException("consumer == null");
+		}
+		int p = peekOrPeeked();
+		if (p == PEEKED_SINGLE_QUOTED || p == PEEKED_DOUBLE_QUOTED) {
+			nextQuotedValueChunks(p == PEEKED_SINGLE_QUOTED ? '\'' : '"', consumer);
+			peeked = PEEKED_NONE;
+		} else {
+			consumer.accept(nextString(), true);
+		}
+	}
+
+	/**
+	 * Returns the {@link JsonToken#BOOLEAN boolean} value of the next token,
+	 * consuming it.
+	 *
+	 * @return the boolean value of the next token
+	 * @throws IOException if the next token is malformed
+	 * @throws IllegalStateException if the next token is not a boolean or if
+	 *     this reader is closed.
+	 */
+	public boolean nextBoolean() throws IOException {
+		int p = peekOrPeeked();
+		if (p == PEEKED_TRUE) {
+			peeked = PEEKED_NONE;
+			return true;
+		} else if (p == PEEKED_FALSE) {
+			peeked = PEEKED_NONE;
+			return false;
+		}
+		throw new IllegalStateException("Expected a boolean but was " + peek() + " at line " + getLineNumber()
+				+ " column " + getColumnNumber());
+	}
+
+	/**
+	 * Consumes the next token from the JSON stream and asserts that it is a
+	 * literal null.
+	 *
+	 * @throws IOException if the next token is malformed
+	 * @throws IllegalStateException if the next token is not null or if this
+	 *     reader is closed.
+	 */
+	public void nextNull() throws IOException {
+		int p = peekOrPeeked();
+		if (p == PEEKED_NULL) {
+			peeked = PEEKED_NONE;
+		} else {
+			throw new IllegalStateException("Expected null but was " + peek() + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+	}
+
+	/**
+	 * Returns the {@link JsonToken#NUMBER double} value of the next token,
+	 * consuming it. If the next token is a string, this method will attempt to
+	 * parse it as a double using {@link Double#parseDouble(String)}.
+	 *
+	 * @return the double value of the next token
+	 * @throws IOException if the next token is malformed or, unless lenient,
+	 *     not finite
+	 * @throws IllegalStateException if the next token is not a literal value.
+	 * @throws NumberFormatException if the next literal value cannot be parsed
+	 *     as a double, or is non-finite.
+	 */
+	public double nextDouble() throws IOException {
+		int p = peekOrPeeked();
+
+		if (p == PEEKED_LONG) {
+			peeked = PEEKED_NONE;
+			return (double) peekedLong;
+		}
+
+		if (p == PEEKED_NUMBER) {
+			// parse in place, the string is only needed to report a non-finite value
+			double result = DoubleCodec.parseDouble(buffer, pos, peekedNumberLength);
+			if (lenient || !Double.isInfinite(result)) {
+				pos += peekedNumberLength;
+				peeked = PEEKED_NONE;
+				return result;
+			}
+			peekedString = peekedNumberText();
+			pos += peekedNumberLength;
+		} else if (p != PEEKED_BUFFERED) {
+			peekedString = nextLiteralText(p);
+		}
+
+		peeked = PEEKED_BUFFERED;
+		double result = Double.parseDouble(peekedString); // don't catch this NumberFormatException.
+		if (!lenient && (Double.isNaN(result) || Double.isInfinite(result))) {
+			throw new MalformedJsonException("JSON forbids NaN and infinities: " + result + " at line "
+					+ getLineNumber() + " column " + getColumnNumber());
+		}
+		peekedString = null;
+		peeked = PEEKED_NONE;
+		return result;
+	}
+
+	/**
+	 * Consumes the quoted or unquoted string peeked for {@link #nextDouble()}.
+	 */
+	private String nextLiteralText(int p) throws IOException {
+		if (p == PEEKED_SINGLE_QUOTED || p == PEEKED_DOUBLE_QUOTED) {
+			return nextQuotedValue(p == PEEKED_SINGLE_QUOTED ? '\'' : '"');
+		} else if (p == PEEKED_UNQUOTED) {
+			return nextUnquotedValue();
+		}
+		throw new IllegalStateException("Expected a double but was " + peek() + " at line " + getLineNumber()
+				+ " column " + getColumnNumber());
+	}
+
+	/**
+	 * Returns the text of the number peeked, which consists of ASCII bytes.
+	 */
+	private String peekedNumberText() {
+		char[] text = ensureCharCapacity(peekedNumberLength);
+
+		for (int i = 0; i < peekedNumberLength; i++) {
+			text[i] = (char) buffer[pos + i];
+		}
+		return String.valueOf(text, 0, peekedNumberLength);
+	}
+
+	/**
+	 * Returns true if the next token is a number that has neither a fraction
+	 * nor an exponent and fits into a {@code long}. Such a number has already
+	 * been decoded while peeking, so {@link #nextLong()} returns it without
+	 * creating a string.
+	 *
+	 * @return whether the next token is a number fitting into a long
+	 * @throws IOException if the next token is malformed
+	 */
+	public boolean isNextLong() throws IOException {
+		int p = peekOrPeeked();
+		return p == PEEKED_LONG;
+	}
+
+	/**
+	 * Returns the {@link JsonToken#NUMBER long} value of the next token,
+	 * consuming it. If the next token is a string, this method will attempt to
+	 * parse it as a long. If the next token's numeric value cannot be exactly
+	 * represented by a Java {@code long}, this method throws.
+	 *
+	 * @return the long value of the next token
+	 * @throws IOException if the next token is malformed
+	 * @throws IllegalStateException if the next token is not a literal value.
+	 * @throws NumberFormatException if the next literal value cannot be parsed
+	 *     as a number, or exactly represented as a long.
+	 */
+	public long nextLong() throws IOException {
+		int p = peekOrPeeked();
+
+		if (p == PEEKED_LONG) {
+			peeked = PEEKED_NONE;
+			return peekedLong;
+		}
+
+		if (p == PEEKED_NUMBER) {
+			peekedString = peekedNumberText();
+			pos += peekedNumberLength;
+		} else if (p == PEEKED_SINGLE_QUOTED || p == PEEKED_DOUBLE_QUOTED) {
+			peekedString = nextQuotedValue(p == PEEKED_SINGLE_QUOTED ? '\'' : '"');
+			try {
+				long result = Long.parseLong(peekedString);
+				peeked = PEEKED_NONE;
+				return result;
+			} catch (NumberFormatException ignored) {
+				// Fall back to parse as a double below.
+			}
+		} else {
+			throw new IllegalStateException("Expected a long but was " + peek() + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+
+		peeked = PEEKED_BUFFERED;
+		double asDouble = Double.parseDouble(peekedString); // don't catch this NumberFormatException.
+		long result = (long) asDouble;
+		if (result != asDouble) { // Make sure no precision was lost casting to 'long'.
+			throw new NumberFormatException("Expected a long but was " + peekedString + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+		peekedString = null;
+		peeked = PEEKED_NONE;
+		return result;
+	}
+
+	/**
+	 * Returns the string up to but not including {@code quote}, unescaping any
+	 * character escape sequences and decoding any multi-byte UTF-8 sequences
+	 * encountered along the way. The opening quote should have already been
+	 * read. This consumes the closing quote, but does not include it in the
+	 * returned string.
+	 * <p>
+	 * Strings made of ASCII bytes only that don't contain escape sequences and
+	 * are completely buffered are taken directly from the buffer without any
+	 * decoding.
+	 *
+	 * @param quote either ' or ".
+	 * @throws NumberFormatException if any unicode escape sequences are
+	 *     malformed.
+	 */
+	private String nextQuotedValue(char quote) throws IOException {
+		// Like nextNonWhitespace, this uses locals 'p' and 'l' to save inner-loop field access.
+		byte[] buffer = this.buffer;
+		int start = pos;
+		int p = start;
+		int l = limit;
+		int hashCode = 0;
+		while (p < l) {
+			int c = buffer[p];
+			if (c == quote) {
+				pos = p + 1;
+				return stringPool.get(buffer, start, p - start, hashCode);
+			} else if (c < 0 || c == '\\' || c == '\n') {
+				break;
+			}
+			hashCode = (hashCode * 31) + c;
+			p++;
+		}
+		return nextDecodedQuotedValue(quote);
+	}
+
+	/**
+	 * The slow path of {@link #nextQuotedValue(char)}, decoding the string
+	 * starting at {@code pos} into {@link #chars}.
+	 */
+	private String nextDecodedQuotedValue(char quote) throws IOException {
+		byte[] buffer = this.buffer;
+		int length = 0;
+		while (true) {
+			int p = pos;
+			int l = limit;
+			while (p < l) {
+				int c = buffer[p];
+				if (c < 0) {
+					pos = p;
+					length = decodeMultiByteCharacter(length);
+					p = pos;
+					l = limit;
+					continue;
+				}
+
+				p++;
+				if (c == quote) {
+					pos = p;
+					return stringPool.get(chars, 0, length);
+				} else if (c == '\\') {
+					pos = p;
+					length = decodeEscapeCharacter(length);
+					p = pos;
+					l = limit;
+					continue;
+				} else if (c == '\n') {
+					lineNumber++;
+					lineStart = p;
+				}
+				ensureCharCapacity(length + 1)[length++] = (char) c;
+			}
+
+			pos = p;
+			if (!fillBuffer(1)) {
+				throw syntaxError("Unterminated string");
+			}
+		}
+	}
+
+	/**
+	 * Decodes a quoted value like {@link #nextDecodedQuotedValue(char)},
+	 * passing it to the consumer whenever {@link #CHUNK_SIZE} characters are
+	 * decoded.
+	 */
+	private void nextQuotedValueChunks(char quote, StringChunkConsumer consumer) throws IOException {
+		if (charsView == null) {
+			charsView = new CharArraySequence();
+		}
+		byte[] buffer = this.buffer;
+		int length = 0;
+		while (true) {
+			int p = pos;
+			int l = limit;
+			while (p < l) {
+				// keeps room for a surrogate pair, so pairs aren't split across chunks
+				if (length > CHUNK_SIZE - 2) {
+					consumer.accept(charsView.set(chars, 0, length), false);
+					length = 0;
+				}
+
+				int c = buffer[p];
+				if (c < 0) {
+					pos = p;
+					length = decodeMultiByteCharacter(length);
+					p = pos;
+					l = limit;
+					continue;
+				}
+
+				p++;
+				if (c == quote) {
+					pos = p;
+					consumer.accept(charsView.set(chars, 0, length), true);
+					return;
+				} else if (c == '\\') {
+					pos = p;
+					length = decodeEscapeCharacter(length);
+					p = pos;
+					l = limit;
+					continue;
+				} else if (c == '\n') {
+					lineNumber++;
+					lineStart = p;
+				}
+				ensureCharCapacity(length + 1)[length++] = (char) c;
+			}
+
+			pos = p;
+			if (!fillBuffer(1)) {
+				throw syntaxError("Unterminated string");
+			}
+		}
+	}
+
+	/**
+	 * Decodes the multi-byte UTF-8 sequence starting at {@code pos} into
+	 * {@link #chars} at index {@code length} and consumes it.
+	 *
+	 * @return the new length of the decoded characters
+	 */
+	private int decodeMultiByteCharacter(int length) throws IOException {
+		int lead = buffer[pos] & 0xFF;
+		int byteCount = Utf8Syntax.utf8Length(lead);
+		if (byteCount == 0) {
+			throw syntaxError("Malformed UTF-8 input");
+		}
+
+		if (pos + byteCount > limit && !fillBuffer(byteCount)) {
+			throw syntaxError("Unterminated string");
+		}
+
+		int codePoint = Utf8Syntax.leadBits(lead, byteCount);
+		for (int i = 1; i < byteCount; i++) {
+			int c = buffer[pos + i];
+			if ((c & 0xC0) != 0x80) {
+				throw syntaxError("Malformed UTF-8 input");
+			}
+			codePoint = (codePoint << 6) | (c & 0x3F);
+		}
+
+		if (Utf8Syntax.isMalformed(byteCount, codePoint)) {
+			throw syntaxError("Malformed UTF-8 input");
+		}
+
+		pos += byteCount;
+		char[] chars = ensureCharCapacity(length + 2);
+		if (byteCount == 4) {
+			chars[length] = Character.highSurrogate(codePoint);
+			chars[length + 1] = Character.lowSurrogate(codePoint);
+			return length + 2;
+		}
+		chars[length] = (char) codePoint;
+		return length + 1;
+	}
+
+	/**
+	 * Unescapes the escape sequence at {@code pos} into {@link #chars} at
+	 * index {@code length} and consumes it. The backslash should have already
+	 * been read.
+	 *
+	 * @return the new length of the decoded characters
+	 */
+	private int decodeEscapeCharacter(int length) throws IOException {
+		if (pos == limit && !fillBuffer(1)) {
+			throw syntaxError("Unterminated escape sequence");
+		}
+		// an escaped multi-byte character stands for itself and is decoded as usual
+		if (buffer[pos] < 0) {
+			return length;
+		}
+		char escaped = readEscapeCharacter();
+		char[] chars = ensureCharCapacity(length + 1);
+		chars[length] = escaped;
+		return length + 1;
+	}
+
+	private char[] ensureCharCapacity(int capacity) {
+		if (capacity > chars.length) {
+			chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+		}
+		return chars;
+	}
+
+	/**
+	 * Returns an unquoted value as a string.
+	 */
+	private String nextUnquotedValue() throws IOException {
+		ByteArrayOutputStream builder = null;
+		int i = 0;
+
+		findNonLiteralCharacter: while (true) {
+			for (; pos + i < limit; i++) {
+				if (!isLiteral(buffer[pos + i])) {
+					break findNonLiteralCharacter;
+				}
+			}
+
+			// Attempt to load the entire literal into the buffer at once.
+			if (i < buffer.length) {
+				if (fillBuffer(i + 1)) {
+					continue;
+				} else {
+					break;
+				}
+			}
+
+			// collect the raw bytes when the value is too long. This is too long to be a number!
+			if (builder == null) {
+				builder = new ByteArrayOutputStream();
+			}
+			builder.write(buffer, pos, i);
+			pos += i;
+			i = 0;
+			if (!fillBuffer(1)) {
+				break;
+			}
+		}
+
+		ByteBuffer bytes;
+		if (builder == null) {
+			bytes = ByteBuffer.wrap(buffer, pos, i);
+		} else {
+			builder.write(buffer, pos, i);
+			bytes = ByteBuffer.wrap(builder.toByteArray());
+		}
+		pos += i;
+		return StandardCharsets.UTF_8.decode(bytes).toString();
+	}
+
+	private void skipQuotedValue(char quote) throws IOException {
+		// Like nextNonWhitespace, this uses locals 'p' and 'l' to save inner-loop field access.
+		byte[] buffer = this.buffer;
+		do {
+			int p = pos;
+			int l = limit;
+			while (p < l) {
+				int c = buffer[p++];
+				if (c == quote) {
+					pos = p;
+					return;
+				} else if (c == '\\') {
+					pos = p;
+					readEscapeCharacter();
+					p = pos;
+					l = limit;
+				} else if (c == '\n') {
+					lineNumber++;
+					lineStart = p;
+				}
+			}
+			pos = p;
+		} while (fillBuffer(1));
+		throw syntaxError("Unterminated string");
+	}
+
+	private void skipUnquotedValue() throws IOException {
+		do {
+			int i = 0;
+			for (; pos + i < limit; i++) {
+				if (!isLiteral(buffer[pos + i])) {
+					pos += i;
+					return;
+				}
+			}
+			pos += i;
+		} while (fillBuffer(1));
+	}
+
+	/**
+	 * Returns the {@link JsonToken#NUMBER int} value of the next token,
+	 * consuming it. If the next token is a string, this method will attempt to
+	 * parse it as an int. If the next token's numeric value cannot be exactly
+	 * represented by a Java {@code int}, this method throws.
+	 *
+	 * @return the int value of the next token
+	 * @throws IOException if the next token is malformed
+	 * @throws IllegalStateException if the next token is not a literal value.
+	 * @throws NumberFormatException if the next literal value cannot be parsed
+	 *     as a number, or exactly represented as an int.
+	 */
+	public int nextInt() throws IOException {
+		int p = peekOrPeeked();
+
+		int result;
+		if (p == PEEKED_LONG) {
+			result = (int) peekedLong;
+			if (peekedLong != result) { // Make sure no precision was lost casting to 'int'.
+				throw new NumberFormatException("Expected an int but was " + peekedLong + " at line " + getLineNumber()
+						+ " column " + getColumnNumber());
+			}
+			peeked = PEEKED_NONE;
+			return result;
+		}
+
+		if (p == PEEKED_NUMBER) {
+			peekedString = peekedNumberText();
+			pos += peekedNumberLength;
+		} else if (p == PEEKED_SINGLE_QUOTED || p == PEEKED_DOUBLE_QUOTED) {
+			peekedString = nextQuotedValue(p == PEEKED_SINGLE_QUOTED ? '\'' : '"');
+			try {
+				result = Integer.parseInt(peekedString);
+				peeked = PEEKED_NONE;
+				return result;
+			} catch (NumberFormatException ignored) {
+				// Fall back to parse as a double below.
+			}
+		} else {
+			throw new IllegalStateException("Expected an int but was " + peek() + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+
+		peeked = PEEKED_BUFFERED;
+		double asDouble = Double.parseDouble(peekedString); // don't catch this NumberFormatException.
+		result = (int) asDouble;
+		if (result != asDouble) { // Make sure no precision was lost casting to 'int'.
+			throw new NumberFormatException("Expected an int but was " + peekedString + " at line " + getLineNumber()
+					+ " column " + getColumnNumber());
+		}
+		peekedString = null;
+		peeked = PEEKED_NONE;
+		return result;
+	}
+
+	/**
+	 * Closes this JSON reader and the underlying {@link InputStream}, if any.
+	 *
+	 * @throws IOException if the stream can't be closed
+	 */
+	public void close() throws IOException {
+		peeked = PEEKED_NONE;
+		stack[0] = JsonScope.CLOSED;
+		stackSize = 1;
+		if (in != null) {
+			in.close();
+		}
+	}
+
+	/**
+	 * Skips the next value recursively. If it is an object or array, all nested
+	 * elements are skipped. Skipped names and strings are never decoded.
+	 *
+	 * @throws IOException if the value is malformed
+	 */
+	public void skipValue() throws IOException {
+		int count = 0;
+		do {
+			int p = peekOrPeeked();
+
+			if (p == PEEKED_BEGIN_ARRAY || p == PEEKED_BEGIN_OBJECT) {
+				push(p == PEEKED_BEGIN_ARRAY ? JsonScope.EMPTY_ARRAY : JsonScope.EMPTY_OBJECT);
+				count++;
+			} else if (p == PEEKED_END_ARRAY || p == PEEKED_END_OBJECT) {
+				stackSize--;
+				count--;
+			} else {
+				skipScalar(p);
+			}
+			peeked = PEEKED_NONE;
+		} while (count != 0);
+	}
+
+	private void skipScalar(int p) throws IOException {
+		if (p == PEEKED_UNQUOTED_NAME || p == PEEKED_UNQUOTED) {
+			skipUnquotedValue();
+		} else if (p == PEEKED_SINGLE_QUOTED || p == PEEKED_SINGLE_QUOTED_NAME) {
+			skipQuotedValue('\'');
+		} else if (p == PEEKED_DOUBLE_QUOTED || p == PEEKED_DOUBLE_QUOTED_NAME) {
+			skipQuotedValue('"');
+		} else if (p == PEEKED_NUMBER) {
+			pos += peekedNumberLength;
+		}
+	}
+
+	private void push(int newTop) {
+		if (stackSize == stack.length) {
+			int[] newStack = new int[stackSize * 2];
+			System.arraycopy(stack, 0, newStack, 0, stackSize);
+			stack = newStack;
+		}
+		stack[stackSize++] = newTop;
+	}
+
+	/**
+	 * Returns true once {@code limit - pos >= minimum}. If the data is
+	 * exhausted before that many bytes are available, this returns
+	 * false.
+	 */
+	private boolean fillBuffer(int minimum) throws IOException {
+		if (in == null) {
+			// the whole document is buffered already
+			return limit - pos >= minimum;
+		}
+
+		byte[] buffer = this.buffer;
+		lineStart -= pos;
+		if (limit != pos) {
+			limit -= pos;
+			System.arraycopy(buffer, pos, buffer, 0, limit);
+		} else {
+			limit = 0;
+		}
+
+		pos = 0;
+		int total;
+		while ((total = in.read(buffer, limit, buffer.length - limit)) != -1) {
+			limit += total;
+
+			// if this is the first read, consume an optional byte order mark (BOM) if it exists
+			if (lineNumber == 0 && lineStart == 0 && pos == 0 && limit > 0 && buffer[0] == (byte) 0xEF) {
+				if (limit < BOM_LENGTH) {
+					continue;
+				}
+				if (isByteOrderMark(0)) {
+					pos += BOM_LENGTH;
+					lineStart += BOM_LENGTH;
+					minimum += BOM_LENGTH;
+				}
+			}
+
+			if (limit >= minimum) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isByteOrderMark(int index) {
+		return buffer[index] == (byte) 0xEF && buffer[index + 1] == (byte) 0xBB && buffer[index + 2] == (byte) 0xBF;
+	}
+
+	public int getLineNumber() {
+		return lineNumber + 1;
+	}
+
+	public int getColumnNumber() {
+		return pos - lineStart + 1;
+	}
+
+	/**
+	 * Returns the next byte in the stream that is neither whitespace nor a
+	 * part of a comment. When this returns, the returned byte is always at
+	 * {@code buffer[pos-1]}; this means the caller can always push back the
+	 * returned byte by decrementing {@code pos}. Bytes are returned unsigned,
+	 * so -1 unambiguously signals the end of the input.
+	 */
+	private int nextNonWhitespace(boolean throwOnEof) throws IOException {
+		byte[] buffer = this.buffer;
+		int p = pos;
+		int l = limit;
+		while (true) {
+			if (p == l) {
+				pos = p;
+				if (!fillBuffer(1)) {
+					break;
+				}
+				p = pos;
+				l = limit;
+			}
+
+			int c = buffer[p++] & 0xFF;
+			if (c == '\n') {
+				lineNumber++;
+				lineStart = p;
+				continue;
+			} else if (isBlank(c)) {
+				continue;
+			}
+
+			if (c == '/') {
+				pos = p;
+				if (!skipComment()) {
+					return c;
+				}
+				p = pos;
+				l = limit;
+			} else if (c == '#') {
+				pos = p;
+				/*
+				 * Skip a # hash end-of-line comment. The JSON RFC doesn't
+				 * specify this behaviour, but it's required to parse
+				 * existing documents.
+				 */
+				checkLenient();
+				skipToEndOfLine();
+				p = pos;
+				l = limit;
+			} else {
+				pos = p;
+				return c;
+			}
+		}
+		if (throwOnEof) {
+			throw new EOFException("End of input" + " at line " + getLineNumber() + " column " + getColumnNumber());
+		} else {
+			return -1;
+		}
+	}
+
+	private static boolean isBlank(int c) {
+		return c == ' ' || c == '\r' || c == '\t';
+	}
+
+	/**
+	 * Skips the comment started by the slash just read, if any.
+	 *
+	 * @return false if the slash doesn't start a comment
+	 */
+	private boolean skipComment() throws IOException {
+		if (pos == limit) {
+			pos--; // push back '/' so it's still in the buffer when this method returns
+			boolean charsLoaded = fillBuffer(2);
+			pos++; // consume the '/' again
+			if (!charsLoaded) {
+				return false;
+			}
+		}
+
+		checkLenient();
+		switch (buffer[pos]) {
+		case '*':
+			// skip a /* c-style comment */
+			pos++;
+			if (!skipTo("*/")) {
+				throw syntaxError("Unterminated comment");
+			}
+			pos += 2;
+			return true;
+		case '/':
+			// skip a // end-of-line comment
+			pos++;
+			skipToEndOfLine();
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	private void checkLenient() throws IOException {
+		if (!lenient) {
+			throw syntaxError("Use JsonReader.setLenient(true) to accept malformed JSON");
+		}
+	}
+
+	/**
+	 * Advances the position until after the next newline character. If the line
+	 * is terminated by "\r\n", the '\n' must be consumed as whitespace by the
+	 * caller.
+	 */
+	private void skipToEndOfLine() throws IOException {
+		while (pos < limit || fillBuffer(1)) {
+			int c = buffer[pos++];
+			if (c == '\n') {
+				lineNumber++;
+				lineStart = pos;
+				break;
+			} else if (c == '\r') {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * @param toFind an ASCII string to search for. Must not contain a newline.
+	 */
+	private boolean skipTo(String toFind) throws IOException {
+		outer: for (; pos + toFind.length() <= limit || fillBuffer(toFind.length()); pos++) {
+			if (buffer[pos] == '\n') {
+				lineNumber++;
+				lineStart = pos + 1;
+				continue;
+			}
+			for (int c = 0; c < toFind.length(); c++) {
+				if (buffer[pos + c] != toFind.charAt(c)) {
+					continue outer;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " at line " + getLineNumber() + " column " + getColumnNumber();
+	}
+
+	/**
+	 * Unescapes the character identified by the byte or bytes that
+	 * immediately follow a backslash. The backslash '\' should have already
+	 * been read. This supports both unicode escapes "u000A" and two-character
+	 * escapes "\n".
+	 *
+	 * @throws NumberFormatException if any unicode escape sequences are
+	 *     malformed.
+	 */
+	private char readEscapeCharacter() throws IOException {
+		if (pos == limit && !fillBuffer(1)) {
+			throw syntaxError("Unterminated escape sequence");
+		}
+
+		char escaped = (char) buffer[pos++];
+		switch (escaped) {
+		case 'u':
+			return readUnicodeEscape();
+		case 't':
+			return '\t';
+		case 'b':
+			return '\b';
+		case 'n':
+			return '\n';
+		case 'r':
+			return '\r';
+		case 'f':
+			return '\f';
+		case '\n':
+			lineNumber++;
+			lineStart = pos;
+			return escaped;
+		default:
+			return escaped;
+		}
+	}
+
+	/**
+	 * Unescapes the four hex digits of a unicode escape sequence at
+	 * {@code pos} and consumes them.
+	 *
+	 * @throws NumberFormatException if the hex digits are malformed
+	 */
+	private char readUnicodeEscape() throws IOException {
+		if (pos + 4 > limit && !fillBuffer(4)) {
+			throw syntaxError("Unterminated escape sequence");
+		}
+		char result = 0;
+		for (int i = pos; i < pos + 4; i++) {
+			int digit = Utf8Syntax.hexValue(buffer[i]);
+			if (digit < 0) {
+				throw new NumberFormatException("\\u"
+						+ StandardCharsets.UTF_8.decode(ByteBuffer.wrap(buffer, pos, 4)));
+			}
+			result = (char) ((result << 4) + digit);
+		}
+		pos += 4;
+		return result;
+	}
+
+	/**
+	 * Throws a new IO exception with the given message and a context snippet
+	 * with this reader's content.
+	 */
+	private IOException syntaxError(String message) throws IOException {
+		throw new MalformedJsonException(message + " at line " + getLineNumber() + " column " + getColumnNumber());
+	}
+
+	/**
+	 * Consumes the non-execute prefix if it exists.
+	 */
+	private void consumeNonExecutePrefix() throws IOException {
+		// fast forward through the leading whitespace
+		nextNonWhitespace(true);
+		pos--;
+
+		if (pos + NON_EXECUTE_PREFIX.length > limit && !fillBuffer(NON_EXECUTE_PREFIX.length)) {
+			return;
+		}
+
+		for (int i = 0; i < NON_EXECUTE_PREFIX.length; i++) {
+			if (buffer[pos + i] != NON_EXECUTE_PREFIX[i]) {
+				return; // not a security token!
+			}
+		}
+
+		// we consumed a security token!
+		pos += NON_EXECUTE_PREFIX.length;
+	}
+}
@@ -0,0 +1,424 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link JsonGenerator} writing UTF-8 encoded JSON straight to an
+ * {@link OutputStream} or a {@link WritableByteChannel}.
+ * <p>
+ * The bytes are collected in a buffer of its own and written whenever it is
+ * full, so the target needs no buffering. Unlike a {@link JsonWriter} wrapping
+ * an {@link java.io.OutputStreamWriter}, no chars are buffered and encoded a
+ * second time: strings are escaped and encoded in a single pass, copying
+ * ASCII characters as they are and taking escape sequences from a table.
+ * Unpaired surrogates are written as {@code '?'}, like an OutputStreamWriter
+ * does.
+ * <p>
+ * The buffer is a plain byte array, which channels are given wrapped in a
+ * {@link ByteBuffer}, as writing it byte by byte is faster than writing to a
+ * direct buffer.
+ *
+ * @author Matthias Rothe
+ */
+public class Utf8JsonWriter extends JsonGenerator {
+	/**
+	 * The default size of the buffer in bytes.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private static final int MIN_BUFFER_SIZE = 16;
+
+	private final Utf8Output output;
+
+	/**
+	 * Creates a new instance writing UTF-8 encoded JSON to {@code out}.
+	 *
+	 * @param out the stream to write to
+	 */
+	public Utf8JsonWriter(OutputStream out) {
+		this(out, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a new instance writing UTF-8 encoded JSON to {@code out},
+	 * using a buffer of the given size.
+	 *
+	 * @param out the stream to write to
+	 * @param bufferSize the size of the buffer in bytes
+	 */
+	public Utf8JsonWriter(OutputStream out, int bufferSize) {
+		this(new Utf8Output(checkNotNull(out, "out == null"), null, bufferSize));
+	}
+
+	/**
+	 * Creates a new instance writing UTF-8 encoded JSON to {@code channel}.
+	 *
+	 * @param channel the channel to write to
+	 */
+	public Utf8JsonWriter(WritableByteChannel channel) {
+		this(channel, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a new instance writing UTF-8 encoded JSON to {@code channel},
+	 * using a buffer of the given size.
+	 *
+	 * @param channel the channel to write to
+	 * @param bufferSize the size of the buffer in bytes
+	 */
+	public Utf8JsonWriter(WritableByteChannel channel, int bufferSize) {
+		this(new Utf8Output(null, checkNotNull(channel, "channel == null"), bufferSize));
+	}
+
+	/**
+	 * Creates a new instance writing UTF-8 encoded JSON to {@code out},
+	 * collecting the bytes in the given buffer. The buffer is used as it is,
+	 * so it may be reused, e.g. pooled per thread, once this writer is
+	 * flushed and no longer used.
+	 *
+	 * @param out the stream to write to
+	 * @param buffer the buffer to collect the bytes in
+	 */
+	public Utf8JsonWriter(OutputStream out, byte[] buffer) {
+		this(new Utf8Output(checkNotNull(out, "out == null"), null, checkNotNull(buffer, "buffer == null")));
+	}
+
+	/**
+	 * Creates a new instance writing UTF-8 encoded JSON to {@code channel},
+	 * collecting the bytes in the given buffer. The buffer is used as it is,
+	 * so it may be reused once this writer is flushed and no longer used.
+	 *
+	 * @param channel the channel to write to
+	 * @param buffer the buffer to collect the bytes in
+	 */
+	public Utf8JsonWriter(WritableByteChannel channel, byte[] buffer) {
+		this(new Utf8Output(null, checkNotNull(channel, "channel == null"), checkNotNull(buffer, "buffer == null")));
+	}
+
+	private Utf8JsonWriter(Utf8Output output) {
+		super(output);
+		this.output = output;
+	}
+
+	private static <T> T checkNotNull(T target, String message) {
+		if (target == null) {
+			throw new NullPointerException(message);
+		}
+		return target;
+	}
+
+	@Override
+	void escape(CharSequence value) throws IOException {
+		output.appendEscaped(value, isHtmlSafe());
+	}
+
+	@Override
+	void write(char[] chars, int length) throws IOException {
+		output.appendAscii(chars, length);
+	}
+
+	@Override
+	void writeName(EncodedName name) throws IOException {
+		output.appendBytes(name.bytes(isHtmlSafe()));
+	}
+
+	/**
+	 * Writes all buffered bytes to the underlying stream or channel and
+	 * flushes the stream.
+	 */
+	@Override
+	public void flush() throws IOException {
+		super.flush();
+		output.flush();
+	}
+
+	/**
+	 * Flushes and closes this writer and the underlying stream or channel.
+	 *
+	 * @throws IOException if the JSON document is incomplete.
+	 */
+	@Override
+	public void close() throws IOException {
+		output.close();
+		super.close();
+	}
+
+	/**
+	 * Encodes the chars appended to UTF-8 into a byte buffer.
+	 */
+	private static final class Utf8Output implements Appendable {
+		/**
+		 * The longest byte sequence a single char is written as: an escape
+		 * sequence, preceded by the replacement of an unpaired surrogate.
+		 */
+		private static final int MAX_BYTES_PER_CHAR = 7;
+
+		private static final byte[][] ESCAPES = new byte[128][];
+		private static final byte[][] HTML_SAFE_ESCAPES;
+		private static final byte[] LINE_SEPARATOR_ESCAPE = ascii("\\u2028");
+		private static final byte[] PARAGRAPH_SEPARATOR_ESCAPE = ascii("\\u2029");
+		static {
+			for (int i = 0; i <= 0x1f; i++) {
+				ESCAPES[i] = ascii(String.format("\\u%04x", i));
+			}
+			ESCAPES['"'] = ascii("\\\"");
+			ESCAPES['\\'] = ascii("\\\\");
+			ESCAPES['\t'] = ascii("\\t");
+			ESCAPES['\b'] = ascii("\\b");
+			ESCAPES['\n'] = ascii("\\n");
+			ESCAPES['\r'] = ascii("\\r");
+			ESCAPES['\f'] = ascii("\\f");
+			HTML_SAFE_ESCAPES = ESCAPES.clone();
+			HTML_SAFE_ESCAPES['<'] = ascii("\\u003c");
+			HTML_SAFE_ESCAPES['>'] = ascii("\\u003e");
+			HTML_SAFE_ESCAPES['&'] = ascii("\\u0026");
+			HTML_SAFE_ESCAPES['='] = ascii("\\u003d");
+			HTML_SAFE_ESCAPES['\''] = ascii("\\u0027");
+		}
+
+		private final OutputStream out;
+		private final WritableByteChannel channel;
+		private final byte[] buffer;
+		private final ByteBuffer channelBuffer;
+		private int pos;
+
+		/** The high surrogate of a pair whose low surrogate is still to come, or 0. */
+		private char highSurrogate;
+		private boolean closed;
+
+		private Utf8Output(OutputStream out, WritableByteChannel channel, int bufferSize) {
+			this(out, channel, new byte[checkBufferSize(bufferSize)]);
+		}
+
+		private Utf8Output(OutputStream out, WritableByteChannel channel, byte[] buffer) {
+			checkBufferSize(buffer.length);
+			this.out = out;
+			this.channel = channel;
+			this.buffer = buffer;
+			this.channelBuffer = channel == null ? null : ByteBuffer.wrap(buffer);
+		}
+
+		private static int checkBufferSize(int bufferSize) {
+			if (bufferSize < MIN_BUFFER_SIZE) {
+				throw new IllegalArgumentException("bufferSize must be at least " + MIN_BUFFER_SIZE);
+			}
+			return bufferSize;
+		}
+
+		private static byte[] ascii(String value) {
+			return value.getBytes(StandardCharsets.US_ASCII);
+		}
+
+		@Override
+		public Appendable append(CharSequence csq) throws IOException {
+			return append(csq, 0, csq.length());
+		}
+
+		@Override
+		public Appendable append(CharSequence csq, int start, int end) throws IOException {
+			byte[] buffer = this.buffer;
+			for (int i = start; i < end; i++) {
+				if (pos > buffer.length - MAX_BYTES_PER_CHAR) {
+					flushBuffer();
+				}
+				char c = csq.charAt(i);
+				if (c < 0x80 && highSurrogate == 0) {
+					buffer[pos++] = (byte) c;
+				} else {
+					encode(c);
+				}
+			}
+			return this;
+		}
+
+		@Override
+		public Appendable append(char c) throws IOException {
+			if (pos > buffer.length - MAX_BYTES_PER_CHAR) {
+				flushBuffer();
+			}
+			encode(c);
+			return this;
+		}
+
+		private void appendAscii(char[] chars, int length) throws IOException {
+			if (pos > buffer.length - length) {
+				flushBuffer();
+			}
+			byte[] buffer = this.buffer;
+			int offset = 0;
+			// more chars than fit into the buffer, e.g. the indentation of a deeply nested value
+			while (length - offset > buffer.length - pos) {
+				int end = offset + buffer.length - pos;
+				copyAscii(chars, offset, end);
+				offset = end;
+				flushBuffer();
+			}
+			copyAscii(chars, offset, length);
+		}
+
+		private void copyAscii(char[] chars, int start, int end) {
+			byte[] buffer = this.buffer;
+			int p = pos;
+			for (int i = start; i < end; i++) {
+				buffer[p++] = (byte) chars[i];
+			}
+			pos = p;
+		}
+
+		private void appendBytes(byte[] bytes) throws IOException {
+			if (pos > buffer.length - bytes.length) {
+				flushBuffer();
+				if (bytes.length > buffer.length) {
+					write(bytes);
+					return;
+				}
+			}
+			System.arraycopy(bytes, 0, buffer, pos, bytes.length);
+			pos += bytes.length;
+		}
+
+		private void write(byte[] bytes) throws IOException {
+			if (out != null) {
+				out.write(bytes);
+			} else {
+				ByteBuffer source = ByteBuffer.wrap(bytes);
+				while (source.hasRemaining()) {
+					channel.write(source);
+				}
+			}
+		}
+
+		private void appendEscaped(CharSequence value, boolean htmlSafe) throws IOException {
+			byte[][] escapes = htmlSafe ? HTML_SAFE_ESCAPES : ESCAPES;
+			byte[] buffer = this.buffer;
+			int length = value.length();
+			for (int i = 0; i < length; i++) {
+				if (pos > buffer.length - MAX_BYTES_PER_CHAR) {
+					flushBuffer();
+				}
+				char c = value.charAt(i);
+				if (highSurrogate != 0 && !Character.isLowSurrogate(c)) {
+					highSurrogate = 0;
+					buffer[pos++] = '?';
+				}
+				byte[] escape;
+				if (c < 0x80) {
+					escape = escapes[c];
+					if (escape == null) {
+						buffer[pos++] = (byte) c;
+						continue;
+					}
+				} else if (c == '\u2028') {
+					escape = LINE_SEPARATOR_ESCAPE;
+				} else if (c == '\u2029') {
+					escape = PARAGRAPH_SEPARATOR_ESCAPE;
+				} else {
+					encode(c);
+					continue;
+				}
+				System.arraycopy(escape, 0, buffer, pos, escape.length);
+				pos += escape.length;
+			}
+		}
+
+		/**
+		 * Encodes a char that may need more than one byte. The buffer must
+		 * have room for {@link #MAX_BYTES_PER_CHAR} bytes.
+		 */
+		private void encode(char c) {
+			byte[] buffer = this.buffer;
+			if (highSurrogate != 0) {
+				char high = highSurrogate;
+				highSurrogate = 0;
+				if (Character.isLowSurrogate(c)) {
+					int codePoint = Character.toCodePoint(high, c);
+					buffer[pos++] = (byte) (0xF0 | (codePoint >> 18));
+					buffer[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+					buffer[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+					buffer[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+					return;
+				}
+				buffer[pos++] = '?';
+			}
+
+			if (c < 0x80) {
+				buffer[pos++] = (byte) c;
+			} else if (c < 0x800) {
+				buffer[pos++] = (byte) (0xC0 | (c >> 6));
+				buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c)) {
+				highSurrogate = c;
+			} else if (Character.isLowSurrogate(c)) {
+				buffer[pos++] = '?';
+			} else {
+				buffer[pos++] = (byte) (0xE0 | (c >> 12));
+				buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+
+		private void flushBuffer() throws IOException {
+			if (out != null) {
+				out.write(buffer, 0, pos);
+			} else {
+				channelBuffer.clear();
+				channelBuffer.limit(pos);
+				while (channelBuffer.hasRemaining()) {
+					channel.write(channelBuffer);
+				}
+			}
+			pos = 0;
+		}
+
+		private void flush() throws IOException {
+			flushBuffer();
+			if (out != null) {
+				out.flush();
+			}
+		}
+
+		private void close() throws IOException {
+			if (closed) {
+				return;
+			}
+
+			closed = true;
+			try {
+				if (highSurrogate != 0) {
+					highSurrogate = 0;
+					buffer[pos++] = '?';
+				}
+				flushBuffer();
+			} finally {
+				if (out != null) {
+					out.close();
+				} else {
+					channel.close();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+/**
+ * The syntax rules shared by the readers parsing UTF-8 encoded JSON straight
+ * from bytes: the grammar of numbers, the structure of multi-byte UTF-8
+ * sequences and the digits of unicode escape sequences.
+ *
+ * @author Matthias Rothe
+ */
+final class Utf8Syntax {
+	/* State machine when parsing numbers */
+	static final int NUMBER_CHAR_NONE = 0;
+	static final int NUMBER_CHAR_SIGN = 1;
+	static final int NUMBER_CHAR_DIGIT = 2;
+	static final int NUMBER_CHAR_DECIMAL = 3;
+	static final int NUMBER_CHAR_FRACTION_DIGIT = 4;
+	static final int NUMBER_CHAR_EXP_E = 5;
+	static final int NUMBER_CHAR_EXP_SIGN = 6;
+	static final int NUMBER_CHAR_EXP_DIGIT = 7;
+	static final int NUMBER_CHAR_INVALID = 8;
+
+	private Utf8Syntax() {
+	}
+
+	/**
+	 * Returns the state of the number grammar after the given character, or
+	 * {@link #NUMBER_CHAR_INVALID} if the character can't follow.
+	 */
+	static int nextNumberChar(final int last, final int c) {
+		switch (c) {
+		case '-':
+			return last == NUMBER_CHAR_NONE ? NUMBER_CHAR_SIGN : afterExponent(last);
+		case '+':
+			return afterExponent(last);
+		case 'e':
+		case 'E':
+			return last == NUMBER_CHAR_DIGIT || last == NUMBER_CHAR_FRACTION_DIGIT ? NUMBER_CHAR_EXP_E
+					: NUMBER_CHAR_INVALID;
+		case '.':
+			return last == NUMBER_CHAR_DIGIT ? NUMBER_CHAR_DECIMAL : NUMBER_CHAR_INVALID;
+		default:
+			return isDigit(c) ? afterDigit(last) : NUMBER_CHAR_INVALID;
+		}
+	}
+
+	private static int afterExponent(final int last) {
+		return last == NUMBER_CHAR_EXP_E ? NUMBER_CHAR_EXP_SIGN : NUMBER_CHAR_INVALID;
+	}
+
+	private static int afterDigit(final int last) {
+		switch (last) {
+		case NUMBER_CHAR_NONE:
+		case NUMBER_CHAR_SIGN:
+			return NUMBER_CHAR_DIGIT;
+		case NUMBER_CHAR_DECIMAL:
+			return NUMBER_CHAR_FRACTION_DIGIT;
+		case NUMBER_CHAR_EXP_E:
+		case NUMBER_CHAR_EXP_SIGN:
+			return NUMBER_CHAR_EXP_DIGIT;
+		default:
+			return last;
+		}
+	}
+
+	/**
+	 * Tells whether a number ends validly in the given state of the grammar
+	 * with a fraction or an exponent.
+	 */
+	static boolean isDecimalEnd(final int last) {
+		return last == NUMBER_CHAR_FRACTION_DIGIT || last == NUMBER_CHAR_EXP_DIGIT;
+	}
+
+	static boolean isDigit(final int c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Tells whether the integral part of the number in the given range of the
+	 * buffer has a leading '0' prefix, which is not allowed (since it could be
+	 * octal).
+	 */
+	static boolean hasLeadingZero(final byte[] buffer, final int start, final int end) {
+		int first = buffer[start] == '-' ? start + 1 : start;
+		return first + 1 < end && buffer[first] == '0' && isDigit(buffer[first + 1]);
+	}
+
+	/**
+	 * Returns the length of the UTF-8 sequence with the given lead byte or 0
+	 * if it isn't a lead byte.
+	 */
+	static int utf8Length(final int lead) {
+		if ((lead & 0xE0) == 0xC0) {
+			return 2;
+		} else if ((lead & 0xF0) == 0xE0) {
+			return 3;
+		} else if ((lead & 0xF8) == 0xF0) {
+			return 4;
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the payload bits of the given lead byte of a sequence of the
+	 * given length, which follow its byte count and a zero bit.
+	 */
+	static int leadBits(final int lead, final int byteCount) {
+		return lead & (0xFF >> (byteCount + 1));
+	}
+
+	/**
+	 * Tells whether the code point is encoded with more bytes than needed or
+	 * isn't a valid character.
+	 */
+	static boolean isMalformed(final int byteCount, final int codePoint) {
+		return (byteCount == 2 && codePoint < 0x80)
+				|| (byteCount == 3 && (codePoint < 0x800 || Character.isSurrogate((char) codePoint)))
+				|| (byteCount == 4 && (codePoint < 0x10000 || codePoint > Character.MAX_CODE_POINT));
+	}
+
+	/**
+	 * Returns the value of the given hex digit or -1 if it isn't one.
+	 */
+	static int hexValue(final int c) {
+		if (c >= '0' && c <= '9') {
+			return c - '0';
+		} else if (c >= 'a' && c <= 'f') {
+			return c - 'a' + 10;
+		} else if (c >= 'A' && c <= 'F') {
+			return c - 'A' + 10;
+		}
+		return -1;
+	}
+}
@@ -24,9 +24,9 @@ import java.io.IOException;
 import net.sf.jetro.stream.JsonGenerator;
 import net.sf.jetro.visitor.JsonArrayVisitor;
 import net.sf.jetro.visitor.JsonObjectVisitor;
-import net.sf.jetro.visitor.JsonVisitor;
+import net.sf.jetro.visitor.PrimitiveJsonVisitor;
 
-public abstract class AbstractJsonWritingVisitor<R> implements JsonVisitor<R> {
+public abstract class AbstractJsonWritingVisitor<R> implements PrimitiveJsonVisitor<R> {
 	@Override
 	public JsonObjectVisitor<R> visitObject() {
 		try {
@@ -78,6 +78,30 @@ public abstract class AbstractJsonWritingVisitor<R> implements JsonVisitor<R> {
 		}
 	}
 
+	@Override
+	public void visitValue(long value) {
+		try {
+			getGenerator().value(value);
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+
+	@Override
+	public void visitValue(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			// leave the decision to the lenient aware Number variant
+			visitValue((Number) Double.valueOf(value));
+			return;
+		}
+
+		try {
+			getGenerator().value(value);
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+
 	@Override
 	public void visitValue(String value) {
 		try {
@@ -87,6 +111,20 @@ public abstract class AbstractJsonWritingVisitor<R> implements JsonVisitor<R> {
 		}
 	}
 
+	@Override
+	public boolean acceptsValueChunks() {
+		return true;
+	}
+
+	@Override
+	public void visitValueChunk(CharSequence chunk, boolean last) {
+		try {
+			getGenerator().valueChunk(chunk, last);
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+	}
+
 	@Override
 	public void visitNullValue() {
 		try {
@@ -20,6 +20,7 @@
 package net.sf.jetro.stream.visitor;
 
 import net.sf.jetro.context.RenderContext;
+import net.sf.jetro.stream.EncodedNames;
 import net.sf.jetro.stream.JsonGenerator;
 import net.sf.jetro.visitor.JsonArrayVisitor;
 import net.sf.jetro.visitor.JsonObjectVisitor;
@@ -89,6 +90,24 @@ public final class JsonReturningVisitor extends AbstractJsonWritingVisitor<Strin
 		initJsonGenerator();
 	}
 
+	/**
+	 * Creates a visitor rendering the JSON with the given context, copying
+	 * the property names registered with {@code encodedNames} in their
+	 * encoded form.
+	 *
+	 * @param context the context to render with
+	 * @param encodedNames the registry of names encoded in advance
+	 */
+	public JsonReturningVisitor(final RenderContext context, final EncodedNames encodedNames) {
+		this(context);
+
+		if (encodedNames == null) {
+			throw new IllegalArgumentException("encodedNames must not be null");
+		}
+
+		generator.setEncodedNames(encodedNames);
+	}
+
 	@Override
 	protected JsonObjectVisitor<String> newJsonObjectVisitor() {
 		return objectVisitor;
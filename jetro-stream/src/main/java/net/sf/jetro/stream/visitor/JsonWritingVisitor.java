@@ -19,7 +19,7 @@
  */
 package net.sf.jetro.stream.visitor;
 
-import net.sf.jetro.stream.JsonWriter;
+import net.sf.jetro.stream.JsonGenerator;
 import net.sf.jetro.visitor.JsonArrayVisitor;
 import net.sf.jetro.visitor.JsonObjectVisitor;
 
@@ -36,7 +36,7 @@ public final class JsonWritingVisitor extends AbstractJsonWritingVisitor<Void> {
 		}
 
 		@Override
-		protected JsonWriter getGenerator() {
+		protected JsonGenerator getGenerator() {
 			return writer;
 		}
 
@@ -58,7 +58,7 @@ public final class JsonWritingVisitor extends AbstractJsonWritingVisitor<Void> {
 		}
 
 		@Override
-		protected JsonWriter getGenerator() {
+		protected JsonGenerator getGenerator() {
 			return writer;
 		}
 
@@ -68,11 +68,20 @@ public final class JsonWritingVisitor extends AbstractJsonWritingVisitor<Void> {
 		}
 	}
 
-	private JsonWriter writer;
+	private JsonGenerator writer;
 	private JsonObjectVisitor<Void> objectVisitor = new JsonWritingObjectVisitor();
 	private JsonArrayVisitor<Void> arrayVisitor = new JsonWritingArrayVisitor();
 
-	public JsonWritingVisitor(final JsonWriter writer) {
+	/**
+	 * Creates a visitor writing to the given generator, e.g. a
+	 * {@link net.sf.jetro.stream.JsonWriter JsonWriter} or a
+	 * {@link net.sf.jetro.stream.Utf8JsonWriter Utf8JsonWriter}. The generator
+	 * is flushed and closed at the end of the visit.
+	 *
+	 * @param writer the generator to write to
+	 * @throws IllegalArgumentException if writer is null
+	 */
+	public JsonWritingVisitor(final JsonGenerator writer) {
 		if (writer == null) {
 			throw new IllegalArgumentException("jsonWriter must not be null");
 		}
@@ -91,7 +100,7 @@ public final class JsonWritingVisitor extends AbstractJsonWritingVisitor<Void> {
 	}
 
 	@Override
-	protected JsonWriter getGenerator() {
+	protected JsonGenerator getGenerator() {
 		return writer;
 	}
 
@@ -21,6 +21,8 @@ package net.sf.jetro.stream.visitor;
 
 import java.util.Objects;
 
+import net.sf.jetro.stream.DoubleCodec;
+
 public class LazilyParsedNumber extends Number {
 	private static final long serialVersionUID = 8387800346023499875L;
 	private String numericValue;
@@ -40,7 +42,7 @@ public class LazilyParsedNumber extends Number {
 	
 	@Override
 	public double doubleValue() {
-		return Double.parseDouble(numericValue);
+		return DoubleCodec.parseDouble(numericValue);
 	}
 
 	@Override
@@ -0,0 +1,70 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream.visitor;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import net.sf.jetro.stream.Utf8JsonReader;
+import net.sf.jetro.visitor.JsonVisitor;
+
+/**
+ * A {@link StreamVisitingReader} reading a UTF-8 encoded JSON file through a
+ * memory mapping instead of an InputStream and a Reader. Files of any size are
+ * supported; they are mapped in chunks.
+ * <p>
+ * As a file can only be visited once, the underlying {@link FileChannel} is
+ * closed as soon as {@link #accept(JsonVisitor)} returns.
+ * 
+ * @author Matthias Rothe
+ */
+public class MappedFileVisitingReader extends StreamVisitingReader {
+
+	public MappedFileVisitingReader(final Path file) throws IOException {
+		this(open(file));
+	}
+
+	public MappedFileVisitingReader(final FileChannel channel) throws IOException {
+		super(new Utf8JsonReader(channel));
+	}
+
+	@Override
+	public void accept(final JsonVisitor<?> visitor) {
+		try {
+			super.accept(visitor);
+		} finally {
+			try {
+				close();
+			} catch (IOException e) {
+				throw new JsonIOException(e);
+			}
+		}
+	}
+
+	private static FileChannel open(final Path file) throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException("file must not be null");
+		}
+
+		return FileChannel.open(file, StandardOpenOption.READ);
+	}
+}
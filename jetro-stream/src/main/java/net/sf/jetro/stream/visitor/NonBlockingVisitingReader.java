@@ -0,0 +1,180 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream.visitor;
+
+import java.nio.ByteBuffer;
+
+import net.sf.jetro.context.ReaderContext;
+import net.sf.jetro.stream.JsonToken;
+import net.sf.jetro.stream.NonBlockingJsonReader;
+import net.sf.jetro.util.Stack;
+import net.sf.jetro.visitor.JsonVisitor;
+import net.sf.jetro.visitor.PrimitiveJsonVisitor;
+
+/**
+ * The push counterpart of {@link StreamVisitingReader}. Instead of pulling the
+ * document from a blocking stream, it is fed chunks of UTF-8 encoded bytes as
+ * they arrive and calls the visitor as far as each chunk allows. This way a
+ * single thread can process many documents arriving slowly, e.g. from non
+ * blocking socket channels.
+ * <p>
+ * Like {@link StreamVisitingReader}, subtrees the visitor ignores are skipped
+ * and integral numbers are passed to a {@link PrimitiveJsonVisitor} as longs.
+ * Once {@link #endOfInput()} returns, the visitor has seen the complete
+ * document including the final call to {@link JsonVisitor#visitEnd()}.
+ *
+ * @author Matthias Rothe
+ */
+public class NonBlockingVisitingReader {
+	private final NonBlockingJsonReader reader;
+	private final Stack<JsonVisitor<?>> stack = new Stack<JsonVisitor<?>>();
+	private boolean done;
+
+	public NonBlockingVisitingReader(final JsonVisitor<?> visitor) {
+		this(visitor, new ReaderContext());
+	}
+
+	public NonBlockingVisitingReader(final JsonVisitor<?> visitor, final ReaderContext context) {
+		if (visitor == null) {
+			throw new IllegalArgumentException("visitor must not be null");
+		}
+
+		if (context == null) {
+			throw new IllegalArgumentException("context must not be null");
+		}
+
+		reader = new NonBlockingJsonReader(context);
+		stack.push(visitor);
+	}
+
+	/**
+	 * Feeds the remaining bytes of the given buffer and calls the visitor for
+	 * all tokens completed by them. The buffer is consumed completely.
+	 *
+	 * @param buffer the next chunk of the document
+	 */
+	public void feed(final ByteBuffer buffer) {
+		reader.feed(buffer);
+		visitTokens();
+	}
+
+	/**
+	 * Feeds {@code length} bytes of the given array, starting at
+	 * {@code offset}, and calls the visitor for all tokens completed by them.
+	 *
+	 * @param input the array holding the next chunk of the document
+	 * @param offset the start of the chunk
+	 * @param length the length of the chunk
+	 */
+	public void feed(final byte[] input, final int offset, final int length) {
+		reader.feed(input, offset, length);
+		visitTokens();
+	}
+
+	/**
+	 * Signals that the document is complete and finishes visiting it.
+	 *
+	 * @throws JsonIOException if the document is incomplete
+	 */
+	public void endOfInput() {
+		reader.endOfInput();
+		visitTokens();
+	}
+
+	/**
+	 * Tells whether the whole document has been visited.
+	 *
+	 * @return true if the end of the document has been reached
+	 */
+	public boolean isDone() {
+		return done;
+	}
+
+	private void visitTokens() {
+		try {
+			JsonToken token;
+
+			while (!done && (token = reader.nextToken()) != null) {
+				visitToken(token);
+			}
+		} catch (Exception e) {
+			String message = "An exception occurred while processing a JSON stream on line " + reader.getLineNumber()
+					+ ", column " + reader.getColumnNumber();
+			throw new JsonIOException(message, e);
+		}
+	}
+
+	private void visitToken(final JsonToken token) {
+		switch (token) {
+		case BEGIN_ARRAY:
+			visitContainer(stack.peek().visitArray());
+			break;
+		case BEGIN_OBJECT:
+			visitContainer(stack.peek().visitObject());
+			break;
+		case END_ARRAY:
+		case END_OBJECT:
+			stack.pop().visitEnd();
+			break;
+		case NAME:
+			stack.peek().visitProperty(reader.getString());
+			break;
+		case BOOLEAN:
+			stack.peek().visitValue(reader.getBoolean());
+			break;
+		case NUMBER:
+			visitNumber(stack.peek());
+			break;
+		case STRING:
+			stack.peek().visitValue(reader.getString());
+			break;
+		case NULL:
+			stack.peek().visitNullValue();
+			break;
+		case END_DOCUMENT:
+			stack.pop().visitEnd();
+			done = true;
+			break;
+		default:
+			throw new IllegalStateException("Unsupported token type: " + token);
+		}
+	}
+
+	/**
+	 * Continues with the visitor for the array or object just begun. If the
+	 * visitor ignores the content, the reader skips it instead.
+	 */
+	private void visitContainer(final JsonVisitor<?> visitor) {
+		if (visitor.ignoresContent()) {
+			reader.skipValue();
+			visitor.visitEnd();
+		} else {
+			stack.push(visitor);
+		}
+	}
+
+	private void visitNumber(final JsonVisitor<?> visitor) {
+		if (visitor instanceof PrimitiveJsonVisitor && reader.isLong()) {
+			((PrimitiveJsonVisitor<?>) visitor).visitValue(reader.getLong());
+		} else {
+			visitor.visitValue(new LazilyParsedNumber(reader.getNumber()));
+		}
+	}
+}
@@ -0,0 +1,466 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream.visitor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+import net.sf.jetro.context.ReaderContext;
+import net.sf.jetro.exception.MalformedJsonException;
+import net.sf.jetro.stream.Utf8JsonReader;
+import net.sf.jetro.visitor.JsonVisitor;
+
+/**
+ * Visits the elements of a single, huge top-level JSON array using several
+ * threads.
+ * <p>
+ * While the UTF-8 encoded document is read, a structural pre-scan which only
+ * tracks strings and nesting depth splits the array into chunks of whole
+ * elements. Each chunk is parsed as an array of its own, with its own visitor,
+ * by the tasks of a {@link ForkJoinPool}. The visiting results of the chunks
+ * are handed to the consumer in the order of the document on the calling
+ * thread, which allows to reassemble the complete array from them.
+ * <p>
+ * The pre-scan finds misplaced commas, but leaves any other syntax checks to
+ * the parsing of the chunks. Lenient syntax isn't supported, as e.g. single
+ * quoted strings would defeat the pre-scan.
+ *
+ * @author Matthias Rothe
+ */
+public class ParallelArrayVisitingReader implements Closeable {
+	/**
+	 * The default number of bytes per chunk.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+	private static final int MIN_READ_SIZE = 8192;
+
+	private final InputStream in;
+	private final ReaderContext context;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+	public ParallelArrayVisitingReader(final InputStream in) {
+		this(in, new ReaderContext());
+	}
+
+	public ParallelArrayVisitingReader(final InputStream in, final ReaderContext context) {
+		if (in == null) {
+			throw new IllegalArgumentException("in must not be null");
+		}
+
+		if (context == null) {
+			throw new IllegalArgumentException("context must not be null");
+		}
+
+		if (context.isLenient()) {
+			throw new IllegalArgumentException("lenient parsing is not supported");
+		}
+
+		this.in = in;
+		this.context = context;
+	}
+
+	public ParallelArrayVisitingReader(final Path file) throws IOException {
+		this(file, new ReaderContext());
+	}
+
+	public ParallelArrayVisitingReader(final Path file, final ReaderContext context) throws IOException {
+		this(open(file), context);
+	}
+
+	private static InputStream open(final Path file) throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException("file must not be null");
+		}
+
+		return Files.newInputStream(file);
+	}
+
+	/**
+	 * Sets the pool to parse the chunks in and returns this object. Defaults
+	 * to the {@link ForkJoinPool#commonPool() common pool}.
+	 *
+	 * @param pool the pool to parse the chunks in
+	 * @return this object
+	 * @throws IllegalArgumentException if pool is null
+	 */
+	public ParallelArrayVisitingReader setPool(final ForkJoinPool pool) {
+		if (pool == null) {
+			throw new IllegalArgumentException("pool must not be null");
+		}
+
+		this.pool = pool;
+		return this;
+	}
+
+	/**
+	 * Sets the approximate number of bytes per chunk and returns this object.
+	 * Chunks are extended to end after a whole element, so a chunk holds at
+	 * least one element. Defaults to {@link #DEFAULT_CHUNK_SIZE}.
+	 *
+	 * @param chunkSize the number of bytes per chunk
+	 * @return this object
+	 * @throws IllegalArgumentException if chunkSize is less than 1
+	 */
+	public ParallelArrayVisitingReader setChunkSize(final int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize must be at least 1");
+		}
+
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	/**
+	 * Visits the elements of the top-level array chunk by chunk. A new visitor
+	 * is obtained for each chunk from the given function, which is passed the
+	 * index of the first element of the chunk. The visitor sees the chunk as
+	 * an array of consecutive elements of the top-level array. Both the
+	 * function and the visitor are called by the tasks of the pool. The
+	 * visiting results are passed to the consumer. An empty array results in
+	 * no call to the consumer at all.
+	 * <p>
+	 * To bound the memory needed, the document is read ahead by no more than
+	 * twice as many chunks as the pool is parallel.
+	 *
+	 * @param <R> the type of the visiting results
+	 * @param visitors the function returning a visitor per chunk
+	 * @param consumer the consumer of the visiting results of the chunks
+	 * @throws IllegalArgumentException if visitors or consumer is null
+	 * @throws JsonIOException if the document can't be read or isn't an array
+	 */
+	public <R> void accept(final LongFunction<? extends JsonVisitor<R>> visitors,
+			final Consumer<? super R> consumer) {
+		if (visitors == null) {
+			throw new IllegalArgumentException("visitors must not be null");
+		}
+
+		if (consumer == null) {
+			throw new IllegalArgumentException("consumer must not be null");
+		}
+
+		Deque<ForkJoinTask<R>> pending = new ArrayDeque<>();
+		int maxPending = pool.getParallelism() * 2;
+
+		try {
+			Chunker chunker = new Chunker();
+			Chunk chunk;
+
+			while ((chunk = chunker.nextChunk()) != null) {
+				Chunk elements = chunk;
+				pending.add(pool.submit(() -> visit(elements, visitors.apply(elements.firstIndex))));
+
+				if (pending.size() >= maxPending) {
+					consumer.accept(pending.poll().join());
+				}
+			}
+
+			while (!pending.isEmpty()) {
+				consumer.accept(pending.poll().join());
+			}
+		} catch (IOException | MalformedJsonException e) {
+			throw new JsonIOException(e);
+		} finally {
+			pending.forEach(task -> task.cancel(false));
+		}
+	}
+
+	private <R> R visit(final Chunk chunk, final JsonVisitor<R> visitor) {
+		try {
+			new StreamVisitingReader(new Utf8JsonReader(chunk.bytes, 0, chunk.length, context)).accept(visitor);
+		} catch (JsonIOException e) {
+			throw new JsonIOException("An exception occurred while processing the array elements starting at index "
+					+ chunk.firstIndex, e);
+		}
+
+		return visitor.getVisitingResult();
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * A chunk of elements of the top-level array, enclosed in brackets to form
+	 * an array of its own.
+	 */
+	private static final class Chunk {
+		private final byte[] bytes;
+		private final int length;
+		private final long firstIndex;
+
+		private Chunk(final byte[] bytes, final int length, final long firstIndex) {
+			this.bytes = bytes;
+			this.length = length;
+			this.firstIndex = firstIndex;
+		}
+	}
+
+	/**
+	 * Splits the top-level array into chunks while reading the document. The
+	 * bytes are read directly into the chunk buffers, which reserve their
+	 * first byte for the opening bracket. The comma or closing bracket
+	 * terminating a chunk is overwritten with a closing bracket in place.
+	 */
+	private final class Chunker {
+		private byte[] buffer = new byte[chunkSize + MIN_READ_SIZE];
+		private int length = 1;
+		private int scanned = 1;
+		private long offset = -1;
+
+		private boolean started;
+		private boolean finished;
+		private boolean endOfInput;
+		private int depth;
+		private boolean inString;
+		private boolean escaped;
+
+		/** Whether a value was found since the last comma on the top-level. */
+		private boolean hasValue;
+		private boolean afterComma;
+		private long elements;
+		private long firstIndex;
+
+		private Chunk nextChunk() throws IOException {
+			if (!started) {
+				start();
+			}
+
+			while (!finished) {
+				if (scanned == length && !fill()) {
+					throw syntaxError("Unterminated array");
+				}
+
+				for (; scanned < length; scanned++) {
+					Chunk chunk = scan(buffer[scanned]);
+
+					if (chunk != null || finished) {
+						return chunk;
+					}
+				}
+			}
+
+			return null;
+		}
+
+		/**
+		 * Scans the byte at the current position.
+		 *
+		 * @return the chunk ending with this byte or null
+		 */
+		private Chunk scan(final byte b) throws IOException {
+			if (inString) {
+				scanString(b);
+				return null;
+			}
+
+			switch (b) {
+			case '"':
+				inString = true;
+				hasValue = true;
+				return null;
+			case '[':
+			case '{':
+				depth++;
+				hasValue = true;
+				return null;
+			case ']':
+			case '}':
+				return close();
+			case ',':
+				return endElement();
+			default:
+				if (!isWhitespace(b)) {
+					hasValue = true;
+				}
+				return null;
+			}
+		}
+
+		private void scanString(final byte b) {
+			if (escaped) {
+				escaped = false;
+			} else if (b == '\\') {
+				escaped = true;
+			} else if (b == '"') {
+				inString = false;
+			}
+		}
+
+		private Chunk close() throws IOException {
+			depth--;
+			return depth == 0 ? finish() : null;
+		}
+
+		private Chunk endElement() {
+			if (depth != 1) {
+				return null;
+			}
+
+			checkValue();
+			elements++;
+			hasValue = false;
+			afterComma = true;
+
+			return scanned > chunkSize ? cut() : null;
+		}
+
+		private void start() throws IOException {
+			started = true;
+
+			while (true) {
+				if (scanned == length && !fill()) {
+					throw syntaxError("Expected a top-level array");
+				}
+
+				byte b = buffer[scanned];
+
+				if (offset + scanned == 0 && length - scanned >= 3 && (b & 0xff) == 0xef
+						&& (buffer[scanned + 1] & 0xff) == 0xbb && (buffer[scanned + 2] & 0xff) == 0xbf) {
+					scanned += 3;
+				} else if (isWhitespace(b)) {
+					scanned++;
+				} else if (b == '[') {
+					depth = 1;
+					scanned++;
+					compact();
+					return;
+				} else {
+					throw syntaxError("Expected a top-level array");
+				}
+			}
+		}
+
+		private Chunk finish() throws IOException {
+			if (!hasValue && afterComma) {
+				throw syntaxError("Expected a value");
+			}
+
+			finished = true;
+			int end = scanned;
+			long count = elements + (hasValue ? 1 : 0);
+			Chunk chunk = count == firstIndex ? null : new Chunk(terminate(end), end + 1, firstIndex);
+
+			for (scanned++; scanned < length; scanned++) {
+				checkWhitespace();
+			}
+
+			// the chunk keeps the buffer, so read the rest into a new one
+			buffer = new byte[MIN_READ_SIZE];
+
+			while (fill()) {
+				for (; scanned < length; scanned++) {
+					checkWhitespace();
+				}
+			}
+
+			return chunk;
+		}
+
+		private void checkWhitespace() {
+			if (!isWhitespace(buffer[scanned])) {
+				throw syntaxError("Unexpected content after the top-level array");
+			}
+		}
+
+		private Chunk cut() {
+			int end = scanned;
+			byte[] bytes = terminate(end);
+			Chunk chunk = new Chunk(bytes, end + 1, firstIndex);
+
+			buffer = new byte[Math.max(chunkSize + MIN_READ_SIZE, length - end + MIN_READ_SIZE)];
+			System.arraycopy(bytes, end + 1, buffer, 1, length - end - 1);
+			offset += end;
+			length -= end;
+			scanned = 1;
+			firstIndex = elements;
+			return chunk;
+		}
+
+		private byte[] terminate(final int end) {
+			buffer[0] = '[';
+			buffer[end] = ']';
+			return buffer;
+		}
+
+		/**
+		 * Moves the unscanned bytes to the start of the buffer, right after
+		 * the byte reserved for the opening bracket.
+		 */
+		private void compact() {
+			System.arraycopy(buffer, scanned, buffer, 1, length - scanned);
+			offset += scanned - 1;
+			length -= scanned - 1;
+			scanned = 1;
+		}
+
+		private boolean fill() throws IOException {
+			if (endOfInput) {
+				return false;
+			}
+
+			if (!started || finished) {
+				// nothing before or after the array needs to be kept
+				offset += length - 1;
+				length = 1;
+				scanned = 1;
+			} else if (buffer.length - length < MIN_READ_SIZE) {
+				// an element larger than the chunk size
+				buffer = Arrays.copyOf(buffer, buffer.length * 2);
+			}
+
+			int read = in.read(buffer, length, buffer.length - length);
+
+			if (read < 0) {
+				endOfInput = true;
+				return false;
+			}
+
+			length += read;
+			return true;
+		}
+
+		private void checkValue() {
+			if (!hasValue) {
+				throw syntaxError("Expected a value");
+			}
+		}
+
+		private MalformedJsonException syntaxError(final String message) {
+			return new MalformedJsonException(message + " at byte " + (offset + scanned));
+		}
+
+		private boolean isWhitespace(final byte b) {
+			return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+		}
+	}
+}
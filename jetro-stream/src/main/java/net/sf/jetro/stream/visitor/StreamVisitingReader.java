@@ -19,19 +19,31 @@
  */
 package net.sf.jetro.stream.visitor;
 
-import net.sf.jetro.stream.JsonReader;
+import net.sf.jetro.stream.JsonTokenReader;
 import net.sf.jetro.stream.JsonToken;
 import net.sf.jetro.util.Stack;
 import net.sf.jetro.visitor.JsonVisitor;
+import net.sf.jetro.visitor.PrimitiveJsonVisitor;
 import net.sf.jetro.visitor.VisitingReader;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 
 public class StreamVisitingReader implements VisitingReader, Closeable {
-	private JsonReader reader;
+	private JsonTokenReader reader;
 
-	public StreamVisitingReader(final JsonReader reader) {
+	/**
+	 * Creates a StreamVisitingReader pulling its tokens from the given reader.
+	 * This may be a character based {@link net.sf.jetro.stream.JsonReader} or a
+	 * byte based {@link net.sf.jetro.stream.Utf8JsonReader}.
+	 *
+	 * @param reader the reader to pull the tokens from
+	 * @throws IllegalArgumentException if reader is null
+	 */
+	public StreamVisitingReader(final JsonTokenReader reader) {
 		if (reader == null) {
 			throw new IllegalArgumentException("reader must not be null");
 		}
@@ -41,6 +53,72 @@ public class StreamVisitingReader implements VisitingReader, Closeable {
 
 	@Override
 	public void accept(final JsonVisitor<?> visitor) {
+		checkState(visitor);
+
+		try {
+			acceptInternal(visitor);
+		} catch (Exception e) {
+			throw wrap(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The reader is switched to read a sequence of top-level values, see
+	 * {@link JsonTokenReader#setMultipleDocuments(boolean)}.
+	 */
+	@Override
+	public <R> void acceptEach(final JsonVisitor<R> visitor, final Consumer<? super R> consumer) {
+		checkState(visitor);
+
+		if (consumer == null) {
+			throw new IllegalArgumentException("consumer must not be null");
+		}
+
+		reader.setMultipleDocuments(true);
+
+		while (acceptNext(visitor)) {
+			consumer.accept(visitor.getVisitingResult());
+		}
+	}
+
+	/**
+	 * Returns an iterator visiting one top-level value (record) of the JSON
+	 * stream per call to {@link Iterator#next()}, returning the visiting result
+	 * of the given visitor. As with {@link #acceptEach(JsonVisitor, Consumer)},
+	 * the visitor is reused for all records.
+	 *
+	 * @param <R> the type of the visiting result
+	 * @param visitor the visitor to visit each record with
+	 * @return an iterator over the visiting results of the records
+	 */
+	public <R> Iterator<R> records(final JsonVisitor<R> visitor) {
+		checkState(visitor);
+		reader.setMultipleDocuments(true);
+
+		return new Iterator<R>() {
+			@Override
+			public boolean hasNext() {
+				try {
+					return reader.peek() != JsonToken.END_DOCUMENT;
+				} catch (Exception e) {
+					throw wrap(e);
+				}
+			}
+
+			@Override
+			public R next() {
+				if (!acceptNext(visitor)) {
+					throw new NoSuchElementException();
+				}
+
+				return visitor.getVisitingResult();
+			}
+		};
+	}
+
+	private void checkState(final JsonVisitor<?> visitor) {
 		if (visitor == null) {
 			throw new IllegalArgumentException("visitor must not be null");
 		}
@@ -48,14 +126,12 @@ public class StreamVisitingReader implements VisitingReader, Closeable {
 		if (reader == null) {
 			throw new IllegalStateException("reader is already closed");
 		}
+	}
 
-		try {
-			acceptInternal(visitor);
-		} catch (Exception e) {
-			String message = "An exception occurred while processing a JSON stream on line " + reader.getLineNumber()
-					+ ", column " + reader.getColumnNumber();
-			throw new JsonIOException(message, e);
-		}
+	private JsonIOException wrap(final Exception e) {
+		String message = "An exception occurred while processing a JSON stream on line " + reader.getLineNumber()
+				+ ", column " + reader.getColumnNumber();
+		return new JsonIOException(message, e);
 	}
 
 	private void acceptInternal(final JsonVisitor<?> visitor) throws IOException {
@@ -65,47 +141,107 @@ public class StreamVisitingReader implements VisitingReader, Closeable {
 		JsonToken token;
 
 		while ((token = reader.peek()) != JsonToken.END_DOCUMENT) {
-			switch (token) {
-			case BEGIN_ARRAY:
-				reader.beginArray();
-				stack.push(stack.peek().visitArray());
-				break;
-			case END_ARRAY:
-				reader.endArray();
-				stack.pop().visitEnd();
-				break;
-			case BEGIN_OBJECT:
-				reader.beginObject();
-				stack.push(stack.peek().visitObject());
-				break;
-			case END_OBJECT:
-				reader.endObject();
-				stack.pop().visitEnd();
-				break;
-			case NAME:
-				stack.peek().visitProperty(reader.nextName());
-				break;
-			case BOOLEAN:
-				stack.peek().visitValue(reader.nextBoolean());
-				break;
-			case NUMBER:
-				stack.peek().visitValue(new LazilyParsedNumber(reader.nextString()));
-				break;
-			case STRING:
-				stack.peek().visitValue(reader.nextString());
-				break;
-			case NULL:
-				reader.nextNull();
-				stack.peek().visitNullValue();
-				break;
-			default:
-				throw new IllegalStateException("Unsupported token type: " + token);
-			}
+			visitToken(stack, token);
 		}
 
 		stack.pop().visitEnd();
 	}
 
+	private boolean acceptNext(final JsonVisitor<?> visitor) {
+		try {
+			if (reader.peek() == JsonToken.END_DOCUMENT) {
+				return false;
+			}
+
+			Stack<JsonVisitor<?>> stack = new Stack<JsonVisitor<?>>();
+			stack.push(visitor);
+
+			do {
+				visitToken(stack, reader.peek());
+			} while (stack.size() > 1);
+
+			stack.pop().visitEnd();
+			return true;
+		} catch (Exception e) {
+			throw wrap(e);
+		}
+	}
+
+	private void visitToken(final Stack<JsonVisitor<?>> stack, final JsonToken token) throws IOException {
+		switch (token) {
+		case BEGIN_ARRAY:
+			visitContainer(stack, stack.peek().visitArray(), true);
+			break;
+		case END_ARRAY:
+			reader.endArray();
+			stack.pop().visitEnd();
+			break;
+		case BEGIN_OBJECT:
+			visitContainer(stack, stack.peek().visitObject(), false);
+			break;
+		case END_OBJECT:
+			reader.endObject();
+			stack.pop().visitEnd();
+			break;
+		case NAME:
+			stack.peek().visitProperty(reader.nextName());
+			break;
+		case BOOLEAN:
+			stack.peek().visitValue(reader.nextBoolean());
+			break;
+		case NUMBER:
+			visitNumber(stack.peek());
+			break;
+		case STRING:
+			visitString(stack.peek());
+			break;
+		case NULL:
+			reader.nextNull();
+			stack.peek().visitNullValue();
+			break;
+		default:
+			throw new IllegalStateException("Unsupported token type: " + token);
+		}
+	}
+
+	/**
+	 * Begins visiting an array or object with the given visitor. If the
+	 * visitor ignores the content, the whole value is skipped instead.
+	 */
+	private void visitContainer(final Stack<JsonVisitor<?>> stack, final JsonVisitor<?> visitor,
+			final boolean array) throws IOException {
+		if (visitor.ignoresContent()) {
+			reader.skipValue();
+			visitor.visitEnd();
+			return;
+		}
+
+		if (array) {
+			reader.beginArray();
+		} else {
+			reader.beginObject();
+		}
+
+		stack.push(visitor);
+	}
+
+	private void visitString(final JsonVisitor<?> visitor) throws IOException {
+		if (visitor.acceptsValueChunks()) {
+			reader.nextString(visitor::visitValueChunk);
+		} else {
+			visitor.visitValue(reader.nextString());
+		}
+	}
+
+	private void visitNumber(final JsonVisitor<?> visitor) throws IOException {
+		if (visitor instanceof PrimitiveJsonVisitor && reader.isNextLong()) {
+			((PrimitiveJsonVisitor<?>) visitor).visitValue(reader.nextLong());
+		} else {
+			// anything else keeps its original text, so it is rendered unchanged
+			visitor.visitValue(new LazilyParsedNumber(reader.nextString()));
+		}
+	}
+
 	/**
 	 * Closes this stream and releases any system resources associated
 	 * with it. If the stream is already closed then invoking this
@@ -115,7 +251,9 @@ public class StreamVisitingReader implements VisitingReader, Closeable {
 	 */
 	@Override
 	public void close() throws IOException {
-		reader.close();
-		reader = null;
+		if (reader != null) {
+			reader.close();
+			reader = null;
+		}
 	}
 }
\ No newline at end of file
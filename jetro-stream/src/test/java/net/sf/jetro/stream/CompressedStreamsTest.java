@@ -0,0 +1,176 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.testng.annotations.Test;
+
+public class CompressedStreamsTest {
+
+	@Test
+	public void shouldDecompressGzip() throws IOException {
+		byte[] content = largeJson();
+
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = new GZIPOutputStream(compressed)) {
+			out.write(content);
+		}
+
+		assertEquals(readAll(CompressedStreams.decompressing(
+				new ByteArrayInputStream(compressed.toByteArray()))), content);
+	}
+
+	@Test
+	public void shouldDecompressZlib() throws IOException {
+		byte[] content = largeJson();
+
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = new DeflaterOutputStream(compressed)) {
+			out.write(content);
+		}
+
+		assertEquals(readAll(CompressedStreams.decompressing(
+				new ByteArrayInputStream(compressed.toByteArray()))), content);
+	}
+
+	@Test
+	public void shouldRoundTripGzipAndDeflate() throws IOException {
+		byte[] content = largeJson();
+
+		ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+		try (OutputStream out = CompressedStreams.gzip(gzipped)) {
+			out.write(content);
+		}
+
+		ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+		try (OutputStream out = CompressedStreams.deflate(deflated)) {
+			out.write(content);
+		}
+
+		assertEquals(readAll(CompressedStreams.decompressing(
+				new ByteArrayInputStream(gzipped.toByteArray()))), content);
+		assertEquals(readAll(CompressedStreams.decompressing(
+				new ByteArrayInputStream(deflated.toByteArray()))), content);
+	}
+
+	@Test
+	public void shouldPassPlainInputOn() throws IOException {
+		String[] documents = {"", " ", "{}", "[1,2]", "\"x\"", "1", "true", "null", "﻿{}",
+				"\n\t{\"a\":\"b\"}"};
+
+		for (String document : documents) {
+			byte[] content = document.getBytes(StandardCharsets.UTF_8);
+
+			assertEquals(readAll(CompressedStreams.decompressing(new ByteArrayInputStream(content))),
+					content, document);
+			assertEquals(readAll(CompressedStreams.decompressing(nonMarkable(content))), content,
+					document);
+		}
+	}
+
+	@Test
+	public void shouldNotReadBeforeFirstAccess() throws IOException {
+		boolean[] read = new boolean[1];
+		InputStream source = new InputStream() {
+			@Override
+			public int read() {
+				read[0] = true;
+				return -1;
+			}
+		};
+
+		CompressedStreams.decompressing(source).close();
+
+		assertFalse(read[0]);
+	}
+
+	@Test(expectedExceptions = IOException.class)
+	public void shouldFailOnTruncatedGzip() throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = new GZIPOutputStream(compressed)) {
+			out.write(largeJson());
+		}
+
+		byte[] truncated = Arrays.copyOf(compressed.toByteArray(), compressed.size() / 2);
+		readAll(CompressedStreams.decompressing(new ByteArrayInputStream(truncated)));
+	}
+
+	@Test(expectedExceptions = IOException.class)
+	public void shouldFailReadingAfterClose() throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = new GZIPOutputStream(compressed)) {
+			out.write(largeJson());
+		}
+
+		InputStream in = CompressedStreams.decompressing(new ByteArrayInputStream(compressed.toByteArray()));
+		in.read();
+		in.close();
+		in.read();
+	}
+
+	private static byte[] largeJson() {
+		Random random = new Random(42);
+		StringBuilder json = new StringBuilder("[");
+
+		for (int i = 0; i < 50_000; i++) {
+			json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"value\":")
+					.append(random.nextInt()).append('}');
+		}
+
+		return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static InputStream nonMarkable(final byte[] content) {
+		return new FilterInputStream(new ByteArrayInputStream(content)) {
+			@Override
+			public boolean markSupported() {
+				return false;
+			}
+		};
+	}
+
+	private static byte[] readAll(final InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1000];
+
+		try (InputStream source = in) {
+			int read;
+			while ((read = source.read(buffer)) >= 0) {
+				out.write(buffer, 0, read);
+			}
+		}
+
+		return out.toByteArray();
+	}
+}
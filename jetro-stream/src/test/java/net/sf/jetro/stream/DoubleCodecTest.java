@@ -0,0 +1,153 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import net.sf.jetro.exception.MalformedJsonException;
+
+import org.testng.annotations.Test;
+
+public class DoubleCodecTest {
+
+	@Test
+	public void shouldParseLikeDoubleParseDouble() {
+		String[] values = {"0", "-0", "1", "-1.5", "0.1", "1e23", "4.9E-324", "2.2250738585072011e-308",
+				"2.2250738585072014E-308", "1.7976931348623157E308", "9007199254740993",
+				"123456789012345678901234567890", "0.000000000000000000000000000001234", "1e-400", "1e400",
+				"-1e400", "7.0e-10", "1E+2", "NaN", "-Infinity", ".5", "5."};
+
+		for (String value : values) {
+			assertParsed(value);
+		}
+	}
+
+	@Test
+	public void shouldParseRandomNumbersLikeDoubleParseDouble() {
+		Random random = new Random(42);
+
+		for (int i = 0; i < 100_000; i++) {
+			double value = Double.longBitsToDouble(random.nextLong());
+			if (!Double.isNaN(value)) {
+				assertParsed(Double.toString(value));
+			}
+
+			StringBuilder digits = new StringBuilder();
+			for (int j = random.nextInt(25); j >= 0; j--) {
+				digits.append((char) ('0' + random.nextInt(10)));
+			}
+			assertParsed(digits + "." + random.nextInt(1000) + "e" + (random.nextInt(700) - 350));
+		}
+	}
+
+	@Test(expectedExceptions = NumberFormatException.class)
+	public void shouldRejectNonNumbers() {
+		DoubleCodec.parseDouble("1.2.3");
+	}
+
+	@Test
+	public void shouldFormatInTheLayoutOfDoubleToString() {
+		double[] values = {0.0, -0.0, 1.0, -1.0, 0.1, 0.001, 1.0E-4, 100.0, 1234567.0, 1.0E7, 1.5E300,
+				Double.MIN_VALUE, Double.MIN_NORMAL, Double.MAX_VALUE, 9007199254740992.0, 123.456};
+
+		for (double value : values) {
+			assertEquals(DoubleCodec.toString(value), Double.toString(value));
+		}
+	}
+
+	@Test
+	public void shouldFormatShortestRoundTrip() {
+		// Double.toString() of older JDKs renders 1.0E23 as 9.999999999999999E22
+		assertEquals(DoubleCodec.toString(1.0E23), "1.0E23");
+		assertEquals(DoubleCodec.toString(2.0E-3), "0.002");
+
+		Random random = new Random(42);
+
+		for (int i = 0; i < 100_000; i++) {
+			double value = Double.longBitsToDouble(random.nextLong());
+			if (Double.isNaN(value) || Double.isInfinite(value)) {
+				continue;
+			}
+
+			String formatted = DoubleCodec.toString(value);
+			assertEquals(Double.parseDouble(formatted), value, formatted);
+			assertTrue(significantDigits(formatted) <= significantDigits(Double.toString(value)), formatted);
+		}
+	}
+
+	@Test
+	public void shouldReadAndWriteDoubles() throws IOException {
+		String json = "[0.1,-2.5E-7,1e23]";
+
+		JsonReader reader = new JsonReader(new StringReader(json));
+		Utf8JsonReader utf8Reader = new Utf8JsonReader(json.getBytes(StandardCharsets.UTF_8));
+		StringWriter out = new StringWriter();
+		JsonWriter writer = new JsonWriter(out);
+
+		reader.beginArray();
+		utf8Reader.beginArray();
+		writer.beginArray();
+		while (reader.hasNext()) {
+			double value = reader.nextDouble();
+			assertEquals(utf8Reader.nextDouble(), value);
+			writer.value(value);
+		}
+		writer.endArray();
+
+		assertEquals(out.toString(), "[0.1,-2.5E-7,1.0E23]");
+	}
+
+	@Test(expectedExceptions = MalformedJsonException.class)
+	public void shouldRejectInfiniteNumbersInStrictMode() throws IOException {
+		JsonReader reader = new JsonReader(new StringReader("[1e400]"));
+		reader.beginArray();
+		reader.nextDouble();
+	}
+
+	private void assertParsed(final String value) {
+		char[] chars = ("x" + value + "x").toCharArray();
+		byte[] bytes = ("x" + value + "x").getBytes(StandardCharsets.ISO_8859_1);
+		double expected = Double.parseDouble(value);
+
+		assertEquals(Double.doubleToRawLongBits(DoubleCodec.parseDouble(chars, 1, value.length())),
+				Double.doubleToRawLongBits(expected), value);
+		assertEquals(Double.doubleToRawLongBits(DoubleCodec.parseDouble(bytes, 1, value.length())),
+				Double.doubleToRawLongBits(expected), value);
+		assertEquals(Double.doubleToRawLongBits(DoubleCodec.parseDouble(value)),
+				Double.doubleToRawLongBits(expected), value);
+	}
+
+	private int significantDigits(final String formatted) {
+		String mantissa = formatted.replace("-", "");
+		int exponent = mantissa.indexOf('E');
+		if (exponent >= 0) {
+			mantissa = mantissa.substring(0, exponent);
+		}
+		mantissa = mantissa.replace(".", "").replaceFirst("^0+", "").replaceFirst("0+$", "");
+		return mantissa.length();
+	}
+}
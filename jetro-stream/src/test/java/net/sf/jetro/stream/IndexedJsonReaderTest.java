@@ -0,0 +1,168 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import net.sf.jetro.exception.MalformedJsonException;
+
+import org.testng.annotations.Test;
+
+public class IndexedJsonReaderTest {
+
+	@Test
+	public void shouldReadSameTokensAsJsonReader() throws IOException {
+		String json = "{\"key\":[1,2.5e3,-7,\"<&>\",true,null,[\"äöü\",\"\\u00e9\\n\\\"\"],{\"€\":\"\uD83D\uDE00\"}],"
+				+ "\"a\\\\\":\"[{,:}]\" , \"long\": 12345678901234567890 }";
+
+		assertEquals(dump(new IndexedJsonReader(json.getBytes(StandardCharsets.UTF_8))),
+				dump(new JsonReader(new StringReader(json))));
+	}
+
+	@Test
+	public void shouldIndexStructuralBytesOutsideOfStrings() {
+		StructuralIndex index = StructuralIndex.of("{\"a,b\":[1,{}],\"c\\\"\":2}".getBytes(StandardCharsets.UTF_8));
+
+		StringBuilder structurals = new StringBuilder();
+		for (int entry = 0; entry < index.size(); entry++) {
+			structurals.append((char) index.structural(entry));
+		}
+
+		assertEquals(structurals.toString(), "{\"\":[,{}],\"\":}");
+		assertEquals(index.match(0), index.size() - 1);
+		assertEquals(index.match(4), 8);
+		assertEquals(index.match(6), 7);
+		assertEquals(index.match(1), StructuralIndex.NO_MATCH);
+		assertEquals(index.position(4), 7);
+		assertFalse(index.hasUnterminatedString());
+	}
+
+	@Test
+	public void shouldNotMatchMismatchedBrackets() {
+		StructuralIndex index = StructuralIndex.of("[{]".getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(index.match(0), StructuralIndex.NO_MATCH);
+		assertEquals(index.match(1), StructuralIndex.NO_MATCH);
+		assertTrue(StructuralIndex.of("[\"abc".getBytes(StandardCharsets.UTF_8)).hasUnterminatedString());
+	}
+
+	@Test
+	public void shouldShareIndexBetweenReaders() throws IOException {
+		StructuralIndex index = StructuralIndex.of("xx[true,\"a\"]yy".getBytes(StandardCharsets.UTF_8), 2, 10);
+
+		assertEquals(dump(new IndexedJsonReader(index)), "BEGIN_ARRAY BOOLEAN:true STRING:a END_ARRAY ");
+		assertEquals(dump(new IndexedJsonReader(index)), "BEGIN_ARRAY BOOLEAN:true STRING:a END_ARRAY ");
+	}
+
+	@Test
+	public void shouldSkipValuesWithoutDecoding() throws IOException {
+		IndexedJsonReader reader = new IndexedJsonReader(
+				"[{\"ä\":[1,{\"ö\":\"ü\"}]},\"\\u00e9\",3]".getBytes(StandardCharsets.UTF_8));
+
+		reader.beginArray();
+		reader.skipValue();
+		reader.skipValue();
+		assertEquals(reader.nextInt(), 3);
+		reader.endArray();
+		assertEquals(reader.peek(), JsonToken.END_DOCUMENT);
+	}
+
+	@Test
+	public void shouldReadMultipleDocuments() throws IOException {
+		IndexedJsonReader reader = new IndexedJsonReader("{\"a\":1}\n[2]\n".getBytes(StandardCharsets.UTF_8));
+		reader.setMultipleDocuments(true);
+
+		assertEquals(dump(reader), "BEGIN_OBJECT NAME:a NUMBER:1 END_OBJECT BEGIN_ARRAY NUMBER:2 END_ARRAY ");
+	}
+
+	@Test
+	public void shouldReadPrimitiveDocuments() throws IOException {
+		IndexedJsonReader reader = new IndexedJsonReader("\"a\"\n1.5\ntrue\nnull\n2".getBytes(StandardCharsets.UTF_8));
+		reader.setMultipleDocuments(true);
+
+		assertEquals(dump(reader), "STRING:a NUMBER:1.5 BOOLEAN:true NULL NUMBER:2 ");
+	}
+
+	@Test(expectedExceptions = MalformedJsonException.class)
+	public void shouldRejectUnterminatedArray() throws IOException {
+		IndexedJsonReader reader = new IndexedJsonReader("[[1],2".getBytes(StandardCharsets.UTF_8));
+		reader.beginArray();
+		reader.skipValue();
+		reader.nextInt();
+		reader.peek();
+	}
+
+	@Test(expectedExceptions = MalformedJsonException.class)
+	public void shouldRejectUnterminatedString() throws IOException {
+		IndexedJsonReader reader = new IndexedJsonReader("[\"abc".getBytes(StandardCharsets.UTF_8));
+		reader.beginArray();
+		reader.nextString();
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void shouldNotSupportLenientParsing() {
+		new IndexedJsonReader("[]".getBytes(StandardCharsets.UTF_8)).setLenient(true);
+	}
+
+	private String dump(final JsonTokenReader reader) throws IOException {
+		StringBuilder tokens = new StringBuilder();
+		JsonToken token;
+
+		while ((token = reader.peek()) != JsonToken.END_DOCUMENT) {
+			tokens.append(token);
+
+			switch (token) {
+			case BEGIN_ARRAY:
+				reader.beginArray();
+				break;
+			case END_ARRAY:
+				reader.endArray();
+				break;
+			case BEGIN_OBJECT:
+				reader.beginObject();
+				break;
+			case END_OBJECT:
+				reader.endObject();
+				break;
+			case NAME:
+				tokens.append(':').append(reader.nextName());
+				break;
+			case BOOLEAN:
+				tokens.append(':').append(reader.nextBoolean());
+				break;
+			case NULL:
+				reader.nextNull();
+				break;
+			default:
+				tokens.append(':').append(reader.nextString());
+			}
+
+			tokens.append(' ');
+		}
+
+		return tokens.toString();
+	}
+}
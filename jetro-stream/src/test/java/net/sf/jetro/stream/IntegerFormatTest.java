@@ -0,0 +1,65 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+public class IntegerFormatTest {
+
+	@Test
+	public void shouldFormatLikeLongToString() {
+		long[] values = {0, 1, -1, 9, 10, 99, 100, -100, 999, 1000, Integer.MAX_VALUE, Integer.MIN_VALUE,
+				Integer.MAX_VALUE + 1L, 999_999_999_999_999_999L, 1_000_000_000_000_000_000L, Long.MAX_VALUE,
+				Long.MIN_VALUE, Long.MIN_VALUE + 1};
+
+		for (long value : values) {
+			assertFormatted(value);
+		}
+
+		long power = 1;
+		for (int i = 0; i < 19; i++) {
+			assertFormatted(power - 1);
+			assertFormatted(power);
+			assertFormatted(-power);
+			power *= 10;
+		}
+	}
+
+	@Test
+	public void shouldFormatRandomNumbersLikeLongToString() {
+		Random random = new Random(42);
+
+		for (int i = 0; i < 100_000; i++) {
+			assertFormatted(random.nextLong());
+			assertFormatted(random.nextInt());
+			assertFormatted(random.nextLong() >> random.nextInt(64));
+		}
+	}
+
+	private void assertFormatted(final long value) {
+		char[] chars = new char[IntegerFormat.MAX_FORMATTED_LENGTH + 2];
+		int end = IntegerFormat.format(value, chars, 1);
+		assertEquals(new String(chars, 1, end - 1), Long.toString(value));
+	}
+}
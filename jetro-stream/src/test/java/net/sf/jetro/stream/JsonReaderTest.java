@@ -0,0 +1,125 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.jetro.context.ReaderContext;
+
+import org.testng.annotations.Test;
+
+public class JsonReaderTest {
+
+	@Test
+	public void shouldGrowBufferForLongStrings() throws IOException {
+		String value = repeat("0123456789", 100);
+		JsonReader reader = new JsonReader(new StringReader("[\"" + value + "\",\"next\"]"), 16);
+
+		reader.beginArray();
+		assertEquals(reader.nextString(), value);
+		assertEquals(reader.nextString(), "next");
+		reader.endArray();
+	}
+
+	@Test
+	public void shouldAssembleStringsBeyondMaxBufferSize() throws IOException {
+		String value = repeat("0123456789", 100);
+		ReaderContext context = new ReaderContext().setBufferSize(16).setMaxBufferSize(32);
+		JsonReader reader = new JsonReader(new StringReader("[\"" + value + "\",\"" + value + "\\n\"]"), context);
+
+		reader.beginArray();
+		assertEquals(reader.nextString(), value);
+		assertEquals(reader.nextString(), value + "\n");
+		reader.endArray();
+	}
+
+	@Test
+	public void shouldPassStringChunksAsViews() throws IOException {
+		JsonReader reader = new JsonReader(new StringReader("[\"plain\",\"esc\\taped\",42]"));
+		List<CharSequence> chunks = new ArrayList<>();
+
+		reader.beginArray();
+		reader.nextString((chunk, last) -> chunks.add(chunk));
+		assertTrue(chunks.get(0) instanceof CharArraySequence);
+		assertEquals(chunks.get(0).toString(), "plain");
+		chunks.clear();
+		reader.nextString((chunk, last) -> chunks.add(chunk.toString()));
+		assertEquals(chunks, Arrays.asList("esc\taped"));
+		assertEquals(reader.nextString(), "42");
+		reader.endArray();
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void shouldRejectTooSmallBuffer() {
+		new ReaderContext().setBufferSize(4);
+	}
+
+	@Test
+	public void shouldReturnSeededNames() throws IOException {
+		String name = "aPropertyNameLongerThanTwentyCharacters";
+		ReaderContext context = new ReaderContext().addKnownNames(name);
+		String json = "{\"" + name + "\":1}";
+
+		for (int i = 0; i < 2; i++) {
+			JsonReader reader = new JsonReader(new StringReader(json), context);
+			reader.beginObject();
+			assertSame(reader.nextName(), context.getKnownNames().iterator().next());
+		}
+
+		Utf8JsonReader reader = new Utf8JsonReader(json.getBytes("UTF-8"), 0, json.length(), context);
+		reader.beginObject();
+		assertSame(reader.nextName(), context.getKnownNames().iterator().next());
+	}
+
+	@Test
+	public void shouldNotShareStringPoolsBetweenReaders() throws IOException {
+		String json = "{\"name\":1}";
+
+		JsonReader first = new JsonReader(new StringReader(json));
+		JsonReader second = new JsonReader(new StringReader(json + json));
+		first.beginObject();
+		second.beginObject();
+		assertNotSame(first.nextName(), second.nextName());
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void shouldRejectStringPoolSizeNotPowerOfTwo() {
+		new ReaderContext().setStringPoolSize(1000);
+	}
+
+	private String repeat(final String part, final int times) {
+		StringBuilder builder = new StringBuilder();
+
+		for (int i = 0; i < times; i++) {
+			builder.append(part);
+		}
+
+		return builder.toString();
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import net.sf.jetro.exception.MalformedJsonException;
+
+import org.testng.annotations.Test;
+
+public class Utf8JsonReaderTest {
+
+	@Test
+	public void shouldReadSameTokensAsJsonReader() throws IOException {
+		String json = "{\"key\":[1,2.5e3,-7,\"<&>\",true,null,[\"äöü\",\"\\u00e9\\n\\\"\"],{\"€\":\"\uD83D\uDE00\"}]}";
+
+		assertEquals(dump(new Utf8JsonReader(json.getBytes(StandardCharsets.UTF_8))),
+				dump(new JsonReader(new StringReader(json))));
+	}
+
+	@Test
+	public void shouldDecodeCharactersSplitAcrossReads() throws IOException {
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < 1000; i++) {
+			json.append("{\"näme").append(i).append("\":\"välue € \uD83D\uDE00 ").append(i).append("\"},");
+		}
+		json.append("0]");
+
+		byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+		InputStream oneByteAtATime = new FilterInputStream(new ByteArrayInputStream(bytes)) {
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				return super.read(b, off, Math.min(len, 1));
+			}
+		};
+
+		assertEquals(dump(new Utf8JsonReader(oneByteAtATime)),
+				dump(new JsonReader(new StringReader(json.toString()))));
+	}
+
+	@Test
+	public void shouldSkipByteOrderMark() throws IOException {
+		byte[] bytes = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, '[', '1', ']'};
+
+		assertEquals(dump(new Utf8JsonReader(bytes)), "BEGIN_ARRAY NUMBER:1 END_ARRAY ");
+		assertEquals(dump(new Utf8JsonReader(new ByteArrayInputStream(bytes))), "BEGIN_ARRAY NUMBER:1 END_ARRAY ");
+	}
+
+	@Test
+	public void shouldReadArraySliceInPlace() throws IOException {
+		byte[] bytes = "xx[true,\"a\"]yy".getBytes(StandardCharsets.UTF_8);
+
+		assertEquals(dump(new Utf8JsonReader(bytes, 2, bytes.length - 4)),
+				"BEGIN_ARRAY BOOLEAN:true STRING:a END_ARRAY ");
+	}
+
+	@Test
+	public void shouldSkipValuesWithoutDecoding() throws IOException {
+		Utf8JsonReader reader = new Utf8JsonReader(
+				"[{\"ä\":[1,{\"ö\":\"ü\"}]},\"\\u00e9\",3]".getBytes(StandardCharsets.UTF_8));
+
+		reader.beginArray();
+		reader.skipValue();
+		reader.skipValue();
+		assertEquals(reader.nextInt(), 3);
+		reader.endArray();
+		assertEquals(reader.peek(), JsonToken.END_DOCUMENT);
+	}
+
+	@Test
+	public void shouldReadMappedFileAcrossChunks() throws IOException {
+		String json = "[\"äöü\",{\"€\":12345},\"\uD83D\uDE00\",true]";
+		Path file = Files.createTempFile("jetro", ".json");
+
+		try {
+			Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				assertEquals(dump(new Utf8JsonReader(new MappedFileInputStream(channel, 5))),
+						dump(new JsonReader(new StringReader(json))));
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test(expectedExceptions = MalformedJsonException.class)
+	public void shouldRejectMalformedUtf8() throws IOException {
+		byte[] bytes = {'[', '"', (byte) 0xC3, '"', ']'};
+
+		Utf8JsonReader reader = new Utf8JsonReader(bytes);
+		reader.beginArray();
+		reader.nextString();
+	}
+
+	private String dump(final JsonTokenReader reader) throws IOException {
+		StringBuilder tokens = new StringBuilder();
+		JsonToken token;
+
+		while ((token = reader.peek()) != JsonToken.END_DOCUMENT) {
+			tokens.append(token);
+
+			switch (token) {
+			case BEGIN_ARRAY:
+				reader.beginArray();
+				break;
+			case END_ARRAY:
+				reader.endArray();
+				break;
+			case BEGIN_OBJECT:
+				reader.beginObject();
+				break;
+			case END_OBJECT:
+				reader.endObject();
+				break;
+			case NAME:
+				tokens.append(':').append(reader.nextName());
+				break;
+			case BOOLEAN:
+				tokens.append(':').append(reader.nextBoolean());
+				break;
+			case NULL:
+				reader.nextNull();
+				break;
+			default:
+				tokens.append(':').append(reader.nextString());
+			}
+
+			tokens.append(' ');
+		}
+
+		return tokens.toString();
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.testng.annotations.Test;
+
+public class Utf8JsonWriterTest {
+
+	@Test
+	public void shouldWriteSameJsonAsJsonWriter() throws IOException {
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		write(new JsonWriter(new OutputStreamWriter(expected, StandardCharsets.UTF_8)), false);
+
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		write(new Utf8JsonWriter(actual, 16), false);
+
+		assertEquals(actual.toString("UTF-8"), expected.toString("UTF-8"));
+	}
+
+	@Test
+	public void shouldWriteHtmlSafeJsonToChannel() throws IOException {
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		write(new JsonWriter(new OutputStreamWriter(expected, StandardCharsets.UTF_8)), true);
+
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		write(new Utf8JsonWriter(Channels.newChannel(actual), 16), true);
+
+		assertEquals(actual.toByteArray(), expected.toByteArray());
+	}
+
+	@Test
+	public void shouldEncodeSurrogatePairsSplitAcrossChunks() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Utf8JsonWriter writer = new Utf8JsonWriter(out);
+
+		writer.beginArray();
+		writer.valueChunk("a\uD83D", false);
+		writer.valueChunk("\uDE00b", true);
+		writer.endArray();
+		writer.close();
+
+		assertEquals(out.toString("UTF-8"), "[\"a😀b\"]");
+	}
+
+	@Test
+	public void shouldReplaceUnpairedSurrogates() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Utf8JsonWriter writer = new Utf8JsonWriter(out);
+
+		writer.beginArray();
+		writer.value("\uD83D\"\uDE00");
+		writer.endArray();
+		writer.close();
+
+		assertEquals(out.toString("UTF-8"), "[\"?\\\"?\"]");
+	}
+
+	@Test
+	public void shouldCopyEncodedNames() throws IOException {
+		EncodedNames encodedNames = new EncodedNames();
+		encodedNames.register("ascii \"quoted\"\\");
+		encodedNames.register("äöü");
+		encodedNames.register("numbers");
+
+		for (boolean htmlSafe : new boolean[] { false, true }) {
+			ByteArrayOutputStream expected = new ByteArrayOutputStream();
+			write(new Utf8JsonWriter(expected, 16), htmlSafe);
+
+			ByteArrayOutputStream actual = new ByteArrayOutputStream();
+			Utf8JsonWriter writer = new Utf8JsonWriter(actual, 16);
+			writer.setEncodedNames(encodedNames);
+			write(writer, htmlSafe);
+
+			assertEquals(actual.toByteArray(), expected.toByteArray());
+		}
+	}
+
+	@Test
+	public void shouldIndentDeeplyNestedValues() throws IOException {
+		for (String indent : new String[] { "    ", "\u3000" }) {
+			ByteArrayOutputStream expected = new ByteArrayOutputStream();
+			writeNested(new JsonWriter(new OutputStreamWriter(expected, StandardCharsets.UTF_8)), indent);
+
+			// the indentation of the innermost values exceeds the buffer
+			ByteArrayOutputStream actual = new ByteArrayOutputStream();
+			writeNested(new Utf8JsonWriter(actual, 16), indent);
+
+			assertEquals(actual.toString("UTF-8"), expected.toString("UTF-8"));
+		}
+	}
+
+	private void writeNested(final JsonGenerator writer, final String indent) throws IOException {
+		writer.setIndent(indent);
+		for (int i = 0; i < 50; i++) {
+			writer.beginArray().value(i);
+		}
+		for (int i = 0; i < 50; i++) {
+			writer.endArray();
+		}
+		writer.close();
+	}
+
+	private void write(final JsonGenerator writer, final boolean htmlSafe) throws IOException {
+		writer.setHtmlSafe(htmlSafe);
+		writer.setIndent("  ");
+		writer.beginObject();
+		writer.name("ascii \"quoted\"\\").value("<tag a='b'> & \t\n\u0001");
+		writer.name("äöü").value("€     😀 é");
+		writer.name("numbers").beginArray().value(1).value(-2.5).value(12345678901234L)
+				.value(new java.math.BigDecimal("1.5e300")).endArray();
+		writer.name("literals").beginArray().value(true).value(false).nullValue().endArray();
+
+		StringBuilder huge = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			huge.append("chunk ").append(i).append(" äöü € 😀 \"\\ ");
+		}
+		writer.name("huge").value(huge.toString());
+		writer.endObject();
+		writer.close();
+	}
+}
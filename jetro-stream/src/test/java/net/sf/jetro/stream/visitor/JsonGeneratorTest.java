@@ -1,9 +1,13 @@
 package net.sf.jetro.stream.visitor;
 
+import net.sf.jetro.stream.EncodedName;
+import net.sf.jetro.stream.EncodedNames;
 import net.sf.jetro.stream.JsonGenerator;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 
 import static org.testng.Assert.assertEquals;
 
@@ -74,4 +78,155 @@ public class JsonGeneratorTest {
 		// Then:
 		assertEquals(out.toString(), expectedJson);
 	}
+
+	@Test
+	public void testNumberValues() throws IOException {
+
+		// Given:
+		String expectedJson = "[0,-42,9223372036854775807,-9223372036854775808,7,127,"
+				+ "123456789012345678901234567890,-12345678901,1.50E+3,0.000001,1.0e+5]";
+
+		// When:
+		StringBuffer out = new StringBuffer();
+		JsonGenerator testee = new JsonGenerator(out);
+
+		testee.beginArray();
+		testee.value(0);
+		testee.value(-42);
+		testee.value(Long.MAX_VALUE);
+		testee.value((Number) Long.MIN_VALUE);
+		testee.value((Number) (short) 7);
+		testee.value((Number) (byte) 127);
+		testee.value(new BigInteger("123456789012345678901234567890"));
+		testee.value(BigInteger.valueOf(-12345678901L));
+		testee.value(new BigDecimal("1.50E+3"));
+		testee.value(new BigDecimal("0.000001"));
+		testee.value(new LazilyParsedNumber("1.0e+5"));
+		testee.endArray();
+
+		// Then:
+		assertEquals(out.toString(), expectedJson);
+	}
+
+	@Test
+	public void testEncodedNames() throws IOException {
+
+		// Given:
+		String expectedJson = "{\"<id>\":1,\"other\":2,\"<id>\":null}";
+		EncodedNames encodedNames = new EncodedNames();
+		encodedNames.register("<id>");
+
+		// When:
+		StringBuffer out = new StringBuffer();
+		JsonGenerator testee = new JsonGenerator(out);
+		testee.setEncodedNames(encodedNames);
+
+		testee.beginObject();
+		testee.name("<id>");
+		testee.value(1);
+		testee.name(EncodedName.of("other"));
+		testee.value(2);
+		testee.name(encodedNames.get("<id>"));
+		testee.nullValue();
+		testee.endObject();
+
+		// Then:
+		assertEquals(out.toString(), expectedJson);
+	}
+
+	@Test
+	public void testHtmlSafeEncodedNames() throws IOException {
+
+		// Given:
+		String expectedJson = "{\"\\u003cid\\u003e\":1}";
+		EncodedNames encodedNames = new EncodedNames();
+		encodedNames.register("<id>");
+
+		// When:
+		StringBuffer out = new StringBuffer();
+		JsonGenerator testee = new JsonGenerator(out);
+		testee.setEncodedNames(encodedNames);
+		testee.setHtmlSafe(true);
+
+		testee.beginObject();
+		testee.name("<id>");
+		testee.value(1);
+		testee.endObject();
+
+		// Then:
+		assertEquals(out.toString(), expectedJson);
+	}
+
+	@Test
+	public void testStringValueInChunks() throws IOException {
+
+		// Given:
+		String expectedJson = "{\"key\":\"Test \\\"msg\\\" in chunks\",\"next\":true}";
+
+		// When:
+		StringBuffer out = new StringBuffer();
+		JsonGenerator testee = new JsonGenerator(out);
+
+		testee.beginObject();
+		testee.name("key");
+		testee.valueChunk("Test \"msg", false);
+		testee.valueChunk("", false);
+		testee.valueChunk("\" in chunks", true);
+		testee.name("next");
+		testee.value(true);
+		testee.endObject();
+
+		// Then:
+		assertEquals(out.toString(), expectedJson);
+	}
+
+	@Test
+	public void testPrettyPrintDeeplyNested() throws IOException {
+		int depth = 40;
+
+		for (String indent : new String[] { "  ", "\t", "\u3000" }) {
+			// Given:
+			StringBuilder expectedJson = new StringBuilder();
+			for (int level = 0; level < depth; level++) {
+				expectedJson.append("[\n").append(repeat(indent, level + 1));
+			}
+			expectedJson.append("true");
+			for (int level = depth - 1; level >= 0; level--) {
+				expectedJson.append('\n').append(repeat(indent, level)).append(']');
+			}
+
+			// When:
+			StringBuffer out = new StringBuffer();
+			JsonGenerator testee = new JsonGenerator(out);
+			testee.setIndent(indent);
+
+			for (int level = 0; level < depth; level++) {
+				testee.beginArray();
+			}
+			testee.value(true);
+			for (int level = 0; level < depth; level++) {
+				testee.endArray();
+			}
+
+			// Then:
+			assertEquals(out.toString(), expectedJson.toString());
+		}
+	}
+
+	private static String repeat(String value, int times) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < times; i++) {
+			builder.append(value);
+		}
+		return builder.toString();
+	}
+
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void testValueWithinChunkedStringValue() throws IOException {
+		JsonGenerator testee = new JsonGenerator(new StringBuffer());
+
+		testee.beginArray();
+		testee.valueChunk("Test", false);
+		testee.value(true);
+	}
 }
@@ -0,0 +1,49 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream.visitor;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.testng.annotations.Test;
+
+public class MappedFileVisitingReaderTest {
+
+	@Test
+	public void shouldVisitMappedFile() throws IOException {
+		String json = "{\"key\":[1,2.0,\"äöü\",true,null,{\"€\":\"value\"}]}";
+		Path file = Files.createTempFile("jetro", ".json");
+
+		try {
+			Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+
+			JsonReturningVisitor visitor = new JsonReturningVisitor();
+			new MappedFileVisitingReader(file).accept(visitor);
+
+			assertEquals(visitor.getVisitingResult(), json);
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
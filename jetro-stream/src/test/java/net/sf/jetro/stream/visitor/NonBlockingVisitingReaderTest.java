@@ -0,0 +1,120 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream.visitor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.jetro.exception.MalformedJsonException;
+import net.sf.jetro.stream.JsonReader;
+import net.sf.jetro.visitor.chained.ChainedJsonVisitor;
+
+import org.testng.annotations.Test;
+
+public class NonBlockingVisitingReaderTest {
+	private static final String JSON = "{\"key\":[1,-2.5e-3,\"äöü \\\"\\u20AC\\\" 😀\",true,false,null,"
+			+ "{\"€\":\"value\",\"empty\":{}},[],-0,12345678901234567890]}";
+
+	@Test
+	public void shouldVisitDocumentFedAtOnce() {
+		JsonReturningVisitor visitor = new JsonReturningVisitor();
+		NonBlockingVisitingReader reader = new NonBlockingVisitingReader(visitor);
+
+		reader.feed(ByteBuffer.wrap(JSON.getBytes(StandardCharsets.UTF_8)));
+		assertFalse(reader.isDone());
+
+		reader.endOfInput();
+		assertTrue(reader.isDone());
+		assertEquals(visitor.getVisitingResult(), expected());
+	}
+
+	@Test
+	public void shouldVisitDocumentFedByteByByte() {
+		byte[] bytes = JSON.getBytes(StandardCharsets.UTF_8);
+		JsonReturningVisitor visitor = new JsonReturningVisitor();
+		NonBlockingVisitingReader reader = new NonBlockingVisitingReader(visitor);
+
+		ByteBuffer direct = ByteBuffer.allocateDirect(1);
+		for (byte b : bytes) {
+			direct.clear();
+			direct.put(b).flip();
+			reader.feed(direct);
+		}
+		reader.endOfInput();
+
+		assertEquals(visitor.getVisitingResult(), expected());
+	}
+
+	@Test
+	public void shouldVisitTopLevelNumberAtEndOfInput() {
+		final List<Number> numbers = new ArrayList<>();
+		NonBlockingVisitingReader reader = new NonBlockingVisitingReader(new ChainedJsonVisitor<Void>() {
+			@Override
+			protected Number beforeVisitValue(final Number value) {
+				numbers.add(value);
+				return value;
+			}
+		});
+
+		reader.feed("  4".getBytes(StandardCharsets.UTF_8), 0, 3);
+		reader.feed("2 ".getBytes(StandardCharsets.UTF_8), 0, 1);
+		assertTrue(numbers.isEmpty());
+
+		reader.endOfInput();
+		assertEquals(numbers, Arrays.asList(42L));
+	}
+
+	@Test(expectedExceptions = JsonIOException.class)
+	public void shouldFailOnIncompleteDocument() {
+		NonBlockingVisitingReader reader = new NonBlockingVisitingReader(new JsonReturningVisitor());
+
+		reader.feed(ByteBuffer.wrap("[1,".getBytes(StandardCharsets.UTF_8)));
+		reader.endOfInput();
+	}
+
+	@Test
+	public void shouldReportPositionOfSyntaxError() {
+		NonBlockingVisitingReader reader = new NonBlockingVisitingReader(new JsonReturningVisitor());
+
+		try {
+			reader.feed(ByteBuffer.wrap("[1,\n2 3]".getBytes(StandardCharsets.UTF_8)));
+		} catch (JsonIOException e) {
+			assertTrue(e.getCause() instanceof MalformedJsonException);
+			assertEquals(e.getCause().getMessage(), "Unterminated array at line 2 column 4");
+			return;
+		}
+
+		throw new AssertionError("Expected a JsonIOException");
+	}
+
+	private static String expected() {
+		JsonReturningVisitor visitor = new JsonReturningVisitor();
+		new StreamVisitingReader(new JsonReader(new StringReader(JSON))).accept(visitor);
+		return visitor.getVisitingResult();
+	}
+}
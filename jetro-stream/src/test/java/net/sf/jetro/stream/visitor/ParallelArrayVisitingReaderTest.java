@@ -0,0 +1,137 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2020 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream.visitor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import net.sf.jetro.exception.MalformedJsonException;
+
+import org.testng.annotations.Test;
+
+public class ParallelArrayVisitingReaderTest {
+
+	@Test
+	public void shouldVisitChunksInOrder() {
+		StringBuilder json = new StringBuilder("﻿ [\n");
+		StringBuilder expected = new StringBuilder();
+
+		for (int i = 0; i < 1000; i++) {
+			String element = i % 3 == 0 ? "{\"i\":" + i + ",\"s\":\"],\\\"[{\"}" : i % 3 == 1 ? "[" + i + ",[]]" : "\"" + i + "\"";
+			json.append(i == 0 ? "" : " ,\n").append(element);
+			expected.append(expected.length() == 0 ? "" : ",").append(element);
+		}
+		json.append(" ]\n");
+
+		List<String> chunks = new ArrayList<>();
+		List<Long> firstIndexes = new ArrayList<>();
+		ParallelArrayVisitingReader reader = reader(json.toString()).setChunkSize(64).setPool(new ForkJoinPool(4));
+
+		reader.accept(firstIndex -> {
+			synchronized (firstIndexes) {
+				firstIndexes.add(firstIndex);
+			}
+			return new JsonReturningVisitor();
+		}, chunks::add);
+
+		StringBuilder actual = new StringBuilder();
+		for (String chunk : chunks) {
+			actual.append(actual.length() == 0 ? "" : ",").append(chunk, 1, chunk.length() - 1);
+		}
+
+		assertTrue(chunks.size() > 10);
+		assertEquals(firstIndexes.size(), chunks.size());
+		assertEquals(firstIndexes.stream().sorted().findFirst().get(), Long.valueOf(0));
+		assertEquals(actual.toString(), expected.toString());
+	}
+
+	@Test
+	public void shouldVisitElementLargerThanChunkSize() {
+		List<String> chunks = new ArrayList<>();
+
+		reader("[[1,2,3,4,5,6,7,8,9],{\"a\":\"bcdefghijklmn\"},0]").setChunkSize(2)
+				.accept(firstIndex -> new JsonReturningVisitor(), chunks::add);
+
+		List<String> expected = new ArrayList<>();
+		expected.add("[[1,2,3,4,5,6,7,8,9]]");
+		expected.add("[{\"a\":\"bcdefghijklmn\"}]");
+		expected.add("[0]");
+		assertEquals(chunks, expected);
+	}
+
+	@Test
+	public void shouldNotVisitEmptyArray() {
+		List<String> chunks = new ArrayList<>();
+
+		reader(" [ ] ").accept(firstIndex -> new JsonReturningVisitor(), chunks::add);
+
+		assertTrue(chunks.isEmpty());
+	}
+
+	@Test
+	public void shouldRejectMissingArray() {
+		assertMalformed("{\"a\":1}", "Expected a top-level array at byte 0");
+		assertMalformed("", "Expected a top-level array at byte 0");
+	}
+
+	@Test
+	public void shouldRejectUnterminatedArray() {
+		assertMalformed("[1,2", "Unterminated array at byte 4");
+	}
+
+	@Test
+	public void shouldRejectContentAfterArray() {
+		assertMalformed("[1,2] 3", "Unexpected content after the top-level array at byte 6");
+	}
+
+	@Test
+	public void shouldRejectMissingValues() {
+		assertMalformed("[1,,2]", "Expected a value at byte 3");
+		assertMalformed("[1, ]", "Expected a value at byte 4");
+		assertMalformed("[,1]", "Expected a value at byte 1");
+	}
+
+	@Test(expectedExceptions = JsonIOException.class)
+	public void shouldRejectMalformedElement() {
+		reader("[1,{\"a\" 2},3]").setChunkSize(1).accept(firstIndex -> new JsonReturningVisitor(), chunk -> {});
+	}
+
+	private static void assertMalformed(final String json, final String message) {
+		try {
+			reader(json).setChunkSize(1).accept(firstIndex -> new JsonReturningVisitor(), chunk -> {});
+		} catch (JsonIOException e) {
+			assertTrue(e.getCause() instanceof MalformedJsonException);
+			assertEquals(e.getCause().getMessage(), message);
+			return;
+		}
+
+		throw new AssertionError("Expected a JsonIOException");
+	}
+
+	private static ParallelArrayVisitingReader reader(final String json) {
+		return new ParallelArrayVisitingReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,340 @@
+/*
+ * #%L
+ * Jetro Stream
+ * %%
+ * Copyright (C) 2013 - 2016 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.stream.visitor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import net.sf.jetro.stream.JsonReader;
+import net.sf.jetro.stream.Utf8JsonReader;
+import net.sf.jetro.visitor.JsonArrayVisitor;
+import net.sf.jetro.visitor.JsonObjectVisitor;
+import net.sf.jetro.visitor.JsonVisitor;
+import net.sf.jetro.visitor.PrimitiveJsonVisitor;
+import net.sf.jetro.visitor.chained.ChainedJsonArrayVisitor;
+import net.sf.jetro.visitor.chained.ChainedJsonObjectVisitor;
+import net.sf.jetro.visitor.chained.ChainedJsonVisitor;
+import net.sf.jetro.visitor.chained.UniformChainedJsonVisitor;
+import net.sf.jetro.visitor.pathaware.PathAwareJsonVisitor;
+
+import org.testng.annotations.Test;
+
+public class StreamVisitingReaderTest {
+	private static final String JSON = "[1,-42,2.5,12345678901234567890,-0,1e2]";
+
+	@Test
+	public void shouldVisitLongsAsPrimitives() {
+		RecordingVisitor recorder = new RecordingVisitor();
+		new StreamVisitingReader(new JsonReader(new StringReader(JSON))).accept(recorder);
+
+		assertEquals(recorder.events, Arrays.asList("long 1", "long -42", "Number 2.5",
+				"Number 12345678901234567890", "Number -0", "Number 1e2"));
+	}
+
+	@Test
+	public void shouldPassPrimitivesThroughChainedVisitors() {
+		RecordingVisitor recorder = new RecordingVisitor();
+		new StreamVisitingReader(new JsonReader(new StringReader(JSON)))
+				.accept(new ChainedJsonVisitor<Void>(recorder) {});
+
+		assertEquals(recorder.events.get(0), "long 1");
+	}
+
+	@Test
+	public void shouldBoxPrimitivesForNumberHooks() {
+		final List<Number> hooked = new ArrayList<>();
+		RecordingVisitor recorder = new RecordingVisitor();
+
+		new StreamVisitingReader(new JsonReader(new StringReader(JSON)))
+				.accept(new ChainedJsonVisitor<Void>(recorder) {
+					@Override
+					@SuppressWarnings("unchecked")
+					protected JsonArrayVisitor<Void> afterVisitArray(final JsonArrayVisitor<Void> visitor) {
+						return new ChainedJsonArrayVisitor<Void>(visitor) {
+							@Override
+							protected Number beforeVisitValue(final Number value) {
+								hooked.add(value);
+								return value;
+							}
+						};
+					}
+				});
+
+		assertEquals(hooked.get(0), 1L);
+		assertEquals(recorder.events.get(0), "Number 1");
+		assertEquals(recorder.events.size(), 6);
+	}
+
+	@Test
+	public void shouldSkipIgnoredSubtrees() {
+		RecordingVisitor recorder = new RecordingVisitor();
+		new StreamVisitingReader(new JsonReader(new StringReader(
+				"[1,{\"a\":[2,{\"b\":\"c\"}],\"d\":null},[3,[4]],5]"))).accept(recorder);
+
+		assertEquals(recorder.events, Arrays.asList("long 1", "object", "end", "long 5"));
+	}
+
+	@Test
+	public void shouldNotSkipSubtreesObservedByHooks() {
+		final List<String> names = new ArrayList<>();
+		RecordingVisitor recorder = new RecordingVisitor();
+
+		new StreamVisitingReader(new JsonReader(new StringReader("{\"a\":1}")))
+				.accept(new ChainedJsonVisitor<Void>(recorder) {
+					@Override
+					@SuppressWarnings("unchecked")
+					protected JsonObjectVisitor<Void> afterVisitObject(final JsonObjectVisitor<Void> visitor) {
+						return new ChainedJsonObjectVisitor<Void>(visitor) {
+							@Override
+							protected String beforeVisitProperty(final String name) {
+								names.add(name);
+								return name;
+							}
+						};
+					}
+				});
+
+		assertEquals(names, Arrays.asList("a"));
+		assertEquals(recorder.events, Arrays.asList("object", "end"));
+	}
+
+	@Test
+	public void shouldVisitEachRecord() {
+		List<String> records = new ArrayList<>();
+
+		new StreamVisitingReader(new JsonReader(new StringReader("{\"a\":1}\n{\"a\":[2]}\n[]{}")))
+				.acceptEach(new JsonReturningVisitor(), records::add);
+
+		assertEquals(records, Arrays.asList("{\"a\":1}", "{\"a\":[2]}", "[]", "{}"));
+	}
+
+	@Test
+	public void shouldVisitPrimitiveRecords() {
+		List<String> records = new ArrayList<>();
+
+		new StreamVisitingReader(new JsonReader(new StringReader("\"a\"\n1.5\ntrue\nnull\n\"b\"[]")))
+				.acceptEach(new JsonReturningVisitor(), records::add);
+
+		assertEquals(records, Arrays.asList("\"a\"", "1.5", "true", "null", "\"b\"", "[]"));
+	}
+
+	@Test
+	public void shouldIterateRecords() {
+		Iterator<String> records = new StreamVisitingReader(new JsonReader(new StringReader(" [1] \n [2] \n")))
+				.records(new JsonReturningVisitor());
+
+		assertTrue(records.hasNext());
+		assertEquals(records.next(), "[1]");
+		assertTrue(records.hasNext());
+		assertEquals(records.next(), "[2]");
+		assertFalse(records.hasNext());
+	}
+
+	@Test(expectedExceptions = JsonIOException.class)
+	public void shouldRejectMultipleValuesOutsideRecordMode() {
+		new StreamVisitingReader(new JsonReader(new StringReader("[1][2]"))).accept(new JsonReturningVisitor());
+	}
+
+	@Test
+	public void shouldPassHugeStringsThroughInChunks() {
+		String json = "[" + hugeString() + ",{\"a\":" + hugeString() + "}]";
+		JsonReturningVisitor chunked = new JsonReturningVisitor();
+		JsonReturningVisitor whole = new JsonReturningVisitor();
+
+		new StreamVisitingReader(new JsonReader(new StringReader(json), 1024))
+				.accept(new ChainedJsonVisitor<String>(chunked) {});
+		new StreamVisitingReader(new JsonReader(new StringReader(json))).accept(new StringHookVisitor(whole));
+
+		assertEquals(chunked.getVisitingResult(), whole.getVisitingResult());
+	}
+
+	@Test
+	public void shouldDecodeUtf8StringsInBoundedChunks() {
+		String huge = hugeString();
+		ChunkRecordingVisitor recorder = new ChunkRecordingVisitor();
+
+		new StreamVisitingReader(new Utf8JsonReader(("[" + huge + "]").getBytes(StandardCharsets.UTF_8)))
+				.accept(recorder);
+
+		RecordingVisitor expected = new RecordingVisitor();
+		new StreamVisitingReader(new JsonReader(new StringReader("[" + huge + "]"))).accept(expected);
+
+		assertEquals("String " + recorder.value, expected.events.get(0));
+		assertTrue(recorder.chunks > 1);
+		assertTrue(recorder.maxChunkLength <= 8192);
+		assertTrue(recorder.last);
+	}
+
+	@Test
+	public void shouldNotChunkStringsObservedByHooks() {
+		ChunkRecordingVisitor recorder = new ChunkRecordingVisitor();
+		StringHookVisitor hook = new StringHookVisitor(recorder);
+
+		new StreamVisitingReader(new JsonReader(new StringReader("[" + hugeString() + "]"), 1024)).accept(hook);
+
+		assertEquals(hook.values.size(), 1);
+		assertEquals(recorder.chunks, 0);
+		assertEquals(((RecordingVisitor) recorder).events, Arrays.asList("String " + hook.values.get(0)));
+	}
+
+	@Test
+	public void shouldNotChunkStringsForVisitorsRejectingChunks() {
+		RecordingVisitor recorder = new RecordingVisitor();
+		String json = "[" + hugeString() + "]";
+
+		new StreamVisitingReader(new JsonReader(new StringReader(json), 1024))
+				.accept(new ChainedJsonVisitor<Void>(recorder) {});
+
+		RecordingVisitor expected = new RecordingVisitor();
+		new StreamVisitingReader(new JsonReader(new StringReader(json))).accept(expected);
+
+		assertEquals(recorder.events, expected.events);
+	}
+
+	@Test
+	public void shouldTrackPathsOfChunkedStrings() {
+		final List<String> paths = new ArrayList<>();
+		ChunkRecordingVisitor recorder = new ChunkRecordingVisitor();
+
+		new StreamVisitingReader(new JsonReader(new StringReader("[" + hugeString() + ",null]"), 1024))
+				.accept(new PathAwareJsonVisitor<Void>(recorder) {
+					@Override
+					protected boolean doBeforeVisitNullValue() {
+						paths.add(currentPath().toString());
+						return true;
+					}
+				});
+
+		assertTrue(recorder.chunks > 1);
+		assertEquals(paths, Arrays.asList("$[1]"));
+	}
+
+	private static String hugeString() {
+		StringBuilder json = new StringBuilder("\"");
+		for (int i = 0; i < 5000; i++) {
+			json.append("line ").append(i).append(" \\\"äöü€\\\" \\u00e9 \uD83D\uDE00\\n");
+		}
+		return json.append('"').toString();
+	}
+
+	private static class StringHookVisitor extends UniformChainedJsonVisitor<Object> {
+		private final List<String> values = new ArrayList<>();
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private StringHookVisitor(final JsonVisitor<?> nextVisitor) {
+			super((JsonVisitor) nextVisitor);
+		}
+
+		@Override
+		protected String beforeVisitValue(final String value) {
+			values.add(value);
+			return value;
+		}
+	}
+
+	private static class ChunkRecordingVisitor extends RecordingVisitor {
+		private final StringBuilder value = new StringBuilder();
+		private int chunks;
+		private int maxChunkLength;
+		private boolean last;
+
+		@Override
+		public boolean acceptsValueChunks() {
+			return true;
+		}
+
+		@Override
+		public void visitValueChunk(final CharSequence chunk, final boolean last) {
+			value.append(chunk);
+			chunks++;
+			maxChunkLength = Math.max(maxChunkLength, chunk.length());
+			this.last = last;
+		}
+	}
+
+	private static class RecordingVisitor implements PrimitiveJsonVisitor<Void>, JsonArrayVisitor<Void> {
+		private final List<String> events = new ArrayList<>();
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public JsonObjectVisitor<Void> visitObject() {
+			events.add("object");
+			return new ChainedJsonObjectVisitor<Void>() {
+				@Override
+				protected boolean observesContent() {
+					return false;
+				}
+
+				@Override
+				protected void afterVisitEnd() {
+					events.add("end");
+				}
+			};
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public JsonArrayVisitor<Void> visitArray() {
+			return events.isEmpty() ? this : ChainedJsonArrayVisitor.NO_OP_VISITOR;
+		}
+
+		@Override
+		public void visitValue(final boolean value) {
+			events.add("boolean " + value);
+		}
+
+		@Override
+		public void visitValue(final long value) {
+			events.add("long " + value);
+		}
+
+		@Override
+		public void visitValue(final Number value) {
+			events.add("Number " + value);
+		}
+
+		@Override
+		public void visitValue(final String value) {
+			events.add("String " + value);
+		}
+
+		@Override
+		public void visitNullValue() {
+			events.add("null");
+		}
+
+		@Override
+		public void visitEnd() {
+		}
+
+		@Override
+		public Void getVisitingResult() {
+			return null;
+		}
+	}
+}
@@ -1,18 +1,31 @@
 package net.sf.jetro.transform;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Path;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 
+import net.sf.jetro.context.ReaderContext;
 import net.sf.jetro.object.serializer.SerializationContext;
 import net.sf.jetro.object.visitor.ObjectVisitingReader;
+import net.sf.jetro.stream.CompressedStreams;
 import net.sf.jetro.stream.JsonReader;
+import net.sf.jetro.stream.Utf8JsonReader;
+import net.sf.jetro.stream.visitor.MappedFileVisitingReader;
+import net.sf.jetro.stream.visitor.ParallelArrayVisitingReader;
 import net.sf.jetro.stream.visitor.StreamVisitingReader;
 import net.sf.jetro.transform.highlevel.TransformationSpecification;
 import net.sf.jetro.tree.JsonType;
+import net.sf.jetro.tree.builder.JsonTreeBuilder;
 import net.sf.jetro.tree.visitor.JsonElementVisitingReader;
 import net.sf.jetro.visitor.VisitingReader;
 import net.sf.jetro.visitor.chained.ChainedJsonVisitor;
@@ -39,6 +52,7 @@ import net.sf.jetro.visitor.chained.ChainedJsonVisitor;
  */
 public class Jetro {
 	private static final String SOURCE_NOT_NULL = "source must not be null";
+	private static final String CONTEXT_NOT_NULL = "context must not be null";
 	private Jetro() {}
 	
 	/**
@@ -46,25 +60,44 @@ public class Jetro {
 	 * InputStream yields anything but a valid JSON document, an exception
 	 * will be thrown during the transformation.
 	 * <p>
-	 * This method expects the JSON document to be encoded with UTF-8.
+	 * This method expects the JSON document to be encoded with UTF-8. GZIP or
+	 * zlib compressed documents are recognized and decompressed on the fly.
 	 * 
 	 * @param source the InputStream to retrieve the JSON document from
 	 * @return an instance of {@link TransformSourceCollector}
 	 */
 	public static TransformSourceCollector transform(final InputStream source) {
 		Objects.requireNonNull(source, SOURCE_NOT_NULL);
-		
-		try {
-			return transform(source, "UTF-8");
-		} catch (UnsupportedEncodingException e) {
-			throw new RuntimeException(e);
-		}
+		return new TransformSourceCollector(new StreamVisitingReader(
+				new Utf8JsonReader(CompressedStreams.decompressing(source))));
+	}
+	
+	/**
+	 * Transform UTF-8 encoded JSON retrieved from the given {@link InputStream}
+	 * reading it as configured by the given {@link ReaderContext}. If the
+	 * InputStream yields anything but a valid JSON document, an exception
+	 * will be thrown during the transformation. GZIP or zlib compressed
+	 * documents are recognized and decompressed on the fly.
+	 * 
+	 * @param source the InputStream to retrieve the JSON document from
+	 * @param context the context to configure the reader with
+	 * @return an instance of {@link TransformSourceCollector}
+	 */
+	public static TransformSourceCollector transform(final InputStream source,
+			final ReaderContext context) {
+		Objects.requireNonNull(source, SOURCE_NOT_NULL);
+		Objects.requireNonNull(context, CONTEXT_NOT_NULL);
+		return new TransformSourceCollector(new StreamVisitingReader(
+				new Utf8JsonReader(CompressedStreams.decompressing(source), context)));
 	}
 	
 	/**
 	 * Transform JSON retrieved from the given {@link InputStream}. If the
 	 * InputStream yields anything but a valid JSON document, an exception
 	 * will be thrown during the transformation.
+	 * <p>
+	 * UTF-8 encoded documents are parsed directly from their bytes. GZIP or
+	 * zlib compressed documents are recognized and decompressed on the fly.
 	 * 
 	 * @param source the InputStream to retrieve the JSON document from
 	 * @param charsetName the name of the charset the JSON document is encoded with
@@ -76,7 +109,19 @@ public class Jetro {
 		Objects.requireNonNull(source, SOURCE_NOT_NULL);
 		Objects.requireNonNull(charsetName, "charsetName must not be null");
 		
-		return transform(new InputStreamReader(source, charsetName));
+		if (isUtf8(charsetName)) {
+			return transform(source);
+		}
+		
+		return transform(new InputStreamReader(CompressedStreams.decompressing(source), charsetName));
+	}
+	
+	private static boolean isUtf8(final String charsetName) throws UnsupportedEncodingException {
+		try {
+			return StandardCharsets.UTF_8.equals(Charset.forName(charsetName));
+		} catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+			throw new UnsupportedEncodingException(charsetName);
+		}
 	}
 	
 	/**
@@ -92,6 +137,72 @@ public class Jetro {
 		return new TransformSourceCollector(getStreamVisitingReader(source));
 	}
 
+	/**
+	 * Transform JSON retrieved from the given {@link Reader} reading it as
+	 * configured by the given {@link ReaderContext}. If the Reader yields
+	 * anything but a valid JSON document, an exception will be thrown during
+	 * the transformation.
+	 * 
+	 * @param source the Reader to retrieve the JSON document from
+	 * @param context the context to configure the reader with
+	 * @return an instance of {@link TransformSourceCollector}
+	 */
+	public static TransformSourceCollector transform(final Reader source, final ReaderContext context) {
+		Objects.requireNonNull(source, SOURCE_NOT_NULL);
+		Objects.requireNonNull(context, CONTEXT_NOT_NULL);
+		return new TransformSourceCollector(new StreamVisitingReader(new JsonReader(source, context)));
+	}
+
+	/**
+	 * Transform JSON read from the file at the given {@link Path}. If the
+	 * file contains anything but a valid JSON document, an exception will be
+	 * thrown during the transformation.
+	 * <p>
+	 * This method expects the JSON document to be encoded with UTF-8. The file
+	 * is memory mapped and parsed directly from its bytes, so it may be larger
+	 * than the available heap.
+	 * 
+	 * @param source the path of the file containing the JSON document
+	 * @return an instance of {@link TransformSourceCollector}
+	 * @throws IOException if the file cannot be opened
+	 */
+	public static TransformSourceCollector transform(final Path source) throws IOException {
+		Objects.requireNonNull(source, SOURCE_NOT_NULL);
+		return new TransformSourceCollector(new MappedFileVisitingReader(source));
+	}
+
+	/**
+	 * Transform a single, huge top-level JSON array read from the file at the
+	 * given {@link Path}. The elements of the array are parsed in parallel in
+	 * the common {@link ForkJoinPool} to build its tree, which is then
+	 * transformed. See {@link ParallelArrayVisitingReader} for details.
+	 * <p>
+	 * This method expects the JSON document to be encoded with UTF-8.
+	 * 
+	 * @param source the path of the file containing the JSON array
+	 * @return an instance of {@link TransformSourceCollector}
+	 * @throws IOException if the file cannot be opened
+	 */
+	public static TransformSourceCollector transformArrayInParallel(final Path source) throws IOException {
+		Objects.requireNonNull(source, SOURCE_NOT_NULL);
+		return transformArrayInParallel(new ParallelArrayVisitingReader(source));
+	}
+
+	/**
+	 * Transform a single, huge top-level JSON array read by the given
+	 * {@link ParallelArrayVisitingReader}, which allows to choose the pool and
+	 * the chunk size. The elements of the array are parsed in parallel to
+	 * build its tree, which is then transformed.
+	 * 
+	 * @param source the reader to read the JSON array with
+	 * @return an instance of {@link TransformSourceCollector}
+	 */
+	public static TransformSourceCollector transformArrayInParallel(final ParallelArrayVisitingReader source) {
+		Objects.requireNonNull(source, SOURCE_NOT_NULL);
+		return new TransformSourceCollector(visitor -> new JsonElementVisitingReader(
+				new JsonTreeBuilder().buildArrayInParallel(source)).accept(visitor));
+	}
+
 	/**
 	 * Transform JSON given as a {@link String}. If the given String contains
 	 * anything but a valid JSON document, an exception will be thrown during
@@ -149,7 +260,7 @@ public class Jetro {
 	public static TransformSourceCollector transform(final Object source,
 			final SerializationContext context) {
 		Objects.requireNonNull(source, SOURCE_NOT_NULL);
-		Objects.requireNonNull(context, "context must not be null");
+		Objects.requireNonNull(context, CONTEXT_NOT_NULL);
 		return new TransformSourceCollector(new ObjectVisitingReader(source, context));
 	}
 }
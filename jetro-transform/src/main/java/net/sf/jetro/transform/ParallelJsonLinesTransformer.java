@@ -0,0 +1,326 @@
+package net.sf.jetro.transform;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import net.sf.jetro.context.ReaderContext;
+import net.sf.jetro.context.RenderContext;
+import net.sf.jetro.stream.EncodedNames;
+import net.sf.jetro.stream.Utf8JsonReader;
+import net.sf.jetro.stream.visitor.JsonReturningVisitor;
+import net.sf.jetro.stream.visitor.StreamVisitingReader;
+import net.sf.jetro.transform.highlevel.ChainedJsonVisitorSupplier;
+import net.sf.jetro.transform.highlevel.TransformationPlan;
+import net.sf.jetro.transform.highlevel.TransformationSpecification;
+import net.sf.jetro.visitor.JsonVisitor;
+import net.sf.jetro.visitor.chained.ChainedJsonVisitor;
+
+/**
+ * Transforms UTF-8 encoded JSON Lines (NDJSON) using several threads.
+ * <p>
+ * The source is split into batches of records at line breaks, without parsing
+ * it. The batches are transformed by a pool of worker threads, each using its
+ * own visitor chain obtained from {@link ChainedJsonVisitorSupplier#toChainedJsonVisitor()}
+ * and reusing it for all its records. The resulting records are written to the
+ * target one per line, either in the order of the source (the default) or in
+ * the order the batches complete.
+ * <p>
+ * Each call to toChainedJsonVisitor() must return an independent chain. This
+ * is the case for any {@link TransformationPlan} and any
+ * {@link TransformationSpecification} that doesn't apply custom visitor
+ * instances, as these are shared by all chains.
+ * <p>
+ * As the records of a batch are parsed on their own, the line numbers given
+ * in error messages are relative to the start of the batch.
+ *
+ * @author Matthias Rothe
+ */
+public class ParallelJsonLinesTransformer {
+	/**
+	 * The default number of bytes per batch.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1 << 20;
+
+	private final ChainedJsonVisitorSupplier transformation;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private boolean ordered = true;
+	private ReaderContext context = new ReaderContext();
+
+	/**
+	 * Creates a transformer applying the given transformation to each record.
+	 *
+	 * @param transformation the supplier of the visitor chains to transform with
+	 */
+	public ParallelJsonLinesTransformer(final ChainedJsonVisitorSupplier transformation) {
+		Objects.requireNonNull(transformation, "transformation must not be null");
+		this.transformation = transformation;
+	}
+
+	/**
+	 * Sets the number of worker threads and returns this object. Defaults to
+	 * the number of available processors.
+	 *
+	 * @param threads the number of worker threads
+	 * @return this object
+	 * @throws IllegalArgumentException if threads is less than 1
+	 */
+	public ParallelJsonLinesTransformer setThreads(final int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be at least 1");
+		}
+
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Sets the approximate number of bytes per batch and returns this object.
+	 * Batches are extended to end at a line break, so a batch holds at least
+	 * one complete record. Defaults to {@link #DEFAULT_BATCH_SIZE}.
+	 *
+	 * @param batchSize the number of bytes per batch
+	 * @return this object
+	 * @throws IllegalArgumentException if batchSize is less than 1
+	 */
+	public ParallelJsonLinesTransformer setBatchSize(final int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize must be at least 1");
+		}
+
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	/**
+	 * Sets whether the resulting records are written in the order of the
+	 * source and returns this object. Unordered output avoids waiting for a
+	 * slow batch while later ones are complete. Defaults to true.
+	 *
+	 * @param ordered whether to keep the order of the source
+	 * @return this object
+	 */
+	public ParallelJsonLinesTransformer setOrdered(final boolean ordered) {
+		this.ordered = ordered;
+		return this;
+	}
+
+	/**
+	 * Sets the context to configure the readers of all batches with and
+	 * returns this object.
+	 *
+	 * @param context the context to configure the readers with
+	 * @return this object
+	 */
+	public ParallelJsonLinesTransformer setReaderContext(final ReaderContext context) {
+		Objects.requireNonNull(context, "context must not be null");
+		this.context = context;
+		return this;
+	}
+
+	/**
+	 * Transforms the records read from the given InputStream and writes the
+	 * results to the given OutputStream, one per line. Neither stream is closed.
+	 *
+	 * @param source the InputStream to read the records from
+	 * @param target the OutputStream to write the results to
+	 */
+	public void transform(final InputStream source, final OutputStream target) {
+		Objects.requireNonNull(source, "source must not be null");
+		Objects.requireNonNull(target, "target must not be null");
+
+		ThreadLocal<Worker> workers = ThreadLocal.withInitial(this::newWorker);
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+
+		try {
+			Batcher batcher = new Batcher(source);
+			int maxPending = threads * 2;
+			ByteBuffer batch;
+
+			if (ordered) {
+				Deque<Future<byte[]>> pending = new ArrayDeque<>();
+
+				while ((batch = batcher.nextBatch()) != null) {
+					ByteBuffer records = batch;
+					pending.add(executor.submit(() -> workers.get().transform(records)));
+
+					if (pending.size() >= maxPending) {
+						target.write(await(pending.poll()));
+					}
+				}
+
+				while (!pending.isEmpty()) {
+					target.write(await(pending.poll()));
+				}
+			} else {
+				CompletionService<byte[]> completed = new ExecutorCompletionService<>(executor);
+				int pending = 0;
+
+				while ((batch = batcher.nextBatch()) != null) {
+					ByteBuffer records = batch;
+					completed.submit(() -> workers.get().transform(records));
+
+					if (++pending >= maxPending) {
+						target.write(await(completed.take()));
+						pending--;
+					}
+				}
+
+				for (; pending > 0; pending--) {
+					target.write(await(completed.take()));
+				}
+			}
+
+			target.flush();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static byte[] await(final Future<byte[]> result) throws InterruptedException {
+		try {
+			return result.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	private Worker newWorker() {
+		// creating the chain may run the specification's specify() method, which isn't thread safe
+		synchronized (transformation) {
+			EncodedNames encodedNames;
+
+			if (transformation instanceof TransformationPlan) {
+				encodedNames = ((TransformationPlan) transformation).getEncodedNames();
+			} else if (transformation instanceof TransformationSpecification) {
+				encodedNames = ((TransformationSpecification) transformation).getEncodedNames();
+			} else {
+				encodedNames = new EncodedNames();
+			}
+
+			return new Worker(transformation.toChainedJsonVisitor(), encodedNames);
+		}
+	}
+
+	/**
+	 * Transforms batches of records, reusing its visitor chain.
+	 */
+	private final class Worker {
+		private final JsonVisitor<String> chain;
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private Worker(final ChainedJsonVisitor<Void> transformer, final EncodedNames encodedNames) {
+			transformer.attachVisitor((JsonVisitor) new JsonReturningVisitor(new RenderContext(), encodedNames));
+			chain = (JsonVisitor) transformer;
+		}
+
+		private byte[] transform(final ByteBuffer batch) {
+			StringBuilder records = new StringBuilder(batch.remaining());
+			Utf8JsonReader reader = new Utf8JsonReader(batch.array(), batch.arrayOffset() + batch.position(),
+					batch.remaining(), context);
+
+			new StreamVisitingReader(reader).acceptEach(chain, record -> records.append(record).append('\n'));
+			return records.toString().getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Splits the source into batches ending at a line break. Line feeds can't
+	 * occur within a JSON record and no byte of a multi-byte UTF-8 character
+	 * equals a line feed, so no decoding is necessary.
+	 */
+	private final class Batcher {
+		private final InputStream source;
+		private byte[] carry = new byte[0];
+		private int carryLength;
+		private boolean endOfInput;
+
+		private Batcher(final InputStream source) {
+			this.source = source;
+		}
+
+		private ByteBuffer nextBatch() throws IOException {
+			if (endOfInput && carryLength == 0) {
+				return null;
+			}
+
+			byte[] batch = Arrays.copyOf(carry, Math.max(batchSize, carryLength + 1));
+			int length = carryLength;
+			int searchFrom = 0;
+
+			while (true) {
+				while (!endOfInput && length < batch.length) {
+					int read = source.read(batch, length, batch.length - length);
+
+					if (read < 0) {
+						endOfInput = true;
+					} else {
+						length += read;
+					}
+				}
+
+				int end = lastLineFeed(batch, searchFrom, length);
+
+				if (end >= 0) {
+					carryLength = length - end - 1;
+					carry = Arrays.copyOfRange(batch, end + 1, length);
+					return ByteBuffer.wrap(batch, 0, end + 1);
+				} else if (endOfInput) {
+					carryLength = 0;
+					return length == 0 ? null : ByteBuffer.wrap(batch, 0, length);
+				}
+
+				// a record longer than the batch size
+				searchFrom = length;
+				batch = Arrays.copyOf(batch, batch.length * 2);
+			}
+		}
+
+		private int lastLineFeed(final byte[] batch, final int from, final int to) {
+			for (int i = to - 1; i >= from; i--) {
+				if (batch[i] == '\n') {
+					return i;
+				}
+			}
+
+			return -1;
+		}
+	}
+
+	private static final class WorkerThreadFactory implements ThreadFactory {
+		private final ThreadFactory delegate = Executors.defaultThreadFactory();
+
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			Thread thread = delegate.newThread(runnable);
+			thread.setName("jetro-" + thread.getName());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -9,13 +9,19 @@ import java.io.Reader;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 import net.sf.jetro.context.RenderContext;
 import net.sf.jetro.object.deserializer.DeserializationContext;
 import net.sf.jetro.object.reflect.TypeToken;
 import net.sf.jetro.object.visitor.ObjectBuildingVisitor;
+import net.sf.jetro.stream.CompressedStreams;
+import net.sf.jetro.stream.EncodedNames;
+import net.sf.jetro.stream.JsonGenerator;
 import net.sf.jetro.stream.JsonWriter;
+import net.sf.jetro.stream.Utf8JsonWriter;
 import net.sf.jetro.stream.visitor.JsonReturningVisitor;
 import net.sf.jetro.stream.visitor.JsonWritingVisitor;
 import net.sf.jetro.tree.JsonElement;
@@ -40,13 +46,21 @@ import net.sf.jetro.visitor.chained.ChainedJsonVisitor;
 public class TransformApplier<R> {
 	private final VisitingReader source;
 	private final ChainedJsonVisitor<R> transformer;
+	private final EncodedNames encodedNames;
 	
 	TransformApplier(final VisitingReader source, final ChainedJsonVisitor<R> transformer) {
+		this(source, transformer, new EncodedNames());
+	}
+	
+	TransformApplier(final VisitingReader source, final ChainedJsonVisitor<R> transformer,
+			final EncodedNames encodedNames) {
 		Objects.requireNonNull(source, "source must not be null");	
 		Objects.requireNonNull(transformer, "transformer must not be null");
+		Objects.requireNonNull(encodedNames, "encodedNames must not be null");
 		
 		this.source = source;
 		this.transformer = transformer;
+		this.encodedNames = encodedNames;
 	}
 
 	/**
@@ -60,11 +74,7 @@ public class TransformApplier<R> {
 	public void writingTo(final OutputStream target) {
 		Objects.requireNonNull(target, "target must not be null");
 		
-		try {
-			writingTo(target, "UTF-8");
-		} catch (UnsupportedEncodingException e) {
-			throw new RuntimeException(e);
-		}
+		writingTo(new Utf8JsonWriter(target));
 	}
 	
 	/**
@@ -80,7 +90,43 @@ public class TransformApplier<R> {
 		Objects.requireNonNull(target, "target must not be null");
 		Objects.requireNonNull(charsetName, "charsetName must not be null");
 		
-		writingTo(new OutputStreamWriter(target, charsetName));
+		if (StandardCharsets.UTF_8.name().equalsIgnoreCase(charsetName)) {
+			writingTo(new Utf8JsonWriter(target));
+		} else {
+			writingTo(new OutputStreamWriter(target, charsetName));
+		}
+	}
+	
+	/**
+	 * Perform the transformation(s) if any and write the resulting JSON GZIP
+	 * compressed to the given {@link OutputStream}.
+	 * <p>
+	 * The JSON is written with UTF-8 encoding.
+	 * 
+	 * @param target the OutputStream to write to
+	 */
+	public void writingGzipTo(final OutputStream target) {
+		Objects.requireNonNull(target, "target must not be null");
+		
+		try {
+			writingTo(new Utf8JsonWriter(CompressedStreams.gzip(target)));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	/**
+	 * Perform the transformation(s) if any and write the resulting JSON zlib
+	 * (Deflate) compressed to the given {@link OutputStream}.
+	 * <p>
+	 * The JSON is written with UTF-8 encoding.
+	 * 
+	 * @param target the OutputStream to write to
+	 */
+	public void writingDeflatedTo(final OutputStream target) {
+		Objects.requireNonNull(target, "target must not be null");
+		
+		writingTo(new Utf8JsonWriter(CompressedStreams.deflate(target)));
 	}
 	
 	/**
@@ -89,11 +135,17 @@ public class TransformApplier<R> {
 	 * 
 	 * @param target the Writer to write to
 	 */
-	@SuppressWarnings("unchecked")
 	public void writingTo(final Writer target) {
 		Objects.requireNonNull(target, "target must not be null");
 		
-		try (JsonWriter writer = new JsonWriter(target)) {
+		writingTo(new JsonWriter(target));
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void writingTo(final JsonGenerator generator) {
+		generator.setEncodedNames(encodedNames);
+		
+		try (JsonGenerator writer = generator) {
 			JsonWritingVisitor visitor = new JsonWritingVisitor(writer);
 			transformer.attachVisitor((JsonVisitor<R>) visitor);	
 			source.accept(transformer);
@@ -230,7 +282,7 @@ public class TransformApplier<R> {
 	 * @return the resulting JSON
 	 */
 	public String andReturnAsJson() {
-		return applyTransformation(new JsonReturningVisitor());
+		return applyTransformation(new JsonReturningVisitor(new RenderContext(), encodedNames));
 	}
 	
 	/**
@@ -242,7 +294,7 @@ public class TransformApplier<R> {
 	 */
 	public String andReturnAsJson(final RenderContext context) {
 		Objects.requireNonNull(context, "context must not be null");
-		return applyTransformation(new JsonReturningVisitor(context));
+		return applyTransformation(new JsonReturningVisitor(context, encodedNames));
 	}
 	
 	/**
@@ -309,6 +361,90 @@ public class TransformApplier<R> {
 		return applyTransformation(new ObjectBuildingVisitor<T>(typeToken, context));
 	}
 	
+	/**
+	 * Perform the transformation(s) if any on each top-level value (record) of
+	 * the source, as found in JSON Lines (NDJSON) files, and write the resulting
+	 * JSON records to the given {@link OutputStream}, one per line.
+	 * <p>
+	 * The JSON is written with UTF-8 encoding.
+	 * 
+	 * @param target the OutputStream to write to
+	 * @see #writingRecordsTo(Writer)
+	 */
+	public void writingRecordsTo(final OutputStream target) {
+		Objects.requireNonNull(target, "target must not be null");
+		
+		try {
+			writingRecordsTo(new OutputStreamWriter(target, "UTF-8"));
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	/**
+	 * Perform the transformation(s) if any on each top-level value (record) of
+	 * the source, as found in JSON Lines (NDJSON) files, and write the resulting
+	 * JSON records to the given {@link Writer}, one per line.
+	 * <p>
+	 * The transformer is set up once and reused for all records, see
+	 * {@link VisitingReader#acceptEach(JsonVisitor, Consumer)}.
+	 * 
+	 * @param target the Writer to write to
+	 */
+	public void writingRecordsTo(final Writer target) {
+		Objects.requireNonNull(target, "target must not be null");
+		
+		try (Writer writer = target) {
+			applyTransformationToEach(new JsonReturningVisitor(), record -> {
+				try {
+					writer.write(record);
+					writer.write('\n');
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	/**
+	 * Perform the transformation(s) if any on each top-level value (record) of
+	 * the source and pass the resulting JSON of each record as a {@link String}
+	 * to the given consumer, using the default {@link RenderContext}.
+	 * <p>
+	 * The transformer is set up once and reused for all records, see
+	 * {@link VisitingReader#acceptEach(JsonVisitor, Consumer)}.
+	 * 
+	 * @param consumer the consumer of the resulting JSON records
+	 */
+	public void andReturnEachAsJson(final Consumer<? super String> consumer) {
+		Objects.requireNonNull(consumer, "consumer must not be null");
+		applyTransformationToEach(new JsonReturningVisitor(), consumer);
+	}
+	
+	/**
+	 * Perform the transformation(s) if any on each top-level value (record) of
+	 * the source and pass the resulting JSON of each record as a
+	 * {@link JsonElement} to the given consumer.
+	 * <p>
+	 * The transformer is set up once and reused for all records, see
+	 * {@link VisitingReader#acceptEach(JsonVisitor, Consumer)}.
+	 * 
+	 * @param consumer the consumer of the resulting JSON records
+	 */
+	public void andReturnEachAsJsonElement(final Consumer<? super JsonElement> consumer) {
+		Objects.requireNonNull(consumer, "consumer must not be null");
+		applyTransformationToEach(new JsonTreeBuildingVisitor(), consumer);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private <R2> void applyTransformationToEach(final JsonVisitor<R2> visitor,
+			final Consumer<? super R2> consumer) {
+		transformer.attachVisitor((JsonVisitor<R>) visitor);
+		source.acceptEach(transformer, result -> consumer.accept((R2) result));
+	}
+	
 	@SuppressWarnings("unchecked")
 	private <R2> R2 applyTransformation(final JsonVisitor<R2> visitor) {
 		transformer.attachVisitor((JsonVisitor<R>) visitor);
@@ -2,6 +2,7 @@ package net.sf.jetro.transform;
 
 import java.util.Objects;
 
+import net.sf.jetro.transform.highlevel.TransformationPlan;
 import net.sf.jetro.transform.highlevel.TransformationSpecification;
 import net.sf.jetro.visitor.VisitingReader;
 import net.sf.jetro.visitor.chained.ChainedJsonVisitor;
@@ -55,7 +56,23 @@ public class TransformSourceCollector {
 	 */
 	public TransformApplier<?> applying(final TransformationSpecification specification) {
 		Objects.requireNonNull(specification, "specification must not be null");
-		return applying(specification.toChainedJsonVisitor());
+		return new TransformApplier<>(source, specification.toChainedJsonVisitor(),
+				specification.getEncodedNames());
+	}
+	
+	/**
+	 * Specify a {@link TransformationPlan} to perform the intended
+	 * transformation. Unlike a {@link TransformationSpecification}, a plan is
+	 * compiled once and may be applied by many threads at once.
+	 * 
+	 * @param plan the TransformationPlan to perform the transformation
+	 * @return an instance of {@link TransformApplier}
+	 * @see TransformationSpecification#compile()
+	 */
+	public TransformApplier<?> applying(final TransformationPlan plan) {
+		Objects.requireNonNull(plan, "plan must not be null");
+		return new TransformApplier<>(source, plan.toChainedJsonVisitor(),
+				plan.getEncodedNames());
 	}
 	
 	/**
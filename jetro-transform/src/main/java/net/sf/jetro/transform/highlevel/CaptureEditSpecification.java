@@ -13,7 +13,6 @@ import net.sf.jetro.tree.visitor.JsonTreeBuildingVisitor;
 import net.sf.jetro.visitor.JsonArrayVisitor;
 import net.sf.jetro.visitor.JsonObjectVisitor;
 import net.sf.jetro.visitor.chained.MultiplexingJsonVisitor;
-import net.sf.jetro.visitor.pathaware.PathAwareJsonVisitor;
 
 /**
  * This class is part of the {@link TransformationSpecification} fluent API.
@@ -50,8 +49,8 @@ public class CaptureEditSpecification<S extends JsonType, T extends JsonType> {
 	public void andSaveAs(final String variableName) {
 		Objects.requireNonNull(variableName, "variableName must not be null");
 		
-		specification.addChainedJsonVisitorSupplier(() -> {
-			return new PathAwareJsonVisitor<Void>() {
+		specification.addChainStage(context -> {
+			return new RuleVisitor(context) {
 				private JsonTreeBuildingVisitor treeBuilder = new JsonTreeBuildingVisitor();
 				
 				@Override
@@ -65,7 +64,7 @@ public class CaptureEditSpecification<S extends JsonType, T extends JsonType> {
 				}
 				
 				private boolean passOn() {
-					if (currentPath().matches(path)) {
+					if (currentPathMatches(path)) {
 						return false;
 					} else {
 						return true;
@@ -77,7 +76,7 @@ public class CaptureEditSpecification<S extends JsonType, T extends JsonType> {
 						final JsonObjectVisitor<Void> visitor) {
 					JsonObjectVisitor<Void> actualVisitor = visitor;
 					
-					if (currentPath().matches(path)) {
+					if (currentPathMatches(path)) {
 						actualVisitor = getMultiplexingJsonVisitor(
 								multiVisitor -> multiVisitor.visitObject());
 					}
@@ -90,7 +89,7 @@ public class CaptureEditSpecification<S extends JsonType, T extends JsonType> {
 						final JsonArrayVisitor<Void> visitor) {
 					JsonArrayVisitor<Void> actualVisitor = visitor;
 					
-					if (currentPath().matches(path)) {
+					if (currentPathMatches(path)) {
 						actualVisitor = getMultiplexingJsonVisitor(
 								multiVisitor -> multiVisitor.visitArray());
 					}
@@ -117,9 +116,9 @@ public class CaptureEditSpecification<S extends JsonType, T extends JsonType> {
 				
 				@SuppressWarnings("unchecked")
 				private void handleAfterVisitEnd() {
-					if (currentPath().matches(path)) {
+					if (currentPathMatches(path)) {
 						JsonType value = (JsonType) treeBuilder.getVisitingResult();
-						specification.putVariable(variableName, editor.apply((S) value));
+						context.putVariable(variableName, editor.apply((S) value));
 					}
 				}
 				
@@ -140,8 +139,8 @@ public class CaptureEditSpecification<S extends JsonType, T extends JsonType> {
 
 				@SuppressWarnings("unchecked")
 				private void handleAfterVisitValue(JsonPrimitive<?> value) {
-					if (currentPath().matches(path)) {
-						specification.putVariable(variableName, editor.apply((S) value));
+					if (currentPathMatches(path)) {
+						context.putVariable(variableName, editor.apply((S) value));
 					}
 				}
 			};
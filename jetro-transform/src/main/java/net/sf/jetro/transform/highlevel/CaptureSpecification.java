@@ -14,7 +14,6 @@ import net.sf.jetro.visitor.JsonArrayVisitor;
 import net.sf.jetro.visitor.JsonObjectVisitor;
 import net.sf.jetro.visitor.JsonVisitor;
 import net.sf.jetro.visitor.chained.MultiplexingJsonVisitor;
-import net.sf.jetro.visitor.pathaware.PathAwareJsonVisitor;
 
 /**
  * This class is part of the {@link TransformationSpecification} fluent API.
@@ -26,11 +25,12 @@ import net.sf.jetro.visitor.pathaware.PathAwareJsonVisitor;
  */
 public class CaptureSpecification {
 	private final class EditAndReplaceTransformer
-	<S extends JsonType, T extends JsonType> extends PathAwareJsonVisitor<Void> {
+	<S extends JsonType, T extends JsonType> extends RuleVisitor {
 		private final Function<S, T> editor;
 		private JsonTreeBuildingVisitor treeBuilder = new JsonTreeBuildingVisitor();
 
-		private EditAndReplaceTransformer(Function<S, T> editor) {
+		private EditAndReplaceTransformer(Function<S, T> editor, ChainContext context) {
+			super(context);
 			this.editor = editor;
 		}
 
@@ -65,7 +65,7 @@ public class CaptureSpecification {
 		}
 
 		private boolean passOn() {
-			if (currentPath().matches(path)) {
+			if (currentPathMatches(path)) {
 				return false;
 			} else {
 				return true;
@@ -77,7 +77,7 @@ public class CaptureSpecification {
 				final JsonObjectVisitor<Void> visitor) {
 			JsonObjectVisitor<Void> actualVisitor = visitor;
 			
-			if (currentPath().matches(path)) {
+			if (currentPathMatches(path)) {
 				MultiplexingJsonVisitor<Void> multiVisitor =
 						new MultiplexingJsonVisitor<Void>(visitor, treeBuilder);
 				
@@ -97,7 +97,7 @@ public class CaptureSpecification {
 				final JsonArrayVisitor<Void> visitor) {
 			JsonArrayVisitor<Void> actualVisitor = visitor;
 			
-			if (currentPath().matches(path)) {						
+			if (currentPathMatches(path)) {						
 				MultiplexingJsonVisitor<Void> multiVisitor =
 						new MultiplexingJsonVisitor<Void>(visitor, treeBuilder);
 				
@@ -113,7 +113,7 @@ public class CaptureSpecification {
 		}
 
 		private void handleAfterVisitEnd() {
-			if (currentPath().matches(path)) {
+			if (currentPathMatches(path)) {
 				handleAfterVisitValue((JsonType) treeBuilder.getVisitingResult());
 			}
 		}
@@ -137,7 +137,7 @@ public class CaptureSpecification {
 		private void handleAfterVisitValue(final JsonType jsonType) {
 			JsonVisitor<Void> visitor = getNextVisitor();
 			
-			if (visitor != null && currentPath().matches(path)) {
+			if (visitor != null && currentPathMatches(path)) {
 				JsonType editedValue = editor.apply((S) jsonType);
 				
 				if (editedValue != null) {
@@ -236,8 +236,8 @@ public class CaptureSpecification {
 	editAndReplace(final Function<S, T> editor) {
 		Objects.requireNonNull(editor, EDITOR_NOT_NULL);
 		
-		specification.addChainedJsonVisitorSupplier(() -> {
-			return new EditAndReplaceTransformer<>(editor);
+		specification.addChainStage(context -> {
+			return new EditAndReplaceTransformer<>(editor, context);
 		});
 	}
 }
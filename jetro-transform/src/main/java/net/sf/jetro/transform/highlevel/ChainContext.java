@@ -0,0 +1,71 @@
+package net.sf.jetro.transform.highlevel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.jetro.path.JsonPathMatcher;
+import net.sf.jetro.tree.JsonType;
+
+/**
+ * The state shared by the visitors of one chain created from a
+ * {@link TransformationSpecification}, including the visitors of nested
+ * specifications: the variables captured while transforming. Each chain has a
+ * context of its own, so chains applied at the same time never see each
+ * other's variables.
+ * <p>
+ * A context also tells the visitors whether the specification they belong to
+ * renders null values and hands them the path matcher compiled from the paths
+ * of that specification. A nested specification gets a context of its own
+ * sharing the variables of the chain, see
+ * {@link #nested(boolean, JsonPathMatcher)}.
+ *
+ * @author Matthias Rothe
+ */
+final class ChainContext {
+	private final Map<String, JsonType> variables;
+	private final boolean renderNullValues;
+	private final JsonPathMatcher pathMatcher;
+
+	ChainContext(final boolean renderNullValues, final JsonPathMatcher pathMatcher) {
+		this(new HashMap<>(), renderNullValues, pathMatcher);
+	}
+
+	private ChainContext(final Map<String, JsonType> variables, final boolean renderNullValues,
+			final JsonPathMatcher pathMatcher) {
+		this.variables = variables;
+		this.renderNullValues = renderNullValues;
+		this.pathMatcher = pathMatcher;
+	}
+
+	/**
+	 * Returns the context of a nested specification with the given setting
+	 * and path matcher, sharing the variables of this context.
+	 */
+	ChainContext nested(final boolean renderNullValues, final JsonPathMatcher pathMatcher) {
+		if (renderNullValues == this.renderNullValues && pathMatcher == this.pathMatcher) {
+			return this;
+		}
+
+		return new ChainContext(variables, renderNullValues, pathMatcher);
+	}
+
+	boolean isRenderNullValues() {
+		return renderNullValues;
+	}
+
+	JsonPathMatcher getPathMatcher() {
+		return pathMatcher;
+	}
+
+	void putVariable(final String variableName, final JsonType value) {
+		variables.put(variableName, value);
+	}
+
+	JsonType getVariable(final String variableName) {
+		return variables.get(variableName);
+	}
+
+	void clearVariables() {
+		variables.clear();
+	}
+}
@@ -0,0 +1,33 @@
+package net.sf.jetro.transform.highlevel;
+
+import net.sf.jetro.path.JsonPathMatcher;
+import net.sf.jetro.visitor.chained.ChainedJsonVisitor;
+
+/**
+ * A supplier of a visitor of a {@link TransformationSpecification} which
+ * needs the state of the chain it becomes part of, see {@link ChainContext}.
+ *
+ * @author Matthias Rothe
+ */
+@FunctionalInterface
+interface ChainStage extends ChainedJsonVisitorSupplier {
+
+	/**
+	 * Provide a {@link ChainedJsonVisitor} for the chain with the given context.
+	 *
+	 * @param context the context of the chain
+	 * @return the ChainedJsonVisitor provided
+	 */
+	ChainedJsonVisitor<Void> toChainedJsonVisitor(ChainContext context);
+
+	/**
+	 * Provide a {@link ChainedJsonVisitor} for a chain of its own, which
+	 * doesn't render null values and has no path matcher of a specification.
+	 *
+	 * @return the ChainedJsonVisitor provided
+	 */
+	@Override
+	default ChainedJsonVisitor<Void> toChainedJsonVisitor() {
+		return toChainedJsonVisitor(new ChainContext(false, JsonPathMatcher.compile()));
+	}
+}
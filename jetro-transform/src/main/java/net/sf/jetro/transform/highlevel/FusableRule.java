@@ -0,0 +1,150 @@
+package net.sf.jetro.transform.highlevel;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import net.sf.jetro.path.JsonPath;
+import net.sf.jetro.visitor.chained.ChainedJsonVisitor;
+
+/**
+ * A rule of a {@link TransformationSpecification} which only decides what to
+ * pass on or how to name a property. Consecutive rules of this kind are fused
+ * into a single visitor by {@link FusedRules}, as far as that doesn't change
+ * what each rule sees.
+ *
+ * @author Matthias Rothe
+ */
+abstract class FusableRule implements ChainedJsonVisitorSupplier {
+	private final JsonPath path;
+
+	private FusableRule(final JsonPath path) {
+		this.path = path;
+	}
+
+	/**
+	 * Returns the path the rule applies at or null if it applies anywhere.
+	 */
+	JsonPath getPath() {
+		return path;
+	}
+
+	/**
+	 * Tells whether this rule drops anything and so may shift the array
+	 * indexes the following rules see.
+	 */
+	abstract boolean isFilter();
+
+	/**
+	 * Tells whether this rule may give a property the given name or take it
+	 * from it and so change the paths the following rules see.
+	 */
+	abstract boolean mayRenameFromOrTo(String name);
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.sf.jetro.transform.highlevel.ChainedJsonVisitorSupplier#toChainedJsonVisitor()
+	 */
+	@Override
+	public ChainedJsonVisitor<Void> toChainedJsonVisitor() {
+		return new FusedRules(Collections.singletonList(this)).toChainedJsonVisitor();
+	}
+
+	static Filter keep(final JsonPath path) {
+		return new Filter(path, true);
+	}
+
+	static Filter remove(final JsonPath path) {
+		return new Filter(path, false);
+	}
+
+	/**
+	 * Keeps only what is at or above the path or removes what is at the path.
+	 */
+	static final class Filter extends FusableRule {
+		private final boolean keep;
+
+		private Filter(final JsonPath path, final boolean keep) {
+			super(Objects.requireNonNull(path, "path must not be null"));
+			this.keep = keep;
+		}
+
+		boolean isKeep() {
+			return keep;
+		}
+
+		@Override
+		boolean isFilter() {
+			return true;
+		}
+
+		@Override
+		boolean mayRenameFromOrTo(final String name) {
+			return false;
+		}
+	}
+
+	/**
+	 * Renames the properties at the path or, without a path, the properties
+	 * with the name or matching the pattern anywhere.
+	 */
+	static final class Rename extends FusableRule {
+		private final String name;
+		private final Pattern pattern;
+		private final boolean ignoreCase;
+		private final String newName;
+
+		private Rename(final JsonPath path, final String name, final Pattern pattern,
+				final boolean ignoreCase, final String newName) {
+			super(path);
+			this.name = name;
+			this.pattern = pattern;
+			this.ignoreCase = ignoreCase;
+			this.newName = Objects.requireNonNull(newName, "newName must not be null");
+		}
+
+		static Rename at(final JsonPath path, final String newName) {
+			Objects.requireNonNull(path, "path must not be null");
+			String name = path.hasWildcardAt(path.getDepth() - 1) ? null
+					: path.getPropertyNameAt(path.getDepth() - 1);
+			return new Rename(path, name, null, false, newName);
+		}
+
+		static Rename named(final String name, final boolean matching,
+				final boolean ignoreCase, final String newName) {
+			Objects.requireNonNull(name, "name must not be null");
+			return new Rename(null, name, matching ? Pattern.compile(name) : null,
+					ignoreCase, newName);
+		}
+
+		/**
+		 * Tells whether a property with the given name is renamed, if this
+		 * rule has no path.
+		 */
+		boolean renames(final String key) {
+			return (pattern != null && pattern.matcher(key).matches()) ||
+					(ignoreCase && key.equalsIgnoreCase(name)) ||
+					key.equals(name);
+		}
+
+		String getNewName() {
+			return newName;
+		}
+
+		@Override
+		boolean isFilter() {
+			return false;
+		}
+
+		@Override
+		boolean mayRenameFromOrTo(final String name) {
+			if (name.equals(newName)) {
+				return true;
+			} else if (getPath() != null) {
+				return this.name == null || this.name.equals(name);
+			} else {
+				return renames(name);
+			}
+		}
+	}
+}
@@ -0,0 +1,434 @@
+package net.sf.jetro.transform.highlevel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import net.sf.jetro.path.JsonPath;
+import net.sf.jetro.path.JsonPathCursor;
+import net.sf.jetro.path.JsonPathMatcher;
+import net.sf.jetro.visitor.chained.ChainedJsonVisitor;
+import net.sf.jetro.visitor.pathaware.PathAwareJsonVisitor;
+
+/**
+ * Consecutive {@link FusableRule}s of a {@link TransformationSpecification}
+ * compiled for a single visitor, which tracks the path once for all of them.
+ * <p>
+ * The paths of all rules are matched by one {@link JsonPathMatcher}, the one
+ * the specification compiled from the paths of all its rules. For each of its
+ * patterns, a dispatch table tells whether a remove rule drops what the
+ * pattern matches and which keep rules keep it. Keep rules also keep
+ * the parents of their paths. Which keep rules the current path is a parent
+ * for is tracked in a bit set per depth, derived from the one of the depth
+ * above by tables of the elements of the paths at each depth. So deciding on
+ * an event takes a lookup per matching pattern and a few bit operations,
+ * however many rules there are. Renames are applied in their order to the
+ * names passed on.
+ * <p>
+ * A chain of one visitor per rule lets each rule see what the rules before it
+ * pass on. The fused rules see the paths of the source instead, so a run only
+ * takes rules seeing no difference: a rule is not fused behind a rename which
+ * may give a property one of the names in its path or take it from it, and a
+ * rule with an array index in its path is not fused behind a filter, whose
+ * dropping of array elements shifts the indexes of the following ones. See
+ * {@link #canFuse(List, FusableRule)}.
+ * <p>
+ * Instances are immutable and thread safe, each visitor created keeps the
+ * state of its own transformation.
+ *
+ * @author Matthias Rothe
+ */
+final class FusedRules implements ChainedJsonVisitorSupplier {
+	private final JsonPathMatcher matcher;
+	private final int words;
+	private final boolean filtering;
+
+	// the dispatch table, indexed by the patterns of the matcher
+	private final boolean[] removing;
+	private final long[][] keeping;
+
+	// the keep rules the path is a parent for, by the elements of the path per depth
+	private final long[] allKept;
+	private final List<Map<String, long[]>> keptNames = new ArrayList<>();
+	private final List<Map<Integer, long[]>> keptIndexes = new ArrayList<>();
+	private final List<long[]> keptAny = new ArrayList<>();
+
+	private final FusableRule.Rename[] renames;
+	private final int[] renamePatterns;
+
+	/**
+	 * Fuses the given rules, matching their paths by a matcher of their own.
+	 */
+	FusedRules(final List<? extends FusableRule> rules) {
+		this(rules, JsonPathMatcher.compile(pathsOf(rules)));
+	}
+
+	/**
+	 * Fuses the given rules, matching their paths by the given matcher, which
+	 * must know all of them.
+	 */
+	FusedRules(final List<? extends FusableRule> rules, final JsonPathMatcher matcher) {
+		Objects.requireNonNull(rules, "rules must not be null");
+		Objects.requireNonNull(matcher, "matcher must not be null");
+
+		Map<JsonPath, Integer> patterns = new HashMap<>();
+		List<FusableRule.Filter> keeps = new ArrayList<>();
+		List<FusableRule.Rename> renames = new ArrayList<>();
+
+		for (FusableRule rule : rules) {
+			if (rule.getPath() != null) {
+				patterns.put(rule.getPath(), patternOf(matcher, rule.getPath()));
+			}
+
+			if (rule instanceof FusableRule.Filter) {
+				if (((FusableRule.Filter) rule).isKeep()) {
+					keeps.add((FusableRule.Filter) rule);
+				}
+			} else {
+				renames.add((FusableRule.Rename) rule);
+			}
+		}
+
+		this.matcher = matcher;
+		words = (keeps.size() + 63) >>> 6;
+		filtering = renames.size() < rules.size();
+		removing = new boolean[matcher.size()];
+		keeping = new long[matcher.size()][];
+		allKept = new long[words];
+
+		for (FusableRule rule : rules) {
+			if (rule instanceof FusableRule.Filter && !((FusableRule.Filter) rule).isKeep()) {
+				removing[patterns.get(rule.getPath())] = true;
+			}
+		}
+
+		for (int keep = 0; keep < keeps.size(); keep++) {
+			JsonPath path = keeps.get(keep).getPath();
+			int pattern = patterns.get(path);
+
+			if (keeping[pattern] == null) {
+				keeping[pattern] = new long[words];
+			}
+
+			set(keeping[pattern], keep);
+			set(allKept, keep);
+			addParentElements(path, keep);
+		}
+
+		this.renames = renames.toArray(new FusableRule.Rename[renames.size()]);
+		this.renamePatterns = new int[this.renames.length];
+
+		for (int i = 0; i < this.renames.length; i++) {
+			JsonPath path = this.renames[i].getPath();
+			renamePatterns[i] = path == null ? -1 : patterns.get(path);
+		}
+	}
+
+	private static List<JsonPath> pathsOf(final List<? extends FusableRule> rules) {
+		List<JsonPath> paths = new ArrayList<>();
+
+		for (FusableRule rule : rules) {
+			if (rule.getPath() != null) {
+				paths.add(rule.getPath());
+			}
+		}
+
+		return paths;
+	}
+
+	private static int patternOf(final JsonPathMatcher matcher, final JsonPath path) {
+		int pattern = matcher.indexOf(path);
+
+		if (pattern < 0) {
+			throw new IllegalArgumentException("The matcher doesn't know the path " + path);
+		}
+
+		return pattern;
+	}
+
+	/**
+	 * Registers the elements of the path of a keep rule, as compared by
+	 * {@link JsonPath#isParentPathOf(JsonPath)}: an optional element is
+	 * passed by any element, a concrete one by an equal one and any other
+	 * by none.
+	 */
+	private void addParentElements(final JsonPath path, final int keep) {
+		for (int depth = 0; depth < path.getDepth(); depth++) {
+			if (depth == keptAny.size()) {
+				keptNames.add(new HashMap<>());
+				keptIndexes.add(new HashMap<>());
+				keptAny.add(new long[words]);
+			}
+
+			if (path.hasOptionalAt(depth)) {
+				set(keptAny.get(depth), keep);
+			} else if (path.hasWildcardAt(depth)) {
+				continue;
+			} else if (path.hasPropertyNameAt(depth)) {
+				set(keptNames.get(depth).computeIfAbsent(path.getPropertyNameAt(depth),
+						name -> new long[words]), keep);
+			} else if (path.hasArrayIndexAt(depth)) {
+				set(keptIndexes.get(depth).computeIfAbsent(path.getArrayIndexAt(depth),
+						index -> new long[words]), keep);
+			}
+		}
+	}
+
+	/**
+	 * Tells whether the given rule can be fused behind the given run of
+	 * rules without seeing anything else than in a chain of one visitor per
+	 * rule.
+	 *
+	 * @param run the rules fused so far
+	 * @param rule the next rule
+	 * @return <code>true</code> if and only if the rule can be fused
+	 */
+	static boolean canFuse(final List<? extends FusableRule> run, final FusableRule rule) {
+		JsonPath path = rule.getPath();
+
+		if (path == null) {
+			return true;
+		}
+
+		boolean indexed = false;
+
+		for (int depth = 0; depth < path.getDepth(); depth++) {
+			if (path.hasWildcardAt(depth)) {
+				continue;
+			} else if (path.hasArrayIndexAt(depth)) {
+				indexed = true;
+			} else if (path.hasPropertyNameAt(depth)) {
+				String name = path.getPropertyNameAt(depth);
+
+				for (FusableRule previous : run) {
+					if (previous.mayRenameFromOrTo(name)) {
+						return false;
+					}
+				}
+			}
+		}
+
+		if (indexed) {
+			for (FusableRule previous : run) {
+				if (previous.isFilter()) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Replaces the runs of consecutive rules which can be fused by their
+	 * fused form, keeping all other suppliers as they are.
+	 *
+	 * @param suppliers the suppliers of the visitors to chain, in their order
+	 * @param matcher the matcher knowing the paths of all rules
+	 * @return the suppliers with the runs of rules fused
+	 */
+	static List<ChainedJsonVisitorSupplier> fuse(
+			final Iterable<? extends ChainedJsonVisitorSupplier> suppliers, final JsonPathMatcher matcher) {
+		List<ChainedJsonVisitorSupplier> fused = new ArrayList<>();
+		List<FusableRule> run = new ArrayList<>();
+
+		for (ChainedJsonVisitorSupplier supplier : suppliers) {
+			if (supplier instanceof FusableRule && canFuse(run, (FusableRule) supplier)) {
+				run.add((FusableRule) supplier);
+				continue;
+			}
+
+			if (!run.isEmpty()) {
+				fused.add(new FusedRules(run, matcher));
+				run = new ArrayList<>();
+			}
+
+			if (supplier instanceof FusableRule) {
+				run.add((FusableRule) supplier);
+			} else {
+				fused.add(supplier);
+			}
+		}
+
+		if (!run.isEmpty()) {
+			fused.add(new FusedRules(run, matcher));
+		}
+
+		return fused;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.sf.jetro.transform.highlevel.ChainedJsonVisitorSupplier#toChainedJsonVisitor()
+	 */
+	@Override
+	public ChainedJsonVisitor<Void> toChainedJsonVisitor() {
+		return new FusedRulesVisitor();
+	}
+
+	private static void set(final long[] bits, final int bit) {
+		bits[bit >>> 6] |= 1L << bit;
+	}
+
+	/**
+	 * Applies the fused rules, keeping the state of one transformation.
+	 */
+	private final class FusedRulesVisitor extends PathAwareJsonVisitor<Void> {
+		private long[][] parents = new long[16][];
+		private final long[] kept = new long[words];
+
+		private FusedRulesVisitor() {
+			usePathMatcher(matcher);
+			parents[0] = allKept;
+		}
+
+		@Override
+		protected boolean doBeforeVisitObject() {
+			return passOn();
+		}
+
+		@Override
+		protected boolean doBeforeVisitArray() {
+			return passOn();
+		}
+
+		@Override
+		protected String doBeforeVisitProperty(final String name) {
+			if (!passOn()) {
+				return null;
+			}
+
+			String newName = name;
+
+			for (int i = 0; i < renames.length; i++) {
+				int pattern = renamePatterns[i];
+
+				if (pattern >= 0 ? currentPathMatches(pattern) : renames[i].renames(newName)) {
+					newName = renames[i].getNewName();
+				}
+			}
+
+			return newName;
+		}
+
+		@Override
+		protected Boolean doBeforeVisitValue(final boolean value) {
+			return passOn() ? value : null;
+		}
+
+		@Override
+		protected Number doBeforeVisitValue(final Number value) {
+			return passOn() ? value : null;
+		}
+
+		@Override
+		protected String doBeforeVisitValue(final String value) {
+			return passOn() ? value : null;
+		}
+
+		@Override
+		protected boolean doBeforeVisitNullValue() {
+			return passOn();
+		}
+
+		@Override
+		protected boolean observesContent() {
+			// only decides what to pass on, so dropped subtrees may be skipped
+			return false;
+		}
+
+		private boolean passOn() {
+			if (!filtering) {
+				return true;
+			}
+
+			JsonPathCursor cursor = currentPathCursor();
+			System.arraycopy(parents(cursor), 0, kept, 0, words);
+			JsonPathMatcher.State state = cursor.getMatcherState();
+
+			for (int i = 0; i < state.getMatchCount(); i++) {
+				if (!dispatch(state.getMatch(i))) {
+					return false;
+				}
+			}
+
+			for (int word = 0; word < words; word++) {
+				if (kept[word] != allKept[word]) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		private boolean dispatch(final int pattern) {
+			if (removing[pattern]) {
+				return false;
+			}
+
+			long[] keptByPattern = keeping[pattern];
+
+			if (keptByPattern != null) {
+				for (int word = 0; word < words; word++) {
+					kept[word] |= keptByPattern[word];
+				}
+			}
+
+			return true;
+		}
+
+		/**
+		 * Returns the keep rules the current path is a parent for. The sets of
+		 * the depths above were derived when their last elements were visited,
+		 * so only the one of the current depth is derived anew.
+		 */
+		private long[] parents(final JsonPathCursor cursor) {
+			int depth = cursor.getDepth();
+
+			if (depth == 0 || words == 0) {
+				return allKept;
+			}
+
+			if (depth == parents.length) {
+				parents = Arrays.copyOf(parents, 2 * depth);
+			}
+
+			long[] current = parents[depth];
+
+			if (current == null) {
+				current = new long[words];
+				parents[depth] = current;
+			}
+
+			int element = depth - 1;
+
+			if (element >= keptAny.size()) {
+				// deeper than the paths of all keep rules
+				Arrays.fill(current, 0);
+				return current;
+			}
+
+			long[] exact;
+
+			if (cursor.hasPropertyNameAt(element)) {
+				exact = keptNames.get(element).get(cursor.getPropertyNameAt(element));
+			} else if (keptIndexes.get(element).isEmpty()) {
+				exact = null;
+			} else {
+				exact = keptIndexes.get(element).get(cursor.getArrayIndexAt(element));
+			}
+
+			long[] above = parents[element];
+			long[] any = keptAny.get(element);
+
+			for (int word = 0; word < words; word++) {
+				current[word] = above[word] & (any[word] | (exact == null ? 0 : exact[word]));
+			}
+
+			return current;
+		}
+	}
+}
@@ -7,7 +7,6 @@ import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.function.Supplier;
 
 import net.sf.jetro.object.serializer.SerializationContext;
 import net.sf.jetro.object.visitor.ObjectVisitingReader;
@@ -23,7 +22,6 @@ import net.sf.jetro.tree.visitor.JsonElementVisitingReader;
 import net.sf.jetro.visitor.JsonVisitor;
 import net.sf.jetro.visitor.VisitingReader;
 import net.sf.jetro.visitor.chained.ChainedJsonVisitor;
-import net.sf.jetro.visitor.pathaware.PathAwareJsonVisitor;
 
 /**
  * This class is part of the {@link TransformationSpecification} fluent API.
@@ -82,7 +80,7 @@ public class PathAwareSpecification {
 			final SerializationContext context) {
 		Objects.requireNonNull(key, "key must not be null");
 		Objects.requireNonNull(context, "context must not be null");
-		addJsonProperty(key, val -> new ObjectVisitingReader(val, context), () -> value);
+		addJsonProperty(key, val -> new ObjectVisitingReader(val, context), chainContext -> value);
 	}
 	
 	/**
@@ -101,7 +99,7 @@ public class PathAwareSpecification {
 	 */
 	public void addJsonProperty(final String key, final JsonType value) {
 		Objects.requireNonNull(key, "key must not be null");
-		addJsonProperty(key, JsonElementVisitingReader::new, () -> value);
+		addJsonProperty(key, JsonElementVisitingReader::new, context -> value);
 	}
 
 	/**
@@ -121,26 +119,27 @@ public class PathAwareSpecification {
 		Objects.requireNonNull(key, "key must not be null");
 		Objects.requireNonNull(variableName, "variableName must not be null");
 		addJsonProperty(key, JsonElementVisitingReader::new,
-				() -> specification.getVariable(variableName));
+				context -> context.getVariable(variableName));
 	}
 	
 	private <T> void addJsonProperty(final String key,
 			final Function<T, VisitingReader> readerProvider,
-			final Supplier<T> valueSupplier) {
-		specification.addChainedJsonVisitorSupplier(() -> {
-			return new PathAwareJsonVisitor<Void>() {
+			final Function<ChainContext, T> valueProvider) {
+		specification.addWrittenName(key);
+		specification.addChainStage(context -> {
+			return new RuleVisitor(context) {
 				
 				@Override
 				protected boolean doBeforeVisitObjectEnd() {
 					JsonVisitor<Void> visitor = getNextVisitor();
 					
-					if (visitor != null && currentPath().matches(path)) {
-						T value = valueSupplier.get();
+					if (visitor != null && currentPathMatches(path)) {
+						T value = valueProvider.apply(context);
 						
 						if (value != null) {
 							visitor.visitProperty(key);
 							readerProvider.apply(value).accept(visitor);
-						} else if (specification.isRenderNullValues()) {
+						} else if (context.isRenderNullValues()) {
 							visitor.visitProperty(key);
 							visitor.visitNullValue();
 						}
@@ -209,7 +208,8 @@ public class PathAwareSpecification {
 	 */
 	public void addAllJsonProperties(final JsonObject jsonObject) {
 		Objects.requireNonNull(jsonObject, "jsonObject must not be null");
-		addAllJsonProperties(JsonElementVisitingReader::new, () -> jsonObject.asMap());
+		jsonObject.asMap().keySet().forEach(specification::addWrittenName);
+		addAllJsonProperties(JsonElementVisitingReader::new, context -> jsonObject.asMap());
 	}
 	
 	/**
@@ -250,8 +250,9 @@ public class PathAwareSpecification {
 		Objects.requireNonNull(properties, "properties must not be null");
 		Objects.requireNonNull(context, "context must not be null");
 		
+		properties.keySet().forEach(specification::addWrittenName);
 		addAllJsonProperties(value -> new ObjectVisitingReader(value, context),
-				() -> properties);
+				chainContext -> properties);
 	}
 	
 	/**
@@ -271,8 +272,8 @@ public class PathAwareSpecification {
 	 */
 	public void addAllJsonPropertiesFromVariable(final String variableName) {
 		Objects.requireNonNull(variableName, "variableName must not be null");
-		addAllJsonProperties(JsonElementVisitingReader::new, () -> {
-			JsonType value = specification.getVariable(variableName);
+		addAllJsonProperties(JsonElementVisitingReader::new, context -> {
+			JsonType value = context.getVariable(variableName);
 			
 			if (value != null && value instanceof JsonObject) {
 				return ((JsonObject) value).asMap();
@@ -288,23 +289,23 @@ public class PathAwareSpecification {
 	
 	private <T> void addAllJsonProperties(
 			final Function<T, VisitingReader> readerProvider,
-			final Supplier<Map<String, T>> valueSupplier) {
-		specification.addChainedJsonVisitorSupplier(() -> {
-			return new PathAwareJsonVisitor<Void>() {
+			final Function<ChainContext, Map<String, T>> valueProvider) {
+		specification.addChainStage(context -> {
+			return new RuleVisitor(context) {
 				
 				@Override
 				protected boolean doBeforeVisitObjectEnd() {
 					JsonVisitor<Void> visitor = getNextVisitor();
 					
-					if (visitor != null && currentPath().matches(path)) {
-						valueSupplier.get().entrySet().forEach(entry -> {
+					if (visitor != null && currentPathMatches(path)) {
+						valueProvider.apply(context).entrySet().forEach(entry -> {
 							String key = entry.getKey();
 							T value = entry.getValue();
 							
 							if (value != null) {
 								visitor.visitProperty(key);
 								readerProvider.apply(value).accept(visitor);
-							} else if (specification.isRenderNullValues()) {
+							} else if (context.isRenderNullValues()) {
 								visitor.visitProperty(key);
 								visitor.visitNullValue();
 							}
@@ -349,7 +350,7 @@ public class PathAwareSpecification {
 	public void addJsonValue(final Object value, final SerializationContext context) {
 		Objects.requireNonNull(context, "context must not be null");
 		addJsonValues(val -> new ObjectVisitingReader(val, context),
-				() -> Arrays.asList(value));
+				chainContext -> Arrays.asList(value));
 	}
 	
 	/**
@@ -362,7 +363,7 @@ public class PathAwareSpecification {
 	 * @param value the value to add
 	 */
 	public void addJsonValue(final JsonType value) {
-		addJsonValues(JsonElementVisitingReader::new, () -> Arrays.asList(value));
+		addJsonValues(JsonElementVisitingReader::new, context -> Arrays.asList(value));
 	}
 	
 	/**
@@ -474,7 +475,7 @@ public class PathAwareSpecification {
 		Objects.requireNonNull(context, "context must not be null");
 		Objects.requireNonNull(values, "values must not be null");
 
-		addJsonValues(val -> new ObjectVisitingReader(val, context), () -> values);
+		addJsonValues(val -> new ObjectVisitingReader(val, context), chainContext -> values);
 	}
 	
 	/**
@@ -501,7 +502,7 @@ public class PathAwareSpecification {
 	 */
 	public void addAllJsonTypes(final Iterable<? extends JsonType> values) {
 		Objects.requireNonNull(values, "values must not be null");
-		addJsonValues(JsonElementVisitingReader::new, () -> values);
+		addJsonValues(JsonElementVisitingReader::new, context -> values);
 	}
 
 	/**
@@ -518,7 +519,7 @@ public class PathAwareSpecification {
 	public void addFromVariable(final String variableName) {
 		Objects.requireNonNull(variableName, "variableName must not be null");
 		addJsonValues(JsonElementVisitingReader::new,
-				() -> Arrays.asList(specification.getVariable(variableName)));
+				context -> Arrays.asList(context.getVariable(variableName)));
 	}
 	
 	/**
@@ -535,8 +536,8 @@ public class PathAwareSpecification {
 	public void addAllFromVariable(final String variableName) {
 		Objects.requireNonNull(variableName, "variableName must not be null");
 		
-		addJsonValues(JsonElementVisitingReader::new, () -> {
-			JsonType value = specification.getVariable(variableName);
+		addJsonValues(JsonElementVisitingReader::new, context -> {
+			JsonType value = context.getVariable(variableName);
 			
 			if (value instanceof JsonArray) {
 				return (JsonArray) value;
@@ -547,12 +548,16 @@ public class PathAwareSpecification {
 	}
 	
 	private <T> void addJsonValues(final Function<T, VisitingReader> readerProvider,
-			final Supplier<Iterable<T>> valuesSupplier) {
-		specification.addChainedJsonVisitorSupplier(() -> {
+			final Function<ChainContext, Iterable<T>> valuesProvider) {
+		if (endsWithEndOfArray(path)) {
+			specification.addPath(path.removeLastElement());
+		}
+
+		specification.addChainStage(context -> {
 			if (endsWithEndOfArray(path)) {
-				return getEndOfArrayJsonValueAdder(readerProvider, valuesSupplier);
+				return getEndOfArrayJsonValueAdder(readerProvider, valuesProvider, context);
 			} else {
-				return getIndexedJsonValueAdder(readerProvider, valuesSupplier, false);
+				return getIndexedJsonValueAdder(readerProvider, valuesProvider, context, false);
 			}
 		});
 	}
@@ -563,20 +568,20 @@ public class PathAwareSpecification {
 	
 	private <T> ChainedJsonVisitor<Void> getEndOfArrayJsonValueAdder(
 			final Function<T, VisitingReader> readerProvider,
-			final Supplier<Iterable<T>> valuesSupplier) {
+			final Function<ChainContext, Iterable<T>> valuesProvider, final ChainContext context) {
 		JsonPath actualPath = path.removeLastElement();
 		
-		return new PathAwareJsonVisitor<Void>() {
+		return new RuleVisitor(context) {
 			
 			@Override
 			protected boolean doBeforeVisitArrayEnd() {
 				JsonVisitor<Void> visitor = getNextVisitor();
 				
-				if (visitor != null && currentPath().matches(actualPath)) {
-					valuesSupplier.get().forEach(value -> {
+				if (visitor != null && currentPathMatches(actualPath)) {
+					valuesProvider.apply(context).forEach(value -> {
 						if (value != null) {
 							readerProvider.apply(value).accept(visitor);
-						} else if (specification.isRenderNullValues()) {
+						} else if (context.isRenderNullValues()) {
 							visitor.visitNullValue();
 						}
 					});
@@ -589,9 +594,9 @@ public class PathAwareSpecification {
 
 	private <T> ChainedJsonVisitor<Void> getIndexedJsonValueAdder(
 			final Function<T, VisitingReader> readerProvider,
-			final Supplier<Iterable<T>> valuesSupplier,
+			final Function<ChainContext, Iterable<T>> valuesProvider, final ChainContext context,
 			final boolean replace) {
-		return new PathAwareJsonVisitor<Void>() {
+		return new RuleVisitor(context) {
 			
 			@Override
 			protected boolean doBeforeVisitObject() {
@@ -624,7 +629,7 @@ public class PathAwareSpecification {
 			}
 			
 			private boolean passOn() {
-				if (replace && currentPath().matches(path)) {
+				if (replace && currentPathMatches(path)) {
 					return false;
 				} else {
 					return true;
@@ -659,11 +664,11 @@ public class PathAwareSpecification {
 			private void applyTransformation() {
 				JsonVisitor<Void> visitor = getNextVisitor();
 				
-				if (visitor != null && currentPath().matches(path)) {
-					valuesSupplier.get().forEach(value -> {
+				if (visitor != null && currentPathMatches(path)) {
+					valuesProvider.apply(context).forEach(value -> {
 						if (value != null) {
 							readerProvider.apply(value).accept(visitor);
-						} else if (replace || specification.isRenderNullValues()) {
+						} else if (replace || context.isRenderNullValues()) {
 							visitor.visitNullValue();
 						}
 					});
@@ -688,19 +693,8 @@ public class PathAwareSpecification {
 					"path must end in a property name to be renamed");
 		}
 		
-		specification.addChainedJsonVisitorSupplier(() -> {
-			return new PathAwareJsonVisitor<Void>() {
-				
-				@Override
-				protected String doBeforeVisitProperty(final String name) {
-					if (currentPath().matches(path)) {
-						return newName;
-					} else {
-						return name;
-					}
-				}
-			};
-		});
+		specification.addWrittenName(newName);
+		specification.addChainedJsonVisitorSupplier(FusableRule.Rename.at(path, newName));
 	}
 
 	private boolean canRenameAt(final JsonPath path) {
@@ -736,7 +730,7 @@ public class PathAwareSpecification {
 	public void replaceWith(final Object value, final SerializationContext context) {
 		Objects.requireNonNull(context, "context must not be null");
 		replaceWith(val -> new ObjectVisitingReader(val, context),
-				() -> Arrays.asList(value));
+				chainContext -> Arrays.asList(value));
 	}
 	
 	/**
@@ -750,7 +744,7 @@ public class PathAwareSpecification {
 	 * @param value The value to replace with
 	 */
 	public void replaceWith(final JsonType value) {
-		replaceWith(JsonElementVisitingReader::new, () -> Arrays.asList(value));
+		replaceWith(JsonElementVisitingReader::new, context -> Arrays.asList(value));
 	}
 	
 	/**
@@ -809,15 +803,15 @@ public class PathAwareSpecification {
 	public void replaceWithFromVariable(final String variableName) {
 		Objects.requireNonNull(variableName, "variableName must not be null");
 		
-		replaceWith(JsonElementVisitingReader::new, () -> {
-			return Arrays.asList(specification.getVariable(variableName));
+		replaceWith(JsonElementVisitingReader::new, context -> {
+			return Arrays.asList(context.getVariable(variableName));
 		});
 	}
 	
 	private <T> void replaceWith(final Function<T, VisitingReader> readerProvider,
-			final Supplier<Iterable<T>> valuesSupplier) {
-		specification.addChainedJsonVisitorSupplier(() ->
-		getIndexedJsonValueAdder(readerProvider, valuesSupplier, true));
+			final Function<ChainContext, Iterable<T>> valuesProvider) {
+		specification.addChainStage(context ->
+		getIndexedJsonValueAdder(readerProvider, valuesProvider, context, true));
 	}
 
 	/**
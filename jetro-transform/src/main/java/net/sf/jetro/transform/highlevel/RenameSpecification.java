@@ -2,8 +2,6 @@ package net.sf.jetro.transform.highlevel;
 
 import java.util.Objects;
 
-import net.sf.jetro.visitor.chained.UniformChainedJsonVisitor;
-
 /**
  * This class is part of the {@link TransformationSpecification} fluent API.
  * <p>
@@ -34,6 +32,8 @@ public class RenameSpecification {
 	 * Use this method to rename a property to the given new name.
 	 * 
 	 * @param newName The new name to rename to
+	 * @throws java.util.regex.PatternSyntaxException if renaming properties
+	 * matching a pattern which is invalid
 	 */
 	public void to(final String newName) {
 		Objects.requireNonNull(newName, "newName must not be null");
@@ -42,21 +42,9 @@ public class RenameSpecification {
 			throw new IllegalArgumentException("newName must not be empty");
 		}
 		
-		specification.addChainedJsonVisitorSupplier(() -> {
-			return new UniformChainedJsonVisitor<Void>() {
-				
-				@Override
-				protected String beforeVisitProperty(final String key) {
-					if ((matching && key.matches(name)) ||
-						(ignoreCase && key.equalsIgnoreCase(name)) ||
-						key.equals(name)) {
-						return newName;
-					} else {
-						return key;
-					}
-				}
-			};
-		});
+		specification.addWrittenName(newName);
+		specification.addChainedJsonVisitorSupplier(
+				FusableRule.Rename.named(name, matching, ignoreCase, newName));
 	}
 
 	static RenameSpecification matching(final String pattern,
@@ -3,7 +3,6 @@ package net.sf.jetro.transform.highlevel;
 import java.util.Objects;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.function.Supplier;
 
 import net.sf.jetro.object.serializer.SerializationContext;
 import net.sf.jetro.object.visitor.ObjectVisitingReader;
@@ -20,7 +19,6 @@ import net.sf.jetro.visitor.JsonArrayVisitor;
 import net.sf.jetro.visitor.JsonObjectVisitor;
 import net.sf.jetro.visitor.JsonVisitor;
 import net.sf.jetro.visitor.VisitingReader;
-import net.sf.jetro.visitor.pathaware.PathAwareJsonVisitor;
 
 /**
  * This class is part of the {@link TransformationSpecification} fluent API.
@@ -31,15 +29,19 @@ import net.sf.jetro.visitor.pathaware.PathAwareJsonVisitor;
  * @author Matthias Rothe
  */
 public class ReplaceIfSpecification {
-	private final class ReplaceTransformer<T> extends PathAwareJsonVisitor<Void> {
+	private final class ReplaceTransformer<T> extends RuleVisitor {
 		private final Function<T, VisitingReader> readerProvider;
-		private final Supplier<T> valueSupplier;
+		private final Function<ChainContext, T> valueProvider;
 		private JsonTreeBuildingVisitor treeBuilder = new JsonTreeBuildingVisitor();
+		private final ChainContext context;
 		private JsonPrimitive<?> primitive;
 
-		private ReplaceTransformer(Function<T, VisitingReader> readerProvider, Supplier<T> valueSupplier) {
+		private ReplaceTransformer(Function<T, VisitingReader> readerProvider,
+				Function<ChainContext, T> valueProvider, ChainContext context) {
+			super(context);
 			this.readerProvider = readerProvider;
-			this.valueSupplier = valueSupplier;
+			this.valueProvider = valueProvider;
+			this.context = context;
 		}
 
 		@Override
@@ -93,7 +95,7 @@ public class ReplaceIfSpecification {
 		}
 
 		private boolean passOn() {
-			if (currentPath().matches(path)) {
+			if (currentPathMatches(path)) {
 				return false;
 			} else {
 				return true;
@@ -106,7 +108,7 @@ public class ReplaceIfSpecification {
 				final JsonObjectVisitor<Void> visitor) {
 			JsonObjectVisitor<Void> actualVisitor = visitor;
 			
-			if (currentPath().matches(path)) {
+			if (currentPathMatches(path)) {
 				actualVisitor = (JsonObjectVisitor)
 						treeBuilder.visitObject();
 			}
@@ -120,7 +122,7 @@ public class ReplaceIfSpecification {
 				final JsonArrayVisitor<Void> visitor) {
 			JsonArrayVisitor<Void> actualVisitor = visitor;
 			
-			if (currentPath().matches(path)) {
+			if (currentPathMatches(path)) {
 				actualVisitor = (JsonArrayVisitor) treeBuilder.visitArray();
 			}
 			
@@ -160,11 +162,11 @@ public class ReplaceIfSpecification {
 		private void applyTransformation(final boolean fromPrimitive) {
 			JsonVisitor<Void> visitor = getNextVisitor();
 			
-			if (visitor != null && currentPath().matches(path)) {
+			if (visitor != null && currentPathMatches(path)) {
 				JsonType capturedValue = getCapturedValue(fromPrimitive);
 				
 				if (predicate.test(capturedValue)) {
-					T value = valueSupplier.get();
+					T value = valueProvider.apply(context);
 					
 					if (value != null) {
 						readerProvider.apply(value).accept(visitor);
@@ -232,7 +234,7 @@ public class ReplaceIfSpecification {
 	 */
 	public void with(final Object value, final SerializationContext context) {
 		Objects.requireNonNull(context, "context must not be null");
-		replace(val -> new ObjectVisitingReader(val, context), () -> value);
+		replace(val -> new ObjectVisitingReader(val, context), chainContext -> value);
 	}
 	
 	/**
@@ -247,7 +249,7 @@ public class ReplaceIfSpecification {
 	 * @param value the value to replace with
 	 */
 	public void with(final JsonType value) {
-		replace(JsonElementVisitingReader::new, () -> value);
+		replace(JsonElementVisitingReader::new, context -> value);
 	}
 	
 	/**
@@ -309,15 +311,15 @@ public class ReplaceIfSpecification {
 	 */
 	public void withFromVariable(final String variableName) {
 		Objects.requireNonNull(variableName, "variableName must not be null");
-		replace(JsonElementVisitingReader::new, () -> {
-			return specification.getVariable(variableName);
+		replace(JsonElementVisitingReader::new, context -> {
+			return context.getVariable(variableName);
 		});
 	}
 	
 	@SuppressWarnings("rawtypes")
 	private <T> void replace(final Function<T, VisitingReader> readerProvider,
-			final Supplier<T> valueSupplier) {
-		specification.addChainedJsonVisitorSupplier(() ->
-				new ReplaceTransformer<T>(readerProvider, valueSupplier));
+			final Function<ChainContext, T> valueProvider) {
+		specification.addChainStage(context ->
+				new ReplaceTransformer<T>(readerProvider, valueProvider, context));
 	}
 }
@@ -0,0 +1,18 @@
+package net.sf.jetro.transform.highlevel;
+
+import net.sf.jetro.visitor.pathaware.PathAwareJsonVisitor;
+
+/**
+ * A visitor applying a rule of a {@link TransformationSpecification}. It
+ * tracks the current path with the path matcher the specification compiled
+ * from the paths of all its rules, so matching the path of the rule takes a
+ * lookup in the state of the matcher.
+ *
+ * @author Matthias Rothe
+ */
+abstract class RuleVisitor extends PathAwareJsonVisitor<Void> {
+
+	RuleVisitor(final ChainContext context) {
+		usePathMatcher(context.getPathMatcher());
+	}
+}
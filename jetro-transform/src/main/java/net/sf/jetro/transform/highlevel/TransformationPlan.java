@@ -0,0 +1,97 @@
+package net.sf.jetro.transform.highlevel;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import net.sf.jetro.path.JsonPathMatcher;
+import net.sf.jetro.stream.EncodedNames;
+import net.sf.jetro.transform.TransformSourceCollector;
+import net.sf.jetro.visitor.chained.ChainedJsonVisitor;
+
+/**
+ * A {@link TransformationSpecification} compiled for being applied over and
+ * over again, by many threads at once. Get one by
+ * {@link TransformationSpecification#compile()} and apply it by
+ * {@link TransformSourceCollector#applying(TransformationPlan)}.
+ * <p>
+ * All the work that doesn't depend on the JSON transformed is done when
+ * compiling the plan: running
+ * {@link TransformationSpecification#specify() specify()}, compiling the
+ * paths, patterns and matchers of the rules and registering the names
+ * written. The plan keeps the resulting stages, the path matcher shared by
+ * their visitors, whether null values are rendered and a factory of the
+ * state of each chain, but not the specification. Each call to
+ * {@link #toChainedJsonVisitor()} then creates a new context holding the
+ * variables captured and the visitors keeping the state of one
+ * transformation, such as the current path. The variables are
+ * cleared at the end of each document, as for the specification itself.
+ * <p>
+ * Changes made to the specification after compiling it don't affect the
+ * plan. A specification applying a custom visitor instance can't be compiled,
+ * as that instance would be shared by all chains. Visitors applied by
+ * {@link TransformationSpecification#applyCustomVisitorFrom(ChainedJsonVisitorSupplier)
+ * applyCustomVisitorFrom(..)} are still created by their supplier for each
+ * chain.
+ *
+ * @author Matthias Rothe
+ */
+public final class TransformationPlan implements ChainedJsonVisitorSupplier {
+	private final List<ChainedJsonVisitorSupplier> stages;
+	private final boolean renderNullValues;
+	private final JsonPathMatcher pathMatcher;
+	private final Supplier<ChainContext> contexts;
+	private final Set<String> knownNames;
+	private final EncodedNames encodedNames;
+
+	TransformationPlan(final TransformationSpecification specification) {
+		Objects.requireNonNull(specification, "specification must not be null");
+		this.stages = specification.toPlanStages();
+		this.renderNullValues = specification.isRenderNullValues();
+		this.pathMatcher = specification.getPathMatcher();
+		this.contexts = () -> new ChainContext(renderNullValues, pathMatcher);
+		this.knownNames = Collections.unmodifiableSet(
+				new LinkedHashSet<>(specification.getKnownNames()));
+		this.encodedNames = specification.getEncodedNames();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see net.sf.jetro.transform.highlevel.ChainedJsonVisitorSupplier#toChainedJsonVisitor()
+	 */
+	@Override
+	public ChainedJsonVisitor<Void> toChainedJsonVisitor() {
+		return TransformationSpecification.toNewChain(stages, contexts.get());
+	}
+
+	/**
+	 * Chains the visitors of this plan as part of the chain with the given
+	 * context, as done for a nested specification.
+	 */
+	ChainedJsonVisitor<Void> toChainedJsonVisitor(final ChainContext context) {
+		return TransformationSpecification.toChainedJsonVisitor(stages, context.nested(renderNullValues, pathMatcher));
+	}
+
+	/**
+	 * Returns the property names the compiled specification knows of, see
+	 * {@link TransformationSpecification#getKnownNames()}.
+	 *
+	 * @return the known property names
+	 */
+	public Set<String> getKnownNames() {
+		return knownNames;
+	}
+
+	/**
+	 * Returns the registry of the property names the compiled specification
+	 * writes, see {@link TransformationSpecification#getEncodedNames()}.
+	 *
+	 * @return the registry of encoded names
+	 */
+	public EncodedNames getEncodedNames() {
+		return encodedNames;
+	}
+}
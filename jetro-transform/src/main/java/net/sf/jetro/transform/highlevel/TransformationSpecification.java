@@ -1,19 +1,18 @@
 package net.sf.jetro.transform.highlevel;
 
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Predicate;
 
 import net.sf.jetro.path.JsonPath;
+import net.sf.jetro.path.JsonPathMatcher;
+import net.sf.jetro.stream.EncodedNames;
 import net.sf.jetro.transform.TransformApplier;
 import net.sf.jetro.transform.TransformSourceCollector;
-import net.sf.jetro.tree.JsonType;
 import net.sf.jetro.visitor.chained.ChainedJsonVisitor;
-import net.sf.jetro.visitor.pathaware.PathAwareJsonVisitor;
 
 /**
  * This class is the entry point to the high level transformation API of Jetro.
@@ -36,13 +35,14 @@ import net.sf.jetro.visitor.pathaware.PathAwareJsonVisitor;
 public abstract class TransformationSpecification implements ChainedJsonVisitorSupplier {
 	static final JsonPath ROOT_PATH = JsonPath.compile("$");
 	
-	private static final ChainedJsonVisitor<Void> NOOP_VISITOR =
-			new ChainedJsonVisitor<Void>() {};
-	
-	private TransformationSpecification outerSpecification;
 	private Set<ChainedJsonVisitorSupplier> suppliers = new LinkedHashSet<>();
-	private Map<String, JsonType> variables = new HashMap<>();
-	private boolean specified = false;
+	private volatile List<ChainedJsonVisitorSupplier> stages;
+	private Set<JsonPath> paths = new LinkedHashSet<>();
+	private volatile JsonPathMatcher pathMatcher;
+	private Set<String> knownNames = new LinkedHashSet<>();
+	private Set<String> writtenNames = new LinkedHashSet<>();
+	private volatile EncodedNames encodedNames;
+	private volatile boolean specified = false;
 	private boolean renderNullValues = false;
 	
 	/*
@@ -51,23 +51,241 @@ public abstract class TransformationSpecification implements ChainedJsonVisitorS
 	 */
 	@Override
 	public ChainedJsonVisitor<Void> toChainedJsonVisitor() {
-		if (!specified) {
-			specify();
-			specified = true;
+		ensureSpecified();
+		return toNewChain(getStages(), new ChainContext(renderNullValues, getPathMatcher()));
+	}
+	
+	/**
+	 * Chains the visitors of the given stages as a chain of its own with the
+	 * given context, whose variables are cleared at the end of each document.
+	 */
+	static ChainedJsonVisitor<Void> toNewChain(final List<ChainedJsonVisitorSupplier> stages,
+			final ChainContext context) {
+		return new VariablesClearingVisitor(toChainedJsonVisitor(stages, context), context);
+	}
+	
+	/**
+	 * Chains the visitors of this specification as part of the chain with the
+	 * given context, keeping the setting of this specification for rendering
+	 * null values and its path matcher.
+	 */
+	ChainedJsonVisitor<Void> toChainedJsonVisitor(final ChainContext context) {
+		ensureSpecified();
+		return toChainedJsonVisitor(getStages(), context.nested(renderNullValues, getPathMatcher()));
+	}
+	
+	/**
+	 * Chains the visitors of the given stages as part of the chain with the
+	 * given context.
+	 */
+	static ChainedJsonVisitor<Void> toChainedJsonVisitor(final List<ChainedJsonVisitorSupplier> stages,
+			final ChainContext context) {
+		ChainedJsonVisitor<Void> visitor = null;
+		
+		for (ChainedJsonVisitorSupplier stage : stages) {
+			if (visitor == null) {
+				visitor = visitorOf(stage, context);
+			} else {
+				visitor.attachVisitor(visitorOf(stage, context));
+			}
 		}
 		
-		ChainedJsonVisitor<Void> visitor = null;
-		Iterator<ChainedJsonVisitorSupplier> iterator = suppliers.iterator();
+		return visitor == null ? new ChainedJsonVisitor<Void>() {} : visitor;
+	}
+	
+	private static ChainedJsonVisitor<Void> visitorOf(final ChainedJsonVisitorSupplier stage,
+			final ChainContext context) {
+		if (stage instanceof ChainStage) {
+			return ((ChainStage) stage).toChainedJsonVisitor(context);
+		} else if (stage instanceof TransformationSpecification) {
+			return ((TransformationSpecification) stage).toChainedJsonVisitor(context);
+		} else {
+			return stage.toChainedJsonVisitor();
+		}
+	}
+	
+	/**
+	 * Compiles this specification into an immutable {@link TransformationPlan},
+	 * which can be applied by many threads at once. The specification is
+	 * specified and its rules are compiled once, here, and changes made to it
+	 * afterwards don't affect the plan.
+	 * 
+	 * @return the plan of this specification
+	 * @throws IllegalStateException if this specification or a nested one
+	 * applies a custom visitor instance, which can't be shared, see
+	 * {@link #applyCustomVisitorFrom(ChainedJsonVisitorSupplier)}
+	 */
+	public TransformationPlan compile() {
+		return new TransformationPlan(this);
+	}
+	
+	/**
+	 * Returns the stages of this specification for a plan: nested
+	 * specifications are replaced by their plans, so later changes to any of
+	 * them don't show.
+	 */
+	List<ChainedJsonVisitorSupplier> toPlanStages() {
+		ensureSpecified();
+		List<ChainedJsonVisitorSupplier> planStages = new ArrayList<>();
+		
+		for (ChainedJsonVisitorSupplier stage : getStages()) {
+			if (stage instanceof CustomVisitorInstance) {
+				throw new IllegalStateException("A custom visitor instance can't be shared by "
+						+ "the chains of a plan, apply it by applyCustomVisitorFrom(..) instead");
+			} else if (stage instanceof TransformationSpecification) {
+				ChainStage nested = ((TransformationSpecification) stage).compile()::toChainedJsonVisitor;
+				planStages.add(nested);
+			} else {
+				planStages.add(stage);
+			}
+		}
+		
+		return Collections.unmodifiableList(planStages);
+	}
+	
+	/**
+	 * Returns the suppliers of the visitors to chain, with consecutive
+	 * {@link FusableRule}s fused into one, see {@link FusedRules}. They are
+	 * compiled once and shared by all chains created afterwards.
+	 */
+	private List<ChainedJsonVisitorSupplier> getStages() {
+		List<ChainedJsonVisitorSupplier> fused = stages;
+		
+		if (fused == null) {
+			fused = FusedRules.fuse(suppliers, getPathMatcher());
+			stages = fused;
+		}
+		
+		return fused;
+	}
+	
+	/**
+	 * Returns the matcher of the paths of all rules of this specification,
+	 * which the visitors of the rules share. It is compiled once and shared by
+	 * all chains created afterwards.
+	 */
+	JsonPathMatcher getPathMatcher() {
+		JsonPathMatcher matcher = pathMatcher;
+		
+		if (matcher == null) {
+			matcher = JsonPathMatcher.compile(paths);
+			pathMatcher = matcher;
+		}
+		
+		return matcher;
+	}
+	
+	/**
+	 * Clears the variables of a chain at the end of each document, so the
+	 * chain can be reused for the records of a JSON Lines source without one
+	 * record seeing the values captured from another.
+	 */
+	private static final class VariablesClearingVisitor extends ChainedJsonVisitor<Void> {
+		private final ChainContext context;
+		
+		private VariablesClearingVisitor(final ChainedJsonVisitor<Void> nextVisitor, final ChainContext context) {
+			super(nextVisitor);
+			this.context = context;
+		}
+		
+		@Override
+		protected void afterVisitEnd() {
+			context.clearVariables();
+		}
+		
+		@Override
+		protected boolean observesContent() {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the property names this specification and all nested
+	 * specifications refer to by name, i.e. the concrete property names of all
+	 * paths given to {@link #at(JsonPath)}, {@link #capture(JsonPath)},
+	 * {@link #keep(JsonPath)} and {@link #remove(JsonPath)} and the names given
+	 * to {@link #renameProperties(String)}.
+	 * <p>
+	 * Use these names to seed the string pool of the reader, like so:
+	 * <code>Jetro.transform(source, new ReaderContext().addKnownNames(
+	 * specification.getKnownNames())).applying(specification)</code>.
+	 * 
+	 * @return the property names known to this specification
+	 */
+	public Set<String> getKnownNames() {
+		ensureSpecified();
+		Set<String> names = new LinkedHashSet<>(knownNames);
 		
-		if (iterator.hasNext()) {
-			visitor = iterator.next().toChainedJsonVisitor();
+		for (ChainedJsonVisitorSupplier supplier : suppliers) {
+			if (supplier instanceof TransformationSpecification) {
+				names.addAll(((TransformationSpecification) supplier).getKnownNames());
+			}
 		}
 		
-		while (iterator.hasNext()) {
-			visitor.attachVisitor(iterator.next().toChainedJsonVisitor());
+		return names;
+	}
+	
+	/**
+	 * Returns a registry of the property names this specification and all
+	 * nested specifications write, encoded in advance: the
+	 * {@link #getKnownNames() known names}, the new names of renamed
+	 * properties and the keys of added properties. The generators writing the
+	 * result of the transformation copy these names instead of escaping them
+	 * for every object written.
+	 * 
+	 * @return the registry of encoded names
+	 */
+	public EncodedNames getEncodedNames() {
+		EncodedNames names = encodedNames;
+		
+		if (names == null) {
+			names = new EncodedNames().registerAll(getKnownNames()).registerAll(getWrittenNames());
+			encodedNames = names;
 		}
 		
-		return visitor != null ? visitor : NOOP_VISITOR;
+		return names;
+	}
+	
+	private Set<String> getWrittenNames() {
+		Set<String> names = new LinkedHashSet<>(writtenNames);
+		
+		for (ChainedJsonVisitorSupplier supplier : suppliers) {
+			if (supplier instanceof TransformationSpecification) {
+				names.addAll(((TransformationSpecification) supplier).getWrittenNames());
+			}
+		}
+		
+		return names;
+	}
+	
+	private void ensureSpecified() {
+		if (!specified) {
+			synchronized (this) {
+				if (!specified) {
+					specify();
+					specified = true;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Registers a path a rule of this specification matches: it is compiled
+	 * into the path matcher and its property names become known names.
+	 */
+	void addPath(final JsonPath path) {
+		paths.add(path);
+		pathMatcher = null;
+		stages = null;
+		addKnownNames(path);
+	}
+	
+	private void addKnownNames(final JsonPath path) {
+		for (int i = 0; i < path.getDepth(); i++) {
+			if (path.hasPropertyNameAt(i) && !path.hasWildcardAt(i)) {
+				knownNames.add(path.getPropertyNameAt(i));
+			}
+		}
 	}
 
 	/**
@@ -118,15 +336,17 @@ public abstract class TransformationSpecification implements ChainedJsonVisitorS
 	 */
 	protected PathAwareSpecification at(final JsonPath path) {
 		Objects.requireNonNull(path, "path must not be null");
+		addPath(path);
 		return new PathAwareSpecification(path, this);
 	}
 	
 	/**
 	 * Entry point to capturing values and processing them. After capturing
-	 * a value, it can be edited and stored as a variable. All variables are
-	 * global. So if a nested {@link TransformationSpecification} captures a
-	 * variable this is stored in the outermost specification and available
-	 * for all specifications on all nesting levels.
+	 * a value, it can be edited and stored as a variable. Variables are shared
+	 * by the specifications on all nesting levels. So if a nested
+	 * {@link TransformationSpecification} captures a variable, it is available
+	 * for all of them. Each visitor chain created keeps variables of its own,
+	 * which are cleared at the end of each document.
 	 * <p>
 	 * The path must be a valid concrete {@link JsonPath}.
 	 * 
@@ -140,10 +360,11 @@ public abstract class TransformationSpecification implements ChainedJsonVisitorS
 	
 	/**
 	 * Entry point to capturing values and processing them. After capturing
-	 * a value, it can be edited and stored as a variable. All variables are
-	 * global. So if a nested {@link TransformationSpecification} captures a
-	 * variable this is stored in the outermost specification and available
-	 * for all specifications on all nesting levels.
+	 * a value, it can be edited and stored as a variable. Variables are shared
+	 * by the specifications on all nesting levels. So if a nested
+	 * {@link TransformationSpecification} captures a variable, it is available
+	 * for all of them. Each visitor chain created keeps variables of its own,
+	 * which are cleared at the end of each document.
 	 * <p>
 	 * The {@link JsonPath path} must be a concrete JsonPath.
 	 * 
@@ -156,6 +377,7 @@ public abstract class TransformationSpecification implements ChainedJsonVisitorS
 		if (path.containsOptionals()) {
 			throw new IllegalArgumentException("path must not contain any wildcards");
 		} else {
+			addPath(path);
 			return new CaptureSpecification(path, this);
 		}
 	}
@@ -191,8 +413,8 @@ public abstract class TransformationSpecification implements ChainedJsonVisitorS
 	 */
 	protected void keep(final JsonPath path) {
 		Objects.requireNonNull(path, "path must not be null");
-		addKeepOrRemoveSupplier(currentPath -> 
-			currentPath.isParentPathOf(path) || currentPath.matches(path));
+		addPath(path);
+		addChainedJsonVisitorSupplier(FusableRule.keep(path));
 	}
 	
 	/**
@@ -216,55 +438,10 @@ public abstract class TransformationSpecification implements ChainedJsonVisitorS
 	 */
 	protected void remove(final JsonPath path) {
 		Objects.requireNonNull(path, "path must not be null");
-		addKeepOrRemoveSupplier(currentPath -> !currentPath.matches(path));
+		addPath(path);
+		addChainedJsonVisitorSupplier(FusableRule.remove(path));
 	}
 
-	private void addKeepOrRemoveSupplier(final Predicate<JsonPath> passOn) {
-		addChainedJsonVisitorSupplier(() -> {
-			return new PathAwareJsonVisitor<Void>() {
-				
-				@Override
-				protected boolean doBeforeVisitObject() {
-					return passOn();
-				}
-				
-				@Override
-				protected boolean doBeforeVisitArray() {
-					return passOn();
-				}
-				
-				@Override
-				protected String doBeforeVisitProperty(final String name) {
-					return passOn() ? name : null;
-				}
-				
-				@Override
-				protected Boolean doBeforeVisitValue(final boolean value) {
-					return passOn() ? value : null;
-				}
-				
-				@Override
-				protected Number doBeforeVisitValue(final Number value) {
-					return passOn() ? value : null;
-				}
-				
-				@Override
-				protected String doBeforeVisitValue(final String value) {
-					return passOn() ? value : null;
-				}
-				
-				@Override
-				protected boolean doBeforeVisitNullValue() {
-					return passOn();
-				}
-				
-				private boolean passOn() {
-					return passOn.test(currentPath());
-				}
-			};
-		});
-	}
-	
 	/**
 	 * Entry point to renaming property keys. Any key in the entire JSON named
 	 * with the given name will be renamed.
@@ -274,6 +451,7 @@ public abstract class TransformationSpecification implements ChainedJsonVisitorS
 	 */
 	protected RenameSpecification renameProperties(final String name) {
 		Objects.requireNonNull(name, "name must not be null");
+		knownNames.add(name);
 		return new RenameSpecification(name, this);
 	}
 
@@ -309,12 +487,48 @@ public abstract class TransformationSpecification implements ChainedJsonVisitorS
 	 * Use this method to apply a custom {@link ChainedJsonVisitor} to this
 	 * {@link TransformationSpecification} providing any functionality not
 	 * available from the fluent API.
+	 * <p>
+	 * The same visitor is part of each chain created from this specification,
+	 * so it must not be applied more than once at a time. Specifications
+	 * applied by several threads use
+	 * {@link #applyCustomVisitorFrom(ChainedJsonVisitorSupplier)} instead.
 	 * 
 	 * @param visitor the visitor to add
 	 */
 	protected void applyCustomVisitor(final ChainedJsonVisitor<Void> visitor) {
 		Objects.requireNonNull(visitor, "visitor must not be null");
-		addChainedJsonVisitorSupplier(() -> visitor);
+		addChainedJsonVisitorSupplier(new CustomVisitorInstance(visitor));
+	}
+	
+	/**
+	 * Use this method to apply custom {@link ChainedJsonVisitor}s to this
+	 * {@link TransformationSpecification} providing any functionality not
+	 * available from the fluent API. Unlike
+	 * {@link #applyCustomVisitor(ChainedJsonVisitor)}, each chain gets a visitor
+	 * of its own, so the specification can be {@link #compile() compiled} into a
+	 * plan and be applied by many threads at once.
+	 * 
+	 * @param supplier the supplier of a new visitor for each chain
+	 */
+	protected void applyCustomVisitorFrom(final ChainedJsonVisitorSupplier supplier) {
+		Objects.requireNonNull(supplier, "supplier must not be null");
+		addChainedJsonVisitorSupplier(supplier);
+	}
+	
+	/**
+	 * Supplies the same custom visitor to all chains.
+	 */
+	private static final class CustomVisitorInstance implements ChainedJsonVisitorSupplier {
+		private final ChainedJsonVisitor<Void> visitor;
+		
+		private CustomVisitorInstance(final ChainedJsonVisitor<Void> visitor) {
+			this.visitor = visitor;
+		}
+		
+		@Override
+		public ChainedJsonVisitor<Void> toChainedJsonVisitor() {
+			return visitor;
+		}
 	}
 	
 	/**
@@ -325,7 +539,6 @@ public abstract class TransformationSpecification implements ChainedJsonVisitorS
 	 */
 	protected void applySpecification(final TransformationSpecification specification) {
 		Objects.requireNonNull(specification, "specification must not be null");
-		specification.outerSpecification = this;
 		addChainedJsonVisitorSupplier(specification);
 	}
 	
@@ -353,25 +566,18 @@ public abstract class TransformationSpecification implements ChainedJsonVisitorS
 	 */
 	protected abstract void specify();
 	
+	void addWrittenName(final String name) {
+		writtenNames.add(name);
+	}
+	
 	void addChainedJsonVisitorSupplier(final ChainedJsonVisitorSupplier supplier) {
 		Objects.requireNonNull(supplier, "supplier must not be null");
 		suppliers.add(supplier);
+		stages = null;
 	}
 
-	void putVariable(final String variableName, JsonType value) {
-		if (outerSpecification != null) {
-			outerSpecification.putVariable(variableName, value);
-		} else {
-			variables.put(variableName, value);			
-		}
-	}
-	
-	JsonType getVariable(final String variableName) {
-		if (outerSpecification != null) {
-			return outerSpecification.getVariable(variableName);
-		} else {
-			return variables.get(variableName);
-		}
+	void addChainStage(final ChainStage stage) {
+		addChainedJsonVisitorSupplier(stage);
 	}
 
 	boolean isRenderNullValues() {
@@ -2,12 +2,25 @@ package net.sf.jetro.transform;
 
 import static org.testng.Assert.assertEquals;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoField;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
 
 import org.testng.annotations.Test;
 
@@ -406,6 +419,24 @@ public class HighLevelJetroIntegrationTest {
 		assertEquals(actual, expected);
 	}
 	
+	@Test
+	public void shouldTransformEachRecord() {
+		List<String> actual = new ArrayList<>();
+		
+		Jetro.transform("{\"a\":1}\n{\"a\":\"x\",\"b\":true}\n").applying(
+				new TransformationSpecification() {
+					
+					@Override
+					protected void specify() {
+						capture("$.a").andSaveAs("a");
+						remove("$.b");
+						at("$").addJsonPropertyFromVariable("c", "a");
+					}
+				}).andReturnEachAsJson(actual::add);
+		
+		assertEquals(actual, Arrays.asList("{\"a\":1,\"c\":1}", "{\"a\":\"x\",\"c\":\"x\"}"));
+	}
+	
 	@Test
 	public void shouldTransformAddingBooleanJsonProperty() {
 		JsonObject actual = (JsonObject) Jetro.transform("{}").applying(
@@ -1075,6 +1106,70 @@ public class HighLevelJetroIntegrationTest {
 		return BUILDER.build(json).toJson();
 	}
 	
+	@Test
+	public void shouldTransformGzipToGzip() throws IOException {
+		StringBuilder source = new StringBuilder("[");
+		for (int i = 0; i < 20_000; i++) {
+			source.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append('}');
+		}
+		source.append(']');
+
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = new GZIPOutputStream(compressed)) {
+			out.write(source.toString().getBytes(StandardCharsets.UTF_8));
+		}
+
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+		Jetro.transform(new ByteArrayInputStream(compressed.toByteArray()))
+				.applying(new TransformationSpecification() {
+
+			@Override
+			protected void specify() {
+				at("$[*]").addJsonProperty("seen", true);
+			}
+		}).writingGzipTo(target);
+
+		String actual = read(new GZIPInputStream(new ByteArrayInputStream(target.toByteArray())));
+		assertEquals(actual, source.toString().replace("}", ",\"seen\":true}"));
+	}
+
+	@Test
+	public void shouldTransformDeflatedToDeflated() throws IOException {
+		String source = "{\"a\":\"b\"}";
+
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = new DeflaterOutputStream(compressed)) {
+			out.write(source.getBytes(StandardCharsets.UTF_8));
+		}
+
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+		Jetro.transform(new ByteArrayInputStream(compressed.toByteArray()))
+				.applying(new TransformationSpecification() {
+
+			@Override
+			protected void specify() {
+				at("$").addJsonProperty("c", "d");
+			}
+		}).writingDeflatedTo(target);
+
+		String actual = read(new InflaterInputStream(new ByteArrayInputStream(target.toByteArray())));
+		assertEquals(actual, "{\"a\":\"b\",\"c\":\"d\"}");
+	}
+
+	private static String read(final InputStream in) throws IOException {
+		StringBuilder builder = new StringBuilder();
+		char[] buffer = new char[8192];
+
+		try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+			int read;
+			while ((read = reader.read(buffer)) >= 0) {
+				builder.append(buffer, 0, read);
+			}
+		}
+
+		return builder.toString();
+	}
+
 	private static JsonObject getPersonsAAndB() {
 		JsonObject personA = new JsonObject();
 		personA.add(new JsonProperty("name", "Martha Best"));
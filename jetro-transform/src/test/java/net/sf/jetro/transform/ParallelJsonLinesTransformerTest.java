@@ -0,0 +1,93 @@
+package net.sf.jetro.transform;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import net.sf.jetro.exception.MalformedJsonException;
+import net.sf.jetro.stream.visitor.JsonIOException;
+import net.sf.jetro.transform.highlevel.TransformationSpecification;
+
+public class ParallelJsonLinesTransformerTest {
+	private static final TransformationSpecification REKEYING = new TransformationSpecification() {
+		@Override
+		protected void specify() {
+			capture("$.id").andSaveAs("id");
+			remove("$.id");
+			at("$").addJsonPropertyFromVariable("key", "id");
+		}
+	};
+
+	@Test
+	public void shouldTransformInSourceOrder() {
+		StringBuilder source = new StringBuilder();
+		List<String> expected = new ArrayList<>();
+
+		for (int i = 0; i < 2000; i++) {
+			source.append("{\"id\":").append(i).append(",\"name\":\"näme").append(i).append("\"}\n");
+			expected.add("{\"name\":\"näme" + i + "\",\"key\":" + i + "}");
+		}
+		// a record longer than the batch size and no line feed at the end
+		String longName = String.join("", Collections.nCopies(100, "x"));
+		source.append("\n{\"id\":-1,\"name\":\"").append(longName).append("\"}");
+		expected.add("{\"name\":\"" + longName + "\",\"key\":-1}");
+
+		List<String> actual = transform(source.toString(), true);
+
+		assertEquals(actual, expected);
+	}
+
+	@Test
+	public void shouldTransformUnordered() {
+		StringBuilder source = new StringBuilder();
+		List<String> expected = new ArrayList<>();
+
+		for (int i = 0; i < 2000; i++) {
+			source.append("{\"id\":").append(i).append("}\n");
+			expected.add("{\"key\":" + i + "}");
+		}
+
+		List<String> actual = transform(source.toString(), false);
+		Collections.sort(actual);
+		Collections.sort(expected);
+
+		assertEquals(actual, expected);
+	}
+
+	@Test
+	public void shouldPassPrimitiveRecordsOn() {
+		List<String> actual = transform("\"text\"\n42\n-1.5e3\ntrue\nnull\n{\"id\":1}\n", true);
+
+		assertEquals(actual, Arrays.asList("\"text\"", "42", "-1.5e3", "true", "null", "{\"key\":1}"));
+	}
+
+	@Test
+	public void shouldPropagateSyntaxErrors() {
+		try {
+			transform("{\"id\":1}\n{\"id\":}\n", true);
+		} catch (JsonIOException e) {
+			assertEquals(e.getCause().getClass(), MalformedJsonException.class);
+			return;
+		}
+
+		throw new AssertionError("Expected a JsonIOException");
+	}
+
+	private List<String> transform(final String source, final boolean ordered) {
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+		new ParallelJsonLinesTransformer(REKEYING).setThreads(4).setBatchSize(64).setOrdered(ordered)
+				.transform(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)), target);
+
+		String result = new String(target.toByteArray(), StandardCharsets.UTF_8);
+		return new ArrayList<>(Arrays.asList(result.split("\n")));
+	}
+}
@@ -2,6 +2,7 @@ package net.sf.jetro.transform;
 
 import org.testng.annotations.Test;
 
+import net.sf.jetro.transform.highlevel.TransformationPlan;
 import net.sf.jetro.transform.highlevel.TransformationSpecification;
 import net.sf.jetro.visitor.JsonVisitor;
 import net.sf.jetro.visitor.VisitingReader;
@@ -30,6 +31,13 @@ public class TransformSourceCollectorTest {
 		new TransformSourceCollector(SOURCE).applying((TransformationSpecification) null);
 	}
 	
+	@Test(expectedExceptions = NullPointerException.class,
+			expectedExceptionsMessageRegExp = "plan must not be null",
+			groups = "negativeTests")
+	public void shouldThrowExceptionNullTransformationPlan() {
+		new TransformSourceCollector(SOURCE).applying((TransformationPlan) null);
+	}
+	
 	@Test(expectedExceptions = NullPointerException.class,
 			expectedExceptionsMessageRegExp = "transformer must not be null",
 			groups = "negativeTests")
@@ -0,0 +1,225 @@
+package net.sf.jetro.transform.highlevel;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import net.sf.jetro.path.JsonPath;
+import net.sf.jetro.path.JsonPathMatcher;
+import net.sf.jetro.transform.Jetro;
+import net.sf.jetro.visitor.chained.ChainedJsonVisitor;
+import net.sf.jetro.visitor.pathaware.PathAwareJsonVisitor;
+
+public class FusedRulesTest {
+	private static final String SOURCE = "{\"a\":[{\"b\":1,\"c\":2},{\"b\":3,\"d\":[4,5]}],"
+			+ "\"e\":{\"f\":{\"g\":true,\"h\":null},\"i\":\"j\"},\"k\":[[6,7],[8]],\"l\":\"m\"}";
+
+	@Test
+	public void shouldFuseRulesLikeChainedRules() {
+		List<FusableRule> rules = Arrays.asList(
+				remove("$.k[*][1]"),
+				keep("$.e:"),
+				keep("$.e.f:"),
+				remove("$.e.f.h"),
+				FusableRule.Rename.at(JsonPath.compile("$.e.f.g"), "bee"),
+				FusableRule.Rename.named("bee", false, false, "renamed"),
+				FusableRule.Rename.named("F", false, true, "ignoringCase"),
+				FusableRule.Rename.named("^[i]gnoring.*$", true, false, "matching"));
+
+		List<ChainedJsonVisitorSupplier> stages = fuse(rules);
+
+		assertEquals(stages.size(), 1);
+		assertEquals(transform(stages), transformOneByOne(rules));
+		assertEquals(transform(stages), "{\"e\":{\"matching\":{\"renamed\":true}}}");
+	}
+
+	@Test
+	public void shouldKeepOnlyWhatAllKeepRulesKeep() {
+		List<List<FusableRule>> runs = Arrays.asList(
+				Arrays.asList(keep("$.a[*].b")),
+				Arrays.asList(keep("$.a:"), keep("$.*[*].d")),
+				Arrays.asList(keep("$.k[0][1]"), keep("$.k:"), remove("$.l")),
+				Arrays.asList(keep("$.e.*"), keep("$.e.f"), keep("$.e:")));
+
+		for (List<FusableRule> rules : runs) {
+			assertEquals(fuse(rules).size(), 1);
+			assertEquals(transform(fuse(rules)), transformOneByOne(rules));
+		}
+	}
+
+	@Test
+	public void shouldKeepWithOptionalsLikeChainedRules() {
+		List<FusableRule> rules = Arrays.asList(keep("$.e.f?.g"), remove("$.l"));
+
+		assertEquals(fuse(rules).size(), 1);
+		assertEquals(transform(fuse(rules)), transformOneByOne(rules));
+	}
+
+	@Test
+	public void shouldNotFuseIndexedRuleBehindFilter() {
+		List<FusableRule> rules = Arrays.asList(remove("$.k[0]"), remove("$.k[0]"));
+
+		assertEquals(fuse(rules).size(), 2);
+		assertEquals(transform(fuse(rules)), "{\"a\":[{\"b\":1,\"c\":2},"
+				+ "{\"b\":3,\"d\":[4,5]}],\"e\":{\"f\":{\"g\":true,\"h\":null},\"i\":\"j\"},"
+				+ "\"k\":[],\"l\":\"m\"}");
+	}
+
+	@Test
+	public void shouldNotFuseRuleBehindRenameOfNameInPath() {
+		List<FusableRule> rules = Arrays.asList(
+				FusableRule.Rename.named("e", false, false, "x"), remove("$.x.f"), remove("$.a"));
+
+		assertEquals(fuse(rules).size(), 2);
+		assertEquals(transform(fuse(rules)),
+				"{\"x\":{\"i\":\"j\"},\"k\":[[6,7],[8]],\"l\":\"m\"}");
+	}
+
+	@Test
+	public void shouldTellWhetherRuleCanBeFused() {
+		List<FusableRule> run = Arrays.asList(FusableRule.Rename.named("a.*", true, false, "b"));
+
+		assertFalse(FusedRules.canFuse(run, remove("$.abc")));
+		assertFalse(FusedRules.canFuse(run, remove("$.b")));
+		assertTrue(FusedRules.canFuse(run, remove("$.*[0]")));
+		assertTrue(FusedRules.canFuse(run, keep("$.c")));
+		assertTrue(FusedRules.canFuse(Arrays.asList(keep("$.c")), remove("$.*[*]")));
+		assertFalse(FusedRules.canFuse(Arrays.asList(keep("$.c")), remove("$.*[1]")));
+	}
+
+	@Test
+	public void shouldChainFusedRulesBetweenOtherRules() {
+		TransformationSpecification specification = new TransformationSpecification() {
+
+			@Override
+			protected void specify() {
+				remove("$.a");
+				renameProperties("l").to("n");
+				at("$.e").addJsonProperty("o", "p");
+				remove("$.e.o");
+				remove("$.k");
+			}
+		};
+
+		assertEquals(Jetro.transform(SOURCE).applying(specification).andReturnAsJson(),
+				"{\"e\":{\"f\":{\"g\":true,\"h\":null},\"i\":\"j\"},\"n\":\"m\"}");
+	}
+
+	/**
+	 * Fuses the rules sharing a matcher of more paths than theirs, like the
+	 * one of a specification with other rules.
+	 */
+	private static List<ChainedJsonVisitorSupplier> fuse(final List<FusableRule> rules) {
+		List<JsonPath> paths = new ArrayList<>(Arrays.asList(JsonPath.compile("$.e.i"),
+				JsonPath.compile("$.*[*]")));
+
+		for (FusableRule rule : rules) {
+			if (rule.getPath() != null) {
+				paths.add(rule.getPath());
+			}
+		}
+
+		return FusedRules.fuse(rules, JsonPathMatcher.compile(paths));
+	}
+
+	private static FusableRule keep(final String path) {
+		return FusableRule.keep(JsonPath.compile(path));
+	}
+
+	private static FusableRule remove(final String path) {
+		return FusableRule.remove(JsonPath.compile(path));
+	}
+
+	/**
+	 * Transforms with a chain of one visitor per rule, each matching the
+	 * paths like the rules did before they were fused.
+	 */
+	private static String transformOneByOne(final List<FusableRule> rules) {
+		List<ChainedJsonVisitorSupplier> stages = new ArrayList<>();
+
+		for (FusableRule rule : rules) {
+			stages.add(() -> new PathAwareJsonVisitor<Void>() {
+
+				@Override
+				protected boolean doBeforeVisitObject() {
+					return passOn();
+				}
+
+				@Override
+				protected boolean doBeforeVisitArray() {
+					return passOn();
+				}
+
+				@Override
+				protected String doBeforeVisitProperty(final String name) {
+					if (!passOn()) {
+						return null;
+					} else if (rule instanceof FusableRule.Rename) {
+						FusableRule.Rename rename = (FusableRule.Rename) rule;
+						boolean renames = rule.getPath() != null ?
+								currentPath().matches(rule.getPath()) : rename.renames(name);
+						return renames ? rename.getNewName() : name;
+					} else {
+						return name;
+					}
+				}
+
+				@Override
+				protected Boolean doBeforeVisitValue(final boolean value) {
+					return passOn() ? value : null;
+				}
+
+				@Override
+				protected Number doBeforeVisitValue(final Number value) {
+					return passOn() ? value : null;
+				}
+
+				@Override
+				protected String doBeforeVisitValue(final String value) {
+					return passOn() ? value : null;
+				}
+
+				@Override
+				protected boolean doBeforeVisitNullValue() {
+					return passOn();
+				}
+
+				private boolean passOn() {
+					if (!(rule instanceof FusableRule.Filter)) {
+						return true;
+					}
+
+					JsonPath path = rule.getPath();
+
+					if (((FusableRule.Filter) rule).isKeep()) {
+						return currentPath().isParentPathOf(path) || currentPath().matches(path);
+					} else {
+						return !currentPath().matches(path);
+					}
+				}
+			});
+		}
+
+		return transform(stages);
+	}
+
+	private static String transform(final List<? extends ChainedJsonVisitorSupplier> stages) {
+		ChainedJsonVisitor<Void> visitor = null;
+
+		for (ChainedJsonVisitorSupplier stage : stages) {
+			if (visitor == null) {
+				visitor = stage.toChainedJsonVisitor();
+			} else {
+				visitor.attachVisitor(stage.toChainedJsonVisitor());
+			}
+		}
+
+		return Jetro.transform(SOURCE).applying(visitor).andReturnAsJson();
+	}
+}
@@ -0,0 +1,151 @@
+package net.sf.jetro.transform.highlevel;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import net.sf.jetro.transform.Jetro;
+import net.sf.jetro.tree.JsonString;
+import net.sf.jetro.visitor.chained.ChainedJsonVisitor;
+import net.sf.jetro.visitor.chained.UniformChainedJsonVisitor;
+
+public class TransformationPlanTest {
+	private static final String SOURCE = "{\"id\":%d,\"name\":\"n%d\",\"secret\":\"s\"}";
+	private static final String RESULT = "{\"id\":%d,\"label\":\"n%d\",\"copy\":\"N%d\"}";
+
+	@Test
+	public void shouldSpecifyOnceWhenCompiling() {
+		AtomicInteger specified = new AtomicInteger();
+		TransformationPlan plan = new CountingSpecification(specified).compile();
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals(Jetro.transform(String.format(SOURCE, i, i)).applying(plan)
+					.andReturnAsJson(), String.format(RESULT, i, i, i));
+		}
+
+		assertEquals(specified.get(), 1);
+		assertEquals(plan.getEncodedNames().get("label").toString(), "label");
+	}
+
+	@Test
+	public void shouldTransformOnManyThreadsAtOnce() throws Exception {
+		TransformationPlan plan = new CountingSpecification(new AtomicInteger()).compile();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+
+			for (int i = 0; i < 400; i++) {
+				int id = i;
+				results.add(executor.submit((Callable<Boolean>) () -> Jetro
+						.transform(String.format(SOURCE, id, id)).applying(plan).andReturnAsJson()
+						.equals(String.format(RESULT, id, id, id))));
+			}
+
+			for (Future<Boolean> result : results) {
+				assertEquals(result.get(), Boolean.TRUE);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldNotSeeChangesAfterCompiling() {
+		CountingSpecification specification = new CountingSpecification(new AtomicInteger());
+		TransformationPlan plan = specification.compile();
+		specification.remove("$.id");
+
+		assertEquals(Jetro.transform(String.format(SOURCE, 1, 1)).applying(plan).andReturnAsJson(),
+				String.format(RESULT, 1, 1, 1));
+		assertEquals(Jetro.transform(String.format(SOURCE, 1, 1)).applying(specification)
+				.andReturnAsJson(), "{\"label\":\"n1\",\"copy\":\"N1\"}");
+	}
+
+	@Test
+	public void shouldCompileNestedSpecifications() {
+		TransformationPlan plan = new TransformationSpecification() {
+
+			@Override
+			protected void specify() {
+				applySpecification(new CountingSpecification(new AtomicInteger()));
+				applyCustomVisitorFrom(() -> new UniformChainedJsonVisitor<Void>() {
+
+					@Override
+					protected Number beforeVisitValue(final Number value) {
+						return value.intValue() + 1;
+					}
+				});
+			}
+		}.compile();
+
+		assertEquals(Jetro.transform(String.format(SOURCE, 1, 1)).applying(plan).andReturnAsJson(),
+				String.format(RESULT, 2, 1, 1));
+	}
+
+	@Test
+	public void shouldKeepRenderingNullValuesAsCompiled() {
+		TransformationSpecification nested = new TransformationSpecification() {
+
+			@Override
+			protected void specify() {
+				setRenderNullValues(true);
+				at("$").addJsonProperty("inner", (String) null);
+			}
+		};
+		TransformationSpecification specification = new TransformationSpecification() {
+
+			@Override
+			protected void specify() {
+				at("$").addJsonProperty("outer", (String) null);
+				applySpecification(nested);
+			}
+		};
+		TransformationPlan plan = specification.compile();
+		nested.setRenderNullValues(false);
+		specification.setRenderNullValues(true);
+
+		assertEquals(Jetro.transform("{\"id\":1}").applying(plan).andReturnAsJson(),
+				"{\"id\":1,\"inner\":null}");
+		assertEquals(Jetro.transform("{\"id\":1}").applying(specification).andReturnAsJson(),
+				"{\"id\":1,\"outer\":null}");
+	}
+
+	@Test(expectedExceptions = IllegalStateException.class,
+			groups = "negativeTests")
+	public void shouldNotCompileCustomVisitorInstance() {
+		new TransformationSpecification() {
+
+			@Override
+			protected void specify() {
+				applyCustomVisitor(new ChainedJsonVisitor<Void>() {});
+			}
+		}.compile();
+	}
+
+	private static final class CountingSpecification extends TransformationSpecification {
+		private final AtomicInteger specified;
+
+		private CountingSpecification(final AtomicInteger specified) {
+			this.specified = specified;
+		}
+
+		@Override
+		protected void specify() {
+			specified.incrementAndGet();
+			remove("$.secret");
+			renameProperties("name").to("label");
+			capture("$.label").edit((JsonString name) ->
+					new JsonString(name.getValue().toUpperCase())).andSaveAs("upper");
+			at("$").addJsonPropertyFromVariable("copy", "upper");
+		}
+	}
+}
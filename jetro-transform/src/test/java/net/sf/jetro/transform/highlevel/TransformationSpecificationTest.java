@@ -1,8 +1,15 @@
 package net.sf.jetro.transform.highlevel;
 
+import static org.testng.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
 import org.testng.annotations.Test;
 
 import net.sf.jetro.path.JsonPath;
+import net.sf.jetro.transform.Jetro;
+import net.sf.jetro.visitor.JsonObjectVisitor;
 
 public class TransformationSpecificationTest {	
 	private static final TransformationSpecification SPECIFICATION =
@@ -104,4 +111,73 @@ public class TransformationSpecificationTest {
 	public void shouldThrowExceptionApplyingNullSpecification() {
 		SPECIFICATION.applySpecification(null);
 	}	
+
+	@Test
+	public void shouldCollectKnownNamesIncludingNestedSpecifications() {
+		TransformationSpecification specification = new TransformationSpecification() {
+			
+			@Override
+			protected void specify() {
+				at("$.first[*].second");
+				keep("$.*.third");
+				renameProperties("fourth").to("renamed");
+				applySpecification(new TransformationSpecification() {
+					
+					@Override
+					protected void specify() {
+						remove("$.fifth");
+					}
+				});
+			}
+		};
+		
+		assertEquals(specification.getKnownNames(), new LinkedHashSet<>(
+				Arrays.asList("first", "second", "third", "fourth", "fifth")));
+	}
+
+	@Test
+	public void shouldKeepVariablesPerChain() {
+		TransformationSpecification specification = new TransformationSpecification() {
+			
+			@Override
+			protected void specify() {
+				applySpecification(new TransformationSpecification() {
+					
+					@Override
+					protected void specify() {
+						capture("$.id").andSaveAs("id");
+					}
+				});
+				at("$").addJsonPropertyFromVariable("copy", "id");
+			}
+		};
+		
+		// a chain of the same thread that captured a value, but hasn't ended yet
+		JsonObjectVisitor<Void> unfinished = specification.toChainedJsonVisitor().visitObject();
+		unfinished.visitProperty("id");
+		unfinished.visitValue("other");
+		
+		assertEquals(Jetro.transform("{}").applying(specification).andReturnAsJson(), "{}");
+		assertEquals(Jetro.transform("{\"id\":\"own\"}").applying(specification).andReturnAsJson(),
+				"{\"id\":\"own\",\"copy\":\"own\"}");
+	}
+
+	@Test
+	public void shouldMatchAllPathsByOneMatcher() {
+		TransformationSpecification specification = new TransformationSpecification() {
+			
+			@Override
+			protected void specify() {
+				capture("$.a").andSaveAs("a");
+				at("$.b").replaceWithFromVariable("a");
+				at("$.c[-]").addJsonValue(1);
+				remove("$.d?.e");
+			}
+		};
+		
+		assertEquals(Jetro.transform("{\"a\":0,\"b\":1,\"c\":[2],\"d\":{\"e\":3},\"e\":4}")
+				.applying(specification).andReturnAsJson(), "{\"a\":0,\"b\":0,\"c\":[2,1],\"d\":{},\"e\":4}");
+		assertEquals(specification.getPathMatcher().size(), 5);
+		assertEquals(specification.getPathMatcher().indexOf(JsonPath.compile("$.c")), 3);
+	}
 }
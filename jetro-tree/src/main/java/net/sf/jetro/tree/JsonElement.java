@@ -19,8 +19,13 @@
  */
 package net.sf.jetro.tree;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
 
+import net.sf.jetro.tree.renderer.DefaultJsonRenderer;
 import net.sf.jetro.tree.renderer.JsonRenderer;
 import net.sf.jetro.visitor.JsonVisitor;
 
@@ -32,5 +37,77 @@ public interface JsonElement extends Serializable {
 
 	String toJson(JsonRenderer renderer);
 
+	/**
+	 * Writes the JSON of this element to the given writer as it is rendered,
+	 * without holding the whole document in memory. The writer is not
+	 * flushed or closed; it should be buffered.
+	 *
+	 * @param target the writer to write to
+	 * @throws IOException if writing fails
+	 */
+	default void writeTo(Writer target) throws IOException {
+		writeTo(target, new DefaultJsonRenderer());
+	}
+
+	/**
+	 * Writes the JSON of this element rendered by the given renderer to the
+	 * given writer. The writer is not flushed or closed.
+	 *
+	 * @param target the writer to write to
+	 * @param renderer the renderer to render with
+	 * @throws IOException if writing fails
+	 */
+	default void writeTo(Writer target, JsonRenderer renderer) throws IOException {
+		renderer.render(this, target);
+	}
+
+	/**
+	 * Writes the UTF-8 encoded JSON of this element to the given stream as it
+	 * is rendered, without holding the whole document in memory. The stream
+	 * is flushed, but not closed.
+	 *
+	 * @param target the stream to write to
+	 * @throws IOException if writing fails
+	 */
+	default void writeTo(OutputStream target) throws IOException {
+		writeTo(target, new DefaultJsonRenderer());
+	}
+
+	/**
+	 * Writes the UTF-8 encoded JSON of this element rendered by the given
+	 * renderer to the given stream. The stream is flushed, but not closed.
+	 *
+	 * @param target the stream to write to
+	 * @param renderer the renderer to render with
+	 * @throws IOException if writing fails
+	 */
+	default void writeTo(OutputStream target, JsonRenderer renderer) throws IOException {
+		renderer.render(this, target);
+	}
+
+	/**
+	 * Writes the UTF-8 encoded JSON of this element to the given channel as
+	 * it is rendered, without holding the whole document in memory. The
+	 * channel is not closed.
+	 *
+	 * @param target the channel to write to
+	 * @throws IOException if writing fails
+	 */
+	default void writeTo(WritableByteChannel target) throws IOException {
+		writeTo(target, new DefaultJsonRenderer());
+	}
+
+	/**
+	 * Writes the UTF-8 encoded JSON of this element rendered by the given
+	 * renderer to the given channel. The channel is not closed.
+	 *
+	 * @param target the channel to write to
+	 * @param renderer the renderer to render with
+	 * @throws IOException if writing fails
+	 */
+	default void writeTo(WritableByteChannel target, JsonRenderer renderer) throws IOException {
+		renderer.render(this, target);
+	}
+
 	void mergeInto(JsonVisitor<?> visitor);
 }
\ No newline at end of file
@@ -19,6 +19,10 @@
  */
 package net.sf.jetro.tree;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
@@ -100,6 +104,21 @@ public abstract class JsonPrimitive<T> implements JsonType {
 		return renderer.render(this);
 	}
 
+	@Override
+	public void writeTo(final Writer target) throws IOException {
+		writeTo(target, new DefaultJsonRenderer(new RenderContext().setLenient(true)));
+	}
+
+	@Override
+	public void writeTo(final OutputStream target) throws IOException {
+		writeTo(target, new DefaultJsonRenderer(new RenderContext().setLenient(true)));
+	}
+
+	@Override
+	public void writeTo(final WritableByteChannel target) throws IOException {
+		writeTo(target, new DefaultJsonRenderer(new RenderContext().setLenient(true)));
+	}
+
 	@Override
 	public void mergeInto(JsonVisitor<?> visitor) {
 		JsonElementVisitingReader reader = new JsonElementVisitingReader(this);
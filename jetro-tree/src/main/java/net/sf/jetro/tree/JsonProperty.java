@@ -25,6 +25,10 @@ import net.sf.jetro.tree.renderer.JsonRenderer;
 import net.sf.jetro.tree.visitor.JsonElementVisitingReader;
 import net.sf.jetro.visitor.JsonVisitor;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
 import java.util.Map.Entry;
 import java.util.Objects;
 
@@ -95,6 +99,21 @@ public final class JsonProperty implements JsonElement, Entry<String, JsonType>
 		return renderer.render(this);
 	}
 
+	@Override
+	public void writeTo(final Writer target) throws IOException {
+		writeTo(target, new DefaultJsonRenderer(new RenderContext().setLenient(true)));
+	}
+
+	@Override
+	public void writeTo(final OutputStream target) throws IOException {
+		writeTo(target, new DefaultJsonRenderer(new RenderContext().setLenient(true)));
+	}
+
+	@Override
+	public void writeTo(final WritableByteChannel target) throws IOException {
+		writeTo(target, new DefaultJsonRenderer(new RenderContext().setLenient(true)));
+	}
+
 	@Override
 	public void mergeInto(JsonVisitor<?> visitor) {
 		JsonElementVisitingReader reader = new JsonElementVisitingReader(this);
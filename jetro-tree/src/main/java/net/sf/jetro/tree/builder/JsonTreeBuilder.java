@@ -20,19 +20,38 @@
 package net.sf.jetro.tree.builder;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import net.sf.jetro.context.ReaderContext;
+import net.sf.jetro.path.ArrayIndexPathElement;
+import net.sf.jetro.path.JsonPath;
 import net.sf.jetro.stream.JsonReader;
+import net.sf.jetro.stream.JsonTokenReader;
+import net.sf.jetro.stream.Utf8JsonReader;
+import net.sf.jetro.stream.visitor.ParallelArrayVisitingReader;
 import net.sf.jetro.stream.visitor.StreamVisitingReader;
+import net.sf.jetro.tree.JsonArray;
+import net.sf.jetro.tree.JsonCollection;
 import net.sf.jetro.tree.JsonElement;
+import net.sf.jetro.tree.JsonType;
 import net.sf.jetro.tree.VirtualJsonRoot;
 import net.sf.jetro.tree.visitor.JsonTreeBuildingVisitor;
 import net.sf.jetro.visitor.JsonVisitor;
 import net.sf.jetro.visitor.chained.ChainedJsonVisitor;
 
 public class JsonTreeBuilder {
-	private boolean lenient;
+	private final ReaderContext context;
 	
 	/**
 	 * Creates a JsonTreeBuilder with lenient set to false.
@@ -42,7 +61,22 @@ public class JsonTreeBuilder {
 	}
 
 	public JsonTreeBuilder(final boolean lenient) {
-		this.lenient = lenient;
+		this(new ReaderContext().setLenient(lenient));
+	}
+
+	/**
+	 * Creates a JsonTreeBuilder whose readers are configured by the given
+	 * {@link ReaderContext}.
+	 * 
+	 * @param context the context to configure the readers with
+	 * @throws IllegalArgumentException if context is null
+	 */
+	public JsonTreeBuilder(final ReaderContext context) {
+		if (context == null) {
+			throw new IllegalArgumentException("context must not be null");
+		}
+
+		this.context = context;
 	}
 
 	public JsonElement build(final String json) {
@@ -68,9 +102,182 @@ public class JsonTreeBuilder {
 	}
 	
 	public JsonElement build(final Reader in, ChainedJsonVisitor<?>... transformers) {
-		JsonReader reader = new JsonReader(in);
-		reader.setLenient(lenient);
+		return build(new JsonReader(in, context), transformers);
+	}
+
+	/**
+	 * Builds a tree from the UTF-8 encoded JSON document read from the given
+	 * {@link InputStream}. The document is parsed directly from its bytes.
+	 *
+	 * @param in the InputStream to read the JSON document from
+	 * @return the root of the tree built
+	 */
+	public JsonElement build(final InputStream in) {
+		return build(in, (ChainedJsonVisitor<?>[]) null);
+	}
+
+	public JsonElement build(final InputStream in, ChainedJsonVisitor<?>... transformers) {
+		return build(new Utf8JsonReader(in, context), transformers);
+	}
+
+	/**
+	 * Builds a tree from the UTF-8 encoded JSON file at the given {@link Path}.
+	 * The file is memory mapped and parsed directly from its bytes.
+	 *
+	 * @param file the path of the JSON file
+	 * @return the root of the tree built
+	 */
+	public JsonElement build(final Path file) {
+		return build(file, (ChainedJsonVisitor<?>[]) null);
+	}
+
+	public JsonElement build(final Path file, ChainedJsonVisitor<?>... transformers) {
+		if (file == null) {
+			throw new IllegalArgumentException("file must not be null");
+		}
+
+		Utf8JsonReader reader;
+		try {
+			reader = new Utf8JsonReader(FileChannel.open(file, StandardOpenOption.READ), context);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		return build(reader, transformers);
+	}
+
+	/**
+	 * Builds a tree for each top-level value (record) read from the given
+	 * {@link Reader}, as found in JSON Lines (NDJSON) files or concatenated
+	 * JSON documents. The records are read lazily while the returned stream is
+	 * consumed. The transformers, if any, are chained once and reused for all
+	 * records. Closing the stream closes the Reader.
+	 *
+	 * @param in the Reader to read the records from
+	 * @param transformers the transformers to apply to each record
+	 * @return a sequential stream of the record trees
+	 */
+	public Stream<JsonElement> buildRecords(final Reader in, ChainedJsonVisitor<?>... transformers) {
+		return buildRecords(new JsonReader(in, context), transformers);
+	}
+
+	/**
+	 * Builds a tree for each top-level value (record) read from the given UTF-8
+	 * encoded {@link InputStream}. See {@link #buildRecords(Reader, ChainedJsonVisitor...)}.
+	 *
+	 * @param in the InputStream to read the records from
+	 * @param transformers the transformers to apply to each record
+	 * @return a sequential stream of the record trees
+	 */
+	public Stream<JsonElement> buildRecords(final InputStream in, ChainedJsonVisitor<?>... transformers) {
+		return buildRecords(new Utf8JsonReader(in, context), transformers);
+	}
+
+	/**
+	 * Builds the tree of a single, huge top-level array read from the given
+	 * UTF-8 encoded {@link InputStream}, parsing its elements in parallel in
+	 * the common {@link ForkJoinPool}. See {@link ParallelArrayVisitingReader}.
+	 *
+	 * @param in the InputStream to read the array from
+	 * @return the array built
+	 */
+	public JsonArray buildArrayInParallel(final InputStream in) {
+		return buildArrayInParallel(new ParallelArrayVisitingReader(in, context));
+	}
+
+	/**
+	 * Builds the tree of a single, huge top-level array read from the UTF-8
+	 * encoded JSON file at the given {@link Path}, parsing its elements in
+	 * parallel in the common {@link ForkJoinPool}. See
+	 * {@link ParallelArrayVisitingReader}.
+	 *
+	 * @param file the path of the JSON file
+	 * @return the array built
+	 * @throws RuntimeException wrapping the IOException if the file can't be
+	 * opened
+	 */
+	public JsonArray buildArrayInParallel(final Path file) {
+		try {
+			return buildArrayInParallel(new ParallelArrayVisitingReader(file, context));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Builds the tree of the top-level array read by the given
+	 * {@link ParallelArrayVisitingReader}, which is closed afterwards. This
+	 * allows to choose the pool and the chunk size.
+	 *
+	 * @param reader the reader to read the array with
+	 * @return the array built
+	 * @throws IllegalArgumentException if reader is null
+	 * @throws RuntimeException wrapping the IOException if the reader can't
+	 * be closed
+	 */
+	public JsonArray buildArrayInParallel(final ParallelArrayVisitingReader reader) {
+		if (reader == null) {
+			throw new IllegalArgumentException("reader must not be null");
+		}
+
+		JsonArray array = new JsonArray();
+
+		try (ParallelArrayVisitingReader visitingReader = reader) {
+			visitingReader.accept(ChunkBuildingVisitor::new, chunk -> array.addAll((JsonArray) chunk));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		return array;
+	}
+
+	/**
+	 * Builds the tree of a chunk of array elements, giving the elements the
+	 * paths they have in the complete array.
+	 */
+	private static final class ChunkBuildingVisitor extends JsonTreeBuildingVisitor {
+		private final int firstIndex;
+
+		private ChunkBuildingVisitor(final long firstIndex) {
+			this.firstIndex = (int) firstIndex;
+		}
+
+		@Override
+		protected JsonElement afterGetVisitingResult(final JsonElement element) {
+			JsonArray chunk = (JsonArray) super.afterGetVisitingResult(element);
+
+			for (int i = 0; i < chunk.size(); i++) {
+				JsonType chunkElement = chunk.get(i);
+				chunkElement.resetPaths();
+				chunkElement.addPath(new JsonPath().append(new ArrayIndexPathElement(firstIndex + i)));
+
+				if (chunkElement instanceof JsonCollection) {
+					((JsonCollection) chunkElement).recalculateTreePaths(false);
+				}
+			}
+
+			return chunk;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Stream<JsonElement> buildRecords(final JsonTokenReader reader,
+			ChainedJsonVisitor<?>[] transformers) {
+		StreamVisitingReader visitingReader = new StreamVisitingReader(reader);
+		JsonVisitor<?> visitor = buildTransformerChain(transformers, new JsonTreeBuildingVisitor());
+		Iterator<JsonElement> records = (Iterator<JsonElement>) visitingReader.records(visitor);
+
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records,
+				Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(() -> {
+					try {
+						visitingReader.close();
+					} catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+				});
+	}
 
+	private JsonElement build(final JsonTokenReader reader, ChainedJsonVisitor<?>[] transformers) {
 		StreamVisitingReader visitingReader = new StreamVisitingReader(reader);
 		JsonTreeBuildingVisitor treeBuildingVisitor = new JsonTreeBuildingVisitor();
 		JsonVisitor<?> visitor = buildTransformerChain(transformers, treeBuildingVisitor);
@@ -88,7 +295,7 @@ public class JsonTreeBuilder {
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	private JsonVisitor<?> buildTransformerChain(final ChainedJsonVisitor<?>[] transformers,
 			final JsonTreeBuildingVisitor jsonTreeBuildingVisitor) {
-		if (transformers == null) {
+		if (transformers == null || transformers.length == 0) {
 			return jsonTreeBuildingVisitor;
 		}
 		
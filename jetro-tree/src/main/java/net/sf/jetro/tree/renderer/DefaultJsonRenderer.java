@@ -7,9 +7,9 @@
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
  * You may obtain a copy of the License at
- * 
+ *
  *      http://www.apache.org/licenses/LICENSE-2.0
- * 
+ *
  * Unless required by applicable law or agreed to in writing, software
  * distributed under the License is distributed on an "AS IS" BASIS,
  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
@@ -19,13 +19,40 @@
  */
 package net.sf.jetro.tree.renderer;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.function.Function;
+
 import net.sf.jetro.context.RenderContext;
-import net.sf.jetro.stream.visitor.JsonReturningVisitor;
+import net.sf.jetro.stream.JsonGenerator;
+import net.sf.jetro.stream.Utf8JsonWriter;
+import net.sf.jetro.stream.visitor.JsonIOException;
+import net.sf.jetro.stream.visitor.JsonWritingVisitor;
 import net.sf.jetro.tree.JsonElement;
 import net.sf.jetro.tree.VirtualJsonRoot;
 import net.sf.jetro.tree.visitor.JsonElementVisitingReader;
 
+/**
+ * Renders JSON elements with the settings of a {@link RenderContext}.
+ * <p>
+ * Elements are rendered in a single pass straight to the target, the children
+ * of a {@link VirtualJsonRoot} one after the other, separated by commas. When
+ * rendering to a String, the chars are collected in a buffer kept per thread,
+ * as are the bytes when rendering to an {@link OutputStream} or a
+ * {@link WritableByteChannel}, so rendering many small elements creates
+ * little more than the resulting Strings, and rendering a huge element to a
+ * stream or channel needs no more memory than the buffer.
+ *
+ * @author Matthias Rothe
+ */
 public class DefaultJsonRenderer implements JsonRenderer {
+	/** Larger buffers are dropped after use rather than kept per thread. */
+	private static final int MAX_POOLED_BUFFER_SIZE = 1 << 16;
+
+	private static final ThreadLocal<StringBuilder> CHAR_BUFFERS = new ThreadLocal<>();
+	private static final ThreadLocal<byte[]> BYTE_BUFFERS = new ThreadLocal<>();
+
 	private RenderContext context;
 
 	public DefaultJsonRenderer() {
@@ -42,30 +69,146 @@ public class DefaultJsonRenderer implements JsonRenderer {
 
 	@Override
 	public String render(final JsonElement element) {
-		if (element instanceof VirtualJsonRoot) {
-			VirtualJsonRoot rootElement = (VirtualJsonRoot) element;
+		// the buffer is taken from the pool while in use, so nested rendering gets a buffer of its own
+		StringBuilder buffer = CHAR_BUFFERS.get();
 
-			StringBuilder renderingResult = new StringBuilder();
-			String separator = shouldPrettyPrint() ? ",\n" : ",";
+		if (buffer == null) {
+			buffer = new StringBuilder(1024);
+		} else {
+			CHAR_BUFFERS.set(null);
+		}
 
-			for (JsonElement childElement : rootElement) {
-				renderingResult.append(renderInternal(childElement)).append(separator);
+		try {
+			render(element, buffer);
+			return buffer.toString();
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		} finally {
+			if (buffer.capacity() <= MAX_POOLED_BUFFER_SIZE) {
+				buffer.setLength(0);
+				CHAR_BUFFERS.set(buffer);
 			}
+		}
+	}
+
+	/**
+	 * Renders the given element to the given target.
+	 *
+	 * @param element the element to render
+	 * @param target the target to append the JSON to
+	 * @throws IOException if appending to the target fails
+	 */
+	@Override
+	public void render(final JsonElement element, final Appendable target) throws IOException {
+		if (element == null) {
+			throw new IllegalArgumentException("element must not be null");
+		}
+
+		if (target == null) {
+			throw new IllegalArgumentException("target must not be null");
+		}
+
+		JsonGenerator generator = new JsonGenerator(target);
+		configure(generator);
+		render(element, generator);
+	}
+
+	/**
+	 * Renders the given element UTF-8 encoded to the given stream. The stream
+	 * is flushed, but not closed.
+	 *
+	 * @param element the element to render
+	 * @param target the stream to write the JSON to
+	 * @throws IOException if writing to the stream fails
+	 */
+	@Override
+	public void render(final JsonElement element, final OutputStream target) throws IOException {
+		if (target == null) {
+			throw new IllegalArgumentException("target must not be null");
+		}
+
+		render(element, buffer -> new Utf8JsonWriter(target, buffer));
+	}
 
-			return renderingResult.substring(0, renderingResult.length() - 1);
+	/**
+	 * Renders the given element UTF-8 encoded to the given channel. The
+	 * channel is not closed.
+	 *
+	 * @param element the element to render
+	 * @param target the channel to write the JSON to
+	 * @throws IOException if writing to the channel fails
+	 */
+	@Override
+	public void render(final JsonElement element, final WritableByteChannel target) throws IOException {
+		if (target == null) {
+			throw new IllegalArgumentException("target must not be null");
+		}
+
+		render(element, buffer -> new Utf8JsonWriter(target, buffer));
+	}
+
+	private void render(final JsonElement element, final Function<byte[], Utf8JsonWriter> writers)
+			throws IOException {
+		if (element == null) {
+			throw new IllegalArgumentException("element must not be null");
+		}
+
+		byte[] buffer = BYTE_BUFFERS.get();
+
+		if (buffer == null) {
+			buffer = new byte[Utf8JsonWriter.DEFAULT_BUFFER_SIZE];
 		} else {
-			return renderInternal(element);
+			BYTE_BUFFERS.set(null);
+		}
+
+		try {
+			// the writer isn't closed, as that would close the target
+			Utf8JsonWriter writer = writers.apply(buffer);
+			configure(writer);
+			render(element, writer);
+			writer.flush();
+		} finally {
+			BYTE_BUFFERS.set(buffer);
+		}
+	}
+
+	private void render(final JsonElement element, final JsonGenerator generator) throws IOException {
+		JsonWritingVisitor visitor = new JsonWritingVisitor(generator);
+
+		try {
+			if (element instanceof VirtualJsonRoot) {
+				String separator = shouldPrettyPrint() ? ",\n" : ",";
+				boolean first = true;
+
+				for (JsonElement childElement : (VirtualJsonRoot) element) {
+					if (!first) {
+						// each child is a document of its own
+						generator.nextDocument(separator);
+					}
+
+					new JsonElementVisitingReader(childElement).accept(visitor);
+					first = false;
+				}
+			} else {
+				new JsonElementVisitingReader(element).accept(visitor);
+			}
+		} catch (JsonIOException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+
+			throw e;
 		}
 	}
 
-	private String renderInternal(final JsonElement element) {
-		JsonElementVisitingReader visitingReader = new JsonElementVisitingReader(element);
-		JsonReturningVisitor returningVisitor = new JsonReturningVisitor(context);
-		visitingReader.accept(returningVisitor);
-		return returningVisitor.getVisitingResult();
+	private void configure(final JsonGenerator generator) {
+		generator.setHtmlSafe(context.isHtmlSafe());
+		generator.setIndent(context.getIndent());
+		generator.setLenient(context.isLenient());
+		generator.setSerializeNulls(context.isSerializeNulls());
 	}
 
 	private boolean shouldPrettyPrint() {
 		return context.getIndent() != null && !context.getIndent().equals("");
 	}
-}
\ No newline at end of file
+}
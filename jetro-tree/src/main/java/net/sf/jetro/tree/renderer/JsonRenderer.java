@@ -19,9 +19,57 @@
  */
 package net.sf.jetro.tree.renderer;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 
 import net.sf.jetro.tree.JsonElement;
 
 public interface JsonRenderer {
 	String render(JsonElement element);
+
+	/**
+	 * Renders the given element to the given target. Implementations should
+	 * override this to append the JSON as it is rendered, the default appends
+	 * the String returned by {@link #render(JsonElement)}.
+	 *
+	 * @param element the element to render
+	 * @param target the target to append the JSON to
+	 * @throws IOException if appending to the target fails
+	 */
+	default void render(JsonElement element, Appendable target) throws IOException {
+		target.append(render(element));
+	}
+
+	/**
+	 * Renders the given element UTF-8 encoded to the given stream. The stream
+	 * is flushed, but not closed. The default encodes the chars appended by
+	 * {@link #render(JsonElement, Appendable)}.
+	 *
+	 * @param element the element to render
+	 * @param target the stream to write the JSON to
+	 * @throws IOException if writing to the stream fails
+	 */
+	default void render(JsonElement element, OutputStream target) throws IOException {
+		Writer writer = new OutputStreamWriter(target, StandardCharsets.UTF_8);
+		render(element, writer);
+		writer.flush();
+	}
+
+	/**
+	 * Renders the given element UTF-8 encoded to the given channel. The
+	 * channel is not closed. The default writes to a stream on the channel
+	 * by {@link #render(JsonElement, OutputStream)}.
+	 *
+	 * @param element the element to render
+	 * @param target the channel to write the JSON to
+	 * @throws IOException if writing to the channel fails
+	 */
+	default void render(JsonElement element, WritableByteChannel target) throws IOException {
+		render(element, Channels.newOutputStream(target));
+	}
 }
\ No newline at end of file
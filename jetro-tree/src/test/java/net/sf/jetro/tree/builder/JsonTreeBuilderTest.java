@@ -21,11 +21,18 @@ package net.sf.jetro.tree.builder;
 
 import static org.testng.Assert.assertEquals;
 
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.testng.annotations.Test;
 
-import net.sf.jetro.stream.visitor.LazilyParsedNumber;
+import net.sf.jetro.path.JsonPath;
+import net.sf.jetro.stream.visitor.ParallelArrayVisitingReader;
 import net.sf.jetro.tree.JsonArray;
 import net.sf.jetro.tree.JsonBoolean;
 import net.sf.jetro.tree.JsonElement;
@@ -48,7 +55,7 @@ public class JsonTreeBuilderTest {
 		expected.add(new JsonProperty("foo", new JsonNull()));
 		expected.add(new JsonProperty("bar", new JsonArray(Arrays.asList(
 				new JsonBoolean(true), new JsonString("hello"),
-				new JsonNumber(new LazilyParsedNumber("2"))))));
+				new JsonNumber(2L)))));
 		
 		assertEquals(actual, expected);
 	}
@@ -68,4 +75,39 @@ public class JsonTreeBuilderTest {
 		
 		assertEquals(actual, expected);
 	}
-}
\ No newline at end of file
+	
+	@Test
+	public void shouldBuildRecords() {
+		String json = "{\"id\":1,\"tags\":[\"0\"]}\n{\"id\":2,\"tags\":[]}\n\n[\"0\"]\n";
+		
+		JsonTreeBuilder builder = new JsonTreeBuilder();
+		List<String> actual;
+		
+		try (Stream<JsonElement> records = builder.buildRecords(new StringReader(json),
+				new StringValueTransformingVisitor("1"))) {
+			actual = records.map(JsonElement::toJson).collect(Collectors.toList());
+		}
+		
+		assertEquals(actual, Arrays.asList("{\"id\":1,\"tags\":[\"01\"]}", "{\"id\":2,\"tags\":[]}",
+				"[\"01\"]"));
+	}
+
+	@Test
+	public void shouldBuildArrayInParallel() {
+		StringBuilder json = new StringBuilder("[");
+		
+		for (int i = 0; i < 500; i++) {
+			json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"tags\":[\"").append(i)
+					.append("\"]}");
+		}
+		json.append("]");
+		
+		JsonArray expected = (JsonArray) new JsonTreeBuilder().build(json.toString());
+		JsonArray actual = new JsonTreeBuilder().buildArrayInParallel(new ParallelArrayVisitingReader(
+				new ByteArrayInputStream(json.toString().getBytes(StandardCharsets.UTF_8))).setChunkSize(100));
+		
+		assertEquals(actual, expected);
+		assertEquals(actual.toJson(), json.toString());
+		assertEquals(actual.getElementAt(JsonPath.compile("$[321].tags[0]")).get(), new JsonString("321"));
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * #%L
+ * Jetro Tree
+ * %%
+ * Copyright (C) 2013 - 2016 The original author or authors.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package net.sf.jetro.tree.renderer;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import net.sf.jetro.context.RenderContext;
+import net.sf.jetro.tree.JsonArray;
+import net.sf.jetro.tree.JsonNumber;
+import net.sf.jetro.tree.JsonObject;
+import net.sf.jetro.tree.JsonProperty;
+import net.sf.jetro.tree.JsonString;
+import net.sf.jetro.tree.VirtualJsonRoot;
+import org.testng.annotations.Test;
+
+public class DefaultJsonRendererTest {
+
+	@Test
+	public void shouldRenderChildrenOfVirtualRootSeparatedByCommas() {
+		assertEquals(new DefaultJsonRenderer().render(virtualRoot()), "[1],{\"a\":\"b\"},[]");
+		assertEquals(new DefaultJsonRenderer(new RenderContext().setIndent("  ")).render(virtualRoot()),
+				"[\n  1\n],\n{\n  \"a\": \"b\"\n},\n[]");
+	}
+
+	@Test
+	public void shouldRenderEmptyVirtualRoot() {
+		assertEquals(new DefaultJsonRenderer().render(new VirtualJsonRoot()), "");
+	}
+
+	@Test
+	public void shouldRenderToAppendable() throws IOException {
+		StringBuilder target = new StringBuilder("prefix ");
+		new DefaultJsonRenderer().render(virtualRoot(), target);
+
+		assertEquals(target.toString(), "prefix [1],{\"a\":\"b\"},[]");
+	}
+
+	@Test
+	public void shouldRenderToOutputStream() throws IOException {
+		JsonObject object = new JsonObject();
+		object.add(new JsonProperty("text", "äöü € <&>"));
+
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+		new DefaultJsonRenderer(new RenderContext().setHtmlSafe(true)).render(object, target);
+		new DefaultJsonRenderer().render(virtualRoot(), target);
+
+		assertEquals(target.toString("UTF-8"),
+				"{\"text\":\"äöü € \\u003c\\u0026\\u003e\"}[1],{\"a\":\"b\"},[]");
+	}
+
+	@Test
+	public void shouldWriteElementsTo() throws IOException {
+		JsonObject object = new JsonObject();
+		object.add(new JsonProperty("a", "ä"));
+
+		StringWriter writer = new StringWriter();
+		object.writeTo(writer);
+		new JsonString("primitive").writeTo(writer);
+		assertEquals(writer.toString(), "{\"a\":\"ä\"}\"primitive\"");
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		object.writeTo(stream);
+		object.writeTo(Channels.newChannel(stream));
+		new JsonNumber(42).writeTo(Channels.newChannel(stream));
+		assertEquals(stream.toString("UTF-8"), "{\"a\":\"ä\"}{\"a\":\"ä\"}42");
+	}
+
+	@Test
+	public void shouldWriteToWithRendererReturningStrings() throws IOException {
+		JsonRenderer renderer = element -> "rendered";
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		new JsonObject().writeTo(stream, renderer);
+		new JsonObject().writeTo(Channels.newChannel(stream), renderer);
+
+		assertEquals(stream.toString("UTF-8"), "renderedrendered");
+	}
+
+	@Test
+	public void shouldRenderWhileRendering() {
+		JsonObject object = new JsonObject();
+		object.add(new JsonProperty("nested", new JsonArray(Arrays.asList(new JsonNumber(1))).toJson()));
+
+		assertEquals(new DefaultJsonRenderer().render(object), "{\"nested\":\"[1]\"}");
+	}
+
+	private VirtualJsonRoot virtualRoot() {
+		JsonObject object = new JsonObject();
+		object.add(new JsonProperty("a", "b"));
+
+		VirtualJsonRoot root = new VirtualJsonRoot();
+		root.add(new JsonArray(Arrays.asList(new JsonNumber(1))));
+		root.add(object);
+		root.add(new JsonArray());
+		return root;
+	}
+}
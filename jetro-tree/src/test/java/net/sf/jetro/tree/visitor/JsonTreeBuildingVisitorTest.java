@@ -27,7 +27,6 @@ import java.util.Arrays;
 import org.testng.annotations.Test;
 
 import net.sf.jetro.stream.JsonReader;
-import net.sf.jetro.stream.visitor.LazilyParsedNumber;
 import net.sf.jetro.stream.visitor.StreamVisitingReader;
 import net.sf.jetro.tree.JsonArray;
 import net.sf.jetro.tree.JsonBoolean;
@@ -59,7 +58,7 @@ public class JsonTreeBuildingVisitorTest {
 		expected.add(new JsonProperty("foo", new JsonNull()));
 		expected.add(new JsonProperty("bar", new JsonArray(Arrays.asList(
 				new JsonBoolean(true), new JsonString("hello"),
-				new JsonNumber(new LazilyParsedNumber("2"))))));
+				new JsonNumber(2L)))));
 
 		assertEquals(actual, expected);
 	}